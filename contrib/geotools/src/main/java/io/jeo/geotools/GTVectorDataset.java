@@ -15,6 +15,7 @@
 package io.jeo.geotools;
 
 import io.jeo.data.Driver;
+import io.jeo.data.Sort;
 import io.jeo.geom.Bounds;
 import io.jeo.util.Key;
 import io.jeo.util.Optional;
@@ -33,6 +34,8 @@ import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.type.GeometryDescriptor;
 import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
 import java.io.IOException;
@@ -151,12 +154,25 @@ public class GTVectorDataset implements VectorDataset {
                 qp.fields();
             }
 
-            if (q.limit() != null) {
+            if (q.isSorted()) {
+                SortBy[] sortBy = new SortBy[q.sort().size()];
+                for (int i = 0; i < sortBy.length; i++) {
+                    Sort s = q.sort().get(i);
+                    sortBy[i] = GT.filterFactory.sort(s.getProperty(),
+                        s.isAscending() ? SortOrder.ASCENDING : SortOrder.DESCENDING);
+                }
+                if (source.getQueryCapabilities().supportsSorting(sortBy)) {
+                    gtq.setSortBy(sortBy);
+                    qp.sorted();
+                }
+            }
+
+            if (q.limit() != null && qp.canPage()) {
                 gtq.setMaxFeatures(q.limit());
                 qp.limited();
             }
 
-            if (q.offset() != null) {
+            if (q.offset() != null && qp.canPage()) {
                 gtq.setStartIndex(q.offset());
                 qp.offsetted();
             }
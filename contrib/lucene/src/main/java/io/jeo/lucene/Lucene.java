@@ -107,7 +107,7 @@ public class Lucene extends FileVectorDriver<LuceneDataset> {
         return null;
     }
 
-    static Set<Capability> CAPABILITIES = set(BOUND, FILTER, LIMIT);
+    static Set<Capability> CAPABILITIES = set(BOUND, FILTER, LIMIT, SORT);
 
     @Override
     public Set<Capability> capabilities() {
@@ -30,16 +30,21 @@ import io.jeo.vector.ListFeature;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.spatial.query.SpatialArgs;
 import org.apache.lucene.spatial.query.SpatialOperation;
@@ -138,7 +143,9 @@ public class LuceneDataset implements VectorDataset, FileData {
 
             if (q.isFiltered()) {
                 if (!qp.isFiltered()) {
-                    // can't optimize
+                    // can't optimize, order is irrelevant to the count
+                    qp.sorted();
+                    qp.limited();
                     return qp.apply(cursor(lq, q.limit())).count();
                 }
             }
@@ -149,7 +156,11 @@ public class LuceneDataset implements VectorDataset, FileData {
     }
 
     public FeatureCursor cursor(Query lq, Integer n) throws IOException {
-        Pair<TopDocs,IndexSearcher> result = search(lq, n);
+        return cursor(lq, n, null);
+    }
+
+    public FeatureCursor cursor(Query lq, Integer n, Sort sort) throws IOException {
+        Pair<TopDocs,IndexSearcher> result = search(lq, n, sort);
         return new LuceneCursor(result.first, result.second, this);
     }
 
@@ -165,7 +176,17 @@ public class LuceneDataset implements VectorDataset, FileData {
             lq = createQuery(q, qp);
         }
 
-        return qp.apply(cursor(lq, q.limit()));
+        Sort sort = createSort(q, qp);
+
+        // top n can only be used if the sort is native
+        Integer limit = null;
+        if (qp.canPage()) {
+            limit = q.limit();
+            qp.limited();
+        }
+
+        qp.nativeQuery(sort != null ? lq + " sort " + sort : lq.toString());
+        return qp.apply(cursor(lq, limit, sort));
     }
 
     @Override
@@ -179,12 +200,44 @@ public class LuceneDataset implements VectorDataset, FileData {
     }
 
     Pair<TopDocs, IndexSearcher> search(Query lq, Integer n) throws IOException {
+        return search(lq, n, null);
+    }
+
+    Pair<TopDocs, IndexSearcher> search(Query lq, Integer n, Sort sort) throws IOException {
         IndexSearcher searcher = new IndexSearcher(reader);
-        TopDocs docs = searcher.search(lq, n != null && n > 0 ? n.intValue() : Integer.MAX_VALUE);
+        int max = n != null && n > 0 ? n.intValue() : Integer.MAX_VALUE;
+        TopDocs docs = sort != null ? searcher.search(lq, max, sort) : searcher.search(lq, max);
 
         return Pair.of(docs, searcher);
     }
 
+    /**
+     * Creates the native sort for a query.
+     * <p>
+     * Only fields indexed with sorted doc values can be sorted natively, the sort for any other field is left to
+     * the query plan.
+     * </p>
+     */
+    Sort createSort(VectorQuery q, VectorQueryPlan qp) {
+        if (!q.isSorted()) {
+            return null;
+        }
+
+        FieldInfos infos = MultiFields.getMergedFieldInfos(reader);
+        List<SortField> fields = new ArrayList<>();
+        for (io.jeo.data.Sort s : q.sort()) {
+            FieldInfo fi = infos.fieldInfo(s.getProperty());
+            if (fi == null || fi.getDocValuesType() != DocValuesType.SORTED) {
+                LOG.debug("Unable to natively sort on field: {}", s.getProperty());
+                return null;
+            }
+            fields.add(new SortField(s.getProperty(), SortField.Type.STRING, !s.isAscending()));
+        }
+
+        qp.sorted();
+        return new Sort(fields.toArray(new SortField[fields.size()]));
+    }
+
     Query createQuery(VectorQuery q, VectorQueryPlan qp) throws IOException {
         BooleanQuery lq = new BooleanQuery();
 
@@ -242,7 +295,6 @@ public class LuceneDataset implements VectorDataset, FileData {
             }
         }
 
-        qp.limited();
         return rq;
     }
 
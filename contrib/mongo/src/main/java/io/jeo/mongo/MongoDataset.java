@@ -125,17 +125,18 @@ public class MongoDataset implements VectorDataset {
         qp.bounded();
 
         Integer offset = q.offset();
-        if (offset != null) {
+        if (offset != null && qp.canPage()) {
             dbCursor.skip(offset);
             qp.offsetted();
         }
 
         Integer limit = q.limit();
-        if (limit != null) {
+        if (limit != null && qp.canPage()) {
             dbCursor.limit(limit);
             qp.limited();
         }
 
+        qp.nativeQuery(dbCursor.toString());
         return qp.apply(new MongoCursor(dbCursor, this));
     }
 
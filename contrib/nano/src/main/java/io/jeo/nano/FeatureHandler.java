@@ -49,6 +49,7 @@ import java.util.regex.Pattern;
 import io.jeo.data.Cursor;
 import io.jeo.data.Dataset;
 import io.jeo.geom.Bounds;
+import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.FeatureWriteCursor;
 import io.jeo.vector.VectorQuery;
 import io.jeo.data.Transaction;
@@ -92,6 +93,10 @@ public class FeatureHandler extends Handler {
     static final Pattern FEATURES_URI_RE =
         Pattern.compile("/features(?:/([\\w-]+)(?:/([\\w-]+))?)(?:/([\\w-]+))?(?:\\.([\\w]+))?/?", Pattern.CASE_INSENSITIVE);
 
+    // number of features to read ahead of encoding, and to hand off at once
+    static final int PREFETCH = 1024;
+    static final int PREFETCH_BATCH = 64;
+
     @Override
     public boolean canHandle(Request request, NanoServer server) {
         return match(request, FEATURES_URI_RE);
@@ -157,23 +162,29 @@ public class FeatureHandler extends Handler {
             }
         }
 
-        final Cursor<Feature> c;
-        if (fields == null) {
-            c = layer.read(q);
-        } else {
+        FeatureCursor cursor = layer.read(q);
+        if (fields != null) {
             // if the request specifies fields, wrap the cursor to prevent
             // any fields referenced in the query from getting into the response
-            c = layer.read(q).select(Arrays.asList(fields));
+            cursor = cursor.select(Arrays.asList(fields));
         }
 
+        // read ahead while the response is encoded
+        final Cursor<Feature> c = cursor.prefetch(PREFETCH, PREFETCH_BATCH, null);
+
         // if requesting a specific feature, fail if not found
         String fid = parseFeatureId(request);
         if (fid != null) {
             if (! c.hasNext()) {
+                c.close();
                 throw new HttpException(HTTP_NOTFOUND, "Unable to locate feature at " + request.uri);
             }
         }
 
+        // number of decimal places of coordinates
+        String prec = request.getParms().getProperty("precision");
+        final int precision = prec != null ? Integer.parseInt(prec) : -1;
+
         return new Response(HTTP_OK, MIME_JSON, new Response.Content() {
 
             GeoJSONWriter w;
@@ -181,6 +192,7 @@ public class FeatureHandler extends Handler {
             @Override
             public void write(OutputStream output) throws IOException {
                 w = new GeoJSONWriter(new OutputStreamWriter(output, Charset.forName("UTF-8")));
+                w.precision(precision);
                 w.featureCollection(c);
                 w.flush();
             }
@@ -239,6 +251,10 @@ public class FeatureHandler extends Handler {
             q.filter(parseFilter(p.getProperty("filter")));
         }
 
+        if (p.containsKey("sort")) {
+            q.sort(p.getProperty("sort").trim().split("\\s*,\\s*"));
+        }
+
         return q;
     }
 
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Set;
 
 import io.jeo.vector.Feature;
+import io.jeo.vector.Schema;
 import io.jeo.filter.Expression;
 import io.jeo.filter.Filters;
 
@@ -167,6 +168,28 @@ public class RuleList extends ArrayList<Rule> {
         return new RuleList(match);
     }
 
+    /**
+     * Returns a new rule list in which the selector filters are compiled against the specified 
+     * schema, for repeated calls to {@link #match(Feature)} with features of that schema.
+     * <p>
+     * Rules of the new list share their properties and nested rules with the rules of this list.
+     * </p>
+     * @see io.jeo.filter.Filter#compile(Schema)
+     */
+    public RuleList compile(Schema schema) {
+        RuleList compiled = new RuleList();
+        for (Rule r : this) {
+            Rule c = new Rule();
+            c.parts = r.parts;
+            c.props = r.props;
+            for (Selector s : r.getSelectors()) {
+                c.getSelectors().add(s.compile(schema));
+            }
+            compiled.add(c);
+        }
+        return compiled;
+    }
+
     /**
      * Returns a new rule list consisting of all the rules in this list flattened. 
      *  
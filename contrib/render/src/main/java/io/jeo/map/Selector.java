@@ -19,6 +19,7 @@ import java.util.List;
 
 import io.jeo.filter.Filter;
 import io.jeo.filter.Filters;
+import io.jeo.vector.Schema;
 
 public class Selector {
 
@@ -73,6 +74,22 @@ public class Selector {
         this.filter = filter;
     }
     
+    /**
+     * Returns a copy of this selector with the filter compiled against the specified schema.
+     *
+     * @see Filter#compile(Schema)
+     */
+    public Selector compile(Schema schema) {
+        Selector compiled = new Selector();
+        compiled.setId(getId());
+        compiled.setName(getName());
+        compiled.setAttachment(getAttachment());
+        compiled.setWildcard(isWildcard());
+        compiled.getClasses().addAll(getClasses());
+        compiled.setFilter(filter != null ? filter.compile(schema) : null);
+        return compiled;
+    }
+
     public Selector merge(Selector other) {
         String id = null;
         try {
@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import io.jeo.data.Dataset;
 import io.jeo.geom.Bounds;
@@ -41,12 +43,16 @@ import io.jeo.raster.RasterQuery;
 import io.jeo.raster.Stats;
 import io.jeo.tile.TileDataset;
 import io.jeo.util.Function;
+import io.jeo.util.Key;
 import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
 import io.jeo.filter.Filter;
 import io.jeo.filter.Filters;
 import io.jeo.geom.Geom;
+import io.jeo.geom.Simplifier;
 import io.jeo.proj.Proj;
 import io.jeo.util.Rect;
+import io.jeo.vector.Schema;
 import io.jeo.vector.VectorQuery;
 import io.jeo.vector.VectorDataset;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
@@ -63,6 +69,13 @@ public abstract class BaseRenderer implements Renderer {
 
     static final Logger LOG = LoggerFactory.getLogger(BaseRenderer.class);
 
+    /**
+     * Number of features to read ahead of rendering on a background thread, <tt>0</tt> to read
+     * and render on the same thread. Defaults to <tt>0</tt> since every layer rendered with it enabled
+     * takes a thread of its own.
+     */
+    public static final Key<Integer> PREFETCH = new Key<>("prefetch", Integer.class, 0);
+
     protected View view;
     protected java.util.Map<?, Object> opts;
 
@@ -71,6 +84,11 @@ public abstract class BaseRenderer implements Renderer {
 
     protected OutputStream output;
 
+    /* native bounds of the view, by dataset crs, and the view bounds and crs they were computed for */
+    java.util.Map<String,List<Bounds>> nativeBounds = new java.util.HashMap<>();
+    Bounds nativeBoundsView;
+    CoordinateReferenceSystem nativeBoundsCRS;
+
     public void init(View view, java.util.Map<?,Object> opts) {
         this.view = view;
         this.opts = opts;
@@ -167,6 +185,48 @@ public abstract class BaseRenderer implements Renderer {
         return bbox;
     }
 
+    /**
+     * Computes the bounds of the view in the crs of a dataset, reprojecting the query when the dataset
+     * and the view crs differ.
+     * <p>
+     * The view bounds are reprojected with densified edges and may result in more than one envelope when
+     * the view crosses the antimeridian of the dataset crs, see
+     * {@link Proj#reprojectAll(com.vividsolutions.jts.geom.Envelope, CoordinateReferenceSystem, CoordinateReferenceSystem, int)}.
+     * Results are cached per dataset crs for as long as the view bounds and crs don't change.
+     * </p>
+     */
+    protected List<Bounds> nativeBounds(VectorQuery q, Dataset data) throws IOException {
+        Bounds bbox = view.getBounds();
+        CoordinateReferenceSystem crs = data.crs();
+
+        if (crs == null) {
+            LOG.debug(
+                "Layer "+data.name()+" specifies no projection, assuming map projection");
+            return Collections.singletonList(bbox);
+        }
+        if (view.getCRS() == null || Proj.equal(view.getCRS(), crs)) {
+            return Collections.singletonList(bbox);
+        }
+
+        if (q != null) {
+            q.reproject(view.getCRS());
+        }
+
+        if (!bbox.equals(nativeBoundsView) || view.getCRS() != nativeBoundsCRS) {
+            nativeBounds.clear();
+            nativeBoundsView = new Bounds(bbox);
+            nativeBoundsCRS = view.getCRS();
+        }
+
+        String key = crs.getName() + " " + crs.getParameterString();
+        List<Bounds> bboxes = nativeBounds.get(key);
+        if (bboxes == null) {
+            bboxes = Proj.reprojectAll(bbox, view.getCRS(), crs, Proj.DENSITY);
+            nativeBounds.put(key, bboxes);
+        }
+        return bboxes;
+    }
+
     void render(VectorDataset data, RuleList rules, Filter<Feature> filter) throws IOException {
         if (!canRenderVectors()) {
             throw new UnsupportedOperationException("renderer does not render vector data");
@@ -176,9 +236,8 @@ public abstract class BaseRenderer implements Renderer {
         VectorQuery q = new VectorQuery();
 
         // bounds, we may have to reproject it
-        Bounds bbox = reproject(q, view.getBounds(), data);
-        
-        q.bounds(bbox);
+        List<Bounds> bboxes = nativeBounds(q, data);
+
         if (filter != null) {
             q.filter(filter);
         }
@@ -194,17 +253,57 @@ public abstract class BaseRenderer implements Renderer {
         // grab any specified by the style
         q.appendFields(rules.fields());
 
-        for (Feature f : data.read(q)) {
-            RuleList rs = rules.match(f);
-            if (rs.isEmpty()) {
-                continue;
-            }
+        // drop vertices that would land in the same pixel
+        q.simplify(Math.min(view.iscaleX(), view.iscaleY()), Simplifier.GRID);
+
+        // compile rule filters against the dataset schema
+        Schema schema = data.schema();
+        if (schema != null) {
+            rules = rules.compile(schema);
+        }
+
+        // features that straddle more than one of the bounds are only drawn once, recognized by the ids
+        // drawn in earlier passes, features without an id or sharing one within a pass are all drawn
+        Set<String> drawn = bboxes.size() > 1 ? new HashSet<String>() : null;
+        for (Bounds bbox : bboxes) {
+            q.bounds(bbox);
+            render(data, q, rules, drawn);
+        }
+    }
 
-            Rule r = rules.match(f).collapse();
-            if (r != null) {
-                draw(f, r);
+    void render(VectorDataset data, VectorQuery q, RuleList rules, Set<String> drawn) throws IOException {
+        Set<String> ids = drawn != null ? new HashSet<String>() : null;
+        FeatureCursor cursor = data.read(q);
+        Integer prefetch = opts != null ? PREFETCH.get(opts) : PREFETCH.def();
+        if (prefetch != null && prefetch > 0) {
+            cursor = cursor.prefetch(prefetch, Math.min(prefetch, 64), null);
+        }
+
+        try (FeatureCursor c = cursor) {
+            while (c.hasNext()) {
+                Feature f = c.next();
+                if (drawn != null && f.id() != null) {
+                    if (drawn.contains(f.id())) {
+                        continue;
+                    }
+                    ids.add(f.id());
+                }
+
+                RuleList rs = rules.match(f);
+                if (rs.isEmpty()) {
+                    continue;
+                }
+
+                Rule r = rs.collapse();
+                if (r != null) {
+                    draw(f, r);
+                }
             }
         }
+
+        if (drawn != null) {
+            drawn.addAll(ids);
+        }
     }
 
     void render(RasterDataset data, RuleList rules) throws IOException {
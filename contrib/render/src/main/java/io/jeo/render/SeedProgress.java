@@ -0,0 +1,154 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.render;
+
+import java.util.Locale;
+
+/**
+ * Progress of a {@link TileSeeder} run.
+ * <p>
+ * The position of a run is tracked as a zoom level and an offset into the meta tiles covering that
+ * zoom level, ordered by row and then column. Every meta tile before the position has been handed to
+ * the write cursor of the sink, so a run can be resumed from the position with
+ * {@link TileSeeder#resume(SeedProgress)} given the same bounds, pyramid and meta tile size. The
+ * position can be saved with {@link #position()} and read back with {@link #parse(String)}.
+ * </p>
+ * <p>
+ * Tiles handed to the cursor are not necessarily committed, sinks may write in batches and only commit
+ * the last one when the cursor is closed. The position of a run that returned or failed is safe to resume
+ * from since its cursor has been closed, but a position reported to a {@link TileSeeder.Listener} may be
+ * ahead of what a killed run actually stored. Such a run should be resumed from the start of the zoom level
+ * with {@link TileSeeder#skipExisting(boolean)} enabled.
+ * </p>
+ */
+public class SeedProgress {
+
+    int zoom;
+    int offset;
+
+    long total;
+    long written;
+    long existing;
+    long empty;
+    long metaTiles;
+
+    long start = System.nanoTime();
+    long end = -1;
+
+    public SeedProgress() {
+        this(0, 0);
+    }
+
+    public SeedProgress(int zoom, int offset) {
+        this.zoom = zoom;
+        this.offset = offset;
+    }
+
+    /**
+     * Parses a position of the form <tt>zoom/offset</tt> as produced by {@link #position()}.
+     */
+    public static SeedProgress parse(String position) {
+        String[] split = position.trim().split("/");
+        if (split.length != 2) {
+            throw new IllegalArgumentException("Illegal seed position: " + position);
+        }
+        return new SeedProgress(Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+    }
+
+    /**
+     * The zoom level being seeded.
+     */
+    public int zoom() {
+        return zoom;
+    }
+
+    /**
+     * The offset of the first meta tile at {@link #zoom()} that has not been completed.
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * The position of the run as <tt>zoom/offset</tt>.
+     */
+    public String position() {
+        return zoom + "/" + offset;
+    }
+
+    /**
+     * Total number of tiles covered by the run.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Number of tiles written to the sink.
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * Number of tiles skipped because they were already present in the sink, or were completed by
+     * the run being resumed.
+     */
+    public long existing() {
+        return existing;
+    }
+
+    /**
+     * Number of tiles skipped because they were empty.
+     */
+    public long empty() {
+        return empty;
+    }
+
+    /**
+     * Number of tiles processed, written or skipped.
+     */
+    public long processed() {
+        return written + existing + empty;
+    }
+
+    /**
+     * Number of meta tiles rendered.
+     */
+    public long metaTiles() {
+        return metaTiles;
+    }
+
+    /**
+     * Time spent in the run, in milliseconds.
+     */
+    public long elapsed() {
+        return ((end > -1 ? end : System.nanoTime()) - start) / 1000000;
+    }
+
+    /**
+     * Tiles processed per second.
+     */
+    public double rate() {
+        long elapsed = elapsed();
+        return elapsed > 0 ? processed() * 1000d / elapsed : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d/%d tiles (%d written, %d existing, %d empty) in %d ms, %.1f tiles/s",
+            position(), processed(), total, written, existing, empty, elapsed(), rate());
+    }
+}
@@ -0,0 +1,617 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.render;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import io.jeo.data.Cursor;
+import io.jeo.data.Dataset;
+import io.jeo.geom.Bounds;
+import io.jeo.map.MapBuilder;
+import io.jeo.map.Style;
+import io.jeo.map.View;
+import io.jeo.raster.RasterDataset;
+import io.jeo.tile.Tile;
+import io.jeo.tile.TileCover;
+import io.jeo.tile.TileDataset;
+import io.jeo.tile.TileGrid;
+import io.jeo.tile.TilePyramid;
+import io.jeo.tile.TileWriteCursor;
+import io.jeo.vector.VectorDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders the tiles of a {@link TilePyramid} from a source dataset and writes them into a
+ * {@link TileDataset}.
+ * <p>
+ * The tiles covering the seed bounds at each zoom level, as computed by
+ * {@link TilePyramid#cover(Bounds, int)}, are grouped into square meta tiles that are rendered as a
+ * single image by a pool of worker threads, each render job creating its own {@link Renderer} from the
+ * configured {@link RendererFactory}. The meta tile image is then split into tiles and encoded. When the
+ * source is itself a {@link TileDataset} tiles are copied as is rather than rendered, in which case the
+ * source is expected to share the tile grids of the pyramid being seeded.
+ * </p>
+ * <p>
+ * Tiles already present in the sink and tiles that are entirely transparent are skipped by default.
+ * All writes to the sink are made through a single {@link TileWriteCursor} from the calling thread.
+ * Progress is reported to an optional {@link Listener} and returned as a {@link SeedProgress} that can
+ * be used to resume an interrupted run.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ *     new TileSeeder(data, style, tiles)
+ *         .renderer(Renderers.factory("gt"), null)
+ *         .zooms(0, 10)
+ *         .threads(4)
+ *         .run();
+ * </pre>
+ * </p>
+ */
+public class TileSeeder {
+
+    /**
+     * Callback receiving progress updates from a seed run.
+     */
+    public static interface Listener {
+        /**
+         * Callback fired on the seeding thread after each meta tile is completed.
+         *
+         * @param progress The progress of the run.
+         */
+        void onProgress(SeedProgress progress);
+    }
+
+    /**
+     * Default meta tile size.
+     */
+    public static final int DEFAULT_META_TILE = 4;
+
+    /**
+     * Tile dimension used when the pyramid does not specify one.
+     */
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    static Logger LOG = LoggerFactory.getLogger(TileSeeder.class);
+
+    final Dataset source;
+    final Style style;
+    final TileDataset sink;
+
+    TilePyramid pyramid;
+    Bounds bounds;
+    Integer minZoom, maxZoom;
+
+    RendererFactory<?> factory;
+    Map<?,Object> opts;
+
+    int metaTile = DEFAULT_META_TILE;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String format = "png";
+    boolean skipExisting = true;
+    boolean skipEmpty = true;
+
+    SeedProgress resume;
+    Listener listener;
+
+    SeedProgress progress;
+
+    /**
+     * Creates a seeder rendering a vector dataset with a style.
+     */
+    public TileSeeder(VectorDataset data, Style style, TileDataset sink) {
+        this((Dataset) data, style, sink);
+    }
+
+    /**
+     * Creates a seeder rendering a raster dataset, the style may be <code>null</code>.
+     */
+    public TileSeeder(RasterDataset data, Style style, TileDataset sink) {
+        this((Dataset) data, style, sink);
+    }
+
+    /**
+     * Creates a seeder copying the tiles of another tile dataset.
+     */
+    public TileSeeder(TileDataset tiles, TileDataset sink) {
+        this(tiles, null, sink);
+    }
+
+    TileSeeder(Dataset source, Style style, TileDataset sink) {
+        this.source = source;
+        this.style = style;
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the pyramid to seed, defaults to the pyramid of the sink.
+     */
+    public TileSeeder pyramid(TilePyramid pyramid) {
+        this.pyramid = pyramid;
+        return this;
+    }
+
+    /**
+     * Sets the area to seed, defaults to the bounds of the pyramid.
+     */
+    public TileSeeder bounds(Bounds bounds) {
+        this.bounds = bounds;
+        return this;
+    }
+
+    /**
+     * Sets the range of zoom levels to seed, inclusive, defaults to all grids of the pyramid.
+     */
+    public TileSeeder zooms(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException(
+                String.format(Locale.ROOT, "min zoom %d greater than max zoom %d", min, max));
+        }
+        this.minZoom = min;
+        this.maxZoom = max;
+        return this;
+    }
+
+    /**
+     * Sets the renderer used to render tiles and the options passed to it.
+     */
+    public TileSeeder renderer(RendererFactory<?> factory, Map<?,Object> opts) {
+        this.factory = factory;
+        this.opts = opts;
+        return this;
+    }
+
+    /**
+     * Sets the number of tiles along each side of a meta tile, defaults to {@link #DEFAULT_META_TILE}.
+     * <p>
+     * Renderers that produce output that can not be decoded as an image must use a size of 1.
+     * </p>
+     */
+    public TileSeeder metaTile(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("meta tile size must be positive");
+        }
+        this.metaTile = size;
+        return this;
+    }
+
+    /**
+     * Sets the number of render threads, defaults to the number of processors.
+     */
+    public TileSeeder threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("thread count must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the image format tiles are encoded with, defaults to "png".
+     */
+    public TileSeeder format(String format) {
+        this.format = format.toLowerCase(Locale.ROOT);
+        return this;
+    }
+
+    /**
+     * Whether to skip tiles already present in the sink, defaults to <code>true</code>.
+     */
+    public TileSeeder skipExisting(boolean skipExisting) {
+        this.skipExisting = skipExisting;
+        return this;
+    }
+
+    /**
+     * Whether to skip tiles that are entirely transparent, defaults to <code>true</code>.
+     */
+    public TileSeeder skipEmpty(boolean skipEmpty) {
+        this.skipEmpty = skipEmpty;
+        return this;
+    }
+
+    /**
+     * Resumes a previous run from the position of its progress.
+     * <p>
+     * Meta tiles before the position are not seeded again. The position only guarantees that tiles were handed
+     * to the write cursor of the sink, see {@link SeedProgress}, so a run killed before its cursor was closed
+     * is best resumed from the start of the zoom level of its last position with {@link #skipExisting(boolean)}
+     * enabled, which rewrites any tiles the sink lost and skips the rest.
+     * </p>
+     */
+    public TileSeeder resume(SeedProgress resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    /**
+     * Sets the listener receiving progress updates.
+     */
+    public TileSeeder listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * The progress of the current or last run, <code>null</code> if the seeder has not been run.
+     */
+    public SeedProgress progress() {
+        return progress;
+    }
+
+    /**
+     * Seeds the tiles.
+     * <p>
+     * On failure the tiles completed so far are still written and {@link #progress()} holds the position
+     * to resume from.
+     * </p>
+     * @return The progress of the run.
+     */
+    public SeedProgress run() throws IOException {
+        if (factory == null && !(source instanceof TileDataset)) {
+            throw new IllegalStateException("No renderer specified");
+        }
+
+        TilePyramid pyr = pyramid != null ? pyramid : sink.pyramid();
+        Bounds bbox = bounds != null ? pyr.bounds().intersection(bounds) : pyr.bounds();
+
+        progress = new SeedProgress();
+        if (bbox.isNull()) {
+            LOG.debug("Seed bounds do not intersect pyramid bounds");
+            progress.end = System.nanoTime();
+            return progress;
+        }
+
+        List<TileCover> covers = new ArrayList<TileCover>();
+        for (TileGrid grid : pyr.grids()) {
+            int z = grid.z();
+            if ((minZoom != null && z < minZoom) || (maxZoom != null && z > maxZoom)) {
+                continue;
+            }
+            if (resume != null && z < resume.zoom()) {
+                continue;
+            }
+            TileCover cover = pyr.cover(bbox, grid);
+            if (cover != null) {
+                covers.add(cover);
+            }
+        }
+
+        for (TileCover cover : covers) {
+            progress.total += (long) cover.width() * cover.height();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "jeo-seed-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            try (TileWriteCursor cursor = sink.update()) {
+                for (TileCover cover : covers) {
+                    int offset = resume != null && resume.zoom() == cover.grid().z() ? resume.offset() : 0;
+                    seed(cover, offset, pyr, executor, cursor);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            progress.end = System.nanoTime();
+        }
+
+        LOG.debug("Seeding complete, " + progress);
+        return progress;
+    }
+
+    void seed(TileCover cover, int offset, final TilePyramid pyr, ExecutorService executor, TileWriteCursor cursor)
+        throws IOException {
+
+        int nx = (cover.width() + metaTile - 1) / metaTile;
+        int ny = (cover.height() + metaTile - 1) / metaTile;
+        int n = nx * ny;
+
+        progress.zoom = cover.grid().z();
+        progress.offset = Math.min(offset, n);
+
+        // account for meta tiles completed by a previous run
+        for (int i = 0; i < progress.offset; i++) {
+            progress.existing += meta(cover, i, nx).size();
+        }
+
+        ExecutorCompletionService<Result> completion = new ExecutorCompletionService<Result>(executor);
+        BitSet done = new BitSet(n);
+
+        int next = progress.offset;
+        int running = 0;
+        while (next < n || running > 0) {
+            // keep the workers busy without rendering too far ahead of the writes
+            while (next < n && running < threads * 2) {
+                final MetaTile meta = meta(cover, next++, nx);
+                final Set<Long> existing = skipExisting ? existing(meta) : new HashSet<Long>();
+                if (existing.size() == meta.size()) {
+                    progress.existing += existing.size();
+                    complete(meta, done);
+                    continue;
+                }
+
+                completion.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        return source instanceof TileDataset ?
+                            copy(meta, existing) : render(meta, existing, pyr);
+                    }
+                });
+                running++;
+            }
+
+            if (running == 0) {
+                break;
+            }
+
+            Result r;
+            try {
+                r = completion.take().get();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted seeding " + cover);
+            }
+            catch(ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Error seeding " + cover, cause);
+            }
+            running--;
+
+            for (Tile t : r.tiles) {
+                Tile u = cursor.next();
+                u.z(t.z()).x(t.x()).y(t.y()).data(t.data()).mimeType(t.mimeType());
+                cursor.write();
+            }
+
+            progress.written += r.tiles.size();
+            progress.existing += r.existing;
+            progress.empty += r.empty;
+            progress.metaTiles++;
+            complete(r.meta, done);
+        }
+    }
+
+    /*
+     * Marks a meta tile as completed, advancing the position past all contiguous completed meta tiles.
+     */
+    void complete(MetaTile meta, BitSet done) {
+        done.set(meta.index);
+        progress.offset = done.nextClearBit(progress.offset);
+
+        if (listener != null) {
+            listener.onProgress(progress);
+        }
+    }
+
+    MetaTile meta(TileCover cover, int index, int nx) {
+        int x0 = cover.x0() + (index % nx) * metaTile;
+        int y0 = cover.y0() + (index / nx) * metaTile;
+        return new MetaTile(index, cover.grid().z(), x0, y0,
+            Math.min(x0 + metaTile - 1, cover.x1()), Math.min(y0 + metaTile - 1, cover.y1()));
+    }
+
+    Set<Long> existing(MetaTile meta) throws IOException {
+        Set<Long> existing = new HashSet<Long>();
+        try (Cursor<Tile> c = sink.read(meta.z, meta.z, meta.x0, meta.x1, meta.y0, meta.y1)) {
+            for (Tile t : c) {
+                existing.add(key(t.x(), t.y()));
+            }
+        }
+        return existing;
+    }
+
+    Result copy(MetaTile meta, Set<Long> existing) throws IOException {
+        Result r = new Result(meta);
+        r.existing = existing.size();
+
+        TileDataset tiles = (TileDataset) source;
+        try (Cursor<Tile> c = tiles.read(meta.z, meta.z, meta.x0, meta.x1, meta.y0, meta.y1)) {
+            for (Tile t : c) {
+                if (existing.contains(key(t.x(), t.y()))) {
+                    continue;
+                }
+                if (t.data() == null || t.data().length == 0) {
+                    r.empty++;
+                }
+                else {
+                    r.tiles.add(new Tile(t));
+                }
+            }
+        }
+
+        // tiles missing from the source, and not in the sink, are empty
+        r.empty += meta.size() - r.existing - r.empty - r.tiles.size();
+        return r;
+    }
+
+    Result render(MetaTile meta, Set<Long> existing, TilePyramid pyr) throws IOException {
+        int tw = pyr.tileWidth() != null ? pyr.tileWidth() : DEFAULT_TILE_SIZE;
+        int th = pyr.tileHeight() != null ? pyr.tileHeight() : DEFAULT_TILE_SIZE;
+
+        Bounds bbox = new Bounds(pyr.bounds(new Tile(meta.z, meta.x0, meta.y0)));
+        bbox.expandToInclude(pyr.bounds(new Tile(meta.z, meta.x1, meta.y1)));
+
+        int width = (meta.x1 - meta.x0 + 1) * tw;
+        int height = (meta.y1 - meta.y0 + 1) * th;
+
+        MapBuilder mb = new MapBuilder().bounds(bbox).size(width, height).layer(source);
+        if (pyr.crs() != null) {
+            mb.crs(pyr.crs());
+        }
+        if (style != null) {
+            mb.style(style);
+        }
+
+        // the map is not closed since that would close the source
+        View view = mb.view();
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        Renderer renderer = factory.create(view, opts);
+        try {
+            renderer.init(view, opts);
+            renderer.render(bout);
+        }
+        finally {
+            renderer.close();
+        }
+
+        Result r = new Result(meta);
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(bout.toByteArray()));
+        if (img == null) {
+            if (meta.size() > 1) {
+                throw new IOException("Unable to split renderer output into tiles, use a meta tile size of 1");
+            }
+            // pass through the renderer output, nothing to check for emptiness
+            if (existing.isEmpty()) {
+                r.tiles.add(new Tile(meta.z, meta.x0, meta.y0, bout.toByteArray(), mimeType()));
+            }
+            else {
+                r.existing++;
+            }
+            return r;
+        }
+
+        for (int x = meta.x0; x <= meta.x1; x++) {
+            for (int y = meta.y0; y <= meta.y1; y++) {
+                if (existing.contains(key(x, y))) {
+                    r.existing++;
+                    continue;
+                }
+
+                // locate the tile in the image from its bounds, which accounts for the pyramid origin
+                Tile t = new Tile(meta.z, x, y);
+                Bounds b = pyr.bounds(t);
+                int col = (int) Math.round((b.getMinX() - bbox.getMinX()) / bbox.getWidth() * width);
+                int row = (int) Math.round((bbox.getMaxY() - b.getMaxY()) / bbox.getHeight() * height);
+                BufferedImage sub = img.getSubimage(
+                    Math.min(col, img.getWidth() - tw), Math.min(row, img.getHeight() - th), tw, th);
+
+                if (skipEmpty && isEmpty(sub)) {
+                    r.empty++;
+                    continue;
+                }
+
+                r.tiles.add(t.data(encode(sub)).mimeType(mimeType()));
+            }
+        }
+        return r;
+    }
+
+    boolean isEmpty(BufferedImage img) {
+        if (!img.getColorModel().hasAlpha()) {
+            return false;
+        }
+        for (int x = 0; x < img.getWidth(); x++) {
+            for (int y = 0; y < img.getHeight(); y++) {
+                if ((img.getRGB(x, y) >>> 24) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    byte[] encode(BufferedImage img) throws IOException {
+        if (img.getColorModel().hasAlpha() && ("jpeg".equals(format) || "jpg".equals(format))) {
+            // jpeg has no alpha channel
+            BufferedImage rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+            img = rgb;
+        }
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        if (!ImageIO.write(img, format, bout)) {
+            throw new IOException("No image writer for format: " + format);
+        }
+        return bout.toByteArray();
+    }
+
+    String mimeType() {
+        return "image/" + ("jpg".equals(format) ? "jpeg" : format);
+    }
+
+    static Long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * Range of tiles rendered as a single image.
+     */
+    static class MetaTile {
+        final int index, z, x0, y0, x1, y1;
+
+        MetaTile(int index, int z, int x0, int y0, int x1, int y1) {
+            this.index = index;
+            this.z = z;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+
+        int size() {
+            return (x1 - x0 + 1) * (y1 - y0 + 1);
+        }
+    }
+
+    /**
+     * Tiles produced for a meta tile.
+     */
+    static class Result {
+        final MetaTile meta;
+        final List<Tile> tiles = new ArrayList<Tile>();
+        int existing, empty;
+
+        Result(MetaTile meta) {
+            this.meta = meta;
+        }
+    }
+}
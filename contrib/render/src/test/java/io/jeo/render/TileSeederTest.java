@@ -0,0 +1,329 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.render;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import io.jeo.data.mem.MemTileDataset;
+import io.jeo.data.mem.MemVectorDataset;
+import io.jeo.geom.Bounds;
+import io.jeo.map.View;
+import io.jeo.tile.Tile;
+import io.jeo.tile.TileGrid;
+import io.jeo.tile.TilePyramid;
+import io.jeo.vector.Schema;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TileSeederTest {
+
+    TilePyramid pyramid;
+    MemTileDataset source;
+    MemTileDataset sink;
+
+    @Before
+    public void setUp() {
+        // 2x1, 4x2, 8x4, 16x8, 32x16
+        pyramid = TilePyramid.build().tileSize(256, 256).grid(2, 1).grids(4).pyramid();
+
+        source = new MemTileDataset("source", pyramid);
+        for (TileGrid grid : pyramid.grids()) {
+            source.put(grid.z(), tiles(grid));
+        }
+        sink = new MemTileDataset("sink", pyramid);
+    }
+
+    Tile[][] tiles(TileGrid grid) {
+        Tile[][] tiles = new Tile[grid.height()][grid.width()];
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                tiles[y][x] = new Tile(grid.z(), x, y, data(grid.z(), x, y), "image/png");
+            }
+        }
+        return tiles;
+    }
+
+    byte[] data(int z, int x, int y) {
+        return new byte[]{(byte) z, (byte) x, (byte) y};
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        SeedProgress p = new TileSeeder(source, sink).threads(2).run();
+
+        assertEquals(682, p.total());
+        assertEquals(682, p.written());
+        assertEquals(0, p.existing());
+        assertEquals(0, p.empty());
+        assertEquals(682, p.processed());
+
+        // 1 + 1 + 2 + 8 + 32 meta tiles of 4x4
+        assertEquals(44, p.metaTiles());
+        assertEquals("4/32", p.position());
+
+        for (TileGrid grid : pyramid.grids()) {
+            for (int y = 0; y < grid.height(); y++) {
+                for (int x = 0; x < grid.width(); x++) {
+                    assertArrayEquals(data(grid.z(), x, y), sink.read(grid.z(), x, y).data());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMetaTile() throws Exception {
+        final List<Integer> offsets = new ArrayList<Integer>();
+        SeedProgress p = new TileSeeder(source, sink).zooms(3, 3).metaTile(3).threads(1)
+            .listener(new TileSeeder.Listener() {
+                @Override
+                public void onProgress(SeedProgress progress) {
+                    offsets.add(progress.offset());
+                }
+            }).run();
+
+        // 16x8 tiles split into 6x3 meta tiles, the last column and row partial
+        assertEquals(128, p.total());
+        assertEquals(128, p.written());
+        assertEquals(18, p.metaTiles());
+        assertEquals("3/18", p.position());
+
+        assertEquals(18, offsets.size());
+        assertEquals(Integer.valueOf(18), offsets.get(17));
+
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertArrayEquals(data(3, x, y), sink.read(3, x, y).data());
+            }
+        }
+        assertNull(sink.read(2, 0, 0));
+        assertNull(sink.read(4, 0, 0));
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        // 8x4 tiles, column 0 missing from the source and column 1 without data
+        Tile[][] tiles = tiles(pyramid.grid(2));
+        for (int y = 0; y < 4; y++) {
+            tiles[y][0] = null;
+            tiles[y][1].data(new byte[0]);
+        }
+        source.put(2, tiles);
+
+        // last row already seeded
+        Tile[][] existing = new Tile[4][8];
+        for (int x = 0; x < 8; x++) {
+            existing[3][x] = new Tile(2, x, 3, new byte[]{-1}, "image/png");
+        }
+        sink.put(2, existing);
+
+        SeedProgress p = new TileSeeder(source, sink).zooms(2, 2).run();
+        assertEquals(32, p.total());
+        assertEquals(8, p.existing());
+        assertEquals(6, p.empty());
+        assertEquals(18, p.written());
+        assertEquals(32, p.processed());
+
+        for (int x = 0; x < 8; x++) {
+            assertArrayEquals(new byte[]{-1}, sink.read(2, x, 3).data());
+        }
+        assertNull(sink.read(2, 0, 0));
+        assertNull(sink.read(2, 1, 0));
+        assertArrayEquals(data(2, 2, 0), sink.read(2, 2, 0).data());
+
+        // overwrite existing tiles
+        p = new TileSeeder(source, sink).zooms(2, 2).skipExisting(false).run();
+        assertEquals(0, p.existing());
+        assertEquals(8, p.empty());
+        assertEquals(24, p.written());
+
+        assertArrayEquals(data(2, 2, 3), sink.read(2, 2, 3).data());
+        assertArrayEquals(new byte[]{-1}, sink.read(2, 0, 3).data());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        SeedProgress p = new TileSeeder(source, sink).zooms(3, 4).resume(SeedProgress.parse("4/10")).run();
+
+        // zoom 3 is done, along with the first 10 of the 8x4 meta tiles of zoom 4
+        assertEquals(512, p.total());
+        assertEquals(160, p.existing());
+        assertEquals(352, p.written());
+        assertEquals(22, p.metaTiles());
+        assertEquals("4/32", p.position());
+
+        assertNull(sink.read(3, 0, 0));
+        assertNull(sink.read(4, 0, 0));
+        assertNull(sink.read(4, 7, 4));
+        assertNotNull(sink.read(4, 8, 4));
+        assertNotNull(sink.read(4, 31, 15));
+    }
+
+    @Test
+    public void testRender() throws Exception {
+        for (int metaTile : new int[]{1, 3}) {
+            for (TilePyramid.Origin origin : TilePyramid.Origin.values()) {
+                TilePyramid pyr = TilePyramid.build().tileSize(16, 16).origin(origin).grid(2, 1).grids(3).pyramid();
+                MemTileDataset tiles = new MemTileDataset("tiles", pyr);
+
+                SeedProgress p = render(tiles).zooms(2, 2).metaTile(metaTile).threads(2).run();
+
+                // the western half of the 8x4 grid is painted
+                assertEquals(32, p.total());
+                assertEquals(16, p.written());
+                assertEquals(16, p.empty());
+                assertEquals(0, p.existing());
+
+                boolean right = origin == TilePyramid.Origin.BOTTOM_RIGHT || origin == TilePyramid.Origin.TOP_RIGHT;
+                boolean top = origin == TilePyramid.Origin.TOP_LEFT || origin == TilePyramid.Origin.TOP_RIGHT;
+                for (int y = 0; y < 4; y++) {
+                    for (int x = 0; x < 8; x++) {
+                        Tile t = tiles.read(2, x, y);
+                        int col = right ? 7 - x : x;
+                        int row = top ? 3 - y : y;
+                        if (col >= 4) {
+                            assertNull(t);
+                            continue;
+                        }
+
+                        assertEquals("image/png", t.mimeType());
+                        BufferedImage img = ImageIO.read(new ByteArrayInputStream(t.data()));
+                        assertEquals(16, img.getWidth());
+                        assertEquals(16, img.getHeight());
+
+                        // every pixel of the tile is painted with the colour of the tile
+                        for (int[] px : new int[][]{{0, 0}, {8, 8}, {15, 15}}) {
+                            assertEquals(metaTile + " " + origin + " " + t,
+                                StubRenderer.color(col, row), img.getRGB(px[0], px[1]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRenderJpeg() throws Exception {
+        TilePyramid pyr = TilePyramid.build().tileSize(16, 16).grid(2, 1).grids(3).pyramid();
+        MemTileDataset tiles = new MemTileDataset("tiles", pyr);
+
+        SeedProgress p = render(tiles).zooms(2, 2).metaTile(2).format("JPG").run();
+        assertEquals(16, p.written());
+        assertEquals(16, p.empty());
+
+        Tile t = tiles.read(2, 0, 0);
+        assertEquals("image/jpeg", t.mimeType());
+
+        // alpha flattened
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(t.data()));
+        assertFalse(img.getColorModel().hasAlpha());
+    }
+
+    @Test
+    public void testRenderKeepEmpty() throws Exception {
+        TilePyramid pyr = TilePyramid.build().tileSize(16, 16).grid(2, 1).grids(3).pyramid();
+        MemTileDataset tiles = new MemTileDataset("tiles", pyr);
+
+        SeedProgress p = render(tiles).zooms(2, 2).metaTile(4).skipEmpty(false).run();
+        assertEquals(32, p.written());
+        assertEquals(0, p.empty());
+
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(tiles.read(2, 7, 0).data()));
+        assertEquals(0, img.getRGB(8, 8) >>> 24);
+    }
+
+    TileSeeder render(MemTileDataset tiles) {
+        MemVectorDataset data = new MemVectorDataset(Schema.build("empty").field("name", String.class).schema());
+        return new TileSeeder(data, null, tiles).renderer(new StubRendererFactory(), null);
+    }
+
+    static class StubRendererFactory implements RendererFactory<StubRenderer> {
+
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public List<String> getAliases() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getFormats() {
+            return Arrays.asList("png", "image/png");
+        }
+
+        @Override
+        public StubRenderer create(View view, Map<?, Object> opts) {
+            return new StubRenderer();
+        }
+    }
+
+    /**
+     * Paints the western hemisphere with a colour per 45 degree square, counted from the bottom left,
+     * leaving the eastern hemisphere transparent.
+     */
+    static class StubRenderer implements Renderer {
+
+        View view;
+
+        static int color(int col, int row) {
+            return 0xff000000 | (col * 20) << 16 | (row * 20) << 8 | 0xff;
+        }
+
+        @Override
+        public void init(View view, Map<?, Object> opts) {
+            this.view = view;
+        }
+
+        @Override
+        public void render(OutputStream output) throws IOException {
+            int w = view.getWidth(), h = view.getHeight();
+            Bounds b = view.getBounds();
+
+            BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            for (int i = 0; i < w; i++) {
+                for (int j = 0; j < h; j++) {
+                    double x = b.getMinX() + (i + 0.5) * b.getWidth() / w;
+                    double y = b.getMaxY() - (j + 0.5) * b.getHeight() / h;
+                    if (x < 0) {
+                        img.setRGB(i, j, color((int) Math.floor((x + 180) / 45), (int) Math.floor((y + 90) / 45)));
+                    }
+                }
+            }
+            ImageIO.write(img, "png", output);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
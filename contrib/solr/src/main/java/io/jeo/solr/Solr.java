@@ -97,7 +97,7 @@ public class Solr implements VectorDriver<SolrWorkspace> {
         throw new UnsupportedOperationException();
     }
 
-    static Set<Capability> CAPABILITIES = set(BOUND, FILTER, FIELD, LIMIT, OFFSET);
+    static Set<Capability> CAPABILITIES = set(BOUND, FILTER, FIELD, LIMIT, OFFSET, SORT);
 
     @Override
     public Set<Capability> capabilities() {
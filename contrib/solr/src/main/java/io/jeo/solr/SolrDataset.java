@@ -16,6 +16,7 @@ package io.jeo.solr;
 
 import com.vividsolutions.jts.geom.Geometry;
 import io.jeo.data.Driver;
+import io.jeo.data.Sort;
 import io.jeo.filter.Filter;
 import io.jeo.filter.FilterSplitter;
 import io.jeo.filter.Filters;
@@ -34,6 +35,7 @@ import io.jeo.vector.VectorQuery;
 import io.jeo.vector.VectorQueryPlan;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.request.LukeRequest;
@@ -164,14 +166,16 @@ public class SolrDataset implements VectorDataset {
             encodeQuery(sq, q, qp);
         }
 
+        encodeSort(sq, q, qp);
+
         // TODO: use cursors for paging?
 
-        if (q.offset() != null) {
+        if (q.offset() != null && qp.canPage()) {
             sq.setStart(q.offset());
             qp.offsetted();
         }
 
-        if (q.limit() != null) {
+        if (q.limit() != null && qp.canPage()) {
             sq.setRows(q.limit());
             qp.limited();
         }
@@ -193,6 +197,7 @@ public class SolrDataset implements VectorDataset {
         }
 
         LOG.debug("{}", sq);
+        qp.nativeQuery(sq.toString());
 
         try {
             return qp.apply(new SolrCursor(runRequest(new QueryRequest(sq)).process(solr), this)
@@ -237,6 +242,25 @@ public class SolrDataset implements VectorDataset {
         }
     }
 
+    void encodeSort(SolrQuery sq, VectorQuery q, VectorQueryPlan qp) throws IOException {
+        if (!q.isSorted()) {
+            return;
+        }
+
+        for (Sort s : q.sort()) {
+            Field fld = schema().field(s.getProperty());
+            if (fld == null || fld.geometry()) {
+                LOG.debug("Unable to natively sort on field: {}", s.getProperty());
+                return;
+            }
+        }
+
+        for (Sort s : q.sort()) {
+            sq.addSort(s.getProperty(), s.isAscending() ? ORDER.asc : ORDER.desc);
+        }
+        qp.sorted();
+    }
+
     @Override
     public void close() {
     }
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * An iterator like object used to read contents of {@link Dataset} objects. 
@@ -403,6 +404,49 @@ public abstract class Cursor<T> implements Closeable, Iterable<T> {
         }
     }
 
+    /**
+     * Returns a cursor that reads ahead of the consumer on a background thread from a shared pool.
+     *
+     * @param capacity The maximum number of objects to read ahead.
+     *
+     * @see #prefetch(int, int, Executor)
+     */
+    public Cursor<T> prefetch(int capacity) {
+        return prefetch(capacity, 1, null);
+    }
+
+    /**
+     * Returns a cursor that reads ahead of the consumer on a background thread.
+     *
+     * @param capacity The maximum number of objects to read ahead.
+     * @param executor The executor to read with, <code>null</code> to use a shared pool.
+     *
+     * @see #prefetch(int, int, Executor)
+     */
+    public Cursor<T> prefetch(int capacity, Executor executor) {
+        return prefetch(capacity, 1, executor);
+    }
+
+    /**
+     * Returns a cursor that reads ahead of the consumer on a background thread, handing objects
+     * off to the consumer in batches.
+     * <p>
+     * Reading starts with the first call to {@link #hasNext()} and stops once <tt>capacity</tt>
+     * objects are waiting to be consumed. Larger batches reduce the cost of the hand off between
+     * threads for cursors that produce objects quickly. Exceptions thrown while reading are
+     * rethrown to the consumer. The returned cursor is not rewindable and, like any cursor, must be
+     * closed to release the underlying cursor.
+     * </p>
+     * @param capacity The maximum number of objects to read ahead.
+     * @param batchSize The number of objects handed off to the consumer at once.
+     * @param executor The executor to read with, <code>null</code> to use a shared pool.
+     *
+     * @return The prefetching cursor.
+     */
+    public Cursor<T> prefetch(int capacity, int batchSize, Executor executor) {
+        return new PrefetchCursor<>(this, capacity, batchSize, executor);
+    }
+
     /**
      * Applies a mapping function to the stream.
      *
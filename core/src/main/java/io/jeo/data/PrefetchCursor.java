@@ -0,0 +1,238 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cursor that reads ahead of its consumer on a background thread.
+ * <p>
+ * The delegate cursor is drained by a task submitted to an executor on the first call to
+ * {@link #hasNext()}. Objects are handed off to the consumer in batches through a queue, the producer
+ * taking a slot for each batch so it blocks once it is <tt>capacity</tt> objects ahead, and the end of
+ * the delegate is signalled by an empty marker batch. Exceptions thrown by the delegate are rethrown to the consumer.
+ * Closing the cursor stops the producer and waits for it to let go of the delegate before closing
+ * it, should the wait be interrupted the producer closes the delegate itself when it is done.
+ * </p>
+ */
+class PrefetchCursor<T> extends Cursor<T> {
+
+    /**
+     * Default executor, an unbounded pool of daemon threads.
+     */
+    static volatile ExecutorService DEFAULT_EXECUTOR;
+
+    static Executor defaultExecutor() {
+        if (DEFAULT_EXECUTOR == null) {
+            synchronized (PrefetchCursor.class) {
+                if (DEFAULT_EXECUTOR == null) {
+                    DEFAULT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+                        AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "jeo-prefetch-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+                }
+            }
+        }
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * marker for the end of the delegate cursor
+     */
+    static final List<Object> END = Collections.emptyList();
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> end() {
+        return (List<T>) END;
+    }
+
+    final Cursor<T> delegate;
+    final int batchSize;
+    final Executor executor;
+    final BlockingQueue<List<T>> queue = new LinkedBlockingQueue<>();
+
+    /* free queue slots, the marker batch doesn't take one so it can always be queued */
+    final int capacity;
+    final Semaphore slots;
+
+    /* signalled when the producer is done with the delegate */
+    final CountDownLatch done = new CountDownLatch(1);
+
+    /* whether the producer is running, done, or has to close the delegate when done */
+    static final int RUNNING = 0, DONE = 1, HANDOFF = 2;
+    final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    volatile boolean closed;
+    volatile Throwable error;
+
+    boolean started, finished;
+    Iterator<T> batch = Collections.emptyIterator();
+
+    PrefetchCursor(Cursor<T> delegate, int capacity, int batchSize, Executor executor) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batch size must be positive");
+        }
+
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+        this.batchSize = batchSize;
+        this.executor = executor != null ? executor : defaultExecutor();
+        this.capacity = Math.max(1, capacity / batchSize);
+        this.slots = new Semaphore(this.capacity);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (batch.hasNext()) {
+            return true;
+        }
+        if (finished || closed) {
+            return false;
+        }
+
+        if (!started) {
+            executor.execute(new Producer());
+            started = true;
+        }
+
+        List<T> next;
+        try {
+            next = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for prefetched objects");
+        }
+
+        if (next == END || closed) {
+            finished = true;
+
+            Throwable t = error;
+            if (t != null) {
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                if (t instanceof Error) {
+                    throw (Error) t;
+                }
+                throw new IOException(t);
+            }
+            return false;
+        }
+
+        slots.release();
+        batch = next.iterator();
+        return true;
+    }
+
+    @Override
+    public T next() throws IOException {
+        return batch.hasNext() ? batch.next() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (started) {
+            // unblock the producer, which sees the cursor is closed once it gets a slot, and any consumer
+            queue.clear();
+            slots.release(capacity);
+            queue.offer(PrefetchCursor.<T>end());
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (state.compareAndSet(RUNNING, HANDOFF)) {
+                    // producer still has the delegate, it closes it when done
+                    return;
+                }
+            }
+        }
+
+        delegate.close();
+    }
+
+    class Producer implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                List<T> buf = new ArrayList<>(batchSize);
+                while (!closed && delegate.hasNext()) {
+                    buf.add(delegate.next());
+                    if (buf.size() == batchSize) {
+                        put(buf);
+                        buf = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!buf.isEmpty()) {
+                    put(buf);
+                }
+            }
+            catch (InterruptedException e) {
+                error = new InterruptedIOException("interrupted prefetching objects");
+                Thread.currentThread().interrupt();
+            }
+            catch (Throwable t) {
+                error = t;
+            }
+            finally {
+                queue.offer(PrefetchCursor.<T>end());
+                if (!state.compareAndSet(RUNNING, DONE)) {
+                    try {
+                        delegate.close();
+                    }
+                    catch (Throwable t) {
+                        // nobody left to report to
+                    }
+                }
+                done.countDown();
+            }
+        }
+
+        void put(List<T> list) throws InterruptedException {
+            slots.acquire();
+            if (!closed) {
+                queue.put(list);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data.mem;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append only store of variable length byte records in direct buffers, outside of the java heap.
+ * <p>
+ * Records are written into fixed size chunks that are allocated as needed, a record larger than a chunk
+ * gets a chunk of its own. A record is addressed by a long packing the chunk number and the offset of the
+ * record in the chunk.
+ * </p>
+ */
+class Arena {
+
+    static final int CHUNK_SIZE = 1 << 24;
+
+    final int chunkSize;
+    final List<ByteBuffer> chunks = new ArrayList<>();
+    ByteBuffer current;
+
+    Arena() {
+        this(CHUNK_SIZE);
+    }
+
+    Arena(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Appends a record, returning its address.
+     */
+    long add(byte[] bytes) {
+        if (current == null || current.remaining() < bytes.length) {
+            current = ByteBuffer.allocateDirect(Math.max(chunkSize, bytes.length));
+            chunks.add(current);
+        }
+
+        long addr = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.put(bytes);
+        return addr;
+    }
+
+    /**
+     * Reads the record at the specified address.
+     */
+    byte[] get(long addr, int length) {
+        ByteBuffer chunk = chunks.get((int) (addr >>> 32)).duplicate();
+        chunk.position((int) addr);
+
+        byte[] bytes = new byte[length];
+        chunk.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * The number of bytes allocated by the arena.
+     */
+    long allocated() {
+        long n = 0;
+        for (ByteBuffer chunk : chunks) {
+            n += chunk.capacity();
+        }
+        return n;
+    }
+
+    /**
+     * Growable array of fixed width values in a direct buffer.
+     */
+    static class Values {
+
+        final int width;
+        ByteBuffer buf;
+
+        Values(int width, int capacity) {
+            this.width = width;
+            buf = ByteBuffer.allocateDirect(width * Math.max(capacity, 16)).order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * Ensures the array holds at least the specified number of values.
+         */
+        void ensure(int size) {
+            long needed = (long) size * width;
+            if (needed <= buf.capacity()) {
+                return;
+            }
+            if (needed > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many values: " + size);
+            }
+
+            long capacity = Math.min(Math.max(needed, (long) buf.capacity() * 2), Integer.MAX_VALUE / width * width);
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity).order(ByteOrder.nativeOrder());
+            ByteBuffer old = buf.duplicate();
+            old.clear();
+            grown.put(old);
+            grown.clear();
+            buf = grown;
+        }
+
+        long getLong(int i) {
+            return buf.getLong(i * width);
+        }
+
+        void setLong(int i, long v) {
+            buf.putLong(i * width, v);
+        }
+
+        int getInt(int i, int off) {
+            return buf.getInt(i * width + off);
+        }
+
+        void setInt(int i, int off, int v) {
+            buf.putInt(i * width + off, v);
+        }
+
+        double getDouble(int i, int j) {
+            return buf.getDouble(i * width + j * 8);
+        }
+
+        void setDouble(int i, int j, double v) {
+            buf.putDouble(i * width + j * 8, v);
+        }
+
+        long allocated() {
+            return buf.capacity();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import io.jeo.tile.Tile;
 import io.jeo.tile.TileDataset;
 import io.jeo.tile.TileGrid;
 import io.jeo.tile.TilePyramid;
+import io.jeo.tile.TileWriteCursor;
 import io.jeo.util.Key;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
@@ -89,7 +90,8 @@ public class MemTileDataset implements TileDataset {
             //throw new IOException(String.format(Locale.ROOT,"x must be < %d", grid.getWidth()));
         }
 
-        return tiles[(int)z][(int)y][(int)x];
+        Tile[][] level = tiles[(int)z];
+        return level != null ? level[(int)y][(int)x] : null;
     }
 
     @Override
@@ -98,27 +100,42 @@ public class MemTileDataset implements TileDataset {
         return new Cursor<Tile>() {
             int z = (int) z1;
             int y = (int) y1;
-            int x = (int) x1;
+            int x = (int) x1 - 1;
             Tile next;
 
             @Override
             public boolean hasNext() throws IOException {
-                x++;
-                if (x > x2) {
-                    x = (int) x1;
-                    y++;
-                    if (y > y2) {
-                        y = (int) y1;
+                while (next == null && z <= z2) {
+                    Tile[][] level = z >= 0 && z < tiles.length ? tiles[z] : null;
+                    if (level == null || y > y2 || y >= level.length) {
                         z++;
+                        y = (int) y1;
+                        x = (int) x1 - 1;
+                        continue;
+                    }
+
+                    x++;
+                    if (x > x2 || x >= level[0].length) {
+                        x = (int) x1 - 1;
+                        y++;
+                        continue;
                     }
-                }
 
-                return z < z2;
+                    if (x >= 0 && y >= 0) {
+                        next = level[y][x];
+                    }
+                }
+                return next != null;
             }
 
             @Override
             public Tile next() throws IOException {
-                return tiles[z][y][x];
+                try {
+                    return next;
+                }
+                finally {
+                    next = null;
+                }
             }
 
             @Override
@@ -127,6 +144,57 @@ public class MemTileDataset implements TileDataset {
         };
     }
 
+    @Override
+    public TileWriteCursor update() throws IOException {
+        return new TileWriteCursor() {
+            Tile next;
+
+            @Override
+            public Tile next() throws IOException {
+                return next = new Tile();
+            }
+
+            @Override
+            public TileWriteCursor write() throws IOException {
+                Tile t = check(next);
+                level(t, true)[t.y()][t.x()] = t;
+                return this;
+            }
+
+            @Override
+            public TileWriteCursor remove() throws IOException {
+                Tile t = check(next);
+                Tile[][] level = level(t, false);
+                if (level != null) {
+                    level[t.y()][t.x()] = null;
+                }
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+    }
+
+    Tile[][] level(Tile t, boolean create) {
+        int z = t.z();
+        TileGrid grid = z < tiles.length ? pyramid.grid(z) : null;
+        if (grid == null) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "no grid for zoom level %d", z));
+        }
+        if (t.x() < 0 || t.x() >= grid.width() || t.y() < 0 || t.y() >= grid.height()) {
+            throw new IndexOutOfBoundsException(String.format(Locale.ROOT,
+                "tile %d/%d/%d outside of %dx%d grid", z, t.x(), t.y(), grid.width(), grid.height()));
+        }
+
+        Tile[][] level = tiles[z];
+        if (level == null && create) {
+            level = tiles[z] = new Tile[grid.height()][grid.width()];
+        }
+        return level;
+    }
+
     public void put(int z, Tile[][] tiles) {
         if (z > this.tiles.length) {
             throw new IndexOutOfBoundsException(String.format(Locale.ROOT,
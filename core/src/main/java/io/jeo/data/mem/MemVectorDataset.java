@@ -15,11 +15,16 @@
 package io.jeo.data.mem;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import com.vividsolutions.jts.geom.Envelope;
 import io.jeo.geom.Bounds;
@@ -27,7 +32,9 @@ import io.jeo.vector.DiffFeature;
 import io.jeo.vector.FeatureAppendCursor;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.FeatureWriteCursor;
-import io.jeo.vector.Field;
+import io.jeo.vector.Features;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.MapFeature;
 import io.jeo.vector.VectorQueryPlan;
 import io.jeo.vector.VectorQuery;
 import io.jeo.vector.VectorDataset;
@@ -37,14 +44,62 @@ import io.jeo.util.Key;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.index.SpatialIndex;
-import com.vividsolutions.jts.index.quadtree.Quadtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
 
+/**
+ * In memory vector dataset that is safe for concurrent readers and writers.
+ * <p>
+ * Every write publishes a new immutable {@link Snapshot} of the dataset and every read works against the
+ * snapshot current when it starts, so readers never block, are never blocked by writers and see a
+ * consistent view of the data for the life of the cursor. Writers are serialized.
+ * </p>
+ * <p>
+ * Features are stored in an append only array of slots. A slot holds a chain of versions of a feature, a
+ * modification or removal pushes a new version onto the chain and readers skip versions newer than their
+ * snapshot. The spatial index is a list of immutable packed R-tree segments plus a short list of recently
+ * written slots that is scanned linearly and sealed into a new segment once full. Superseded versions are
+ * dropped, and segments merged, by periodically compacting into a new slot array, snapshots taken before
+ * the compaction keep the old array. The count and bounds of the features are maintained by writers rather
+ * than recomputed on every call, a removal that may shrink the bounds invalidates them until the next reader
+ * recomputes them, and the writer picks up the result.
+ * </p>
+ */
 public class MemVectorDataset implements VectorDataset {
 
+    /** number of recently written slots to accumulate before sealing them into an index segment */
+    static final int SEGMENT_SIZE = 256;
+
+    /** maximum number of index segments before compacting */
+    static final int MAX_SEGMENTS = 16;
+
     Schema schema;
-    Map<String,Feature> features = new LinkedHashMap<>();
-    SpatialIndex index;
+
+    /** current snapshot */
+    volatile Snapshot snapshot;
+
+    /*
+     * writer state, guarded by the dataset monitor
+     */
+
+    /** slot array shared with the snapshots, written past their size only */
+    Entry[] slots;
+    int size;
+
+    /** recently written slots not yet sealed into a segment, shared like the slot array */
+    int[] tail;
+    int tailSize;
+
+    STRtree[] segments;
+
+    /** slot of each live feature by id */
+    Map<String,Integer> ids;
+
+    long version;
+    int count;
+    int garbage;
+
+    /** bounds of the live features, null if a write may have shrunk them */
+    Bounds bounds;
 
     public MemVectorDataset() {
         this(Schema.build("feature").schema());
@@ -52,7 +107,12 @@ public class MemVectorDataset implements VectorDataset {
 
     public MemVectorDataset(Schema schema) {
         this.schema = schema;
-        index = new Quadtree();
+        slots = new Entry[16];
+        tail = new int[SEGMENT_SIZE];
+        segments = new STRtree[0];
+        ids = new HashMap<>();
+        bounds = empty();
+        publish();
     }
 
     public Memory driver() {
@@ -62,9 +122,16 @@ public class MemVectorDataset implements VectorDataset {
     public Map<Key<?>,Object> driverOptions() {
         return Collections.emptyMap();
     }
-    
+
+    /**
+     * The current snapshot of the dataset.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
     Iterable<Feature> features() {
-        return features.values();
+        return snapshot;
     }
 
     @Override
@@ -82,22 +149,7 @@ public class MemVectorDataset implements VectorDataset {
         if (schema.geometry() == null) {
             return null;
         }
-
-        Bounds e = new Bounds();
-        e.setToNull();
-    
-        if (features.isEmpty()) {
-            return e;
-        }
-    
-        for (Feature f : features()) {
-            Geometry g = f.geometry();
-            if (g != null) {
-                e.expandToInclude(g.getEnvelopeInternal());
-            }
-        }
-    
-        return e;
+        return new Bounds(snapshot.bounds());
     }
     
     @Override
@@ -107,6 +159,9 @@ public class MemVectorDataset implements VectorDataset {
     
     @Override
     public long count(VectorQuery q) throws IOException {
+        if (q.isAll()) {
+            return q.adjustCount(snapshot.count);
+        }
         return read(q).count();
     }
 
@@ -114,13 +169,15 @@ public class MemVectorDataset implements VectorDataset {
     public FeatureCursor read(VectorQuery q) throws IOException {
         VectorQueryPlan qp = new VectorQueryPlan(q);
 
-        Iterable<Feature> features = features();
+        Snapshot s = snapshot;
+
+        Iterable<Feature> features = s;
         if (!Bounds.isNull(q.bounds())) {
-            features = query(q.bounds());
+            features = s.query(q.bounds());
             qp.bounded();
         }
 
-        return qp.apply(new MemFeatureCursor(features));
+        return qp.apply(new MemFeatureCursor(features), schema);
     }
 
     @Override
@@ -134,58 +191,372 @@ public class MemVectorDataset implements VectorDataset {
     }
 
     List<Feature> query(Envelope bounds) {
-        List<Feature> features = index.query(bounds);
-        for (Iterator<Feature> it = features.iterator(); it.hasNext(); ) {
-            Feature f = it.next();
-            if (!bounds.intersects(f.geometry().getEnvelopeInternal())) {
-                it.remove();
-            }
+        return snapshot.query(bounds);
+    }
+
+    /**
+     * Adds a feature, replacing any existing feature with the same id.
+     */
+    public synchronized void add(Feature f) {
+        adoptBounds();
+        Integer slot = ids.get(f.id());
+        if (slot != null) {
+            replace(slot, f);
+        }
+        else {
+            insert(f);
         }
+        publish();
+    }
 
-        return features;
+    /**
+     * Removes the feature with the same id as the specified feature.
+     */
+    public synchronized void remove(Feature f) {
+        adoptBounds();
+        Integer slot = ids.remove(f.id());
+        if (slot == null) {
+            return;
+        }
+
+        Entry prev = slots[slot];
+        slots[slot] = new Entry(null, version + 1, prev);
+        shrink(prev.feature.geometry());
+        count--;
+        garbage++;
+        publish();
     }
 
-    public void add(Feature f) {
-        features.put(f.id(), f);
+    /**
+     * Applies the changes of a feature obtained from {@link #update(VectorQuery)}.
+     * <p>
+     * Changes are applied to a copy of the feature so that snapshots holding the original are unaffected.
+     * </p>
+     */
+    synchronized void modify(DiffFeature f) {
+        adoptBounds();
+        Feature pre = f.getDelegate();
 
-        Geometry g = f.geometry();
-        if (g != null) {
-            index.insert(g.getEnvelopeInternal(), f);
+        Feature copy = pre instanceof ListFeature
+            ? Features.copy(pre, new ListFeature(pre.id(), ((ListFeature) pre).schema()))
+            : new MapFeature(pre.id(), new LinkedHashMap<>(pre.map()));
+        for (Map.Entry<String,Object> e : f.changed().entrySet()) {
+            copy.put(e.getKey(), e.getValue());
+        }
+
+        Integer slot = ids.get(pre.id());
+        if (slot != null) {
+            replace(slot, copy);
         }
+        else {
+            insert(copy);
+        }
+        publish();
     }
 
-    public void remove(Feature f) {
-        features.remove(f.id());
+    void insert(Feature f) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+
+        int slot = size++;
+        slots[slot] = new Entry(f, version + 1, null);
+        ids.put(f.id(), slot);
+        count++;
 
         Geometry g = f.geometry();
+        expand(g);
         if (g != null) {
-            index.remove(g.getEnvelopeInternal(), f);
+            index(slot);
         }
     }
 
-    void modify(DiffFeature f) {
-        Feature pre = f.getDelegate();
+    void replace(int slot, Feature f) {
+        Entry prev = slots[slot];
+        slots[slot] = new Entry(f, version + 1, prev);
+        garbage++;
+
+        Geometry g1 = prev.feature.geometry();
+        Geometry g2 = f.geometry();
+        if (g1 != g2) {
+            shrink(g1);
+            expand(g2);
+            if (g2 != null && (g1 == null || !g1.getEnvelopeInternal().equals(g2.getEnvelopeInternal()))) {
+                // index under the new envelope, the stale entry is filtered out on query
+                index(slot);
+            }
+        }
+    }
+
+    void index(int slot) {
+        if (tailSize == tail.length && !seal()) {
+            // compacted, slot numbers changed and everything is indexed
+            return;
+        }
+        tail[tailSize++] = slot;
+    }
+
+    /*
+     * Seals the tail into a new index segment, compacting instead if there are too many segments. Returns
+     * false if the dataset was compacted.
+     */
+    boolean seal() {
+        if (segments.length + 1 >= MAX_SEGMENTS) {
+            compact();
+            return false;
+        }
+
+        STRtree tree = new STRtree();
+        for (int i = 0; i < tailSize; i++) {
+            insert(tree, tail[i]);
+        }
+        tree.build();
+
+        segments = Arrays.copyOf(segments, segments.length + 1);
+        segments[segments.length - 1] = tree;
+        tail = new int[SEGMENT_SIZE];
+        tailSize = 0;
+        return true;
+    }
+
+    void insert(STRtree tree, int slot) {
+        Feature f = slots[slot].feature;
+        Geometry g = f != null ? f.geometry() : null;
+        if (g != null && !g.isEmpty()) {
+            tree.insert(g.getEnvelopeInternal(), slot);
+        }
+    }
 
-        Field geo = schema.geometry();
-        if (geo != null && f.changed().containsKey(geo.name())) {
-            Geometry g1 = pre.geometry();
-            Geometry g2 = f.geometry();
+    /*
+     * Copies the live features into a new slot array, dropping superseded versions and indexing everything
+     * in a single segment. Snapshots taken before keep the old array.
+     */
+    void compact() {
+        Entry[] live = new Entry[Math.max(16, count * 2)];
+        Map<String,Integer> liveIds = new HashMap<>();
+        bounds = empty();
 
-            if (g1 != null) {
-                index.remove(g1.getEnvelopeInternal(), pre);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            Feature f = slots[i].feature;
+            if (f != null) {
+                live[n] = new Entry(f, version + 1, null);
+                liveIds.put(f.id(), n);
+                expand(f.geometry());
+                n++;
             }
+        }
+
+        slots = live;
+        size = n;
+        ids = liveIds;
+        garbage = 0;
+
+        STRtree tree = new STRtree();
+        for (int i = 0; i < size; i++) {
+            insert(tree, i);
+        }
+        tree.build();
+
+        segments = new STRtree[]{tree};
+        tail = new int[SEGMENT_SIZE];
+        tailSize = 0;
+    }
+
+    void expand(Geometry g) {
+        if (bounds != null && g != null) {
+            bounds.expandToInclude(g.getEnvelopeInternal());
+        }
+    }
 
-            if (g2 != null) {
-                index.insert(g2.getEnvelopeInternal(), pre);
+    /*
+     * Accounts for a geometry no longer being part of the dataset, the bounds are only invalidated if it
+     * touches their edge.
+     */
+    void shrink(Geometry g) {
+        if (bounds == null || g == null || g.isEmpty()) {
+            return;
+        }
+        Envelope e = g.getEnvelopeInternal();
+        if (e.getMinX() <= bounds.getMinX() || e.getMinY() <= bounds.getMinY()
+            || e.getMaxX() >= bounds.getMaxX() || e.getMaxY() >= bounds.getMaxY()) {
+            bounds = null;
+        }
+    }
+
+    /*
+     * Picks up bounds invalidated by a previous write once a reader of the current snapshot has recomputed
+     * them, must be called before a write changes anything.
+     */
+    void adoptBounds() {
+        if (bounds == null) {
+            Bounds b = snapshot.bounds;
+            if (b != null) {
+                bounds = new Bounds(b);
             }
         }
+    }
+
+    void publish() {
+        if (garbage > SEGMENT_SIZE && garbage > count) {
+            compact();
+        }
 
-        f.apply();
-        add(f.getDelegate());
+        version++;
+        snapshot = new Snapshot(version, slots, size, segments, tail, tailSize, count,
+            bounds != null ? new Bounds(bounds) : null);
+    }
+
+    static Bounds empty() {
+        Bounds b = new Bounds();
+        b.setToNull();
+        return b;
     }
 
     @Override
     public void close() {
     }
 
+    /**
+     * A version of a feature stored in a slot, a <code>null</code> feature marks a removal.
+     */
+    static class Entry {
+        final Feature feature;
+        final long version;
+        final Entry older;
+
+        Entry(Feature feature, long version, Entry older) {
+            this.feature = feature;
+            this.version = version;
+            this.older = older;
+        }
+    }
+
+    /**
+     * Consistent, immutable view of the features of the dataset at a point in time.
+     */
+    public static class Snapshot implements Iterable<Feature> {
+
+        final long version;
+        final Entry[] slots;
+        final int size;
+        final STRtree[] segments;
+        final int[] tail;
+        final int tailSize;
+        final int count;
+
+        /** bounds of the features, computed lazily if not maintained by the writer */
+        volatile Bounds bounds;
+
+        Snapshot(long version, Entry[] slots, int size, STRtree[] segments, int[] tail, int tailSize,
+            int count, Bounds bounds) {
+            this.version = version;
+            this.slots = slots;
+            this.size = size;
+            this.segments = segments;
+            this.tail = tail;
+            this.tailSize = tailSize;
+            this.count = count;
+            this.bounds = bounds;
+        }
+
+        /**
+         * The version of the dataset the snapshot was taken at.
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * The number of features in the snapshot.
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * The bounds of the features in the snapshot.
+         */
+        public Bounds bounds() {
+            Bounds b = bounds;
+            if (b == null) {
+                b = empty();
+                for (Feature f : this) {
+                    Geometry g = f.geometry();
+                    if (g != null) {
+                        b.expandToInclude(g.getEnvelopeInternal());
+                    }
+                }
+                bounds = b;
+            }
+            return b;
+        }
+
+        /**
+         * The version of the feature in a slot visible to this snapshot, or <code>null</code>.
+         */
+        Feature get(int slot) {
+            Entry e = slots[slot];
+            while (e != null && e.version > version) {
+                e = e.older;
+            }
+            return e != null ? e.feature : null;
+        }
+
+        /**
+         * The features whose envelope intersects the specified bounds, in order of insertion.
+         */
+        public List<Feature> query(Envelope bounds) {
+            BitSet hits = new BitSet(size);
+            for (STRtree tree : segments) {
+                for (Object slot : tree.query(bounds)) {
+                    hits.set((Integer) slot);
+                }
+            }
+            for (int i = 0; i < tailSize; i++) {
+                hits.set(tail[i]);
+            }
+
+            List<Feature> features = new ArrayList<>();
+            for (int i = hits.nextSetBit(0); i >= 0 && i < size; i = hits.nextSetBit(i + 1)) {
+                Feature f = get(i);
+                Geometry g = f != null ? f.geometry() : null;
+                if (g != null && bounds.intersects(g.getEnvelopeInternal())) {
+                    features.add(f);
+                }
+            }
+            return features;
+        }
+
+        @Override
+        public Iterator<Feature> iterator() {
+            return new Iterator<Feature>() {
+                int i = 0;
+                Feature next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && i < size) {
+                        next = get(i++);
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Feature next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Feature f = next;
+                    next = null;
+                    return f;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,131 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data.mem;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Geometry;
+import io.jeo.vector.Feature;
+import io.jeo.vector.Field;
+import io.jeo.vector.Schema;
+
+/**
+ * Feature backed by a row of a {@link PackedVectorDataset}, values are decoded when first accessed.
+ * <p>
+ * Values put into the feature are held by the feature itself and don't change the dataset.
+ * </p>
+ */
+class PackedFeature implements Feature {
+
+    final PackedVectorDataset data;
+    final int row;
+
+    String id;
+    Object[] values;
+    Map<String,Object> changed;
+
+    PackedFeature(PackedVectorDataset data, int row) {
+        this.data = data;
+        this.row = row;
+    }
+
+    @Override
+    public String id() {
+        if (id == null) {
+            id = data.id(row);
+        }
+        return id;
+    }
+
+    @Override
+    public boolean has(String key) {
+        return data.schema.field(key) != null || (changed != null && changed.containsKey(key));
+    }
+
+    @Override
+    public Object get(String key) {
+        if (changed != null && changed.containsKey(key)) {
+            return changed.get(key);
+        }
+
+        int i = data.schema.indexOf(key);
+        return i > -1 ? value(i) : null;
+    }
+
+    Object value(int i) {
+        if (values == null) {
+            values = new Object[data.columns.length];
+        }
+        Object v = values[i];
+        if (v == null && !data.columns[i].nulls.get(row)) {
+            v = values[i] = data.value(row, i);
+        }
+        return v;
+    }
+
+    @Override
+    public Geometry geometry() {
+        Field geo = data.schema.geometry();
+        if (geo != null) {
+            return (Geometry) get(geo.name());
+        }
+
+        for (Map.Entry<String,Object> e : map().entrySet()) {
+            if (e.getValue() instanceof Geometry) {
+                return (Geometry) e.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Feature put(String key, Object val) {
+        if (changed == null) {
+            changed = new HashMap<>();
+        }
+        changed.put(key, val);
+        return this;
+    }
+
+    @Override
+    public Feature put(Geometry g) {
+        Field geo = data.schema.geometry();
+        if (geo == null) {
+            throw new IllegalArgumentException("Schema " + data.schema.name() + " has no geometry field");
+        }
+        return put(geo.name(), g);
+    }
+
+    @Override
+    public Map<String, Object> map() {
+        Schema schema = data.schema;
+
+        Map<String,Object> map = new LinkedHashMap<>();
+        for (Field fld : schema) {
+            map.put(fld.name(), get(fld.name()));
+        }
+        if (changed != null) {
+            map.putAll(changed);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return id() + map();
+    }
+}
@@ -0,0 +1,246 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data.mem;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Static R-tree packed into direct buffers, outside of the java heap.
+ * <p>
+ * Items are sorted along a hilbert curve and grouped bottom up into nodes of {@link #NODE_SIZE} entries.
+ * Node boxes and item or child references are stored level by level in flat buffers so the tree has no
+ * per node objects and queries traverse it without allocating beyond the result.
+ * </p>
+ */
+class PackedRTree {
+
+    static final int NODE_SIZE = 16;
+
+    /** hilbert curve resolution, bits per axis */
+    static final int HILBERT_BITS = 16;
+
+    final int numItems;
+    /* end position of each level, level 0 holds the items */
+    final int[] levels;
+
+    /* minx, miny, maxx, maxy of every node */
+    final DoubleBuffer boxes;
+    /* item of a leaf entry, position of the first child of a node */
+    final IntBuffer refs;
+
+    /**
+     * Builds a tree over the rows with an envelope that are not deleted.
+     *
+     * @param envelopes Envelopes of the rows, 4 doubles per row, NaN if the row has no envelope.
+     * @param rows The number of rows.
+     * @param deleted Deleted rows.
+     */
+    PackedRTree(Arena.Values envelopes, int rows, BitSet deleted) {
+        int n = 0;
+        Envelope extent = new Envelope();
+        for (int i = 0; i < rows; i++) {
+            if (include(envelopes, i, deleted)) {
+                extent.expandToInclude(envelopes.getDouble(i, 0), envelopes.getDouble(i, 1));
+                extent.expandToInclude(envelopes.getDouble(i, 2), envelopes.getDouble(i, 3));
+                n++;
+            }
+        }
+        numItems = n;
+
+        List<Integer> ends = new ArrayList<>();
+        int count = n, total = n;
+        ends.add(total);
+        while (count > 1) {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            total += count;
+            ends.add(total);
+        }
+        levels = new int[ends.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = ends.get(i);
+        }
+
+        boxes = ByteBuffer.allocateDirect(Math.max(total, 1) * 32).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        refs = ByteBuffer.allocateDirect(Math.max(total, 1) * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+
+        if (n == 0) {
+            return;
+        }
+
+        // sort items by hilbert value, packed with the row so a primitive sort suffices
+        long[] sorted = new long[n];
+        double w = extent.getWidth() > 0 ? extent.getWidth() : 1;
+        double h = extent.getHeight() > 0 ? extent.getHeight() : 1;
+        int max = (1 << HILBERT_BITS) - 1;
+
+        for (int i = 0, j = 0; i < rows; i++) {
+            if (include(envelopes, i, deleted)) {
+                double cx = (envelopes.getDouble(i, 0) + envelopes.getDouble(i, 2)) / 2;
+                double cy = (envelopes.getDouble(i, 1) + envelopes.getDouble(i, 3)) / 2;
+                int x = (int) (max * (cx - extent.getMinX()) / w);
+                int y = (int) (max * (cy - extent.getMinY()) / h);
+                sorted[j++] = ((hilbert(x, y) & 0xFFFFFFFFL) << 31) | i;
+            }
+        }
+        Arrays.sort(sorted);
+
+        for (int i = 0; i < n; i++) {
+            int row = (int) (sorted[i] & 0x7FFFFFFF);
+            for (int k = 0; k < 4; k++) {
+                boxes.put(4 * i + k, envelopes.getDouble(row, k));
+            }
+            refs.put(i, row);
+        }
+
+        // build the parent levels
+        int pos = 0;
+        for (int l = 0; l < levels.length - 1; l++) {
+            int end = levels[l];
+            int parent = end;
+            while (pos < end) {
+                int first = pos;
+                double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+                double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+                for (int k = 0; k < NODE_SIZE && pos < end; k++, pos++) {
+                    x1 = Math.min(x1, boxes.get(4 * pos));
+                    y1 = Math.min(y1, boxes.get(4 * pos + 1));
+                    x2 = Math.max(x2, boxes.get(4 * pos + 2));
+                    y2 = Math.max(y2, boxes.get(4 * pos + 3));
+                }
+                boxes.put(4 * parent, x1);
+                boxes.put(4 * parent + 1, y1);
+                boxes.put(4 * parent + 2, x2);
+                boxes.put(4 * parent + 3, y2);
+                refs.put(parent, first);
+                parent++;
+            }
+        }
+    }
+
+    static boolean include(Arena.Values envelopes, int row, BitSet deleted) {
+        return !Double.isNaN(envelopes.getDouble(row, 0)) && !deleted.get(row);
+    }
+
+    /**
+     * The number of items in the tree.
+     */
+    int size() {
+        return numItems;
+    }
+
+    /**
+     * Adds the items whose box intersects the specified envelope to a set.
+     */
+    void query(Envelope e, BitSet hits) {
+        if (numItems == 0) {
+            return;
+        }
+
+        double qx1 = e.getMinX(), qy1 = e.getMinY(), qx2 = e.getMaxX(), qy2 = e.getMaxY();
+
+        int[] stack = new int[16];
+        int top = 0;
+
+        // start at the root
+        int node = levels[levels.length - 1] - 1;
+        int level = levels.length - 1;
+
+        while (true) {
+            int end = Math.min(node + NODE_SIZE, levels[level]);
+            for (int pos = node; pos < end; pos++) {
+                if (boxes.get(4 * pos) > qx2 || boxes.get(4 * pos + 1) > qy2
+                    || boxes.get(4 * pos + 2) < qx1 || boxes.get(4 * pos + 3) < qy1) {
+                    continue;
+                }
+
+                int ref = refs.get(pos);
+                if (level == 0) {
+                    hits.set(ref);
+                }
+                else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = ref;
+                    stack[top++] = level - 1;
+                }
+            }
+
+            if (top == 0) {
+                return;
+            }
+            level = stack[--top];
+            node = stack[--top];
+        }
+    }
+
+    /*
+     * Position of a point along the hilbert curve, computed without branches as flatbush does.
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >> 1);
+        int B = (a >> 1) ^ a;
+        int C = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+        int D = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+        a = A; b = B; c = C; d = D;
+        A = ((a & (a >> 2)) ^ (b & (b >> 2)));
+        B = ((a & (b >> 2)) ^ (b & ((a ^ b) >> 2)));
+        C ^= ((a & (c >> 2)) ^ (b & (d >> 2)));
+        D ^= ((b & (c >> 2)) ^ ((a ^ b) & (d >> 2)));
+
+        a = A; b = B; c = C; d = D;
+        A = ((a & (a >> 4)) ^ (b & (b >> 4)));
+        B = ((a & (b >> 4)) ^ (b & ((a ^ b) >> 4)));
+        C ^= ((a & (c >> 4)) ^ (b & (d >> 4)));
+        D ^= ((b & (c >> 4)) ^ ((a ^ b) & (d >> 4)));
+
+        a = A; b = B; c = C; d = D;
+        C ^= ((a & (c >> 8)) ^ (b & (d >> 8)));
+        D ^= ((b & (c >> 8)) ^ ((a ^ b) & (d >> 8)));
+
+        a = C ^ (C >> 1);
+        b = D ^ (D >> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+        i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+        i0 = (i0 | (i0 << 2)) & 0x33333333;
+        i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+        i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+        i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+        i1 = (i1 | (i1 << 2)) & 0x33333333;
+        i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+        return (i1 << 1) | i0;
+    }
+}
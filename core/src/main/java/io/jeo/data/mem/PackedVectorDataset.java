@@ -0,0 +1,736 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data.mem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import io.jeo.geom.Bounds;
+import io.jeo.proj.Proj;
+import io.jeo.util.Key;
+import io.jeo.util.Util;
+import io.jeo.vector.DiffFeature;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureAppendCursor;
+import io.jeo.vector.FeatureCursor;
+import io.jeo.vector.FeatureWriteCursor;
+import io.jeo.vector.Field;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import io.jeo.vector.VectorQueryPlan;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+
+/**
+ * In memory vector dataset that stores features outside of the java heap, an alternative to
+ * {@link MemVectorDataset} for large datasets.
+ * <p>
+ * Features are stored by column in direct buffers: geometries as WKB in an {@link Arena} along with their
+ * envelopes, integral and floating point attributes as primitive values, and strings as codes into a
+ * dictionary of distinct values. Attributes of other types, and values that don't match the type of their
+ * field, are kept on the heap. Bounding box queries go through a {@link PackedRTree} that is rebuilt once
+ * enough features have been written since it was built, features written since are scanned linearly.
+ * </p>
+ * <p>
+ * Features returned by cursors are decoded lazily, only the values that are accessed are read from the
+ * buffers. Changing such a feature directly has no effect on the dataset, changes are applied through
+ * {@link #update(VectorQuery)} which stores the modified feature as a new row, so modified features move
+ * to the end of the dataset.
+ * </p>
+ * <p>
+ * Storage is append only, modified and removed rows are only marked as deleted so memory grows with every
+ * write until {@link #compact()} is called. Datasets that are updated frequently should be compacted
+ * periodically.
+ * </p>
+ * <p>
+ * The dataset may be read from multiple threads concurrently, but writes, including compaction, must not
+ * run concurrently with any other read or write.
+ * </p>
+ */
+public class PackedVectorDataset implements VectorDataset {
+
+    /** minimum number of rows written since the index was built before rebuilding it */
+    static final int REINDEX_ROWS = 1024;
+
+    Schema schema;
+
+    Column[] columns;
+    /** column of the default geometry, -1 if none */
+    int geom = -1;
+
+    Arena ids = new Arena();
+    Arena.Values idRefs = new Arena.Values(12, 1024);
+    Arena.Values envelopes = new Arena.Values(32, 1024);
+
+    int rows;
+    int count;
+    BitSet deleted = new BitSet();
+
+    /** bounds of the live features, null if a removal may have shrunk them */
+    Bounds bounds;
+
+    PackedRTree index;
+    /** number of rows covered by the index, and deleted since it was built */
+    int indexed, unindexed;
+
+    public PackedVectorDataset(Schema schema) {
+        this.schema = schema;
+
+        columns = new Column[schema.size()];
+        int i = 0;
+        for (Field fld : schema) {
+            if (fld == schema.geometry()) {
+                geom = i;
+            }
+            columns[i++] = Column.create(fld);
+        }
+
+        bounds = new Bounds();
+    }
+
+    /**
+     * Creates a packed copy of a dataset.
+     */
+    public static PackedVectorDataset copy(VectorDataset data) throws IOException {
+        PackedVectorDataset packed = new PackedVectorDataset(data.schema());
+        try (FeatureCursor c = data.read(new VectorQuery())) {
+            while (c.hasNext()) {
+                packed.add(c.next());
+            }
+        }
+        return packed;
+    }
+
+    @Override
+    public Memory driver() {
+        return new Memory();
+    }
+
+    @Override
+    public Map<Key<?>,Object> driverOptions() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public String name() {
+        return schema.name();
+    }
+
+    @Override
+    public CoordinateReferenceSystem crs() {
+        return schema.crs();
+    }
+
+    @Override
+    public Schema schema() {
+        return schema;
+    }
+
+    @Override
+    public synchronized Bounds bounds() throws IOException {
+        if (geom < 0) {
+            return null;
+        }
+
+        if (bounds == null) {
+            bounds = new Bounds();
+            for (int i = 0; i < rows; i++) {
+                if (PackedRTree.include(envelopes, i, deleted)) {
+                    bounds.expandToInclude(envelope(i));
+                }
+            }
+        }
+        return new Bounds(bounds);
+    }
+
+    @Override
+    public long count(VectorQuery q) throws IOException {
+        if (q.isAll()) {
+            return q.adjustCount(count);
+        }
+        return read(q).count();
+    }
+
+    /**
+     * The number of bytes allocated outside of the heap.
+     */
+    public long allocated() {
+        long n = ids.allocated() + idRefs.allocated() + envelopes.allocated();
+        for (Column c : columns) {
+            n += c.allocated();
+        }
+        return n;
+    }
+
+    @Override
+    public FeatureCursor read(VectorQuery q) throws IOException {
+        VectorQueryPlan qp = new VectorQueryPlan(q);
+
+        BitSet hits = null;
+        if (!Bounds.isNull(q.bounds())) {
+            hits = query(q.bounds());
+            qp.bounded();
+        }
+
+        return qp.apply(new PackedCursor(this, rows, hits), schema);
+    }
+
+    @Override
+    public FeatureWriteCursor update(VectorQuery q) throws IOException {
+        final FeatureCursor c = read(q);
+        return new FeatureWriteCursor() {
+            DiffFeature curr;
+
+            @Override
+            public boolean hasNext() throws IOException {
+                return c.hasNext();
+            }
+
+            @Override
+            public Feature next() throws IOException {
+                return curr = new DiffFeature(c.next());
+            }
+
+            @Override
+            public FeatureWriteCursor write() throws IOException {
+                modify(curr);
+                return this;
+            }
+
+            @Override
+            public FeatureWriteCursor remove() throws IOException {
+                delete(row(curr.getDelegate()));
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+                c.close();
+            }
+        };
+    }
+
+    @Override
+    public FeatureAppendCursor append(VectorQuery q) throws IOException {
+        return new FeatureAppendCursor() {
+            Feature curr;
+
+            @Override
+            public Feature next() throws IOException {
+                return curr = new ListFeature(schema);
+            }
+
+            @Override
+            public FeatureAppendCursor write() throws IOException {
+                add(curr);
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+    }
+
+    /**
+     * Adds a feature.
+     */
+    public void add(Feature f) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = f.get(columns[i].field.name());
+        }
+        if (geom > -1 && values[geom] == null) {
+            values[geom] = f.geometry();
+        }
+        add(f.id(), values);
+    }
+
+    void add(String id, Object[] values) {
+        int row = rows;
+
+        byte[] idBytes = id.getBytes(Util.UTF_8);
+        idRefs.ensure(row + 1);
+        idRefs.setLong(row, ids.add(idBytes));
+        idRefs.setInt(row, 8, idBytes.length);
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(row, values[i]);
+        }
+
+        envelopes.ensure(row + 1);
+        Geometry g = geom > -1 && values[geom] instanceof Geometry ? (Geometry) values[geom] : null;
+        if (g != null && !g.isEmpty()) {
+            Envelope e = g.getEnvelopeInternal();
+            envelopes.setDouble(row, 0, e.getMinX());
+            envelopes.setDouble(row, 1, e.getMinY());
+            envelopes.setDouble(row, 2, e.getMaxX());
+            envelopes.setDouble(row, 3, e.getMaxY());
+            if (bounds != null) {
+                bounds.expandToInclude(e);
+            }
+        }
+        else {
+            envelopes.setDouble(row, 0, Double.NaN);
+        }
+
+        rows++;
+        count++;
+    }
+
+    void modify(DiffFeature f) {
+        Feature pre = f.getDelegate();
+        int row = row(pre);
+
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String name = columns[i].field.name();
+            values[i] = f.changed().containsKey(name) ? f.changed().get(name) : pre.get(name);
+        }
+
+        delete(row);
+        add(pre.id(), values);
+    }
+
+    void delete(int row) {
+        if (row < 0 || deleted.get(row)) {
+            return;
+        }
+
+        deleted.set(row);
+        count--;
+        unindexed++;
+
+        if (bounds != null && !Double.isNaN(envelopes.getDouble(row, 0))) {
+            Envelope e = envelope(row);
+            if (e.getMinX() <= bounds.getMinX() || e.getMinY() <= bounds.getMinY()
+                || e.getMaxX() >= bounds.getMaxX() || e.getMaxY() >= bounds.getMaxY()) {
+                bounds = null;
+            }
+        }
+    }
+
+    /*
+     * The row of a feature, features from the dataset know their row, others such as those with a subset of
+     * fields are looked up by id.
+     */
+    int row(Feature f) {
+        if (f instanceof PackedFeature && ((PackedFeature) f).data == this) {
+            return ((PackedFeature) f).row;
+        }
+        for (int i = 0; i < rows; i++) {
+            if (!deleted.get(i) && id(i).equals(f.id())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    String id(int row) {
+        long addr = idRefs.getLong(row);
+        int len = idRefs.getInt(row, 8);
+        return new String(ids.get(addr, len), Util.UTF_8);
+    }
+
+    Object value(int row, int col) {
+        return columns[col].get(row);
+    }
+
+    Envelope envelope(int row) {
+        return new Envelope(envelopes.getDouble(row, 0), envelopes.getDouble(row, 2),
+            envelopes.getDouble(row, 1), envelopes.getDouble(row, 3));
+    }
+
+    /**
+     * The live rows whose envelope intersects the specified bounds.
+     */
+    BitSet query(Envelope bounds) {
+        PackedRTree index;
+        int indexed;
+        // the index is built lazily by readers
+        synchronized (this) {
+            if (this.index == null || rows - this.indexed + unindexed > Math.max(REINDEX_ROWS, this.indexed / 4)) {
+                this.index = new PackedRTree(envelopes, rows, deleted);
+                this.indexed = rows;
+                unindexed = 0;
+            }
+            index = this.index;
+            indexed = this.indexed;
+        }
+
+        BitSet hits = new BitSet(rows);
+        index.query(bounds, hits);
+        hits.andNot(deleted);
+
+        for (int i = indexed; i < rows; i++) {
+            if (PackedRTree.include(envelopes, i, deleted) && bounds.intersects(envelope(i))) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Rewrites the storage of the dataset without the rows of modified and removed features, releasing
+     * the memory they occupy.
+     * <p>
+     * Features read from the dataset before compaction must no longer be accessed.
+     * </p>
+     */
+    public synchronized void compact() {
+        if (deleted.isEmpty()) {
+            return;
+        }
+
+        PackedVectorDataset packed = new PackedVectorDataset(schema);
+        Object[] values = new Object[columns.length];
+        for (int i = deleted.nextClearBit(0); i < rows; i = deleted.nextClearBit(i + 1)) {
+            for (int j = 0; j < columns.length; j++) {
+                values[j] = value(i, j);
+            }
+            packed.add(id(i), values);
+        }
+
+        columns = packed.columns;
+        ids = packed.ids;
+        idRefs = packed.idRefs;
+        envelopes = packed.envelopes;
+        rows = packed.rows;
+        count = packed.count;
+        deleted = packed.deleted;
+        bounds = packed.bounds;
+        index = null;
+        indexed = 0;
+        unindexed = 0;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Cursor over the live rows of the dataset, optionally restricted to a set of rows.
+     */
+    static class PackedCursor extends FeatureCursor {
+
+        final PackedVectorDataset data;
+        final int rows;
+        final BitSet hits;
+
+        int next;
+
+        PackedCursor(PackedVectorDataset data, int rows, BitSet hits) {
+            this.data = data;
+            this.rows = rows;
+            this.hits = hits;
+            this.next = advance(0);
+        }
+
+        int advance(int i) {
+            if (hits != null) {
+                i = hits.nextSetBit(i);
+                return i < 0 ? rows : i;
+            }
+            i = data.deleted.nextClearBit(i);
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            while (next < rows && data.deleted.get(next)) {
+                next = advance(next + 1);
+            }
+            return next < rows;
+        }
+
+        @Override
+        public Feature next() throws IOException {
+            Feature f = new PackedFeature(data, next);
+            next = advance(next + 1);
+            return f;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Column of values of a field.
+     * <p>
+     * Null values and values the column can't encode are tracked on the heap.
+     * </p>
+     */
+    static abstract class Column {
+
+        static Column create(Field fld) {
+            Class<?> type = fld.type();
+            if (Geometry.class.isAssignableFrom(type)) {
+                return new GeometryColumn(fld);
+            }
+            if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                || type == Double.class || type == Float.class) {
+                return new NumberColumn(fld);
+            }
+            if (type == Boolean.class) {
+                return new BooleanColumn(fld);
+            }
+            if (type == String.class) {
+                return new StringColumn(fld);
+            }
+            return new ObjectColumn(fld);
+        }
+
+        final Field field;
+        final BitSet nulls = new BitSet();
+        Map<Integer,Object> other;
+
+        Column(Field field) {
+            this.field = field;
+        }
+
+        void set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+            }
+            else if (!encode(row, value)) {
+                if (other == null) {
+                    other = new HashMap<>();
+                }
+                other.put(row, value);
+            }
+        }
+
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (other != null && other.containsKey(row)) {
+                return other.get(row);
+            }
+            return decode(row);
+        }
+
+        /**
+         * Encodes a value, returning false if the column can't encode it.
+         */
+        abstract boolean encode(int row, Object value);
+
+        abstract Object decode(int row);
+
+        long allocated() {
+            return 0;
+        }
+    }
+
+    static class NumberColumn extends Column {
+
+        final Class<?> type;
+        final boolean floating;
+        final Arena.Values values = new Arena.Values(8, 1024);
+
+        NumberColumn(Field field) {
+            super(field);
+            type = field.type();
+            floating = type == Double.class || type == Float.class;
+        }
+
+        @Override
+        boolean encode(int row, Object value) {
+            if (value.getClass() != type) {
+                return false;
+            }
+            values.ensure(row + 1);
+            Number n = (Number) value;
+            values.setLong(row, floating ? Double.doubleToRawLongBits(n.doubleValue()) : n.longValue());
+            return true;
+        }
+
+        @Override
+        Object decode(int row) {
+            long v = values.getLong(row);
+            if (type == Integer.class) {
+                return (int) v;
+            }
+            if (type == Long.class) {
+                return v;
+            }
+            if (type == Short.class) {
+                return (short) v;
+            }
+            if (type == Byte.class) {
+                return (byte) v;
+            }
+            double d = Double.longBitsToDouble(v);
+            return type == Float.class ? (Object) (float) d : (Object) d;
+        }
+
+        @Override
+        long allocated() {
+            return values.allocated();
+        }
+    }
+
+    static class BooleanColumn extends Column {
+
+        final BitSet values = new BitSet();
+
+        BooleanColumn(Field field) {
+            super(field);
+        }
+
+        @Override
+        boolean encode(int row, Object value) {
+            if (!(value instanceof Boolean)) {
+                return false;
+            }
+            values.set(row, (Boolean) value);
+            return true;
+        }
+
+        @Override
+        Object decode(int row) {
+            return values.get(row);
+        }
+    }
+
+    /**
+     * Dictionary encoded strings, the dictionary lives on the heap and the codes off it.
+     */
+    static class StringColumn extends Column {
+
+        final List<String> dict = new ArrayList<>();
+        final Map<String,Integer> codes = new HashMap<>();
+        final Arena.Values values = new Arena.Values(4, 1024);
+
+        StringColumn(Field field) {
+            super(field);
+        }
+
+        @Override
+        boolean encode(int row, Object value) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dict.size();
+                dict.add((String) value);
+                codes.put((String) value, code);
+            }
+
+            values.ensure(row + 1);
+            values.setInt(row, 0, code);
+            return true;
+        }
+
+        @Override
+        Object decode(int row) {
+            return dict.get(values.getInt(row, 0));
+        }
+
+        @Override
+        long allocated() {
+            return values.allocated();
+        }
+    }
+
+    /**
+     * Geometries encoded as WKB.
+     */
+    static class GeometryColumn extends Column {
+
+        final Arena arena = new Arena();
+        final Arena.Values refs = new Arena.Values(12, 1024);
+        CoordinateReferenceSystem crs;
+
+        GeometryColumn(Field field) {
+            super(field);
+            crs = field.crs();
+        }
+
+        @Override
+        boolean encode(int row, Object value) {
+            if (!(value instanceof Geometry)) {
+                return false;
+            }
+
+            Geometry g = (Geometry) value;
+            if (crs == null) {
+                crs = Proj.crs(g);
+            }
+
+            // only pay for a third dimension when there is one
+            boolean z = !g.isEmpty() && !Double.isNaN(g.getCoordinate().z);
+            byte[] wkb = new WKBWriter(z ? 3 : 2).write(g);
+
+            refs.ensure(row + 1);
+            refs.setLong(row, arena.add(wkb));
+            refs.setInt(row, 8, wkb.length);
+            return true;
+        }
+
+        @Override
+        Object decode(int row) {
+            byte[] wkb = arena.get(refs.getLong(row), refs.getInt(row, 8));
+            try {
+                Geometry g = new WKBReader().read(wkb);
+                return crs != null ? Proj.crs(g, crs, false) : g;
+            } catch (ParseException e) {
+                throw new IllegalStateException("Unable to decode geometry of row " + row, e);
+            }
+        }
+
+        @Override
+        long allocated() {
+            return arena.allocated() + refs.allocated();
+        }
+    }
+
+    static class ObjectColumn extends Column {
+
+        final List<Object> values = new ArrayList<>();
+
+        ObjectColumn(Field field) {
+            super(field);
+        }
+
+        @Override
+        boolean encode(int row, Object value) {
+            while (values.size() <= row) {
+                values.add(null);
+            }
+            values.set(row, value);
+            return true;
+        }
+
+        @Override
+        Object decode(int row) {
+            return row < values.size() ? values.get(row) : null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.filter;
+
+import io.jeo.vector.FeatureBatch;
+import io.jeo.vector.Field;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+
+/**
+ * Property bound to the position of a field in a {@link Schema}.
+ * <p>
+ * Features of the bound schema are evaluated by position, others fall back to a lookup by name.
+ * </p>
+ *
+ * @see Filter#compile(Schema)
+ */
+class BoundProperty extends Property {
+
+    final Schema schema;
+    final int index;
+
+    BoundProperty(String property, Schema schema) {
+        super(property);
+        this.schema = schema;
+        this.index = schema.indexOf(property);
+    }
+
+    /**
+     * The declared type of the bound field, or <code>null</code> if the schema has no such field.
+     */
+    Class<?> type() {
+        if (index < 0) {
+            return null;
+        }
+        Field fld = schema.fields().get(index);
+        return fld.type();
+    }
+
+    @Override
+    public boolean has(Object obj) {
+        if (obj instanceof ListFeature && ((ListFeature) obj).schema() == schema) {
+            return index > -1;
+        }
+        if (obj instanceof FeatureBatch.Row && ((FeatureBatch.Row) obj).schema() == schema) {
+            return index > -1;
+        }
+        return super.has(obj);
+    }
+
+    @Override
+    protected Object resolve(Object obj) {
+        if (obj instanceof ListFeature) {
+            ListFeature f = (ListFeature) obj;
+            if (f.schema() == schema) {
+                return index > -1 ? f.get(index) : null;
+            }
+        }
+        else if (obj instanceof FeatureBatch.Row) {
+            FeatureBatch.Row r = (FeatureBatch.Row) obj;
+            if (r.schema() == schema) {
+                return index > -1 ? r.get(index) : null;
+            }
+        }
+        return super.resolve(obj);
+    }
+}
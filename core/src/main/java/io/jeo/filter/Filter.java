@@ -15,6 +15,7 @@
 package io.jeo.filter;
 
 import io.jeo.util.Predicate;
+import io.jeo.vector.Schema;
 
 /**
  * Predicate that applies a boolean filter for a given input. 
@@ -76,6 +77,23 @@ public abstract class Filter<T> extends Predicate<T> {
         return new Logic<T>(Logic.Type.NOT, this); 
     }
 
+    /**
+     * Compiles the filter for evaluation against features of the specified schema.
+     * <p>
+     * The returned filter is equivalent to this filter but resolves property references to field
+     * positions once, converts literals to the declared type of the field they are compared to
+     * once, and tests {@link In} filters with a hash lookup. Features of a different schema are
+     * still evaluated correctly, only more slowly.
+     * </p>
+     * @param schema The schema of features to be filtered.
+     *
+     * @return The compiled filter.
+     */
+    @SuppressWarnings("unchecked")
+    public Filter<T> compile(Schema schema) {
+        return (Filter<T>) accept(new FilterCompiler(schema), null);
+    }
+
     /**
      * Applies a visitor to the filter.
      */
@@ -0,0 +1,237 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.filter;
+
+import io.jeo.util.Convert;
+import io.jeo.util.Optional;
+import io.jeo.vector.Schema;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter visitor that rebuilds a filter optimized for evaluation against features of a specific
+ * schema.
+ * <p>
+ * The compiler:
+ * <ul>
+ *   <li>binds {@link Property} expressions to the position of the field in the schema</li>
+ *   <li>converts literals compared to a property to the declared type of the field</li>
+ *   <li>turns {@link In} filters with literal values into a hash lookup</li>
+ * </ul>
+ * Filter and expression types that are subclassed, or not known to the compiler, are left as is.
+ * </p>
+ *
+ * @see Filter#compile(Schema)
+ */
+class FilterCompiler implements FilterVisitor<Object> {
+
+    Schema schema;
+
+    FilterCompiler(Schema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public Object visit(Self self, Object obj) {
+        return self;
+    }
+
+    @Override
+    public Object visit(Literal literal, Object obj) {
+        return literal;
+    }
+
+    @Override
+    public Object visit(Property property, Object obj) {
+        if (property.getClass() != Property.class) {
+            return property;
+        }
+        return new BoundProperty(property.property(), schema);
+    }
+
+    @Override
+    public Object visit(Function function, Object obj) {
+        return function;
+    }
+
+    @Override
+    public Object visit(Mixed mixed, Object obj) {
+        if (mixed.getClass() != Mixed.class) {
+            return mixed;
+        }
+
+        List<Expression> exprs = new ArrayList<>();
+        for (Expression e : mixed.expressions()) {
+            exprs.add(compile(e));
+        }
+        return new Mixed(exprs);
+    }
+
+    @Override
+    public Object visit(Math math, Object obj) {
+        if (math.getClass() != Math.class) {
+            return math;
+        }
+        return new Math(math.operator(), compile(math.left()), compile(math.right()));
+    }
+
+    @Override
+    public Object visit(Expression expr, Object obj) {
+        return expr;
+    }
+
+    @Override
+    public Object visit(All<?> all, Object obj) {
+        return all;
+    }
+
+    @Override
+    public Object visit(None<?> none, Object obj) {
+        return none;
+    }
+
+    @Override
+    public Object visit(Id<?> id, Object obj) {
+        return id;
+    }
+
+    @Override
+    public Object visit(Logic<?> logic, Object obj) {
+        if (logic.getClass() != Logic.class) {
+            return logic;
+        }
+
+        List<Filter<Object>> parts = new ArrayList<>();
+        for (Filter<?> f : logic.parts()) {
+            parts.add(compile(f));
+        }
+        return new Logic<>(logic.type(), parts);
+    }
+
+    @Override
+    public Object visit(Comparison<?> compare, Object obj) {
+        if (compare.getClass() != Comparison.class) {
+            return compare;
+        }
+
+        Expression left = compile(compare.left());
+        Expression right = compile(compare.right());
+
+        if (left instanceof BoundProperty) {
+            right = convert(right, ((BoundProperty) left).type());
+        }
+        else if (right instanceof BoundProperty) {
+            left = convert(left, ((BoundProperty) right).type());
+        }
+
+        return new Comparison<>(compare.type(), left, right);
+    }
+
+    @Override
+    public Object visit(Spatial<?> spatial, Object obj) {
+        if (spatial.getClass() != Spatial.class) {
+            return spatial;
+        }
+
+        Expression distance = spatial.distance();
+        return new Spatial<>(spatial.type(), compile(spatial.left()), compile(spatial.right()),
+            distance != null ? compile(distance) : null);
+    }
+
+    @Override
+    public Object visit(TypeOf<?> inst, Object obj) {
+        if (inst.getClass() != TypeOf.class) {
+            return inst;
+        }
+        return new TypeOf<>(compile(inst.expression()), inst.type());
+    }
+
+    @Override
+    public Object visit(In<?> in, Object obj) {
+        if (in.getClass() != In.class) {
+            return in;
+        }
+
+        Property prop = (Property) compile(in.property());
+        Class<?> type = prop instanceof BoundProperty ? ((BoundProperty) prop).type() : null;
+
+        // hash the values if they are all literal, keeping both the original and converted values
+        // to match regardless of whether feature values are of the declared field type
+        Set<Object> set = new LinkedHashSet<>();
+        for (Expression e : in.values()) {
+            if (e.getClass() != Literal.class) {
+                return new In<>(prop, in.values(), in.negated());
+            }
+
+            Object val = e.evaluate(null);
+            if (val != null) {
+                set.add(val);
+                set.add(((Literal) convert(e, type)).evaluate(null));
+            }
+        }
+
+        return new HashedIn<>(prop, in.values(), set, type, in.negated());
+    }
+
+    @Override
+    public Object visit(Like<?> like, Object obj) {
+        if (like.getClass() != Like.class) {
+            return like;
+        }
+        return new Like<>((Property) compile(like.property()), like.match(), like.negated());
+    }
+
+    @Override
+    public Object visit(Null<?> isNull, Object obj) {
+        if (isNull.getClass() != Null.class) {
+            return isNull;
+        }
+        return new Null<>((Property) compile(isNull.property()), isNull.negated());
+    }
+
+    @Override
+    public Object visit(Filter<?> filter, Object obj) {
+        return filter;
+    }
+
+    Expression compile(Expression e) {
+        return (Expression) e.accept(this, null);
+    }
+
+    <T> Filter<T> compile(Filter<?> f) {
+        return (Filter<T>) f.accept(this, null);
+    }
+
+    /**
+     * Converts a literal to the specified type, returning the original expression if it is not a
+     * literal or can't be converted.
+     */
+    Expression convert(Expression e, Class<?> type) {
+        if (e.getClass() != Literal.class || type == null || type == Object.class) {
+            return e;
+        }
+
+        Object val = e.evaluate(null);
+        if (val == null || type.isInstance(val)) {
+            return e;
+        }
+
+        Optional<?> converted = Convert.to(val, type);
+        return converted.isPresent() ? new Literal(converted.get()) : e;
+    }
+}
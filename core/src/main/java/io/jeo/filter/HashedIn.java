@@ -0,0 +1,50 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.filter;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In filter whose values are all literals, tested with a hash lookup rather than a scan of the
+ * value list. The hash holds the values as is and converted to the type of the field, values of
+ * another type that miss are tested by converting as {@link In} does.
+ *
+ * @see Filter#compile(io.jeo.vector.Schema)
+ */
+class HashedIn<T> extends In<T> {
+
+    final Set<Object> set;
+    final Class<?> type;
+
+    HashedIn(Property prop, List<? extends Expression> values, Collection<Object> set, Class<?> type,
+        boolean not) {
+        super(prop, values, not);
+        this.set = new HashSet<>(set);
+        this.type = type;
+    }
+
+    @Override
+    public boolean test(T obj) {
+        Object evaluate = prop.evaluate(obj);
+        boolean found = evaluate != null && set.contains(evaluate);
+        if (!found && evaluate != null && (type == null || !type.isInstance(evaluate))) {
+            return super.test(obj);
+        }
+        return not != found;
+    }
+}
@@ -18,9 +18,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import io.jeo.util.Convert;
+import io.jeo.util.Optional;
+
 /**
  * 'In' predicate filter. Returns true if the value of the property is
- *  present in the values list.
+ *  present in the values list, values being converted to the type of the property value
+ *  as {@link Comparison} does.
  *
  * @author Ian Schneider <ischneider@boundlessgeo.com>
  */
@@ -57,6 +61,12 @@ public class In<T> extends Filter<T> {
         for (int i = 0; i < values.size() && !result; i++) {
             Object val = values.get(i).evaluate(obj);
             if (val != null) {
+                if (evaluate != null && !evaluate.getClass().isInstance(val)) {
+                    Optional<?> converted = Convert.to(val, evaluate.getClass());
+                    if (converted.isPresent()) {
+                        val = converted.get();
+                    }
+                }
                 result = val.equals(evaluate);
             }
         }
@@ -16,17 +16,20 @@ package io.jeo.filter;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 import io.jeo.geom.Bounds;
+import io.jeo.geom.Geom;
 
 import java.util.Locale;
 import java.util.Objects;
 
 /**
  * Filter that applies a spatial comparison operator to two geometry expression operands.  
- * 
+ * <p>
+ * When one of the operands is a geometry literal the filter evaluates it as a prepared geometry,
+ * rejecting on envelopes before applying the exact predicate.
+ * </p>
  * @author Justin Deoliveira, OpenGeo
- * 
- * TODO: use prepared geometries
  */
 public class Spatial<T> extends BinaryFilter<T> {
 
@@ -67,6 +70,7 @@ public class Spatial<T> extends BinaryFilter<T> {
 
     final Type type;
     final Expression distance;
+    final Constant constant;
 
     public Spatial(Type type, Expression left, Expression right, Expression distance) {
         super(left, right);
@@ -80,6 +84,9 @@ public class Spatial<T> extends BinaryFilter<T> {
         }
         this.type = type;
         this.distance = distance;
+
+        Constant c = Constant.of(right, false);
+        this.constant = c != null ? c : Constant.of(left, true);
     }
 
     public Type type() {
@@ -102,12 +109,62 @@ public class Spatial<T> extends BinaryFilter<T> {
 
     @Override
     public boolean test(T obj) {
+        if (constant != null && getClass() == Spatial.class) {
+            Object o = (constant.left ? right : left).evaluate(obj);
+            Number d = (Number) (distance == null ? null : distance.evaluate(obj));
+            return o != null && compare(constant, o, d);
+        }
+
         Object o1 = left.evaluate(obj);
         Object o2 = right.evaluate(obj);
         Number d = (Number) (distance == null ? null : distance.evaluate(obj));
         return compare(o1, o2, d);
     }
 
+    boolean compare(Constant c, Object o, Number d) {
+        if (type == Type.BBOX) {
+            return c.envelope.intersects(toEnvelope(o));
+        }
+
+        Geometry g = toGeometry(o);
+        Envelope e = g.getEnvelopeInternal();
+
+        switch(type) {
+        case DWITHIN:
+            return c.envelope.distance(e) <= d.doubleValue() && c.geometry.isWithinDistance(g, d.doubleValue());
+        case BEYOND:
+            return c.envelope.distance(e) > d.doubleValue() || !c.geometry.isWithinDistance(g, d.doubleValue());
+        case DISJOINT:
+            return !c.envelope.intersects(e) || c.prepared.disjoint(g);
+        }
+
+        if (!c.envelope.intersects(e)) {
+            return false;
+        }
+
+        // the constant is either the first or second argument, invert the predicate for the latter
+        switch(type) {
+        case EQUALS:
+            return c.envelope.equals(e) && c.geometry.equalsTopo(g);
+        case INTERSECTS:
+            return c.prepared.intersects(g);
+        case TOUCHES:
+            return c.prepared.touches(g);
+        case OVERLAPS:
+            return c.prepared.overlaps(g);
+        case CROSSES:
+            return c.prepared.crosses(g);
+        case COVERS:
+            return c.left ? c.prepared.covers(g) : c.prepared.coveredBy(g);
+        case WITHIN:
+            return c.left ? c.prepared.within(g) : c.prepared.contains(g);
+        case CONTAINS:
+            return c.left ? c.prepared.contains(g) : c.prepared.within(g);
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
     protected boolean compare(Object o1, Object o2, Number d) {
         if (o1 == null || o2 == null) {
             return false;
@@ -176,6 +233,42 @@ public class Spatial<T> extends BinaryFilter<T> {
         throw new IllegalArgumentException("Unable to convert " + o + " to geometry");
     }
 
+    /**
+     * Geometry literal operand, prepared for repeated evaluation.
+     */
+    static class Constant {
+
+        final Geometry geometry;
+        final Envelope envelope;
+        final PreparedGeometry prepared;
+        final boolean left;
+
+        Constant(Geometry geometry, boolean left) {
+            this.geometry = geometry;
+            this.envelope = geometry.getEnvelopeInternal();
+            this.prepared = Geom.prepare(geometry);
+            this.left = left;
+        }
+
+        static Constant of(Expression e, boolean left) {
+            if (e.getClass() != Literal.class) {
+                return null;
+            }
+
+            Object value = e.evaluate(null);
+            Geometry g = null;
+            if (value instanceof Envelope && !((Envelope) value).isNull()) {
+                g = Bounds.toPolygon((Envelope) value);
+            }
+            else if (value instanceof Geometry) {
+                g = (Geometry) value;
+            }
+
+            // empty geometries have a null envelope, leave them to the regular code path
+            return g != null && !g.isEmpty() ? new Constant(g, left) : null;
+        }
+    }
+
     @Override
     public <R> R accept(FilterVisitor<R> v, Object obj) {
         return v.visit(this, obj);
@@ -0,0 +1,310 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import io.jeo.geojson.parser.CRSFinder;
+import io.jeo.geojson.parser.FeatureHandler;
+import io.jeo.geojson.parser.RootHandler;
+import io.jeo.json.parser.JSONParser;
+import io.jeo.json.parser.ParseException;
+import io.jeo.proj.Proj;
+import io.jeo.util.Util;
+import io.jeo.vector.Feature;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+
+/**
+ * Splits a GeoJSON feature collection into the byte ranges of its features without parsing them.
+ * <p>
+ * The scanner tracks the nesting of the document byte by byte, structural characters of json are all ascii
+ * so this is safe for utf-8 content. Members of the root object are recognized by key, each element of the
+ * "features" array is handed to {@link #feature(int, long, byte[])} and the root "crs" member to
+ * {@link #crs(CoordinateReferenceSystem)}, in document order. The root "type" member is recorded and
+ * available from {@link #type()} after scanning, a document holding a single feature reports no features.
+ * Newline delimited sequences of features are split by line with {@link #scanLines(InputStream)}.
+ * </p>
+ */
+abstract class FeatureScanner {
+
+    /**
+     * record separator of GeoJSON text sequences
+     */
+    static final byte RS = 0x1E;
+
+    /* type member of the root object */
+    String type;
+
+    /**
+     * The value of the "type" member of the root object of the last scanned document, <code>null</code>
+     * if it has none.
+     */
+    public String type() {
+        return type;
+    }
+
+    /**
+     * Called for each feature of the collection.
+     *
+     * @param i The position of the feature in the collection.
+     * @param offset The byte offset of the feature in the document.
+     * @param bytes The encoded feature.
+     */
+    protected abstract void feature(int i, long offset, byte[] bytes) throws IOException;
+
+    /**
+     * Called with the crs of the collection.
+     */
+    protected void crs(CoordinateReferenceSystem crs) throws IOException {
+    }
+
+    /**
+     * Whether to stop scanning, checked after each feature.
+     */
+    protected boolean isStopped() {
+        return false;
+    }
+
+    /**
+     * Scans a document, returning the number of features.
+     */
+    public int scan(InputStream in) throws IOException {
+        int n = 0;
+
+        int depth = 0;
+        boolean str = false, esc = false;
+
+        ByteArrayOutputStream key = new ByteArrayOutputStream();
+        String lastKey = null;
+        String member = null;
+        boolean inFeatures = false;
+        boolean value = false;
+        type = null;
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        boolean buffering = false;
+        long start = 0;
+
+        byte[] chunk = new byte[65536];
+        long pos = 0;
+
+        for (int len = in.read(chunk); len != -1; len = in.read(chunk)) {
+            // bytes of the chunk not yet copied to the buffer
+            int mark = 0;
+
+            for (int j = 0; j < len; j++, pos++) {
+                byte b = chunk[j];
+
+                if (str) {
+                    if (esc) {
+                        esc = false;
+                    }
+                    else if (b == '\\') {
+                        esc = true;
+                    }
+                    else if (b == '"') {
+                        str = false;
+                        if (depth == 1 && value && "type".equals(lastKey)) {
+                            type = new String(key.toByteArray(), Util.UTF_8);
+                        }
+                    }
+
+                    if (depth == 1 && str) {
+                        key.write(b);
+                    }
+                    continue;
+                }
+
+                switch(b) {
+                    case '"':
+                        str = true;
+                        if (depth == 1) {
+                            key.reset();
+                        }
+                        break;
+                    case ':':
+                        if (depth == 1) {
+                            lastKey = new String(key.toByteArray(), Util.UTF_8);
+                            value = true;
+                        }
+                        break;
+                    case ',':
+                        if (depth == 1) {
+                            value = false;
+                        }
+                        break;
+                    case '{':
+                    case '[':
+                        if (depth == 1) {
+                            member = lastKey;
+                            if ("features".equals(member) && b == '[') {
+                                inFeatures = true;
+                            }
+                            else if ("crs".equals(member) && b == '{') {
+                                buffering = true;
+                                buf.reset();
+                                mark = j;
+                            }
+                        }
+                        else if (depth == 2 && inFeatures && b == '{') {
+                            buffering = true;
+                            buf.reset();
+                            mark = j;
+                            start = pos;
+                        }
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        depth--;
+                        if (depth == 1) {
+                            if (inFeatures && b == ']') {
+                                inFeatures = false;
+                            }
+                            else if (buffering && "crs".equals(member)) {
+                                buffering = false;
+                                buf.write(chunk, mark, j + 1 - mark);
+                                crs(parseCRS(buf.toByteArray()));
+                            }
+                            member = null;
+                        }
+                        else if (depth == 2 && inFeatures && buffering) {
+                            buffering = false;
+                            buf.write(chunk, mark, j + 1 - mark);
+                            feature(n++, start, buf.toByteArray());
+                            if (isStopped()) {
+                                return n;
+                            }
+                        }
+                        break;
+                }
+            }
+
+            if (buffering) {
+                buf.write(chunk, mark, len - mark);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Scans a newline delimited sequence of features, returning the number of features.
+     * <p>
+     * Each non blank line is handed to {@link #feature(int, long, byte[])}. Lines may start with the record
+     * separator character of GeoJSON text sequences.
+     * </p>
+     */
+    public int scanLines(InputStream in) throws IOException {
+        int n = 0;
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        long start = 0;
+
+        byte[] chunk = new byte[65536];
+        long pos = 0;
+
+        for (int len = in.read(chunk); len != -1; len = in.read(chunk)) {
+            int mark = 0;
+            for (int j = 0; j < len; j++, pos++) {
+                if (chunk[j] == '\n') {
+                    buf.write(chunk, mark, j - mark);
+                    mark = j + 1;
+
+                    byte[] line = buf.toByteArray();
+                    if (!isBlank(line, 0, line.length)) {
+                        feature(n++, start, line);
+                        if (isStopped()) {
+                            return n;
+                        }
+                    }
+                    buf.reset();
+                    start = pos + 1;
+                }
+            }
+            buf.write(chunk, mark, len - mark);
+        }
+
+        byte[] line = buf.toByteArray();
+        if (!isBlank(line, 0, line.length)) {
+            feature(n++, start, line);
+        }
+        return n;
+    }
+
+    /**
+     * Whether a range of bytes contains only whitespace and record separators.
+     */
+    static boolean isBlank(byte[] bytes, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            byte b = bytes[i];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && b != RS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses an encoded feature.
+     *
+     * @param bytes The encoded feature.
+     * @param i The position of the feature, used as its id if it has none.
+     * @param crs The crs of the collection, may be <code>null</code>.
+     */
+    static Feature parse(byte[] bytes, int i, CoordinateReferenceSystem crs) throws IOException {
+        return parse(bytes, 0, bytes.length, i, crs);
+    }
+
+    /**
+     * Parses an encoded feature from a range of bytes, skipping a leading record separator.
+     */
+    static Feature parse(byte[] bytes, int off, int len, int i, CoordinateReferenceSystem crs) throws IOException {
+        while (len > 0 && bytes[off] == RS) {
+            off++;
+            len--;
+        }
+
+        RootHandler h = new RootHandler(new FeatureHandler(i));
+        try {
+            new JSONParser().parse(ByteBuffer.wrap(bytes, off, len), h);
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+
+        Feature f = (Feature) h.getValue();
+        if (f != null && crs != null && f.geometry() != null) {
+            Proj.crs(f.geometry(), crs, false);
+        }
+        return f;
+    }
+
+    static CoordinateReferenceSystem parseCRS(byte[] bytes) throws IOException {
+        CRSFinder finder = new CRSFinder();
+        ByteArrayOutputStream obj = new ByteArrayOutputStream();
+        obj.write("{\"crs\":".getBytes(Util.UTF_8));
+        obj.write(bytes);
+        obj.write('}');
+
+        try {
+            new JSONParser().parse(ByteBuffer.wrap(obj.toByteArray()), new RootHandler(finder));
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+        return finder.getCRS();
+    }
+}
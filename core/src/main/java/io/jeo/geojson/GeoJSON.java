@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.jeo.util.Key;
 import io.jeo.vector.FileVectorDriver;
 import io.jeo.vector.Schema;
 
@@ -40,6 +41,11 @@ import static io.jeo.util.Util.set;
  */
 public class GeoJSON extends FileVectorDriver<GeoJSONDataset> {
 
+    /**
+     * Whether to build a spatial index of the file on first access, see {@link GeoJSONDataset#index()}.
+     */
+    public static final Key<Boolean> INDEX = new Key<>("index", Boolean.class, false);
+
     /**
      * Opens a file containing encoded GeoJSON.
      */
@@ -57,6 +63,11 @@ public class GeoJSON extends FileVectorDriver<GeoJSONDataset> {
         return Arrays.asList("json");
     }
     
+    @Override
+    public List<Key<?>> keys() {
+        return (List) Arrays.asList(FILE, INDEX);
+    }
+
     @Override
     public Class<GeoJSONDataset> type() {
         return GeoJSONDataset.class;
@@ -64,7 +75,7 @@ public class GeoJSON extends FileVectorDriver<GeoJSONDataset> {
 
     @Override
     public GeoJSONDataset open(File file, Map<?, Object> opts) throws IOException {
-        return new GeoJSONDataset(file);
+        return new GeoJSONDataset(file, Boolean.TRUE.equals(INDEX.get(opts)));
     }
 
     @Override
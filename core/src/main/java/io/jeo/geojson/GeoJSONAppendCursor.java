@@ -30,12 +30,27 @@ public class GeoJSONAppendCursor extends FeatureAppendCursor {
 
     static Logger LOG = LoggerFactory.getLogger(GeoJSONAppendCursor.class);
 
+    Writer out;
     GeoJSONWriter writer;
+    boolean seq;
     Feature next;
 
     public GeoJSONAppendCursor(Writer out) throws IOException {
+        this(out, false);
+    }
+
+    /**
+     * Creates a new cursor.
+     *
+     * @param seq Whether to write a newline delimited sequence of features rather than a feature collection.
+     */
+    public GeoJSONAppendCursor(Writer out, boolean seq) throws IOException {
+        this.out = out;
+        this.seq = seq;
         writer = new GeoJSONWriter(out);
-        writer.featureCollection();
+        if (!seq) {
+            writer.featureCollection();
+        }
     }
 
     @Override
@@ -51,24 +66,32 @@ public class GeoJSONAppendCursor extends FeatureAppendCursor {
 
     @Override
     public GeoJSONAppendCursor write() throws IOException {
-        writer.feature(next);
+        if (seq) {
+            writer.featureRecord(next);
+        }
+        else {
+            writer.feature(next);
+        }
         return this;
     }
 
     @Override
     public void close() {
         if (writer != null) {
-            try {
-                writer.endFeatureCollection();
-            } catch (IOException e) {
-                throw new RuntimeException("Error closing feature collection object", e);
+            if (!seq) {
+                try {
+                    writer.endFeatureCollection();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error closing feature collection object", e);
+                }
             }
 
             try {
                 writer.flush();
+                out.close();
             }
             catch(IOException e) {
-                LOG.debug("Error flushing writer");
+                LOG.debug("Error closing writer");
             }
         }
         writer = null;
@@ -15,7 +15,9 @@
 package io.jeo.geojson;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 import io.jeo.json.parser.ParseException;
 import io.jeo.vector.Feature;
@@ -31,6 +33,8 @@ public class GeoJSONCursor extends FeatureCursor {
     static Logger LOG = LoggerFactory.getLogger(GeoJSONCursor.class);
 
     Reader input;
+    /* utf-8 encoded input, a ByteBuffer or an InputStream, see GeoJSONReader#toBytes */
+    Object bytes;
     JSONParser parser;
     RootHandler handler;
 
@@ -42,11 +46,24 @@ public class GeoJSONCursor extends FeatureCursor {
         this.handler = new RootHandler(new FeatureCollectionHandler());
     }
 
+    GeoJSONCursor(Object bytes) {
+        this((Reader) null);
+        this.bytes = bytes;
+    }
+
     @Override
     public boolean hasNext() throws IOException {
         while (next == null && !handler.isFinished()) {
             try {
-                parser.parse(input, handler, true);
+                if (bytes instanceof ByteBuffer) {
+                    parser.parse((ByteBuffer) bytes, handler, true);
+                }
+                else if (bytes instanceof InputStream) {
+                    parser.parse((InputStream) bytes, handler, true);
+                }
+                else {
+                    parser.parse(input, handler, true);
+                }
                 Object obj = handler.getValue();
                 if (obj instanceof Feature) {
                     next = (Feature) obj;
@@ -74,5 +91,9 @@ public class GeoJSONCursor extends FeatureCursor {
             input.close();
             input = null;
         }
+        if (bytes instanceof InputStream) {
+            ((InputStream) bytes).close();
+        }
+        bytes = null;
     }
 }
@@ -16,39 +16,60 @@ package io.jeo.geojson;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.jeo.data.Driver;
 import io.jeo.data.FileData;
-import io.jeo.geojson.parser.CRSFinder;
+import io.jeo.filter.Expression;
+import io.jeo.filter.Id;
+import io.jeo.filter.Literal;
 import io.jeo.geom.Bounds;
-import io.jeo.json.parser.ParseException;
 import io.jeo.util.Util;
+import io.jeo.vector.Feature;
 import io.jeo.vector.FeatureAppendCursor;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.FeatureWriteCursor;
-import io.jeo.vector.Features;
 import io.jeo.vector.VectorQueryPlan;
-import io.jeo.geojson.parser.RootHandler;
-import io.jeo.json.parser.JSONParser;
 import io.jeo.proj.Proj;
 import io.jeo.util.Key;
 import io.jeo.vector.Schema;
 import io.jeo.vector.VectorDataset;
 import io.jeo.vector.VectorQuery;
+import io.jeo.vector.VectorStats;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GeoJSONDataset implements VectorDataset, FileData {
 
+    static Logger LOG = LoggerFactory.getLogger(GeoJSONDataset.class);
+
     File file;
+    boolean indexed;
+
+    VectorStats stats;
+    GeoJSONIndex index;
 
     public GeoJSONDataset(File file) {
+        this(file, false);
+    }
+
+    /**
+     * Creates a new dataset.
+     *
+     * @param file The GeoJSON file.
+     * @param indexed Whether to build a spatial index of the file on first access, see {@link #index()}.
+     */
+    public GeoJSONDataset(File file, boolean indexed) {
         this.file = file;
+        this.indexed = indexed;
     }
 
     @Override
@@ -58,7 +79,12 @@ public class GeoJSONDataset implements VectorDataset, FileData {
 
     @Override
     public Map<Key<?>, Object> driverOptions() {
-        return (Map) Collections.singletonMap(GeoJSON.FILE, file);
+        Map<Key<?>,Object> opts = new LinkedHashMap<>();
+        opts.put(GeoJSON.FILE, file);
+        if (indexed) {
+            opts.put(GeoJSON.INDEX, true);
+        }
+        return opts;
     }
 
     @Override
@@ -73,48 +99,172 @@ public class GeoJSONDataset implements VectorDataset, FileData {
 
     @Override
     public Schema schema() throws IOException {
-        return Features.schema(this).orElse(null);
+        VectorStats stats = stats();
+        return stats.count() > 0 ? stats.schema() : null;
     }
 
     @Override
     public CoordinateReferenceSystem crs() throws IOException {
-        //TODO: probably should cache this
-
-        CoordinateReferenceSystem crs = null;
-
-        //first scan for a crs property
-        JSONParser p = new JSONParser();
-        Reader r = reader();
-        try {
-            CRSFinder f = new CRSFinder();
-            try {
-                p.parse(r, new RootHandler(f), true);
-                crs = f.getCRS();
-            } catch (ParseException e) {
-                throw new IOException(e);
-            }
-        }
-        finally {
-            r.close();
-        }
-
-        // GeoJSON actually specified that the data should be 4326 so fall back on that
-        return crs != null ? crs : Proj.EPSG_4326;
+        return stats().crs();
     }
 
     @Override
     public Bounds bounds() throws IOException {
-        return read(new VectorQuery()).bounds();
+        return stats().bounds();
     }
 
     @Override
     public long count(VectorQuery q) throws IOException {
+        GeoJSONIndex idx = q.isAll() || !q.isFiltered() ? lookupIndex() : null;
+        if (idx != null) {
+            return q.adjustCount(q.isAll() ? idx.count() : idx.query(q.bounds()).size());
+        }
+        if (q.isAll()) {
+            return q.adjustCount(stats().count());
+        }
         return read(q).count();
     }
 
+    /**
+     * Statistics of the dataset, computed with a single scan of the file and persisted in a sidecar file.
+     *
+     * @see VectorStats#load(VectorDataset, File, CoordinateReferenceSystem)
+     */
+    public synchronized VectorStats stats() throws IOException {
+        if (stats == null || !stats.isCurrent(file)) {
+            // GeoJSON actually specified that the data should be 4326 so fall back on that
+            stats = VectorStats.load(this, file, Proj.EPSG_4326);
+        }
+        return stats;
+    }
+
+    /**
+     * The spatial index of the file, building it if it does not exist or is out of date.
+     * <p>
+     * The index is persisted in a sidecar file and used by all subsequent reads with a bounding box or
+     * id filter, see {@link GeoJSONIndex}.
+     * </p>
+     */
+    public synchronized GeoJSONIndex index() throws IOException {
+        if (index == null || !index.isCurrent()) {
+            index = loadIndex();
+            if (index == null) {
+                index = GeoJSONIndex.build(file);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The index of the file if one is available, building it only if the dataset is indexed.
+     */
+    synchronized GeoJSONIndex lookupIndex() throws IOException {
+        if (indexed) {
+            return index();
+        }
+        if (index == null || !index.isCurrent()) {
+            index = loadIndex();
+        }
+        return index;
+    }
+
+    GeoJSONIndex loadIndex() {
+        try {
+            return GeoJSONIndex.load(file);
+        }
+        catch(Exception e) {
+            LOG.debug("Unable to read index " + GeoJSONIndex.sidecar(file).getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a feature by id.
+     *
+     * @return The feature, or <code>null</code> if no such feature exists.
+     */
+    public Feature feature(String id) throws IOException {
+        GeoJSONIndex idx = lookupIndex();
+        if (idx != null) {
+            int i = idx.position(id);
+            return i > -1 ? idx.feature(i) : null;
+        }
+
+        try (FeatureCursor c = read(new VectorQuery().filter(new Id<Feature>(new Literal(id))))) {
+            return c.hasNext() ? c.next() : null;
+        }
+    }
+
     @Override
     public FeatureCursor read(VectorQuery q) throws IOException {
-        return new VectorQueryPlan(q).apply(new GeoJSONCursor(reader()));
+        VectorQueryPlan qp = new VectorQueryPlan(q);
+
+        FeatureCursor cursor = readIndex(q, qp);
+        return qp.apply(cursor != null ? cursor : new GeoJSONCursor(GeoJSONReader.toBytes(file)));
+    }
+
+    /**
+     * Reads features parsing the file on multiple threads.
+     * <p>
+     * The features of the collection are split into chunks that are parsed concurrently. When
+     * <tt>ordered</tt> is <code>false</code> chunks are returned as soon as they are parsed, so features are
+     * not returned in the order of the file unless the query specifies a sort. Queries that can be answered
+     * from the {@link #index()} are read through the index as with {@link #read(VectorQuery)}.
+     * </p>
+     * @param q The query.
+     * @param threads The number of parsing threads.
+     * @param ordered Whether to return features in the order of the file.
+     */
+    public FeatureCursor read(VectorQuery q, int threads, boolean ordered) throws IOException {
+        VectorQueryPlan qp = new VectorQueryPlan(q);
+
+        FeatureCursor cursor = readIndex(q, qp);
+        return qp.apply(cursor != null ? cursor : new ParallelGeoJSONCursor(file, threads, ordered));
+    }
+
+    /**
+     * Reads the features matching the bounds or id filter of a query through the index, returning
+     * <code>null</code> if the query can't be answered with the index.
+     */
+    FeatureCursor readIndex(VectorQuery q, VectorQueryPlan qp) throws IOException {
+        GeoJSONIndex idx = !q.isAll() ? lookupIndex() : null;
+        if (idx == null) {
+            return null;
+        }
+
+        List<Integer> positions = null;
+        if (q.filter() instanceof Id) {
+            positions = positions((Id<?>) q.filter(), idx);
+        }
+        if (positions == null && !Bounds.isNull(q.bounds())) {
+            positions = idx.query(q.bounds());
+            qp.bounded();
+        }
+        if (positions == null) {
+            return null;
+        }
+
+        qp.nativeQuery("index " + GeoJSONIndex.sidecar(file).getName() + ": " + positions.size()
+            + " of " + idx.count() + " features");
+        return idx.cursor(positions);
+    }
+
+    List<Integer> positions(Id<?> filter, GeoJSONIndex idx) {
+        List<Integer> positions = new ArrayList<>();
+        for (Expression e : filter.ids()) {
+            Object id = e instanceof Literal ? e.evaluate(null) : null;
+            if (id == null) {
+                // not a literal, can't look up
+                return null;
+            }
+            for (Integer i : idx.positions(id.toString())) {
+                if (!positions.contains(i)) {
+                    positions.add(i);
+                }
+            }
+        }
+        Collections.sort(positions);
+        return positions;
     }
 
     @Override
@@ -134,10 +284,6 @@ public class GeoJSONDataset implements VectorDataset, FileData {
     public void close() {
     }
 
-    Reader reader() throws IOException {
-        return Files.newBufferedReader(file.toPath(), Charset.forName("UTF8"));
-    }
-
     Writer writer() throws IOException {
         return Files.newBufferedWriter(file.toPath(), Charset.forName("UTF8"));
     }
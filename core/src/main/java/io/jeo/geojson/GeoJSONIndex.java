@@ -0,0 +1,381 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import io.jeo.proj.Proj;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spatial index of the features of a GeoJSON feature collection file, or of a file holding a single feature.
+ * <p>
+ * The index records the byte offset, length, envelope and id of every feature of the collection and is
+ * persisted in a sidecar file next to the data file. Features are looked up by bounding box through a
+ * packed R-tree bulk loaded from the envelopes, and by id, and are read by seeking directly to them in the
+ * data file. The sidecar records the size and modification time of the data file and is rebuilt when
+ * either changes.
+ * </p>
+ */
+public class GeoJSONIndex {
+
+    static Logger LOG = LoggerFactory.getLogger(GeoJSONIndex.class);
+
+    /**
+     * Extension appended to the name of a data file to name its index sidecar.
+     */
+    public static final String EXTENSION = "idx";
+
+    static final int MAGIC = 0x474a5349;
+    static final int VERSION = 1;
+
+    File file;
+    long fileSize;
+    long fileModified;
+
+    CoordinateReferenceSystem crs;
+
+    int count;
+    long[] offsets;
+    int[] lengths;
+    double[] envelopes;
+    String[] ids;
+
+    Map<String,Integer> byId;
+    Map<String,List<Integer>> dupes;
+    STRtree tree;
+
+    GeoJSONIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * The number of features in the collection.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * The crs declared by the collection, may be <code>null</code>.
+     */
+    public CoordinateReferenceSystem crs() {
+        return crs;
+    }
+
+    /**
+     * Whether the index was built from the current contents of the file.
+     */
+    public boolean isCurrent() {
+        return file.length() == fileSize && file.lastModified() == fileModified;
+    }
+
+    /**
+     * The positions, in collection order, of the features whose envelope intersects the specified bounds.
+     */
+    public List<Integer> query(Envelope bounds) {
+        @SuppressWarnings("unchecked")
+        List<Integer> hits = tree.query(bounds);
+        List<Integer> result = new ArrayList<>(hits);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * The position of the first feature with the specified id, or <code>-1</code> if no such feature exists.
+     */
+    public int position(String id) {
+        Integer i = byId.get(id);
+        return i != null ? i : -1;
+    }
+
+    /**
+     * The positions, in collection order, of all features with the specified id.
+     */
+    public List<Integer> positions(String id) {
+        List<Integer> all = dupes.get(id);
+        if (all != null) {
+            return all;
+        }
+        Integer i = byId.get(id);
+        return i != null ? Collections.singletonList(i) : Collections.<Integer>emptyList();
+    }
+
+    /**
+     * Reads the feature at the specified position.
+     */
+    public Feature feature(int i) throws IOException {
+        try (FileChannel ch = channel()) {
+            return read(ch, i);
+        }
+    }
+
+    /**
+     * Returns a cursor over the features at the specified positions, in order of position.
+     */
+    public FeatureCursor cursor(final List<Integer> positions) throws IOException {
+        final FileChannel ch = channel();
+        return new FeatureCursor() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() throws IOException {
+                return i < positions.size();
+            }
+
+            @Override
+            public Feature next() throws IOException {
+                return i < positions.size() ? read(ch, positions.get(i++)) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+
+    FileChannel channel() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    Feature read(FileChannel ch, int i) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(lengths[i]);
+        long off = offsets[i];
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, off + buf.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of file reading feature " + i + " of " + file.getPath());
+            }
+        }
+        return FeatureScanner.parse(buf.array(), i, crs);
+    }
+
+    /**
+     * The sidecar file holding the index of a data file.
+     */
+    public static File sidecar(File file) {
+        return new File(file.getParentFile(), file.getName() + "." + EXTENSION);
+    }
+
+    /**
+     * Reads the index of a file from its sidecar.
+     *
+     * @return The index, or <code>null</code> if the sidecar does not exist or is out of date.
+     */
+    public static GeoJSONIndex load(File file) throws IOException {
+        File sidecar = sidecar(file);
+        if (!sidecar.exists()) {
+            return null;
+        }
+
+        GeoJSONIndex idx = new GeoJSONIndex(file);
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+
+            idx.fileSize = in.readLong();
+            idx.fileModified = in.readLong();
+            if (!idx.isCurrent()) {
+                return null;
+            }
+
+            String crs = in.readUTF();
+            idx.crs = crs.isEmpty() ? null : Proj.crs(crs);
+
+            idx.init(in.readInt());
+            for (int i = 0; i < idx.count; i++) {
+                idx.offsets[i] = in.readLong();
+                idx.lengths[i] = in.readInt();
+                for (int j = 0; j < 4; j++) {
+                    idx.envelopes[4*i+j] = in.readDouble();
+                }
+                idx.ids[i] = in.readUTF();
+            }
+        }
+
+        idx.pack();
+        return idx;
+    }
+
+    /**
+     * Builds the index of a file with a single scan and writes it to the sidecar of the file.
+     * <p>
+     * Failure to write the sidecar is not fatal.
+     * </p>
+     */
+    public static GeoJSONIndex build(File file) throws IOException {
+        final GeoJSONIndex idx = new GeoJSONIndex(file);
+        idx.fileSize = file.length();
+        idx.fileModified = file.lastModified();
+        idx.init(16);
+
+        FeatureScanner scanner = new FeatureScanner() {
+            @Override
+            protected void feature(int i, long offset, byte[] bytes) throws IOException {
+                idx.add(i, offset, bytes);
+            }
+
+            @Override
+            protected void crs(CoordinateReferenceSystem crs) {
+                idx.crs = crs;
+            }
+        };
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            idx.count = scanner.scan(in);
+        }
+
+        if (idx.count == 0 && "Feature".equals(scanner.type())) {
+            // the document is a single feature, index the whole file
+            idx.add(0, 0, Files.readAllBytes(file.toPath()));
+            idx.count = 1;
+        }
+
+        idx.pack();
+
+        try {
+            idx.write(sidecar(file));
+        }
+        catch(IOException e) {
+            LOG.debug("Unable to write index to " + sidecar(file).getPath(), e);
+        }
+        return idx;
+    }
+
+    void init(int size) {
+        offsets = new long[size];
+        lengths = new int[size];
+        envelopes = new double[4*size];
+        ids = new String[size];
+        count = size;
+    }
+
+    void add(int i, long offset, byte[] bytes) throws IOException {
+        if (i == offsets.length) {
+            int size = offsets.length * 2;
+            long[] o = new long[size];
+            int[] l = new int[size];
+            double[] e = new double[4*size];
+            String[] d = new String[size];
+            System.arraycopy(offsets, 0, o, 0, i);
+            System.arraycopy(lengths, 0, l, 0, i);
+            System.arraycopy(envelopes, 0, e, 0, 4*i);
+            System.arraycopy(ids, 0, d, 0, i);
+            offsets = o;
+            lengths = l;
+            envelopes = e;
+            ids = d;
+        }
+
+        Feature f = FeatureScanner.parse(bytes, i, null);
+        offsets[i] = offset;
+        lengths[i] = bytes.length;
+        ids[i] = f != null ? f.id() : String.valueOf(i);
+
+        Geometry g = f != null ? f.geometry() : null;
+        if (g != null && !g.isEmpty()) {
+            Envelope e = g.getEnvelopeInternal();
+            envelopes[4*i] = e.getMinX();
+            envelopes[4*i+1] = e.getMinY();
+            envelopes[4*i+2] = e.getMaxX();
+            envelopes[4*i+3] = e.getMaxY();
+        }
+        else {
+            for (int j = 0; j < 4; j++) {
+                envelopes[4*i+j] = Double.NaN;
+            }
+        }
+    }
+
+    void pack() {
+        byId = new HashMap<>(count * 2);
+        dupes = new HashMap<>();
+        tree = new STRtree();
+        for (int i = 0; i < count; i++) {
+            // ids are not guaranteed unique, keep every position of the ones that repeat
+            Integer first = byId.get(ids[i]);
+            if (first == null) {
+                byId.put(ids[i], i);
+            }
+            else {
+                List<Integer> all = dupes.get(ids[i]);
+                if (all == null) {
+                    all = new ArrayList<>();
+                    all.add(first);
+                    dupes.put(ids[i], all);
+                }
+                all.add(i);
+            }
+
+            double x1 = envelopes[4*i];
+            if (!Double.isNaN(x1)) {
+                tree.insert(new Envelope(x1, envelopes[4*i+2], envelopes[4*i+1], envelopes[4*i+3]), i);
+            }
+        }
+        tree.build();
+    }
+
+    void write(File sidecar) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(sidecar.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileSize);
+            out.writeLong(fileModified);
+
+            String srs = "";
+            if (crs != null) {
+                Integer epsg = Proj.epsgCode(crs);
+                srs = epsg != null ? "EPSG:" + epsg : Proj.toString(crs);
+            }
+            out.writeUTF(srs);
+
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+                for (int j = 0; j < 4; j++) {
+                    out.writeDouble(envelopes[4*i+j]);
+                }
+                out.writeUTF(ids[i]);
+            }
+        }
+    }
+}
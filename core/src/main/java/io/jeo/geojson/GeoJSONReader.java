@@ -14,14 +14,22 @@
  */
 package io.jeo.geojson;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 
 import io.jeo.data.Cursor;
 import io.jeo.data.Cursors;
 import io.jeo.geojson.parser.GeometryHandler;
 import io.jeo.geojson.parser.RootHandler;
+import io.jeo.json.parser.ByteLexer;
 import io.jeo.json.parser.JSONParser;
 import io.jeo.json.parser.ParseException;
 import io.jeo.vector.Feature;
@@ -47,7 +55,8 @@ import com.vividsolutions.jts.geom.Polygon;
  * </p>
  * <p>
  * Methods of this class take any input that be converted to a {@link Reader}. See the 
- * {@link Convert#toReader(Object)} method for details on accepted inputs. 
+ * {@link Convert#toReader(Object)} method for details on accepted inputs. Files, paths, input streams
+ * and byte arrays are parsed as utf-8 encoded bytes with a {@link ByteLexer}, files being memory mapped.
  * </p>
  * <p>
  * Example:
@@ -168,6 +177,10 @@ public class GeoJSONReader {
      */
     public Cursor<Feature> features(Object json) {
         try {
+            Object bytes = toBytes(json);
+            if (bytes != null) {
+                return new GeoJSONCursor(bytes);
+            }
             return new GeoJSONCursor(toReader(json));
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -192,13 +205,69 @@ public class GeoJSONReader {
         return result;
     }
 
+    /**
+     * Opens input that is utf-8 encoded bytes for parsing with a {@link ByteLexer}.
+     * <p>
+     * Files are memory mapped, or streamed if too large to map. Byte arrays and buffers are read in place
+     * and input streams as is.
+     * </p>
+     * @return A {@link ByteBuffer} or {@link InputStream}, or <code>null</code> if the input is not
+     * byte based.
+     */
+    static Object toBytes(Object input) throws IOException {
+        if (input instanceof Path) {
+            input = ((Path) input).toFile();
+        }
+        if (input instanceof File) {
+            File file = (File) input;
+            if (file.length() > Integer.MAX_VALUE) {
+                return Files.newInputStream(file.toPath());
+            }
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+        }
+        if (input instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) input);
+        }
+        if (input instanceof ByteBuffer) {
+            return ((ByteBuffer) input).duplicate();
+        }
+        if (input instanceof InputStream) {
+            return input;
+        }
+        return null;
+    }
+
     Reader toReader(Object input) throws IOException {
         return Convert.toReader(input).get("unable to turn " + input + " into reader");
     }
 
     Object parse(Object input, BaseHandler handler) {
         try {
-            return parse(toReader(input), handler);
+            Object bytes = toBytes(input);
+            if (bytes == null) {
+                return parse(toReader(input), handler);
+            }
+
+            JSONParser p = new JSONParser();
+            RootHandler h = new RootHandler(handler);
+            try {
+                if (bytes instanceof ByteBuffer) {
+                    p.parse((ByteBuffer) bytes, h);
+                }
+                else {
+                    p.parse((InputStream) bytes, h, false);
+                }
+                return h.getValue();
+            } catch (ParseException e) {
+                throw new IOException(e);
+            } finally {
+                if (bytes != input && bytes instanceof InputStream) {
+                    // opened from a file
+                    ((InputStream) bytes).close();
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
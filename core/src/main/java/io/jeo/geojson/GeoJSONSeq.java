@@ -0,0 +1,83 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.jeo.util.Key;
+import io.jeo.vector.FileVectorDriver;
+import io.jeo.vector.Schema;
+
+import static io.jeo.util.Util.set;
+
+/**
+ * Driver for newline delimited GeoJSON, files containing one GeoJSON feature per line.
+ * <p>
+ * Also known as GeoJSONSeq or GeoJSON text sequences, in which case lines may start with a record separator
+ * character. Since the file has no enclosing feature collection features can be appended to existing files.
+ * Usage:
+ * <pre><code>
+ * GeoJSONSeq.open(Paths.get("states.geojsonl"));
+ * </code></pre>
+ * </p>
+ */
+public class GeoJSONSeq extends FileVectorDriver<GeoJSONSeqDataset> {
+
+    /**
+     * Opens a file containing newline delimited GeoJSON.
+     */
+    public static GeoJSONSeqDataset open(Path path) {
+        return new GeoJSONSeqDataset(path.toFile());
+    }
+
+    @Override
+    public String name() {
+        return "GeoJSONSeq";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return Arrays.asList("geojsonl", "geojsons", "ndjson");
+    }
+
+    @Override
+    public Class<GeoJSONSeqDataset> type() {
+        return GeoJSONSeqDataset.class;
+    }
+
+    @Override
+    public GeoJSONSeqDataset open(File file, Map<?, Object> opts) throws IOException {
+        return new GeoJSONSeqDataset(file);
+    }
+
+    @Override
+    protected GeoJSONSeqDataset create(File file, Map<?, Object> opts, Schema schema)
+        throws IOException {
+        return new GeoJSONSeqDataset(file);
+    }
+
+    static final Set<Capability> CAPABILITIES = set(APPEND);
+
+    @Override
+    public Set<Capability> capabilities() {
+        return CAPABILITIES;
+    }
+}
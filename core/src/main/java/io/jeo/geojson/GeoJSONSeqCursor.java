@@ -0,0 +1,116 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
+
+/**
+ * Cursor over a newline delimited sequence of GeoJSON features, parsing one line at a time.
+ * <p>
+ * Blank lines are skipped, a feature without an id is given its position in the sequence.
+ * </p>
+ */
+class GeoJSONSeqCursor extends FeatureCursor {
+
+    InputStream in;
+
+    byte[] buf = new byte[65536];
+    int pos, limit;
+
+    /* current line */
+    byte[] line = new byte[4096];
+    int len;
+
+    int i;
+    Feature next;
+
+    GeoJSONSeqCursor(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (next == null && readLine()) {
+            if (!FeatureScanner.isBlank(line, 0, len)) {
+                next = FeatureScanner.parse(line, 0, len, i++, null);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        try {
+            return next;
+        }
+        finally {
+            next = null;
+        }
+    }
+
+    /*
+     * Reads the next line into the line buffer, returning false at the end of the input.
+     */
+    boolean readLine() throws IOException {
+        len = 0;
+        boolean read = false;
+
+        while (true) {
+            if (pos == limit) {
+                limit = in != null ? in.read(buf) : -1;
+                pos = 0;
+                if (limit < 1) {
+                    limit = 0;
+                    return read;
+                }
+            }
+            read = true;
+
+            int start = pos;
+            while (pos < limit && buf[pos] != '\n') {
+                pos++;
+            }
+            append(start, pos - start);
+
+            if (pos < limit) {
+                // skip the newline
+                pos++;
+                return true;
+            }
+        }
+    }
+
+    void append(int off, int n) {
+        if (len + n > line.length) {
+            byte[] tmp = new byte[Math.max(line.length * 2, len + n)];
+            System.arraycopy(line, 0, tmp, 0, len);
+            line = tmp;
+        }
+        System.arraycopy(buf, off, line, len, n);
+        len += n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+}
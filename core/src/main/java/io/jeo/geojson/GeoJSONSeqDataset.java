@@ -0,0 +1,173 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.jeo.data.Driver;
+import io.jeo.data.FileData;
+import io.jeo.geom.Bounds;
+import io.jeo.proj.Proj;
+import io.jeo.util.Key;
+import io.jeo.util.Util;
+import io.jeo.vector.FeatureAppendCursor;
+import io.jeo.vector.FeatureCursor;
+import io.jeo.vector.FeatureWriteCursor;
+import io.jeo.vector.Schema;
+import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import io.jeo.vector.VectorQueryPlan;
+import io.jeo.vector.VectorStats;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+
+/**
+ * Dataset backed by a newline delimited GeoJSON file, see {@link GeoJSONSeq}.
+ * <p>
+ * Appending writes features to the end of the file without reading or rewriting any of the existing
+ * content.
+ * </p>
+ */
+public class GeoJSONSeqDataset implements VectorDataset, FileData {
+
+    File file;
+    VectorStats stats;
+
+    public GeoJSONSeqDataset(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public Driver<?> driver() {
+        return new GeoJSONSeq();
+    }
+
+    @Override
+    public Map<Key<?>, Object> driverOptions() {
+        Map<Key<?>,Object> opts = new LinkedHashMap<>();
+        opts.put(GeoJSONSeq.FILE, file);
+        return opts;
+    }
+
+    @Override
+    public File file() {
+        return file;
+    }
+
+    @Override
+    public String name() {
+        return Util.base(file.getName());
+    }
+
+    @Override
+    public Schema schema() throws IOException {
+        VectorStats stats = stats();
+        return stats.count() > 0 ? stats.schema() : null;
+    }
+
+    @Override
+    public CoordinateReferenceSystem crs() throws IOException {
+        return stats().crs();
+    }
+
+    @Override
+    public Bounds bounds() throws IOException {
+        return stats().bounds();
+    }
+
+    @Override
+    public long count(VectorQuery q) throws IOException {
+        if (q.isAll()) {
+            return q.adjustCount(stats().count());
+        }
+        return read(q).count();
+    }
+
+    /**
+     * Statistics of the dataset, computed with a single scan of the file and persisted in a sidecar file.
+     *
+     * @see VectorStats#load(VectorDataset, File, CoordinateReferenceSystem)
+     */
+    public synchronized VectorStats stats() throws IOException {
+        if (stats == null || !stats.isCurrent(file)) {
+            stats = VectorStats.load(this, file, Proj.EPSG_4326);
+        }
+        return stats;
+    }
+
+    @Override
+    public FeatureCursor read(VectorQuery q) throws IOException {
+        return new VectorQueryPlan(q).apply(new GeoJSONSeqCursor(
+            file.exists() ? Files.newInputStream(file.toPath()) : null));
+    }
+
+    /**
+     * Reads features parsing the file on multiple threads.
+     * <p>
+     * The lines of the file are split into chunks that are parsed concurrently. When <tt>ordered</tt> is
+     * <code>false</code> chunks are returned as soon as they are parsed, so features are not returned in
+     * the order of the file unless the query specifies a sort.
+     * </p>
+     * @param q The query.
+     * @param threads The number of parsing threads.
+     * @param ordered Whether to return features in the order of the file.
+     */
+    public FeatureCursor read(VectorQuery q, int threads, boolean ordered) throws IOException {
+        if (!file.exists()) {
+            return read(q);
+        }
+        return new VectorQueryPlan(q).apply(new ParallelGeoJSONCursor(file, threads, ordered, true));
+    }
+
+    @Override
+    public FeatureWriteCursor update(VectorQuery q) throws IOException {
+        throw new IOException("Update cursor not supported");
+    }
+
+    /**
+     * Appends features to the end of the file, creating it if it does not exist.
+     */
+    @Override
+    public FeatureAppendCursor append(VectorQuery q) throws IOException {
+        boolean newline = !Util.isEmpty(file) && !endsWithNewline();
+
+        Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), Util.UTF_8));
+        if (newline) {
+            // terminate the last line
+            w.write('\n');
+        }
+        return new GeoJSONAppendCursor(w, true);
+    }
+
+    boolean endsWithNewline() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
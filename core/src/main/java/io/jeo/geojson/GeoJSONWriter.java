@@ -56,6 +56,11 @@ import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
  */
 public class GeoJSONWriter extends JSONEncoder {
 
+    /**
+     * maximum decimal places of coordinates
+     */
+    int precision = -1;
+
     /**
      * Encodes a geometry object to a GeoJSON string.
      *  
@@ -128,6 +133,26 @@ public class GeoJSONWriter extends JSONEncoder {
         super(out, indentSize);
     }
 
+    /**
+     * Sets the maximum number of decimal places of encoded coordinates.
+     * <p>
+     * Coordinates are rounded to the specified number of decimal places. The default of <tt>-1</tt> encodes
+     * coordinates with the fewest digits that read back as the same value.
+     * </p>
+     * @return This writer.
+     */
+    public GeoJSONWriter precision(int decimals) {
+        this.precision = decimals;
+        return this;
+    }
+
+    /**
+     * The maximum number of decimal places of encoded coordinates, <tt>-1</tt> for full precision.
+     */
+    public int precision() {
+        return precision;
+    }
+
     
     /**
      * Encodes a bounding box as a 4 element array.
@@ -137,7 +162,8 @@ public class GeoJSONWriter extends JSONEncoder {
      */
     public GeoJSONWriter bbox(Envelope b) throws IOException {
         array()
-            .value(b.getMinX()).value(b.getMinY()).value(b.getMaxX()).value(b.getMaxY())
+            .value(b.getMinX(), precision).value(b.getMinY(), precision)
+            .value(b.getMaxX(), precision).value(b.getMaxY(), precision)
             .endArray();
         return this;
     }
@@ -211,11 +237,11 @@ public class GeoJSONWriter extends JSONEncoder {
         object()
           .key("type").value("Point")
           .key("coordinates").array()
-              .value(p.getX())
-              .value(p.getY());
+              .value(p.getX(), precision)
+              .value(p.getY(), precision);
         
         if (!Double.isNaN(p.getCoordinate().z)) {
-            value(p.getCoordinate().z);
+            value(p.getCoordinate().z, precision);
         }
 
         endArray().endObject();
@@ -455,6 +481,36 @@ public class GeoJSONWriter extends JSONEncoder {
         return (GeoJSONWriter) endArray().endObject();
     }
 
+    /**
+     * Encodes a newline delimited sequence of features, one feature per line.
+     * <p>
+     * Unlike a feature collection the sequence has no enclosing object so features can be appended to
+     * it later on. The writer must not be created with indentation.
+     * </p>
+     * @see #featureRecord(Feature)
+     */
+    public GeoJSONWriter featureSequence(Cursor<Feature> features) throws IOException {
+        try (Cursor<Feature> c = features) {
+            while (c.hasNext()) {
+                featureRecord(c.next());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Encodes a feature as a line of a newline delimited sequence of features.
+     * <p>
+     * Null features are skipped.
+     * </p>
+     */
+    public GeoJSONWriter featureRecord(Feature f) throws IOException {
+        if (f != null) {
+            feature(f).endLine();
+        }
+        return this;
+    }
+
     // override for type narrowing
     //
     
@@ -483,6 +539,11 @@ public class GeoJSONWriter extends JSONEncoder {
         return (GeoJSONWriter) super.value(value);
     }
 
+    @Override
+    public GeoJSONWriter value(double value, int decimals) throws IOException {
+        return (GeoJSONWriter) super.value(value, decimals);
+    }
+
     @Override
     public GeoJSONWriter value(long value) throws IOException {
         return (GeoJSONWriter) super.value(value);
@@ -518,6 +579,11 @@ public class GeoJSONWriter extends JSONEncoder {
         return (GeoJSONWriter) super.flush();
     }
 
+    @Override
+    public GeoJSONWriter endLine() throws IOException {
+        return (GeoJSONWriter) super.endLine();
+    }
+
     GeoJSONWriter array(Coordinate[] coords) throws IOException {
         return array(new CoordinateArraySequence(coords));
     }
@@ -528,13 +594,13 @@ public class GeoJSONWriter extends JSONEncoder {
         int dim = coordseq.getDimension();
         for (int i = 0; i < coordseq.size(); i++) {
             array()
-                .value(coordseq.getOrdinate(i, 0))
-                .value(coordseq.getOrdinate(i, 1));
+                .value(coordseq.getOrdinate(i, 0), precision)
+                .value(coordseq.getOrdinate(i, 1), precision);
             
             if (dim > 2) {
                 double v = coordseq.getOrdinate(i, 2);
                 if (!Double.isNaN(v)) {
-                    value(v);
+                    value(v, precision);
                 }
             }
             endArray();
@@ -0,0 +1,315 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+
+/**
+ * Cursor that parses the features of a GeoJSON feature collection, or newline delimited sequence of
+ * features, on multiple threads.
+ * <p>
+ * A producer thread splits the <tt>features</tt> array into chunks of encoded features with a
+ * {@link FeatureScanner}, and each chunk is parsed by a pool of worker threads with its own parser and
+ * handlers. Chunks are delivered to the consumer in document order, or as soon as they are parsed when
+ * order is not required. The number of chunks in flight is bounded so the producer blocks once it is
+ * far enough ahead of the consumer. The producer queues an end marker once it is done.
+ * </p>
+ */
+class ParallelGeoJSONCursor extends FeatureCursor {
+
+    /** maximum number of features per chunk */
+    static final int CHUNK_FEATURES = 256;
+
+    /** maximum number of bytes per chunk */
+    static final int CHUNK_BYTES = 1 << 20;
+
+    final File file;
+    final boolean ordered;
+    final boolean lines;
+    int chunkFeatures = CHUNK_FEATURES;
+
+    final ExecutorService executor;
+    final ExecutorCompletionService<List<Feature>> completion;
+
+    /* marker queued by the producer once done, or on close */
+    static final Future<List<Feature>> END = new FutureTask<List<Feature>>(new Callable<List<Feature>>() {
+        @Override
+        public List<Feature> call() {
+            return Collections.emptyList();
+        }
+    });
+
+    /* parsed chunks, in submission order if ordered, otherwise in completion order */
+    final BlockingQueue<Future<List<Feature>>> chunks = new LinkedBlockingQueue<>();
+    final int maxInflight;
+    final Semaphore inflight;
+
+    volatile boolean closed;
+    volatile Throwable error;
+    final AtomicInteger submitted = new AtomicInteger();
+
+    boolean started, ended;
+    int consumed;
+    Iterator<Feature> batch = Collections.emptyIterator();
+
+    ParallelGeoJSONCursor(File file, int threads, boolean ordered) {
+        this(file, threads, ordered, false);
+    }
+
+    /**
+     * Creates a new cursor.
+     *
+     * @param lines Whether the file is a newline delimited sequence of features rather than a feature
+     *              collection.
+     */
+    ParallelGeoJSONCursor(File file, int threads, boolean ordered, boolean lines) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+
+        this.file = file;
+        this.ordered = ordered;
+        this.lines = lines;
+        this.maxInflight = threads * 4;
+        this.inflight = new Semaphore(maxInflight);
+
+        // one extra thread for the producer
+        this.executor = Executors.newFixedThreadPool(threads + 1, new ThreadFactory() {
+            AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "jeo-geojson-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.completion = new ExecutorCompletionService<>(executor, chunks);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (!batch.hasNext()) {
+            List<Feature> next = take();
+            if (next == null) {
+                return false;
+            }
+            batch = next.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        return batch.hasNext() ? batch.next() : null;
+    }
+
+    List<Feature> take() throws IOException {
+        if (closed) {
+            return null;
+        }
+        if (!started) {
+            executor.execute(new Producer());
+            started = true;
+        }
+
+        try {
+            Future<List<Feature>> f;
+            while (true) {
+                if (ended && consumed == submitted.get()) {
+                    // producer is done and every chunk has been consumed
+                    executor.shutdown();
+                    rethrow(error);
+                    return null;
+                }
+
+                // unordered chunks still being parsed are queued after the marker
+                f = chunks.take();
+                if (f != END) {
+                    break;
+                }
+                if (closed) {
+                    return null;
+                }
+                ended = true;
+            }
+
+            consumed++;
+            inflight.release();
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for parsed features");
+        } catch (ExecutionException e) {
+            rethrow(e.getCause());
+            return null;
+        }
+    }
+
+    void rethrow(Throwable t) throws IOException {
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IOException(t);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        // wake up a producer waiting for a chunk to be consumed and a consumer waiting for one to be parsed
+        inflight.release(maxInflight);
+        chunks.offer(END);
+        executor.shutdownNow();
+    }
+
+    class Producer extends FeatureScanner implements Runnable {
+
+        CoordinateReferenceSystem crs;
+
+        int first;
+        List<byte[]> buf = new ArrayList<>();
+        int size;
+
+        @Override
+        public void run() {
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                if (lines) {
+                    scanLines(in);
+                }
+                else if (scan(in) == 0 && "Feature".equals(type())) {
+                    // the document is a single feature
+                    feature(0, 0, Files.readAllBytes(file.toPath()));
+                }
+                if (!buf.isEmpty()) {
+                    submit();
+                }
+            }
+            catch (InterruptedException e) {
+                error = new InterruptedIOException("interrupted reading features");
+            }
+            catch (Throwable t) {
+                error = t;
+            }
+            finally {
+                chunks.offer(END);
+            }
+        }
+
+        @Override
+        protected void crs(CoordinateReferenceSystem crs) {
+            this.crs = crs;
+        }
+
+        @Override
+        protected void feature(int i, long offset, byte[] bytes) throws IOException {
+            if (buf.isEmpty()) {
+                first = i;
+            }
+            buf.add(bytes);
+            size += bytes.length;
+
+            if (buf.size() == chunkFeatures || size >= CHUNK_BYTES) {
+                try {
+                    submit();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("interrupted reading features");
+                }
+            }
+        }
+
+        @Override
+        protected boolean isStopped() {
+            return closed;
+        }
+
+        void submit() throws InterruptedException {
+            inflight.acquire();
+            if (closed) {
+                return;
+            }
+
+            Callable<List<Feature>> task = new Parse(buf, first, crs);
+            if (ordered) {
+                chunks.put(executor.submit(task));
+            }
+            else {
+                completion.submit(task);
+            }
+            submitted.incrementAndGet();
+
+            buf = new ArrayList<>();
+            size = 0;
+        }
+    }
+
+    static class Parse implements Callable<List<Feature>> {
+
+        final List<byte[]> encoded;
+        final int first;
+        final CoordinateReferenceSystem crs;
+
+        Parse(List<byte[]> encoded, int first, CoordinateReferenceSystem crs) {
+            this.encoded = encoded;
+            this.first = first;
+            this.crs = crs;
+        }
+
+        @Override
+        public List<Feature> call() throws Exception {
+            List<Feature> features = new ArrayList<>(encoded.size());
+            for (int i = 0; i < encoded.size(); i++) {
+                Feature f = FeatureScanner.parse(encoded.get(i), first + i, crs);
+                if (f != null) {
+                    features.add(f);
+                }
+            }
+            return features;
+        }
+    }
+}
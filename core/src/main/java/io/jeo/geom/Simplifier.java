@@ -0,0 +1,147 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geom;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.util.GeometryTransformer;
+import com.vividsolutions.jts.simplify.DouglasPeuckerSimplifier;
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Geometry simplification algorithms.
+ * <p>
+ * Each algorithm takes a distance tolerance, in the units of the geometry being simplified. The user data of the
+ * original geometry, and with it any crs, is carried over to the simplified geometry.
+ * </p>
+ */
+public enum Simplifier {
+
+    /**
+     * Douglas-Peucker line simplification, may alter the topology of polygons with holes or of collections.
+     *
+     * @see DouglasPeuckerSimplifier
+     */
+    DOUGLAS_PEUCKER {
+        @Override
+        protected Geometry doSimplify(Geometry g, double tolerance) {
+            return DouglasPeuckerSimplifier.simplify(g, tolerance);
+        }
+    },
+
+    /**
+     * Douglas-Peucker variant that preserves the topology of the geometry, slower than {@link #DOUGLAS_PEUCKER}.
+     *
+     * @see TopologyPreservingSimplifier
+     */
+    TOPOLOGY_PRESERVING {
+        @Override
+        protected Geometry doSimplify(Geometry g, double tolerance) {
+            return TopologyPreservingSimplifier.simplify(g, tolerance);
+        }
+    },
+
+    /**
+     * Grid decimation that drops consecutive vertices falling in the same cell of a grid whose cell size is the
+     * tolerance.
+     * <p>
+     * With a tolerance of the size of a pixel this is the cheapest way of removing vertices that would not be visible
+     * when rendered. Retained vertices are not moved, and components that would collapse are left as is.
+     * </p>
+     */
+    GRID {
+        @Override
+        protected Geometry doSimplify(Geometry g, double tolerance) {
+            return new GridTransformer(tolerance).transform(g);
+        }
+    };
+
+    /**
+     * Simplifies a geometry.
+     *
+     * @param g The geometry to simplify.
+     * @param tolerance The distance tolerance, a value less than or equal to zero results in no simplification.
+     *
+     * @return The simplified geometry.
+     */
+    public Geometry simplify(Geometry g, double tolerance) {
+        if (g == null || g instanceof Point || g.isEmpty() || !(tolerance > 0)) {
+            return g;
+        }
+
+        Geometry simplified = doSimplify(g, tolerance);
+        simplified.setUserData(g.getUserData());
+        return simplified;
+    }
+
+    protected abstract Geometry doSimplify(Geometry g, double tolerance);
+
+    static class GridTransformer extends GeometryTransformer {
+
+        double size;
+
+        GridTransformer(double size) {
+            this.size = size;
+        }
+
+        @Override
+        protected CoordinateSequence transformCoordinates(CoordinateSequence coords, Geometry parent) {
+            int n = coords.size();
+            int min = parent instanceof LinearRing ? 4 : 2;
+            if (n <= min) {
+                return copy(coords);
+            }
+
+            Coordinate[] kept = new Coordinate[n];
+            int k = 0;
+
+            long cx = Long.MIN_VALUE, cy = Long.MIN_VALUE;
+            for (int i = 0; i < n - 1; i++) {
+                long x = cell(coords.getOrdinate(i, CoordinateSequence.X));
+                long y = cell(coords.getOrdinate(i, CoordinateSequence.Y));
+                if (x != cx || y != cy) {
+                    kept[k++] = coords.getCoordinate(i);
+                    cx = x;
+                    cy = y;
+                }
+            }
+
+            // always retain the last coordinate, it closes rings and terminates lines
+            Coordinate last = coords.getCoordinate(n - 1);
+            if (k > 1 && cell(last.x) == cx && cell(last.y) == cy) {
+                kept[k - 1] = last;
+            }
+            else {
+                kept[k++] = last;
+            }
+
+            if (k < min) {
+                // component collapses, leave it be
+                return copy(coords);
+            }
+
+            Coordinate[] result = new Coordinate[k];
+            System.arraycopy(kept, 0, result, 0, k);
+            return factory.getCoordinateSequenceFactory().create(result);
+        }
+
+        long cell(double ord) {
+            return (long) Math.floor(ord / size);
+        }
+    }
+}
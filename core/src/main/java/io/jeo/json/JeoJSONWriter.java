@@ -417,6 +417,11 @@ public class JeoJSONWriter extends GeoJSONWriter {
         return (JeoJSONWriter) super.value(value);
     }
 
+    @Override
+    public JeoJSONWriter value(double value, int decimals) throws IOException {
+        return (JeoJSONWriter) super.value(value, decimals);
+    }
+
     @Override
     public JeoJSONWriter value(long value) throws IOException {
         return (JeoJSONWriter) super.value(value);
@@ -437,4 +442,9 @@ public class JeoJSONWriter extends GeoJSONWriter {
         return (JeoJSONWriter) super.flush();
     }
 
+    @Override
+    public JeoJSONWriter endLine() throws IOException {
+        return (JeoJSONWriter) super.endLine();
+    }
+
 }
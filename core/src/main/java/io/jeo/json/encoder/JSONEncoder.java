@@ -36,6 +36,11 @@ public class JSONEncoder {
     String space;
     String newline;
 
+    /**
+     * scratch buffer for encoding numbers
+     */
+    final char[] num = new char[48];
+
     /**
      * Creates a new encoder.
      * 
@@ -189,16 +194,56 @@ public class JSONEncoder {
             }
         }
 
+        if (value instanceof Double) {
+            return value(value.doubleValue());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
         return doValue(value != null ? value.toString() : null);
 
     }
 
+    /**
+     * Specifies a double value, encoded with the fewest digits that read back as the same value.
+     * <p>
+     * Infinite and NaN values are encoded as <tt>null</tt>.
+     * </p>
+     * @return This encoder.
+     */
     public JSONEncoder value(double value) throws IOException {
-        return doValue(Double.toString(value));
+        return value(value, -1);
+    }
+
+    /**
+     * Specifies a double value rounded to a maximum number of decimal places.
+     * <p>
+     * Infinite and NaN values are encoded as <tt>null</tt>.
+     * </p>
+     * @param value The value.
+     * @param decimals The maximum number of decimal places, or <tt>-1</tt> for the fewest digits that read
+     *                 back as the same value.
+     * @return This encoder.
+     */
+    public JSONEncoder value(double value, int decimals) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nul();
+        }
+
+        int n = encode(value, decimals, num);
+        if (n < 0) {
+            return doValue(Double.toString(value));
+        }
+
+        begin();
+        out.write(num, 0, n);
+        return this;
     }
 
     public JSONEncoder value(long value) throws IOException {
-        return doValue(Long.toString(value));
+        begin();
+        out.write(num, 0, encode(value, num));
+        return this;
     }
 
     /**
@@ -244,6 +289,20 @@ public class JSONEncoder {
      * Helper to write out an already encoded value.
      */
     JSONEncoder doValue(String encoded) throws IOException {
+        begin();
+
+        if (encoded == null) {
+            encoded = "null";
+        }
+
+        out.write(encoded);
+        return this;
+    }
+
+    /*
+     * Helper to write out the separator before a value.
+     */
+    void begin() throws IOException {
         Thing t = peek();
         if (t == null) {
             throw new IllegalStateException("no object");
@@ -266,13 +325,130 @@ public class JSONEncoder {
             o.key = false;
             o.size++;
         }
+    }
 
-        if (encoded == null) {
-            encoded = "null";
+    /* powers of ten exactly representable as doubles */
+    static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i-1] * 10;
         }
+    }
 
-        out.write(encoded);
-        return this;
+    /* largest integer exactly representable as a double */
+    static final double MAX_EXACT = 9007199254740992d;
+
+    /**
+     * Encodes a double in plain decimal notation into a buffer of at least 32 chars.
+     * <p>
+     * The number of decimal places is the smallest that reads back as the same value, capped at
+     * <tt>decimals</tt> if not negative in which case the value is rounded. A decimal with <i>p</i> places is tried by rounding the value
+     * scaled by 10<sup><i>p</i></sup> to an integer, and it reads back as the same value when dividing the
+     * integer by the power of ten gives the value back, a single correctly rounded division when both are
+     * exact. Values that need more than 15 significant digits or very large or small values are not
+     * handled.
+     * </p>
+     * @return The number of chars encoded, or <tt>-1</tt> if the value was not handled.
+     */
+    static int encode(double value, int decimals, char[] buf) {
+        boolean neg = value < 0 || (value == 0 && 1 / value < 0);
+        double abs = Math.abs(value);
+
+        if (abs >= 1e15 || (abs < 1e-3 && abs != 0 && decimals < 0)) {
+            return -1;
+        }
+
+        int max = decimals < 0 ? POW10.length - 1 : Math.min(decimals, POW10.length - 1);
+        for (int p = 0; p <= max; p++) {
+            double m = Math.rint(abs * POW10[p]);
+            if (m >= MAX_EXACT) {
+                return -1;
+            }
+            if (m / POW10[p] == abs) {
+                return write((long) m, p, neg && m != 0, buf);
+            }
+            if (p == max && decimals >= 0) {
+                // rounded, drop trailing zeros
+                long r = (long) m;
+                while (p > 0 && r % 10 == 0) {
+                    r /= 10;
+                    p--;
+                }
+                return write(r, p, neg && r != 0, buf);
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Writes the digits of m with a decimal point p digits from the right, always with at least one
+     * decimal so the value reads back as a floating point number.
+     */
+    static int write(long m, int p, boolean neg, char[] buf) {
+        // digits, right to left into the end of the buffer
+        int end = buf.length, i = end;
+        int digits = 0;
+        do {
+            buf[--i] = (char) ('0' + (m % 10));
+            m /= 10;
+            digits++;
+        }
+        while (m > 0);
+
+        // leading zeros of a fraction
+        while (digits <= p) {
+            buf[--i] = '0';
+            digits++;
+        }
+
+        int n = 0;
+        if (neg) {
+            buf[n++] = '-';
+        }
+        int whole = digits - p;
+        for (int j = 0; j < whole; j++) {
+            buf[n++] = buf[i++];
+        }
+        buf[n++] = '.';
+        if (p == 0) {
+            buf[n++] = '0';
+        }
+        else {
+            // fraction digits may overlap the source, copy left to right is safe since n < i
+            for (int j = 0; j < p; j++) {
+                buf[n++] = buf[i++];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Encodes a long into a buffer of at least 20 chars.
+     *
+     * @return The number of chars encoded.
+     */
+    static int encode(long value, char[] buf) {
+        if (value == Long.MIN_VALUE) {
+            String s = Long.toString(value);
+            s.getChars(0, s.length(), buf, 0);
+            return s.length();
+        }
+
+        int end = buf.length, i = end;
+        long v = Math.abs(value);
+        do {
+            buf[--i] = (char) ('0' + (v % 10));
+            v /= 10;
+        }
+        while (v > 0);
+        if (value < 0) {
+            buf[--i] = '-';
+        }
+
+        int n = end - i;
+        System.arraycopy(buf, i, buf, 0, n);
+        return n;
     }
 
     /**
@@ -347,6 +523,25 @@ public class JSONEncoder {
         return this;
     }
 
+    /**
+     * Ends a line of output between top level values, used to encode newline delimited sequences of values.
+     * <p>
+     * Values on a line must not themselves span lines so this method may not be used when the encoder
+     * indents its output.
+     * </p>
+     * @return This encoder.
+     */
+    public JSONEncoder endLine() throws IOException {
+        if (!stack.isEmpty()) {
+            throw new IllegalStateException("unterminated value");
+        }
+        if (!"".equals(newline)) {
+            throw new IllegalStateException("line delimited output can't be indented");
+        }
+        out.write('\n');
+        return this;
+    }
+
     /*
      * Moves output to the next line and indents. A no-op if formatting not active. 
      */
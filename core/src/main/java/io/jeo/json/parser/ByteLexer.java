@@ -0,0 +1,463 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.json.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * JSON lexer that works directly on utf-8 encoded bytes, an alternative to the character based
+ * {@link Yylex}.
+ * <p>
+ * Input is a {@link ByteBuffer}, such as a memory mapped file, a byte array or an input stream. Structural
+ * characters and numbers are recognized without decoding the input, and numbers are converted straight
+ * from their digits: integers to {@link Long} and numbers with a fraction or exponent to {@link Double},
+ * exactly as {@link Yylex} does. Only strings are decoded, and short strings without escapes, such as
+ * object keys and type names that repeat throughout a document, are resolved from a small cache of
+ * previously decoded strings without allocating.
+ * </p>
+ * <p>
+ * Positions reported by {@link #getPosition()} are byte offsets.
+ * </p>
+ */
+public class ByteLexer {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** powers of ten exactly representable as doubles */
+    static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i-1] * 10;
+        }
+    }
+
+    /** largest mantissa exactly representable as a double */
+    static final long MAX_EXACT = 1L << 53;
+
+    /** maximum length of cached strings */
+    static final int CACHE_MAX_LENGTH = 32;
+    static final int CACHE_SIZE = 256;
+
+    /* input window */
+    byte[] buf;
+    int pos, limit;
+
+    /* remaining input, at most one of these is set */
+    ByteBuffer buffer;
+    InputStream stream;
+
+    /* offset in the input of the start of the window */
+    long offset;
+    /* offset in the input of the current token */
+    long tokenStart;
+
+    /* scratch space for strings and numbers */
+    byte[] scratch = new byte[64];
+    int len;
+
+    String[] cache = new String[CACHE_SIZE];
+    byte[][] cacheBytes = new byte[CACHE_SIZE][];
+
+    /**
+     * Creates a lexer over the remaining bytes of a buffer.
+     */
+    public ByteLexer(ByteBuffer in) {
+        reset(in);
+    }
+
+    /**
+     * Creates a lexer over a byte array.
+     */
+    public ByteLexer(byte[] in) {
+        reset(ByteBuffer.wrap(in));
+    }
+
+    /**
+     * Creates a lexer over an input stream.
+     */
+    public ByteLexer(InputStream in) {
+        reset(in);
+    }
+
+    /**
+     * Resets the lexer to read from the remaining bytes of a buffer.
+     */
+    public void reset(ByteBuffer in) {
+        if (in.hasArray()) {
+            // read the backing array in place
+            buf = in.array();
+            pos = in.arrayOffset() + in.position();
+            limit = in.arrayOffset() + in.limit();
+            offset = -pos;
+            buffer = null;
+        }
+        else {
+            if (buf == null || buf.length != 8192) {
+                buf = new byte[8192];
+            }
+            pos = limit = 0;
+            offset = 0;
+            buffer = in.slice();
+        }
+        stream = null;
+        tokenStart = 0;
+    }
+
+    /**
+     * Resets the lexer to read from an input stream.
+     */
+    public void reset(InputStream in) {
+        buf = new byte[8192];
+        pos = limit = 0;
+        offset = 0;
+        tokenStart = 0;
+        buffer = null;
+        stream = in;
+    }
+
+    /**
+     * The byte position of the beginning of the current token.
+     */
+    public int getPosition() {
+        return (int) tokenStart;
+    }
+
+    /**
+     * Reads the next token, returning <code>null</code> at the end of the input.
+     */
+    public Yytoken yylex() throws IOException, ParseException {
+        int b = read();
+        while (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f') {
+            b = read();
+        }
+        tokenStart = offset + pos - 1;
+
+        switch(b) {
+            case -1:
+                return null;
+            case '{':
+                return new Yytoken(Yytoken.TYPE_LEFT_BRACE, null);
+            case '}':
+                return new Yytoken(Yytoken.TYPE_RIGHT_BRACE, null);
+            case '[':
+                return new Yytoken(Yytoken.TYPE_LEFT_SQUARE, null);
+            case ']':
+                return new Yytoken(Yytoken.TYPE_RIGHT_SQUARE, null);
+            case ',':
+                return new Yytoken(Yytoken.TYPE_COMMA, null);
+            case ':':
+                return new Yytoken(Yytoken.TYPE_COLON, null);
+            case '"':
+                return new Yytoken(Yytoken.TYPE_VALUE, string());
+            case 't':
+                literal("rue");
+                return new Yytoken(Yytoken.TYPE_VALUE, Boolean.TRUE);
+            case 'f':
+                literal("alse");
+                return new Yytoken(Yytoken.TYPE_VALUE, Boolean.FALSE);
+            case 'n':
+                literal("ull");
+                return new Yytoken(Yytoken.TYPE_VALUE, null);
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    return new Yytoken(Yytoken.TYPE_VALUE, number(b));
+                }
+                throw unexpected(b);
+        }
+    }
+
+    int read() throws IOException {
+        if (pos < limit) {
+            return buf[pos++] & 0xff;
+        }
+        return fill() ? buf[pos++] & 0xff : -1;
+    }
+
+    void unread() {
+        pos--;
+    }
+
+    boolean fill() throws IOException {
+        offset += limit;
+        pos = limit = 0;
+
+        if (buffer != null && buffer.hasRemaining()) {
+            int n = Math.min(buf.length, buffer.remaining());
+            buffer.get(buf, 0, n);
+            limit = n;
+        }
+        else if (stream != null) {
+            int n = stream.read(buf, 0, buf.length);
+            limit = Math.max(n, 0);
+        }
+        return limit > 0;
+    }
+
+    void literal(String rest) throws IOException, ParseException {
+        for (int i = 0; i < rest.length(); i++) {
+            int b = read();
+            if (b != rest.charAt(i)) {
+                throw unexpected(b);
+            }
+        }
+    }
+
+    ParseException unexpected(int b) {
+        return new ParseException((int) (offset + pos - 1), ParseException.ERROR_UNEXPECTED_CHAR,
+            b == -1 ? null : Character.valueOf((char) b));
+    }
+
+    void append(int b) {
+        if (len == scratch.length) {
+            byte[] tmp = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, tmp, 0, len);
+            scratch = tmp;
+        }
+        scratch[len++] = (byte) b;
+    }
+
+    String string() throws IOException, ParseException {
+        len = 0;
+        boolean escaped = false;
+        int hash = 0;
+
+        for (int b = read(); b != '"'; b = read()) {
+            if (b == -1) {
+                throw unexpected(b);
+            }
+            if (b == '\\') {
+                escaped = true;
+                escape();
+            }
+            else {
+                append(b);
+                hash = 31 * hash + b;
+            }
+        }
+
+        if (escaped || len > CACHE_MAX_LENGTH) {
+            return new String(scratch, 0, len, UTF_8);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        byte[] bytes = cacheBytes[slot];
+        if (bytes != null && bytes.length == len && equals(bytes, scratch, len)) {
+            return cache[slot];
+        }
+
+        String s = new String(scratch, 0, len, UTF_8);
+        bytes = new byte[len];
+        System.arraycopy(scratch, 0, bytes, 0, len);
+        cacheBytes[slot] = bytes;
+        cache[slot] = s;
+        return s;
+    }
+
+    static boolean equals(byte[] a, byte[] b, int len) {
+        for (int i = 0; i < len; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void escape() throws IOException, ParseException {
+        int b = read();
+        switch(b) {
+            case '"':
+            case '\\':
+            case '/':
+                append(b);
+                break;
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'u':
+                int c = hex();
+                if (c >= 0xD800 && c <= 0xDBFF) {
+                    // high surrogate, combine with the low surrogate that should follow
+                    int b1 = read(), b2 = read();
+                    if (b1 != '\\' || b2 != 'u') {
+                        throw unexpected(b2);
+                    }
+                    int lo = hex();
+                    c = Character.toCodePoint((char) c, (char) lo);
+                }
+                utf8(c);
+                break;
+            default:
+                throw unexpected(b);
+        }
+    }
+
+    int hex() throws IOException, ParseException {
+        int c = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = read();
+            int d = Character.digit(b, 16);
+            if (b == -1 || d < 0) {
+                throw unexpected(b);
+            }
+            c = (c << 4) | d;
+        }
+        return c;
+    }
+
+    void utf8(int c) {
+        if (c < 0x80) {
+            append(c);
+        }
+        else if (c < 0x800) {
+            append(0xC0 | (c >> 6));
+            append(0x80 | (c & 0x3F));
+        }
+        else if (c < 0x10000) {
+            append(0xE0 | (c >> 12));
+            append(0x80 | ((c >> 6) & 0x3F));
+            append(0x80 | (c & 0x3F));
+        }
+        else {
+            append(0xF0 | (c >> 18));
+            append(0x80 | ((c >> 12) & 0x3F));
+            append(0x80 | ((c >> 6) & 0x3F));
+            append(0x80 | (c & 0x3F));
+        }
+    }
+
+    /*
+     * Accumulates up to 18 significant digits in a long and converts with a single exact multiplication
+     * or division by a power of ten when both operands are exactly representable, which is correctly
+     * rounded. Anything else falls back to Double.parseDouble.
+     */
+    Number number(int b) throws IOException, ParseException {
+        len = 0;
+
+        boolean neg = b == '-';
+        if (neg) {
+            append(b);
+            b = read();
+        }
+
+        long m = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean exact = true;
+
+        if (b < '0' || b > '9') {
+            throw unexpected(b);
+        }
+        for (; b >= '0' && b <= '9'; b = read()) {
+            append(b);
+            if (digits < 18) {
+                m = m * 10 + (b - '0');
+                if (m > 0) {
+                    digits++;
+                }
+            }
+            else {
+                exact = false;
+                exp10++;
+            }
+        }
+
+        boolean decimal = false;
+        if (b == '.') {
+            decimal = true;
+            append(b);
+            b = read();
+            if (b < '0' || b > '9') {
+                throw unexpected(b);
+            }
+            for (; b >= '0' && b <= '9'; b = read()) {
+                append(b);
+                if (digits < 18) {
+                    m = m * 10 + (b - '0');
+                    if (m > 0) {
+                        digits++;
+                    }
+                    exp10--;
+                }
+                else if (b != '0') {
+                    exact = false;
+                }
+            }
+        }
+
+        if (b == 'e' || b == 'E') {
+            decimal = true;
+            append(b);
+            b = read();
+
+            boolean eneg = false;
+            if (b == '+' || b == '-') {
+                append(b);
+                eneg = b == '-';
+                b = read();
+            }
+            if (b < '0' || b > '9') {
+                throw unexpected(b);
+            }
+
+            int e = 0;
+            for (; b >= '0' && b <= '9'; b = read()) {
+                append(b);
+                if (e < 10000) {
+                    e = e * 10 + (b - '0');
+                }
+            }
+            exp10 += eneg ? -e : e;
+        }
+
+        if (b != -1) {
+            unread();
+        }
+
+        if (!decimal) {
+            if (exact) {
+                return neg ? -m : m;
+            }
+            String s = new String(scratch, 0, len, UTF_8);
+            try {
+                return Long.valueOf(s);
+            }
+            catch(NumberFormatException e) {
+                return Double.valueOf(s);
+            }
+        }
+
+        if (exact && m < MAX_EXACT && exp10 >= -22 && exp10 <= 22) {
+            double d = exp10 >= 0 ? m * POW10[exp10] : m / POW10[-exp10];
+            return neg ? -d : d;
+        }
+        return Double.valueOf(new String(scratch, 0, len, UTF_8));
+    }
+}
@@ -19,8 +19,10 @@
 package io.jeo.json.parser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +48,7 @@ public class JSONParser {
 	
 	private LinkedList handlerStatusStack;
 	private Yylex lexer = new Yylex((Reader)null);
+	private ByteLexer byteLexer;
 	private Yytoken token = null;
 	private int status = S_INIT;
 	
@@ -75,6 +78,33 @@ public class JSONParser {
      */
 	public void reset(Reader in){
 		lexer.yyreset(in);
+		byteLexer = null;
+		reset();
+	}
+
+	/**
+	 * Reset the parser to the initial state with new utf-8 encoded input, read with a {@link ByteLexer}.
+	 * 
+	 * @param in - The new input, read from its current position to its limit.
+	 */
+	public void reset(ByteBuffer in){
+		if(byteLexer == null)
+			byteLexer = new ByteLexer(in);
+		else
+			byteLexer.reset(in);
+		reset();
+	}
+
+	/**
+	 * Reset the parser to the initial state with a new utf-8 encoded input stream, read with a {@link ByteLexer}.
+	 * 
+	 * @param in - The new input stream.
+	 */
+	public void reset(InputStream in){
+		if(byteLexer == null)
+			byteLexer = new ByteLexer(in);
+		else
+			byteLexer.reset(in);
 		reset();
 	}
 	
@@ -82,7 +112,7 @@ public class JSONParser {
 	 * @return The position of the beginning of the current token.
 	 */
 	public int getPosition(){
-		return lexer.getPosition();
+		return byteLexer != null ? byteLexer.getPosition() : lexer.getPosition();
 	}
 	
 	public Object parse(String s) throws ParseException{
@@ -280,7 +310,7 @@ public class JSONParser {
 	}
 	
 	private void nextToken() throws ParseException, IOException{
-		token = lexer.yylex();
+		token = byteLexer != null ? byteLexer.yylex() : lexer.yylex();
 		if(token == null)
 			token = new Yytoken(Yytoken.TYPE_EOF, null);
 	}
@@ -341,18 +371,48 @@ public class JSONParser {
 	 * @throws ParseException
 	 */
 	public void parse(Reader in, ContentHandler contentHandler, boolean isResume) throws IOException, ParseException{
-		if(!isResume){
+		if(!isResume || handlerStatusStack == null){
+			reset(in);
+			handlerStatusStack = new LinkedList();
+		}
+		parse(contentHandler);
+	}
+
+	public void parse(ByteBuffer in, ContentHandler contentHandler) throws IOException, ParseException{
+		parse(in, contentHandler, false);
+	}
+
+	/**
+	 * Stream processing of utf-8 encoded JSON bytes, such as a memory mapped file, with a {@link ByteLexer}.
+	 * 
+	 * @see #parse(Reader, ContentHandler, boolean)
+	 * 
+	 * @param in - The input, read from its current position to its limit.
+	 * @param contentHandler
+	 * @param isResume - Indicates if it continues previous parsing operation.
+	 */
+	public void parse(ByteBuffer in, ContentHandler contentHandler, boolean isResume) throws IOException, ParseException{
+		if(!isResume || handlerStatusStack == null){
 			reset(in);
 			handlerStatusStack = new LinkedList();
 		}
-		else{
-			if(handlerStatusStack == null){
-				isResume = false;
-				reset(in);
-				handlerStatusStack = new LinkedList();
-			}
+		parse(contentHandler);
+	}
+
+	/**
+	 * Stream processing of utf-8 encoded JSON bytes from an input stream with a {@link ByteLexer}.
+	 * 
+	 * @see #parse(Reader, ContentHandler, boolean)
+	 */
+	public void parse(InputStream in, ContentHandler contentHandler, boolean isResume) throws IOException, ParseException{
+		if(!isResume || handlerStatusStack == null){
+			reset(in);
+			handlerStatusStack = new LinkedList();
 		}
-		
+		parse(contentHandler);
+	}
+
+	private void parse(ContentHandler contentHandler) throws IOException, ParseException{
 		LinkedList statusStack = handlerStatusStack;	
 		
 		try{
@@ -14,6 +14,12 @@
  */
 package io.jeo.proj;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 import org.osgeo.proj4j.CoordinateTransform;
 import org.osgeo.proj4j.ProjCoordinate;
 
@@ -21,25 +27,203 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateFilter;
 import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryComponentFilter;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 
 /**
  * Applies a coordinate transform to the coordinates of a geometry object.
  * <p> 
  * This class isn't intended to be used directly but rather through {@link Proj#reproject()}}.
  * </p>
+ * <p>
+ * Geometries are transformed a coordinate sequence at a time with {@link #transform(Geometry)}, working
+ * directly on the backing arrays of {@link PackedCoordinateSequence.Double} and
+ * {@link CoordinateArraySequence} and reusing a single intermediate coordinate. Geometries with more than
+ * {@link #PARALLEL_THRESHOLD} coordinates are split into ranges that are transformed in parallel on a
+ * fork join pool dedicated to reprojection, created on first use, or the pool set with
+ * {@link #pool(ForkJoinPool)}. An instance must not be used by multiple threads at once.
+ * </p>
  * @see Proj#reproject(com.vividsolutions.jts.geom.Geometry, org.osgeo.proj4j.CoordinateReferenceSystem, org.osgeo.proj4j.CoordinateReferenceSystem)
  */
 public class CoordinateTransformer implements CoordinateSequenceFilter, CoordinateFilter {
 
+    /** number of coordinates above which a geometry is transformed in parallel */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** number of coordinates transformed by each parallel task */
+    static final int CHUNK_SIZE = 1 << 14;
+
+    /** pool shared by transformers without one of their own, created on first use */
+    static volatile ForkJoinPool POOL;
+
     CoordinateTransform tx;
+    ProjCoordinate p = new ProjCoordinate();
+    int parallelThreshold = PARALLEL_THRESHOLD;
+    ForkJoinPool pool;
 
     public CoordinateTransformer(CoordinateTransform tx) {
         this.tx = tx;
     }
 
+    /**
+     * Sets the number of coordinates above which geometries are transformed in parallel.
+     *
+     * @return This object.
+     */
+    public CoordinateTransformer parallelThreshold(int threshold) {
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the pool geometries are transformed in parallel with, defaults to a pool shared by all
+     * transformers.
+     *
+     * @return This object.
+     */
+    public CoordinateTransformer pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    ForkJoinPool pool() {
+        if (pool != null) {
+            return pool;
+        }
+        if (POOL == null) {
+            synchronized (CoordinateTransformer.class) {
+                if (POOL == null) {
+                    POOL = new ForkJoinPool();
+                }
+            }
+        }
+        return POOL;
+    }
+
+    /**
+     * Transforms the coordinates of a geometry in place.
+     *
+     * @return The geometry.
+     */
+    public <T extends Geometry> T transform(T g) {
+        final List<CoordinateSequence> seqs = new ArrayList<>();
+        g.apply(new GeometryComponentFilter() {
+            @Override
+            public void filter(Geometry geom) {
+                if (geom instanceof LineString) {
+                    seqs.add(((LineString) geom).getCoordinateSequence());
+                }
+                else if (geom instanceof Point) {
+                    seqs.add(((Point) geom).getCoordinateSequence());
+                }
+            }
+        });
+
+        int n = 0;
+        for (CoordinateSequence seq : seqs) {
+            n += seq.size();
+        }
+
+        if (n > parallelThreshold && tx.getSourceCRS() != null) {
+            List<Range> ranges = new ArrayList<>();
+            for (CoordinateSequence seq : seqs) {
+                for (int i = 0; i < seq.size(); i += CHUNK_SIZE) {
+                    ranges.add(new Range(seq, i, Math.min(i + CHUNK_SIZE, seq.size())));
+                }
+            }
+            pool().invoke(new ParallelTransform(ranges));
+            for (CoordinateSequence seq : seqs) {
+                invalidate(seq);
+            }
+        }
+        else {
+            for (CoordinateSequence seq : seqs) {
+                transform(seq);
+            }
+        }
+
+        g.geometryChanged();
+        return g;
+    }
+
+    /**
+     * Transforms a coordinate sequence in place.
+     */
+    public void transform(CoordinateSequence seq) {
+        transform(seq, 0, seq.size());
+        invalidate(seq);
+    }
+
+    /*
+     * Transforms a range of a sequence, caches of the sequence must be invalidated separately.
+     */
+    void transform(CoordinateSequence seq, int from, int to) {
+        if (seq instanceof PackedCoordinateSequence.Double) {
+            double[] raw = ((PackedCoordinateSequence.Double) seq).getRawCoordinates();
+            int dim = seq.getDimension();
+            transform(raw, from * dim, raw, from * dim, dim, to - from);
+        }
+        else if (seq instanceof CoordinateArraySequence) {
+            Coordinate[] coords = ((CoordinateArraySequence) seq).toCoordinateArray();
+            for (int i = from; i < to; i++) {
+                filter(coords[i]);
+            }
+        }
+        else {
+            for (int i = from; i < to; i++) {
+                filter(seq, i);
+            }
+        }
+    }
+
+    /*
+     * Packed sequences cache coordinate objects that writing to the raw array doesn't clear, setting an
+     * ordinate does.
+     */
+    void invalidate(CoordinateSequence seq) {
+        if (seq instanceof PackedCoordinateSequence && seq.size() > 0) {
+            seq.setOrdinate(0, 0, seq.getOrdinate(0, 0));
+        }
+    }
+
+    /**
+     * Transforms packed coordinates from one array to another, the arrays may be the same.
+     *
+     * @param src The source coordinates.
+     * @param srcOff Offset of the first source coordinate.
+     * @param dst The destination array.
+     * @param dstOff Offset of the first destination coordinate.
+     * @param dim The number of ordinates per coordinate, only the first two are transformed.
+     * @param n The number of coordinates to transform.
+     */
+    public void transform(double[] src, int srcOff, double[] dst, int dstOff, int dim, int n) {
+        ProjCoordinate p = this.p;
+        for (int i = 0; i < n; i++) {
+            int s = srcOff + i * dim;
+            int d = dstOff + i * dim;
+
+            p.x = src[s];
+            p.y = src[s + 1];
+            tx.transform(p, p);
+
+            if (dst != src) {
+                for (int j = 2; j < dim; j++) {
+                    dst[d + j] = src[s + j];
+                }
+            }
+            dst[d] = p.x;
+            dst[d + 1] = p.y;
+        }
+    }
+
     @Override
     public void filter(CoordinateSequence cs, int i) {
-        ProjCoordinate p = new ProjCoordinate(cs.getX(i), cs.getY(i));
+        p.x = cs.getX(i);
+        p.y = cs.getY(i);
         tx.transform(p, p);
 
         cs.setOrdinate(i, 0, p.x);
@@ -48,7 +232,8 @@ public class CoordinateTransformer implements CoordinateSequenceFilter, Coordina
 
     @Override
     public void filter(Coordinate coord) {
-        ProjCoordinate p = new ProjCoordinate(coord.x, coord.y);
+        p.x = coord.x;
+        p.y = coord.y;
         tx.transform(p, p);
 
         coord.x = p.x;
@@ -64,4 +249,45 @@ public class CoordinateTransformer implements CoordinateSequenceFilter, Coordina
     public boolean isGeometryChanged() {
         return true;
     }
+
+    static class Range {
+        final CoordinateSequence seq;
+        final int from, to;
+
+        Range(CoordinateSequence seq, int from, int to) {
+            this.seq = seq;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Transforms ranges of sequences, splitting them in half until a single range is left. Each task
+     * transforms with its own transformer since proj4j transforms are not thread safe.
+     */
+    class ParallelTransform extends RecursiveAction {
+
+        final List<Range> ranges;
+
+        ParallelTransform(List<Range> ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        protected void compute() {
+            if (ranges.size() > 1) {
+                int mid = ranges.size() / 2;
+                ForkJoinTask.invokeAll(new ParallelTransform(ranges.subList(0, mid)),
+                    new ParallelTransform(ranges.subList(mid, ranges.size())));
+                return;
+            }
+
+            CoordinateTransformer txr = new CoordinateTransformer(
+                tx instanceof Proj.SharedCoordinateTransform ? tx :
+                    Proj.createTransform(tx.getSourceCRS(), tx.getTargetCRS()));
+            for (Range r : ranges) {
+                txr.transform(r.seq, r.from, r.to);
+            }
+        }
+    }
 }
@@ -17,6 +17,9 @@ package io.jeo.proj;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 
@@ -33,12 +36,11 @@ import org.osgeo.proj4j.Proj4jException;
 import org.osgeo.proj4j.ProjCoordinate;
 import org.osgeo.proj4j.datum.Datum;
 import org.osgeo.proj4j.io.Proj4FileReader;
+import org.osgeo.proj4j.proj.LongLatProjection;
 import org.osgeo.proj4j.proj.Projection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Point;
 
@@ -57,6 +59,17 @@ public class Proj {
     static CoordinateTransformFactory txFactory = new CoordinateTransformFactory();
     static GeomBuilder gBuilder = new GeomBuilder();
 
+    /** crs objects by authority code or definition */
+    static final ProjCache<String,CoordinateReferenceSystem> CRS_CACHE = new ProjCache<>(512);
+
+    /** transforms by source and target crs */
+    static final ProjCache<String,CoordinateTransform> TX_CACHE = new ProjCache<>(512);
+
+    /**
+     * Default number of points sampled along each edge of an envelope being reprojected.
+     */
+    public static final int DENSITY = 16;
+
     /** 
      * The canonical geographic coordinate reference system.
      */
@@ -80,7 +93,9 @@ public class Proj {
 
     /**
      * Looks up a crs object base on its identifier.  
-     *
+     * <p>
+     * Results are cached by identifier, see {@link #crsCache()}.
+     * </p>
      * @return The matching crs object, or <code>null</code> if none found.
      */
     public static CoordinateReferenceSystem crs(String s) {
@@ -88,6 +103,18 @@ public class Proj {
             return null;
         }
 
+        String key = AUTH_CODE.matcher(s).matches() ? s.toUpperCase(Locale.ROOT) : s;
+        CoordinateReferenceSystem crs = CRS_CACHE.get(key);
+        if (crs == null) {
+            crs = lookup(s);
+            if (crs != null) {
+                crs = CRS_CACHE.put(key, crs);
+            }
+        }
+        return crs;
+    }
+
+    static CoordinateReferenceSystem lookup(String s) {
         if ("urn:ogc:def:crs:OGC:1.3:CRS84".equalsIgnoreCase(s)) {
             return EPSG_4326;
         }
@@ -118,6 +145,40 @@ public class Proj {
         return csFactory.createFromName(s);
     }
 
+    /**
+     * Looks up and caches crs objects ahead of time, such as the crs objects served by an application.
+     * <p>
+     * Identifiers that can't be resolved are logged and skipped.
+     * </p>
+     * @param ids Identifiers as accepted by {@link #crs(String)}.
+     */
+    public static void preload(String... ids) {
+        for (String id : ids) {
+            try {
+                if (crs(id) == null) {
+                    LOGGER.debug("Unable to preload crs " + id);
+                }
+            }
+            catch(RuntimeException e) {
+                LOGGER.debug("Unable to preload crs " + id, e);
+            }
+        }
+    }
+
+    /**
+     * The cache of crs objects looked up with {@link #crs(String)}.
+     */
+    public static ProjCache<String,CoordinateReferenceSystem> crsCache() {
+        return CRS_CACHE;
+    }
+
+    /**
+     * The cache of transforms created with {@link #transform(CoordinateReferenceSystem, CoordinateReferenceSystem)}.
+     */
+    public static ProjCache<String,CoordinateTransform> transformCache() {
+        return TX_CACHE;
+    }
+
     /**
      * Creates a crs object from projection parameter definition.
      * 
@@ -328,8 +389,7 @@ public class Proj {
         }
 
         T h = inPlace ? g : (T) g.clone();
-        h.apply((CoordinateSequenceFilter) new CoordinateTransformer(tx));
-        return h;
+        return new CoordinateTransformer(tx).transform(h);
     }
 
     /**
@@ -364,6 +424,10 @@ public class Proj {
      * In the event the two specified coordinate reference systems are equal this method is a 
      * no-op and returns the original envelope. 
      * </p>
+     * <p>
+     * The edges of the envelope are densified with {@link #DENSITY} points each, see
+     * {@link #reproject(Envelope, CoordinateReferenceSystem, CoordinateReferenceSystem, int)}.
+     * </p>
      * @param e The envelope to reproject.
      * @param from The source coordinate reference system.
      * @param to The target coordinate reference system.
@@ -374,22 +438,174 @@ public class Proj {
      */
     public static Bounds reproject(Envelope e, CoordinateReferenceSystem from,
         CoordinateReferenceSystem to) {
-        
+        return reproject(e, from, to, DENSITY);
+    }
+
+    /**
+     * Reprojects an envelope between two coordinate reference systems, sampling <tt>density</tt> points
+     * along each edge of the envelope in addition to its corners.
+     * <p>
+     * When the reprojected envelope crosses the antimeridian of a geographic crs the result spans all
+     * longitudes, use {@link #reprojectAll(Envelope, CoordinateReferenceSystem, CoordinateReferenceSystem, int)}
+     * to obtain the parts on either side.
+     * </p>
+     * @param e The envelope to reproject.
+     * @param from The source coordinate reference system.
+     * @param to The target coordinate reference system.
+     * @param density The number of points to sample along each edge, <tt>0</tt> for only the corners.
+     *
+     * @return The reprojected envelope.
+     *
+     * @throws IllegalArgumentException If no coordinate transform can be found.
+     */
+    public static Bounds reproject(Envelope e, CoordinateReferenceSystem from,
+        CoordinateReferenceSystem to, int density) {
+
+        List<Bounds> all = reprojectAll(e, from, to, density);
+        if (all.size() == 1) {
+            return all.get(0);
+        }
+
+        Bounds b = new Bounds();
+        for (Bounds part : all) {
+            b.expandToInclude(part);
+        }
+        return b;
+    }
+
+    /**
+     * Reprojects an envelope between two coordinate reference systems, sampling <tt>density</tt> points
+     * along each edge of the envelope in addition to its corners.
+     * <p>
+     * When the target crs is geographic an envelope containing a pole is extended to the pole and all
+     * longitudes, and an envelope that crosses the antimeridian is returned as two envelopes, one on either
+     * side of it. Otherwise a single envelope is returned. Points that can not be transformed are ignored.
+     * </p>
+     * @param e The envelope to reproject.
+     * @param from The source coordinate reference system.
+     * @param to The target coordinate reference system.
+     * @param density The number of points to sample along each edge, <tt>0</tt> for only the corners.
+     *
+     * @return The reprojected envelopes.
+     *
+     * @throws IllegalArgumentException If no coordinate transform can be found, or if none of the
+     * sampled points can be transformed.
+     */
+    public static List<Bounds> reprojectAll(Envelope e, CoordinateReferenceSystem from,
+        CoordinateReferenceSystem to, int density) {
+
+        if (density < 0) {
+            throw new IllegalArgumentException("density must not be negative");
+        }
+
         CoordinateTransform tx = transform(from, to);
-        if (tx instanceof IdentityCoordinateTransform) {
-            return new Bounds(e);
+        if (tx instanceof IdentityCoordinateTransform || e.isNull()) {
+            return Collections.singletonList(new Bounds(e));
+        }
+
+        // walk the edges counter clockwise from the lower left corner
+        int n = 4 * (density + 1);
+        double[] ring = new double[2 * n];
+        int side = density + 1;
+        for (int i = 0; i < side; i++) {
+            double t = i / (double) side;
+            double x = e.getMinX() + t * e.getWidth();
+            double y = e.getMinY() + t * e.getHeight();
+
+            set(ring, i, x, e.getMinY());
+            set(ring, side + i, e.getMaxX(), y);
+            set(ring, 2 * side + i, e.getMaxX() + e.getMinX() - x, e.getMaxY());
+            set(ring, 3 * side + i, e.getMinX(), e.getMaxY() + e.getMinY() - y);
+        }
+
+        // transform, dropping points that fail
+        ProjCoordinate p = new ProjCoordinate();
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            p.x = ring[2 * i];
+            p.y = ring[2 * i + 1];
+            try {
+                tx.transform(p, p);
+            }
+            catch(Proj4jException ex) {
+                continue;
+            }
+            if (!Double.isNaN(p.x) && !Double.isNaN(p.y) && !Double.isInfinite(p.x) && !Double.isInfinite(p.y)) {
+                set(ring, m++, p.x, p.y);
+            }
+        }
+
+        if (m == 0) {
+            throw new IllegalArgumentException("Unable to reproject " + e + " from " + from + " to " + to);
+        }
+
+        Bounds b = new Bounds();
+        for (int i = 0; i < m; i++) {
+            b.expandToInclude(ring[2 * i], ring[2 * i + 1]);
+        }
+
+        if (!(to.getProjection() instanceof LongLatProjection)) {
+            return Collections.singletonList(b);
+        }
+
+        // poles
+        boolean north = contains(e, to, from, 90), south = contains(e, to, from, -90);
+        if (north || south) {
+            return Collections.singletonList(new Bounds(-180, 180, south ? -90 : b.getMinY(), north ? 90 : b.getMaxY()));
+        }
+
+        // antimeridian, detected by a jump in longitude between successive points
+        boolean crosses = false;
+        for (int i = 0; i < m && !crosses; i++) {
+            int j = (i + 1) % m;
+            crosses = Math.abs(ring[2 * j] - ring[2 * i]) > 180;
+        }
+        if (!crosses) {
+            return Collections.singletonList(b);
         }
 
-        CoordinateTransformer txr = new CoordinateTransformer(tx);
+        Bounds east = new Bounds(), west = new Bounds();
+        for (int i = 0; i < m; i++) {
+            double x = ring[2 * i], y = ring[2 * i + 1];
+            if (x >= 0) {
+                east.expandToInclude(x, y);
+            }
+            else {
+                west.expandToInclude(x, y);
+            }
+        }
+        east.expandToInclude(180, east.getMinY());
+        west.expandToInclude(-180, west.getMinY());
+        return Arrays.asList(east, west);
+    }
 
-        Coordinate c1 = new Coordinate(e.getMinX(), e.getMinY());
-        Coordinate c2 = new Coordinate(e.getMaxX(), e.getMaxY());
-        txr.filter(c1);
-        txr.filter(c2);
+    static void set(double[] ring, int i, double x, double y) {
+        ring[2 * i] = x;
+        ring[2 * i + 1] = y;
+    }
 
-        return new Bounds(c1.x, c2.x, c1.y, c2.y);
+    /*
+     * Whether a pole of geographic crs falls within an envelope of another crs.
+     */
+    static boolean contains(Envelope e, CoordinateReferenceSystem geo, CoordinateReferenceSystem crs, double lat) {
+        ProjCoordinate p = new ProjCoordinate(0, lat);
+        try {
+            transform(geo, crs).transform(p, p);
+        }
+        catch(Proj4jException ex) {
+            return false;
+        }
+        return !Double.isNaN(p.x) && !Double.isNaN(p.y) && e.contains(p.x, p.y);
     }
 
+    /**
+     * Returns the transform between two coordinate reference systems.
+     * <p>
+     * Transforms are cached by the name and parameters of the two crs objects, see
+     * {@link #transformCache()}. The returned transform may be shared between threads.
+     * </p>
+     * @throws IllegalArgumentException If no coordinate transform can be found.
+     */
     public static CoordinateTransform transform(CoordinateReferenceSystem from, 
         CoordinateReferenceSystem to) {
 
@@ -397,6 +613,19 @@ public class Proj {
             return new IdentityCoordinateTransform();
         }
 
+        String key = key(from) + " -> " + key(to);
+        CoordinateTransform tx = TX_CACHE.get(key);
+        if (tx == null) {
+            tx = TX_CACHE.put(key, new SharedCoordinateTransform(createTransform(from, to)));
+        }
+        return tx;
+    }
+
+    static String key(CoordinateReferenceSystem crs) {
+        return crs.getName() + " " + crs.getParameterString();
+    }
+
+    static CoordinateTransform createTransform(CoordinateReferenceSystem from, CoordinateReferenceSystem to) {
         CoordinateTransform tx = txFactory.createTransform(from, to);
         if (tx == null) {
             throw new IllegalArgumentException("Unable to find transform from " + from + " to " + to);
@@ -404,6 +633,51 @@ public class Proj {
         return tx;
     }
 
+    /**
+     * Transform that can be shared between threads.
+     * <p>
+     * Proj4j transforms hold intermediate results in instance state, so each thread transforms with its own
+     * copy of the transform.
+     * </p>
+     */
+    static class SharedCoordinateTransform implements CoordinateTransform {
+
+        final CoordinateReferenceSystem from, to;
+        final ThreadLocal<CoordinateTransform> local;
+
+        SharedCoordinateTransform(final CoordinateTransform tx) {
+            this.from = tx.getSourceCRS();
+            this.to = tx.getTargetCRS();
+            this.local = new ThreadLocal<CoordinateTransform>() {
+                boolean first = true;
+
+                @Override
+                protected synchronized CoordinateTransform initialValue() {
+                    if (first) {
+                        first = false;
+                        return tx;
+                    }
+                    return createTransform(from, to);
+                }
+            };
+        }
+
+        @Override
+        public CoordinateReferenceSystem getSourceCRS() {
+            return from;
+        }
+
+        @Override
+        public CoordinateReferenceSystem getTargetCRS() {
+            return to;
+        }
+
+        @Override
+        public ProjCoordinate transform(ProjCoordinate src, ProjCoordinate tgt) throws Proj4jException {
+            return local.get().transform(src, tgt);
+        }
+    }
+
     private static class IdentityCoordinateTransform implements CoordinateTransform {
 
         @Override
@@ -0,0 +1,121 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.proj;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of projection objects that is safe for concurrent use, see {@link Proj#crsCache()} and
+ * {@link Proj#transformCache()}.
+ * <p>
+ * Lookups don't lock. Once the cache is full the entries added first are evicted first.
+ * </p>
+ */
+public class ProjCache<K,V> {
+
+    final int maxSize;
+    final ConcurrentHashMap<K,V> map = new ConcurrentHashMap<>();
+    final Queue<K> order = new ConcurrentLinkedQueue<>();
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong evictions = new AtomicLong();
+
+    ProjCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The cached value for a key, or <code>null</code> if the key is not cached.
+     */
+    V get(K key) {
+        V value = map.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value, returning the value already cached if another thread got there first.
+     */
+    V put(K key, V value) {
+        V prev = map.putIfAbsent(key, value);
+        if (prev != null) {
+            return prev;
+        }
+
+        order.add(key);
+        while (map.size() > maxSize) {
+            K oldest = order.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (map.remove(oldest) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The maximum number of cached entries.
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The number of cached entries.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of lookups not answered from the cache.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * The number of entries evicted to stay within the maximum size.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        map.clear();
+        order.clear();
+    }
+}
@@ -201,7 +201,7 @@ public class Tile {
     private boolean isMagic(int[] bytes) {
         boolean match = data.length > bytes.length;
         for (int i = 0; i < bytes.length && match; i++) {
-            match &= bytes[i] == data[i];
+            match &= bytes[i] == (data[i] & 0xFF);
         }
         return match;
     }
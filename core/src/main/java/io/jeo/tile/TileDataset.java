@@ -58,4 +58,13 @@ public interface TileDataset extends Dataset {
      * @return A cursor over the tile set.
      */
     Cursor<Tile> read(long z1, long z2, long x1, long x2, long y1, long y2) throws IOException;
+
+    /**
+     * Returns a cursor for adding, replacing and removing tiles of the layer.
+     * <p>
+     * If the dataset does not support writing tiles this method should throw
+     * {@link UnsupportedOperationException}.
+     * </p>
+     */
+    TileWriteCursor update() throws IOException;
 }
@@ -198,7 +198,7 @@ public class TilePyramid {
             x = b.getMinX() + dx*t.x();
             break;
         default:
-            x = b.getMinX() + dx*(w - t.x());
+            x = b.getMinX() + dx*(w - t.x() - 1);
         }
 
         switch(origin) {
@@ -207,7 +207,7 @@ public class TilePyramid {
             y = b.getMinY() + dy*t.y();
             break;
         default:
-            y = b.getMinY() + dy*(h - t.y());
+            y = b.getMinY() + dy*(h - t.y() - 1);
         }
 
         return new Bounds(x, x+dx, y, y+dy);
@@ -340,6 +340,18 @@ public class TilePyramid {
         int y2 = (int) 
             ceil(((bbox.getMaxY() - bounds.getMinY()) / bounds.getHeight()) * grid.height())-1;
 
+        // indexes above are relative to the lower left corner, flip them for other origins
+        if (origin == Origin.TOP_RIGHT || origin == Origin.BOTTOM_RIGHT) {
+            int x = x1;
+            x1 = grid.width() - 1 - x2;
+            x2 = grid.width() - 1 - x;
+        }
+        if (origin == Origin.TOP_LEFT || origin == Origin.TOP_RIGHT) {
+            int y = y1;
+            y1 = grid.height() - 1 - y2;
+            y2 = grid.height() - 1 - y;
+        }
+
         return new int[]{x1, x2, y1, y2};
     }
 }
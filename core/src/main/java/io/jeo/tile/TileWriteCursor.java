@@ -0,0 +1,65 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.tile;
+
+import io.jeo.data.Cursor;
+import io.jeo.data.WriteCursor;
+
+import java.io.IOException;
+
+/**
+ * Cursor for writing {@link Tile} objects to a {@link TileDataset}.
+ * <p>
+ * Each call to {@link #next()} returns an empty tile to be given an index and data before calling
+ * {@link #write()}, which adds the tile or replaces an existing tile with the same index. {@link #remove()}
+ * removes the tile at the index of the current tile. Writes may be batched so the cursor must be closed to
+ * ensure all tiles are written.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ *     TileWriteCursor c = tiles.update();
+ *     c.next().z(1).x(0).y(1).data(png);
+ *     c.write();
+ *     c.close();
+ * </pre>
+ * </p>
+ */
+public abstract class TileWriteCursor extends Cursor<Tile> implements WriteCursor {
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return true;
+    }
+
+    @Override
+    public abstract TileWriteCursor write() throws IOException;
+
+    @Override
+    public abstract TileWriteCursor remove() throws IOException;
+
+    /**
+     * Returns the tile to write, failing if it has no index.
+     */
+    protected static Tile check(Tile t) {
+        if (t == null) {
+            throw new IllegalStateException("No tile, call next() before writing");
+        }
+        if (t.z() == null || t.x() == null || t.y() == null) {
+            throw new IllegalArgumentException("Tile " + t + " has no index");
+        }
+        return t;
+    }
+}
@@ -0,0 +1,475 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.vector;
+
+import com.vividsolutions.jts.geom.Geometry;
+import io.jeo.data.Cursors;
+import io.jeo.data.Driver;
+import io.jeo.data.Transaction;
+import io.jeo.geom.Bounds;
+import io.jeo.util.Function;
+import io.jeo.util.Key;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vector dataset wrapper that caches the results of queries.
+ * <p>
+ * The features read by {@link #read(VectorQuery)}, the result of {@link #count(VectorQuery)} and the
+ * dataset {@link #bounds()} are memoized by query. Feature results are recorded as the returned cursor
+ * is read and only cached once it has been read to the end. Entries are evicted least recently used
+ * first to keep the estimated memory footprint of the cache under a fixed budget, and optionally
+ * expire after a time to live.
+ * </p>
+ * <p>
+ * The cache is invalidated when features are written or removed through {@link #update(VectorQuery)}
+ * or {@link #append(VectorQuery)} cursors of this dataset and when such cursors are closed. Queries
+ * executed under a transaction, or with {@link VectorQuery#explain()} set, bypass the cache. Changes
+ * made outside of this object, or committed through a transaction after the write cursor is closed,
+ * require a call to {@link #invalidate()}.
+ * </p>
+ * <p>
+ * Features are cached as plain copies of the features read from the underlying dataset, with their
+ * geometries decoded, and every cursor returned for a cached query receives its own copy of each
+ * feature. Geometries are shared between those copies and must not be modified in place.
+ * </p>
+ * Usage:
+ * <pre>
+ *   VectorDataset data = new CachedVectorDataset(dataset, 64 * 1024 * 1024).ttl(5, TimeUnit.MINUTES);
+ * </pre>
+ */
+public class CachedVectorDataset implements VectorDataset {
+
+    final VectorDataset delegate;
+    final long maxMemory;
+    long ttl;
+
+    /* guarded by cache */
+    final LinkedHashMap<CacheKey,Entry> cache;
+    long memory;
+    long generation;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param delegate The dataset to cache.
+     * @param maxMemory The memory budget of the cache in bytes.
+     */
+    public CachedVectorDataset(VectorDataset delegate, long maxMemory) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+        this.maxMemory = maxMemory;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Sets the time cached entries remain valid, zero meaning entries never expire.
+     *
+     * @return This object.
+     */
+    public CachedVectorDataset ttl(long time, TimeUnit unit) {
+        ttl = unit.toMillis(time);
+        return this;
+    }
+
+    /**
+     * The cached dataset.
+     */
+    public VectorDataset delegate() {
+        return delegate;
+    }
+
+    /**
+     * The number of requests answered from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of requests passed on to the underlying dataset.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * The number of entries evicted to stay within the memory budget.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * The estimated memory footprint in bytes of all cached entries.
+     */
+    public long memory() {
+        synchronized (cache) {
+            return memory;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+            memory = 0;
+            generation++;
+        }
+    }
+
+    @Override
+    public Driver<?> driver() {
+        return delegate.driver();
+    }
+
+    @Override
+    public Map<Key<?>, Object> driverOptions() {
+        return delegate.driverOptions();
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public CoordinateReferenceSystem crs() throws IOException {
+        return delegate.crs();
+    }
+
+    @Override
+    public Schema schema() throws IOException {
+        return delegate.schema();
+    }
+
+    @Override
+    public Bounds bounds() throws IOException {
+        CacheKey key = new CacheKey("bounds", null);
+
+        Bounds bounds = (Bounds) get(key);
+        if (bounds == null) {
+            long gen = generation();
+            bounds = delegate.bounds();
+            if (bounds != null) {
+                put(key, new Bounds(bounds), 128, gen);
+            }
+            return bounds;
+        }
+        return new Bounds(bounds);
+    }
+
+    @Override
+    public long count(VectorQuery q) throws IOException {
+        if (q.transaction() != Transaction.NULL) {
+            return delegate.count(q);
+        }
+
+        CacheKey key = new CacheKey("count", q.copy());
+
+        Long count = (Long) get(key);
+        if (count == null) {
+            long gen = generation();
+            count = delegate.count(q);
+            put(key, count, 128, gen);
+        }
+        return count;
+    }
+
+    @Override
+    public FeatureCursor read(VectorQuery q) throws IOException {
+        if (q.transaction() != Transaction.NULL || q.explain()) {
+            return delegate.read(q);
+        }
+
+        CacheKey key = new CacheKey("read", q.copy());
+
+        @SuppressWarnings("unchecked")
+        List<Feature> features = (List<Feature>) get(key);
+        if (features != null) {
+            return FeatureCursor.wrap(Cursors.create(features).map(new Function<Feature, Feature>() {
+                @Override
+                public Feature apply(Feature f) {
+                    return copy(f);
+                }
+            }));
+        }
+
+        return new CachingCursor(delegate.read(q), key, generation());
+    }
+
+    @Override
+    public FeatureWriteCursor update(VectorQuery q) throws IOException {
+        final FeatureWriteCursor c = delegate.update(q);
+        return new FeatureWriteCursor() {
+            @Override
+            public boolean hasNext() throws IOException {
+                return c.hasNext();
+            }
+
+            @Override
+            public Feature next() throws IOException {
+                return c.next();
+            }
+
+            @Override
+            public FeatureWriteCursor write() throws IOException {
+                c.write();
+                invalidate();
+                return this;
+            }
+
+            @Override
+            public FeatureWriteCursor remove() throws IOException {
+                c.remove();
+                invalidate();
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    c.close();
+                }
+                finally {
+                    invalidate();
+                }
+            }
+        };
+    }
+
+    @Override
+    public FeatureAppendCursor append(VectorQuery q) throws IOException {
+        final FeatureAppendCursor c = delegate.append(q);
+        return new FeatureAppendCursor() {
+            @Override
+            public boolean hasNext() throws IOException {
+                return c.hasNext();
+            }
+
+            @Override
+            public Feature next() throws IOException {
+                return c.next();
+            }
+
+            @Override
+            public FeatureAppendCursor write() throws IOException {
+                c.write();
+                invalidate();
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    c.close();
+                }
+                finally {
+                    invalidate();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        invalidate();
+        delegate.close();
+    }
+
+    long generation() {
+        synchronized (cache) {
+            return generation;
+        }
+    }
+
+    Object get(CacheKey key) {
+        synchronized (cache) {
+            Entry e = cache.get(key);
+            if (e != null && ttl > 0 && System.currentTimeMillis() - e.created > ttl) {
+                cache.remove(key);
+                memory -= e.size;
+                e = null;
+            }
+
+            if (e == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            hits.incrementAndGet();
+            return e.value;
+        }
+    }
+
+    void put(CacheKey key, Object value, long size, long gen) {
+        if (size > maxMemory) {
+            return;
+        }
+
+        synchronized (cache) {
+            if (gen != generation) {
+                // invalidated since the value was computed
+                return;
+            }
+
+            Entry old = cache.put(key, new Entry(value, size));
+            if (old != null) {
+                memory -= old.size;
+            }
+            memory += size;
+
+            Iterator<Entry> it = cache.values().iterator();
+            while (memory > maxMemory && it.hasNext()) {
+                Entry e = it.next();
+                it.remove();
+                memory -= e.size;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Copies a feature into a plain feature that can be safely shared between threads.
+     */
+    static Feature copy(Feature f) {
+        return new MapFeature(f.id(), new LinkedHashMap<>(f.map()));
+    }
+
+    /**
+     * Estimates the memory footprint of a feature.
+     */
+    static long sizeOf(Feature f) {
+        long size = 64 + sizeOf(f.id());
+        for (Object val : f.map().values()) {
+            size += 8 + sizeOf(val);
+        }
+        return size;
+    }
+
+    static long sizeOf(Object val) {
+        if (val == null) {
+            return 0;
+        }
+        if (val instanceof Geometry) {
+            Geometry g = (Geometry) val;
+            return 64 * g.getNumGeometries() + 48 * g.getNumPoints();
+        }
+        if (val instanceof String) {
+            return 40 + 2 * ((String) val).length();
+        }
+        if (val instanceof Number || val instanceof Boolean) {
+            return 16;
+        }
+        return 64;
+    }
+
+    class CachingCursor extends FeatureCursor.FeatureCursorWrapper {
+
+        CacheKey key;
+        long gen;
+        List<Feature> features = new ArrayList<>();
+        long size = 64;
+
+        CachingCursor(FeatureCursor delegate, CacheKey key, long gen) {
+            super(delegate);
+            this.key = key;
+            this.gen = gen;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            boolean hasNext = super.hasNext();
+            if (!hasNext && features != null) {
+                put(key, features, size, gen);
+                features = null;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Feature next() throws IOException {
+            Feature f = super.next();
+            if (f != null && features != null) {
+                size += sizeOf(f);
+                if (size > maxMemory) {
+                    // too large to cache
+                    features = null;
+                }
+                else {
+                    // lazy or wrapped features are not safe to share, cache a plain copy
+                    features.add(copy(f));
+                }
+            }
+            return f;
+        }
+
+        @Override
+        public void rewind() {
+            super.rewind();
+            features = null;
+        }
+    }
+
+    static class Entry {
+        final Object value;
+        final long size;
+        final long created;
+
+        Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+            this.created = System.currentTimeMillis();
+        }
+    }
+
+    static class CacheKey {
+        final String op;
+        final VectorQuery query;
+
+        CacheKey(String op, VectorQuery query) {
+            this.op = op;
+            this.query = query;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * op.hashCode() + (query != null ? query.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return op.equals(other.op) && Objects.equals(query, other.query);
+        }
+    }
+}
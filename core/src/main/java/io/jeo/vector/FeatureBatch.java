@@ -0,0 +1,719 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.vector;
+
+import com.vividsolutions.jts.geom.Geometry;
+import io.jeo.util.Predicate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A batch of features of a common schema stored column wise.
+ * <p>
+ * Each field of the schema is stored in its own column. Numeric fields whose type is one of
+ * <tt>Integer</tt>, <tt>Short</tt>, <tt>Byte</tt>, <tt>Long</tt>, <tt>Double</tt> or <tt>Float</tt>
+ * are stored in primitive arrays, geometry fields in a geometry array and all other fields in an
+ * object array. A value that does not match the declared type of a primitive column, for instance a
+ * <tt>Long</tt> in an <tt>Integer</tt> field, turns the column into an object column so values are
+ * never converted.
+ * </p>
+ * <p>
+ * The rows of a batch that are visible to consumers are given by a selection vector. Operations such
+ * as {@link #filter(Predicate)}, {@link #limit(int)} and {@link #skip(int)} only update the selection,
+ * leaving the column data in place. Methods that take a <tt>row</tt> argument operate on physical rows,
+ * use {@link #row(int)} to map an index in the selection to a physical row.
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ *   FeatureBatch batch;
+ *   while ((batch = cursor.nextBatch(1024)) != null) {
+ *     int pop = schema.indexOf("pop");
+ *     for (int i = 0; i < batch.size(); i++) {
+ *       int row = batch.row(i);
+ *       if (!batch.isNull(row, pop)) {
+ *         total += batch.getLong(row, pop);
+ *       }
+ *     }
+ *   }
+ * </pre>
+ * </p>
+ * @see FeatureCursor#nextBatch(int)
+ */
+public class FeatureBatch {
+
+    static final byte OBJECT = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte GEOMETRY = 4;
+
+    final Schema schema;
+    final int capacity;
+
+    final byte[] kinds;
+    final Class<?>[] types;
+    final Object[] columns;
+    final boolean[][] nulls;
+
+    String[] ids;
+    Feature[] source;
+    int rows;
+
+    /* selected physical rows, null meaning all rows are selected */
+    int[] sel;
+    int selSize;
+
+    /**
+     * Creates a new empty batch.
+     *
+     * @param schema The schema of features in the batch.
+     * @param capacity The maximum number of rows of the batch.
+     */
+    public FeatureBatch(Schema schema, int capacity) {
+        this(schema, capacity, true);
+    }
+
+    FeatureBatch(Schema schema, int capacity, boolean allocate) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.schema = Objects.requireNonNull(schema, "schema must not be null");
+        this.capacity = capacity;
+
+        int n = schema.size();
+        kinds = new byte[n];
+        types = new Class<?>[n];
+        columns = new Object[n];
+        nulls = new boolean[n][];
+
+        if (allocate) {
+            ids = new String[capacity];
+            for (int i = 0; i < n; i++) {
+                Class<?> type = schema.fields().get(i).type();
+                types[i] = type;
+                kinds[i] = kind(type);
+
+                switch(kinds[i]) {
+                    case INT:
+                        columns[i] = new int[capacity];
+                        nulls[i] = new boolean[capacity];
+                        break;
+                    case LONG:
+                        columns[i] = new long[capacity];
+                        nulls[i] = new boolean[capacity];
+                        break;
+                    case DOUBLE:
+                        columns[i] = new double[capacity];
+                        nulls[i] = new boolean[capacity];
+                        break;
+                    case GEOMETRY:
+                        columns[i] = new Geometry[capacity];
+                        break;
+                    default:
+                        columns[i] = new Object[capacity];
+                }
+            }
+        }
+    }
+
+    static byte kind(Class<?> type) {
+        if (type == Integer.class || type == Short.class || type == Byte.class) {
+            return INT;
+        }
+        if (type == Long.class) {
+            return LONG;
+        }
+        if (type == Double.class || type == Float.class) {
+            return DOUBLE;
+        }
+        if (type != null && Geometry.class.isAssignableFrom(type)) {
+            return GEOMETRY;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * The schema of features in the batch.
+     */
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * The maximum number of rows of the batch.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The number of physical rows in the batch, including those not selected.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Whether the batch holds as many rows as its capacity.
+     */
+    public boolean isFull() {
+        return rows == capacity;
+    }
+
+    /**
+     * The number of selected rows in the batch.
+     */
+    public int size() {
+        return sel == null ? rows : selSize;
+    }
+
+    /**
+     * Returns the physical row of the <tt>i</tt>th selected row.
+     */
+    public int row(int i) {
+        return sel == null ? i : sel[i];
+    }
+
+    /**
+     * Appends a new row to the batch, with all values set to <code>null</code>.
+     *
+     * @param id The feature id of the row, may be <code>null</code>.
+     *
+     * @return The physical index of the new row.
+     */
+    public int add(String id) {
+        if (rows == capacity) {
+            throw new IllegalStateException("batch is full");
+        }
+
+        int row = rows++;
+        ids[row] = id;
+        for (int i = 0; i < columns.length; i++) {
+            clear(row, i);
+        }
+        if (source != null) {
+            source[row] = null;
+        }
+        if (sel != null) {
+            sel[selSize++] = row;
+        }
+        return row;
+    }
+
+    /**
+     * Appends a feature to the batch.
+     * <p>
+     * The values of the schema fields are copied into the columns of the batch. The feature itself is
+     * retained and returned from {@link #feature(int)}.
+     * </p>
+     * @return The physical index of the new row.
+     */
+    public int add(Feature f) {
+        int row = add(f.id());
+        if (f instanceof ListFeature && ((ListFeature) f).schema() == schema) {
+            ListFeature lf = (ListFeature) f;
+            for (int i = 0; i < columns.length; i++) {
+                set(row, i, lf.get(i));
+            }
+        }
+        else {
+            List<Field> fields = schema.fields();
+            for (int i = 0; i < columns.length; i++) {
+                set(row, i, f.get(fields.get(i).name()));
+            }
+        }
+
+        if (source == null) {
+            source = new Feature[capacity];
+        }
+        source[row] = f;
+        return row;
+    }
+
+    /**
+     * Removes all rows from the batch.
+     */
+    public void clear() {
+        rows = 0;
+        sel = null;
+        selSize = 0;
+        source = null;
+    }
+
+    /**
+     * The feature id of a row.
+     */
+    public String id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Sets the value of a field of a row.
+     *
+     * @param row The physical row.
+     * @param field The field index, see {@link Schema#indexOf(String)}.
+     * @param value The new value.
+     *
+     * @return This object.
+     */
+    public FeatureBatch set(int row, int field, Object value) {
+        if (value == null) {
+            clear(row, field);
+            return this;
+        }
+
+        switch(kinds[field]) {
+            case INT:
+                if (value.getClass() == types[field]) {
+                    ((int[]) columns[field])[row] = ((Number) value).intValue();
+                    nulls[field][row] = false;
+                    return this;
+                }
+                break;
+            case LONG:
+                if (value.getClass() == types[field]) {
+                    ((long[]) columns[field])[row] = ((Number) value).longValue();
+                    nulls[field][row] = false;
+                    return this;
+                }
+                break;
+            case DOUBLE:
+                if (value.getClass() == types[field]) {
+                    ((double[]) columns[field])[row] = ((Number) value).doubleValue();
+                    nulls[field][row] = false;
+                    return this;
+                }
+                break;
+            case GEOMETRY:
+                if (value instanceof Geometry) {
+                    ((Geometry[]) columns[field])[row] = (Geometry) value;
+                    return this;
+                }
+                break;
+            default:
+                ((Object[]) columns[field])[row] = value;
+                return this;
+        }
+
+        // value does not fit the column
+        demote(field);
+        ((Object[]) columns[field])[row] = value;
+        return this;
+    }
+
+    void clear(int row, int field) {
+        switch(kinds[field]) {
+            case INT: case LONG: case DOUBLE:
+                nulls[field][row] = true;
+                break;
+            default:
+                ((Object[]) columns[field])[row] = null;
+        }
+    }
+
+    void demote(int field) {
+        Object[] objs = new Object[capacity];
+        for (int row = 0; row < rows; row++) {
+            objs[row] = get(row, field);
+        }
+        columns[field] = objs;
+        nulls[field] = null;
+        kinds[field] = OBJECT;
+    }
+
+    /**
+     * Returns the value of a field of a row, boxed as the declared type of a numeric field.
+     *
+     * @param row The physical row.
+     * @param field The field index, see {@link Schema#indexOf(String)}.
+     */
+    public Object get(int row, int field) {
+        switch(kinds[field]) {
+            case INT:
+                if (nulls[field][row]) {
+                    return null;
+                }
+                int i = ((int[]) columns[field])[row];
+                if (types[field] == Short.class) {
+                    return (short) i;
+                }
+                if (types[field] == Byte.class) {
+                    return (byte) i;
+                }
+                return i;
+            case LONG:
+                return nulls[field][row] ? null : ((long[]) columns[field])[row];
+            case DOUBLE:
+                if (nulls[field][row]) {
+                    return null;
+                }
+                double d = ((double[]) columns[field])[row];
+                return types[field] == Float.class ? (Object) (float) d : (Object) d;
+            default:
+                return ((Object[]) columns[field])[row];
+        }
+    }
+
+    /**
+     * Whether the value of a field of a row is <code>null</code>.
+     */
+    public boolean isNull(int row, int field) {
+        switch(kinds[field]) {
+            case INT: case LONG: case DOUBLE:
+                return nulls[field][row];
+            default:
+                return ((Object[]) columns[field])[row] == null;
+        }
+    }
+
+    /**
+     * Returns the value of a numeric field of a row as an int, the value must not be <code>null</code>.
+     */
+    public int getInt(int row, int field) {
+        switch(kinds[field]) {
+            case INT:
+                return ((int[]) columns[field])[row];
+            case LONG:
+                return (int) ((long[]) columns[field])[row];
+            case DOUBLE:
+                return (int) ((double[]) columns[field])[row];
+            default:
+                return ((Number) get(row, field)).intValue();
+        }
+    }
+
+    /**
+     * Returns the value of a numeric field of a row as a long, the value must not be <code>null</code>.
+     */
+    public long getLong(int row, int field) {
+        switch(kinds[field]) {
+            case INT:
+                return ((int[]) columns[field])[row];
+            case LONG:
+                return ((long[]) columns[field])[row];
+            case DOUBLE:
+                return (long) ((double[]) columns[field])[row];
+            default:
+                return ((Number) get(row, field)).longValue();
+        }
+    }
+
+    /**
+     * Returns the value of a numeric field of a row as a double, the value must not be <code>null</code>.
+     */
+    public double getDouble(int row, int field) {
+        switch(kinds[field]) {
+            case INT:
+                return ((int[]) columns[field])[row];
+            case LONG:
+                return ((long[]) columns[field])[row];
+            case DOUBLE:
+                return ((double[]) columns[field])[row];
+            default:
+                return ((Number) get(row, field)).doubleValue();
+        }
+    }
+
+    /**
+     * Returns the default geometry of a row.
+     *
+     * @see Feature#geometry()
+     */
+    public Geometry geometry(int row) {
+        Field geo = schema.geometry();
+        if (geo != null) {
+            return (Geometry) get(row, schema.indexOf(geo.name()));
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            Object obj = get(row, i);
+            if (obj instanceof Geometry) {
+                return (Geometry) obj;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The int column of a field, or <code>null</code> if the field is not stored as ints.
+     */
+    public int[] ints(int field) {
+        return kinds[field] == INT ? (int[]) columns[field] : null;
+    }
+
+    /**
+     * The long column of a field, or <code>null</code> if the field is not stored as longs.
+     */
+    public long[] longs(int field) {
+        return kinds[field] == LONG ? (long[]) columns[field] : null;
+    }
+
+    /**
+     * The double column of a field, or <code>null</code> if the field is not stored as doubles.
+     */
+    public double[] doubles(int field) {
+        return kinds[field] == DOUBLE ? (double[]) columns[field] : null;
+    }
+
+    /**
+     * The null flags of a primitive column, or <code>null</code> if the field is not stored in a
+     * primitive column.
+     */
+    public boolean[] nulls(int field) {
+        return nulls[field];
+    }
+
+    /**
+     * The geometry column of a field, or <code>null</code> if the field is not stored as geometries.
+     */
+    public Geometry[] geometries(int field) {
+        return kinds[field] == GEOMETRY ? (Geometry[]) columns[field] : null;
+    }
+
+    /**
+     * Narrows the selection to the rows that pass a predicate.
+     * <p>
+     * Rows are presented to the predicate as a reused view of the batch so the predicate must not
+     * retain the feature object it is given.
+     * </p>
+     * @return This object.
+     */
+    public FeatureBatch filter(Predicate<Feature> filter) {
+        int[] s = sel != null ? sel : new int[capacity];
+        Row r = new Row();
+
+        int n = 0;
+        for (int i = 0, size = size(); i < size; i++) {
+            int row = row(i);
+            Feature f = source != null && source[row] != null ? source[row] : r.at(row);
+            if (filter.test(f)) {
+                s[n++] = row;
+            }
+        }
+
+        sel = s;
+        selSize = n;
+        return this;
+    }
+
+    /**
+     * Narrows the selection to at most <tt>n</tt> rows.
+     *
+     * @return This object.
+     */
+    public FeatureBatch limit(int n) {
+        if (n < size()) {
+            select(0, n);
+        }
+        return this;
+    }
+
+    /**
+     * Removes the first <tt>n</tt> rows from the selection.
+     *
+     * @return This object.
+     */
+    public FeatureBatch skip(int n) {
+        if (n > 0) {
+            select(Math.min(n, size()), size());
+        }
+        return this;
+    }
+
+    void select(int from, int to) {
+        int[] s = sel != null ? sel : new int[capacity];
+        for (int i = from; i < to; i++) {
+            s[i - from] = row(i);
+        }
+        sel = s;
+        selSize = to - from;
+    }
+
+    /**
+     * Returns a view of the batch containing only the specified fields.
+     * <p>
+     * The returned batch shares its columns and selection with this batch. Fields are kept in the
+     * order of the schema of this batch.
+     * </p>
+     * @param fields The names of the fields to select.
+     */
+    public FeatureBatch select(Iterable<String> fields) {
+        Set<String> names = new HashSet<>();
+        for (String f : fields) {
+            names.add(f);
+        }
+
+        List<Field> retain = new ArrayList<>();
+        List<Integer> index = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            Field fld = schema.fields().get(i);
+            if (names.contains(fld.name())) {
+                retain.add(fld);
+                index.add(i);
+            }
+        }
+
+        FeatureBatch b = new FeatureBatch(
+            new Schema(schema.name(), schema.uri(), schema.crs(), retain), capacity, false);
+        for (int j = 0; j < index.size(); j++) {
+            int i = index.get(j);
+            b.kinds[j] = kinds[i];
+            b.types[j] = types[i];
+            b.columns[j] = columns[i];
+            b.nulls[j] = nulls[i];
+        }
+        b.ids = ids;
+        b.rows = rows;
+        b.sel = sel;
+        b.selSize = selSize;
+        return b;
+    }
+
+    /**
+     * Returns the <tt>i</tt>th selected row as a feature.
+     * <p>
+     * If the row was added with {@link #add(Feature)} the original feature is returned, otherwise a
+     * new feature is created from the values of the row.
+     * </p>
+     */
+    public Feature feature(int i) {
+        int row = row(i);
+        if (source != null && source[row] != null) {
+            return source[row];
+        }
+
+        List<Object> values = new ArrayList<>(columns.length);
+        for (int j = 0; j < columns.length; j++) {
+            values.add(get(row, j));
+        }
+        return new ListFeature(ids[row], schema, values);
+    }
+
+    /**
+     * Returns a cursor over the selected rows of the batch, see {@link #feature(int)}.
+     */
+    public FeatureCursor cursor() {
+        return new FeatureCursor() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() throws IOException {
+                return i < size();
+            }
+
+            @Override
+            public Feature next() throws IOException {
+                return i < size() ? feature(i++) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+    }
+
+    /**
+     * Feature view of a row of the batch.
+     * <p>
+     * Changes made through {@link #put(String, Object)} are written to the batch.
+     * </p>
+     */
+    public class Row implements Feature {
+
+        int row;
+
+        Row at(int row) {
+            this.row = row;
+            return this;
+        }
+
+        /**
+         * The schema of the batch.
+         */
+        public Schema schema() {
+            return schema;
+        }
+
+        /**
+         * Returns the value of the field at the specified position of the batch schema.
+         */
+        public Object get(int field) {
+            return FeatureBatch.this.get(row, field);
+        }
+
+        @Override
+        public String id() {
+            return ids[row];
+        }
+
+        @Override
+        public boolean has(String key) {
+            return schema.field(key) != null;
+        }
+
+        @Override
+        public Object get(String key) {
+            int i = schema.indexOf(key);
+            return i > -1 ? get(i) : null;
+        }
+
+        @Override
+        public Geometry geometry() {
+            return FeatureBatch.this.geometry(row);
+        }
+
+        @Override
+        public Feature put(String key, Object val) {
+            int i = schema.indexOf(key);
+            if (i == -1) {
+                throw new IllegalArgumentException("No such key " + key);
+            }
+            set(row, i, val);
+            return this;
+        }
+
+        @Override
+        public Feature put(Geometry g) {
+            Field geo = schema.geometry();
+            if (geo == null) {
+                throw new IllegalArgumentException("No geometry field, use put(String,Object)");
+            }
+            return put(geo.name(), g);
+        }
+
+        @Override
+        public Map<String, Object> map() {
+            Map<String,Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                map.put(schema.fields().get(i).name(), get(i));
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return Features.toString(this);
+        }
+    }
+}
@@ -4,8 +4,10 @@ import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 import io.jeo.data.Cursor;
+import io.jeo.data.Sort;
 import io.jeo.geom.Bounds;
 import io.jeo.geom.Geom;
+import io.jeo.geom.Simplifier;
 import io.jeo.proj.Proj;
 import io.jeo.util.Function;
 import io.jeo.util.Predicate;
@@ -19,6 +21,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * Extension of Cursor for {@link Feature} objects.
@@ -182,6 +185,67 @@ public abstract class FeatureCursor extends Cursor<Feature> {
         }
     }
 
+    /**
+     * Simplifies the geometries of features in the cursor with the Douglas-Peucker algorithm.
+     *
+     * @param tolerance The distance tolerance, in units of the feature geometries.
+     *
+     * @return The wrapped cursor.
+     */
+    public FeatureCursor simplify(double tolerance) {
+        return simplify(tolerance, Simplifier.DOUGLAS_PEUCKER);
+    }
+
+    /**
+     * Simplifies the geometries of features in the cursor with the specified algorithm.
+     * <p>
+     * Geometries are simplified lazily as they are accessed, repeated access to the same geometry
+     * returns the previously simplified result.
+     * </p>
+     * @param tolerance The distance tolerance, in units of the feature geometries.
+     * @param simplifier The simplification algorithm.
+     *
+     * @return The wrapped cursor.
+     */
+    public FeatureCursor simplify(double tolerance, Simplifier simplifier) {
+        return new SimplifyCursor(this, tolerance, simplifier);
+    }
+
+    private static class SimplifyCursor extends FeatureCursorWrapper {
+
+        double tolerance;
+        Simplifier simplifier;
+
+        SimplifyCursor(Cursor<Feature> delegate, double tolerance, Simplifier simplifier) {
+            super(delegate);
+            this.tolerance = tolerance;
+            this.simplifier = Objects.requireNonNull(simplifier, "simplifier must not be null");
+        }
+
+        @Override
+        public Feature next() throws IOException {
+            Feature f = super.next();
+            return f != null ? new SimplifyFeature(f, tolerance, simplifier) : f;
+        }
+    }
+
+    private static class SimplifyFeature extends GeometryTransformFeature {
+
+        double tolerance;
+        Simplifier simplifier;
+
+        SimplifyFeature(Feature delegate, double tolerance, Simplifier simplifier) {
+            super(delegate);
+            this.tolerance = tolerance;
+            this.simplifier = simplifier;
+        }
+
+        @Override
+        protected Geometry wrap(Geometry g) {
+            return simplifier.simplify(g, tolerance);
+        }
+    }
+
     /**
      * Returns a cursor with objects that intersect the specified bounding box.
      * <p>
@@ -269,21 +333,167 @@ public abstract class FeatureCursor extends Cursor<Feature> {
             }
             return next;
         }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            if (delegate instanceof FeatureCursor) {
+                FeatureBatch batch = ((FeatureCursor) delegate).nextBatch(n);
+                return batch != null ? batch.select(fields) : null;
+            }
+            return super.nextBatch(n);
+        }
+    }
+
+    /**
+     * Sorts the features of the cursor.
+     * <p>
+     * This method uses an external merge sort, holding at most a fixed number of features in memory and spilling
+     * sorted runs to temporary files when the cursor contains more. See {@link #sort(List, int)} to control the
+     * number of features held in memory.
+     * </p>
+     * @param sort The sort criteria.
+     *
+     * @return The sorted cursor.
+     *
+     * @see Features#comparator(List)
+     */
+    public FeatureCursor sort(List<Sort> sort) {
+        return sort(sort, SortCursor.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Sorts the features of the cursor holding at most <tt>bufferSize</tt> features in memory.
+     *
+     * @param sort The sort criteria.
+     * @param bufferSize Maximum number of features to hold in memory before spilling to disk.
+     *
+     * @return The sorted cursor.
+     */
+    public FeatureCursor sort(List<Sort> sort, int bufferSize) {
+        return new SortCursor(this, Features.comparator(sort), bufferSize);
+    }
+
+    /**
+     * Reads the next batch of features from the cursor.
+     * <p>
+     * The default implementation collects features from {@link #next()}, drivers override this method
+     * to fill batches directly from their underlying format. The {@link #filter(Predicate)},
+     * {@link #limit(Integer)}, {@link #skip(Integer)} and {@link #select(Iterable)} wrappers operate
+     * on whole batches. A cursor should be consumed either row by row or batch by batch, mixing the two
+     * is not supported.
+     * </p>
+     * @param n The maximum number of features to read.
+     *
+     * @return The batch, or <code>null</code> if the cursor is exhausted. The returned batch may contain
+     * fewer than <tt>n</tt> selected features before the end of the cursor.
+     */
+    public FeatureBatch nextBatch(int n) throws IOException {
+        FeatureBatch batch = null;
+        while ((batch == null || !batch.isFull()) && hasNext()) {
+            Feature f = next();
+            if (f == null) {
+                break;
+            }
+
+            if (batch == null) {
+                Schema schema = f instanceof ListFeature ?
+                    ((ListFeature) f).schema() : Features.schema("feature", f);
+                batch = new FeatureBatch(schema, n);
+            }
+            batch.add(f);
+        }
+        return batch;
     }
 
     @Override
     public FeatureCursor filter(Predicate<Feature> filter) {
-        return wrap(super.filter(filter));
+        return new BatchFilterCursor(super.filter(filter), this, filter);
     }
 
     @Override
     public FeatureCursor limit(Integer limit) {
-        return wrap(super.limit(limit));
+        return new BatchLimitCursor(super.limit(limit), this, limit);
     }
 
     @Override
     public FeatureCursor skip(Integer offset) {
-        return wrap(super.skip(offset));
+        return new BatchOffsetCursor(super.skip(offset), this, offset);
+    }
+
+    static class BatchFilterCursor extends FeatureCursorWrapper {
+
+        FeatureCursor source;
+        Predicate<Feature> filter;
+
+        BatchFilterCursor(Cursor<Feature> delegate, FeatureCursor source, Predicate<Feature> filter) {
+            super(delegate);
+            this.source = source;
+            this.filter = filter;
+        }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            FeatureBatch batch;
+            while ((batch = source.nextBatch(n)) != null) {
+                if (batch.filter(filter).size() > 0) {
+                    return batch;
+                }
+            }
+            return null;
+        }
+    }
+
+    static class BatchLimitCursor extends FeatureCursorWrapper {
+
+        FeatureCursor source;
+        int remaining;
+
+        BatchLimitCursor(Cursor<Feature> delegate, FeatureCursor source, Integer limit) {
+            super(delegate);
+            this.source = source;
+            this.remaining = limit;
+        }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            if (remaining <= 0) {
+                return null;
+            }
+
+            FeatureBatch batch = source.nextBatch(Math.min(n, remaining));
+            if (batch != null) {
+                remaining -= batch.limit(remaining).size();
+            }
+            return batch;
+        }
+    }
+
+    static class BatchOffsetCursor extends FeatureCursorWrapper {
+
+        FeatureCursor source;
+        int offset;
+
+        BatchOffsetCursor(Cursor<Feature> delegate, FeatureCursor source, Integer offset) {
+            super(delegate);
+            this.source = source;
+            this.offset = offset;
+        }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            FeatureBatch batch;
+            while ((batch = source.nextBatch(n)) != null) {
+                if (offset > 0) {
+                    int skip = Math.min(offset, batch.size());
+                    batch.skip(skip);
+                    offset -= skip;
+                }
+                if (batch.size() > 0) {
+                    return batch;
+                }
+            }
+            return null;
+        }
     }
 
     @Override
@@ -291,6 +501,31 @@ public abstract class FeatureCursor extends Cursor<Feature> {
         return wrap(super.buffer(n));
     }
 
+    @Override
+    public FeatureCursor prefetch(int capacity) {
+        return wrap(super.prefetch(capacity));
+    }
+
+    @Override
+    public FeatureCursor prefetch(int capacity, Executor executor) {
+        return wrap(super.prefetch(capacity, executor));
+    }
+
+    @Override
+    public FeatureCursor prefetch(int capacity, int batchSize, Executor executor) {
+        return wrap(super.prefetch(capacity, batchSize, executor));
+    }
+
+    /**
+     * The plan of the query that produced this cursor, or <code>null</code> if the cursor was not created by
+     * a {@link VectorQueryPlan}.
+     *
+     * @see VectorDataset#read(VectorQuery)
+     */
+    public VectorQueryPlan plan() {
+        return null;
+    }
+
     /**
      * Wraps a cursor of Feature as a FeatureCursor, if it is not an instance
      * already.
@@ -330,5 +565,9 @@ public abstract class FeatureCursor extends Cursor<Feature> {
             delegate.close();
         }
 
+        @Override
+        public VectorQueryPlan plan() {
+            return delegate instanceof FeatureCursor ? ((FeatureCursor) delegate).plan() : null;
+        }
     }
 }
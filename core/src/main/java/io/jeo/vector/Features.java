@@ -16,12 +16,15 @@ package io.jeo.vector;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import io.jeo.data.Sort;
 import io.jeo.geom.Geom;
 import io.jeo.proj.Proj;
+import io.jeo.util.Convert;
 import io.jeo.util.Function;
 import io.jeo.util.Optional;
 import io.jeo.util.Util;
@@ -265,6 +268,64 @@ public class Features {
         return Schema.build(name).fields(f).schema();
     }
 
+    /**
+     * Creates a comparator that orders features by a list of sort criteria.
+     * <p>
+     * Features are compared by the first criteria, with ties broken by subsequent criteria. <code>null</code>
+     * values are ordered before non-null values in ascending order. Numeric values of differing types are
+     * compared numerically, other values of differing types are converted to a common type with {@link Convert}
+     * when possible and compared as strings otherwise.
+     * </p>
+     * @param sort The sort criteria.
+     *
+     * @return The feature comparator.
+     */
+    public static Comparator<Feature> comparator(final List<Sort> sort) {
+        Objects.requireNonNull(sort, "sort must not be null");
+        return new Comparator<Feature>() {
+            @Override
+            public int compare(Feature f1, Feature f2) {
+                for (Sort s : sort) {
+                    int c = compareValues(f1.get(s.getProperty()), f2.get(s.getProperty()));
+                    if (c != 0) {
+                        return s.isAscending() ? c : -c;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object o1, Object o2) {
+        if (o1 == o2) {
+            return 0;
+        }
+        if (o1 == null) {
+            return -1;
+        }
+        if (o2 == null) {
+            return 1;
+        }
+
+        if (o1 instanceof Number && o2 instanceof Number && o1.getClass() != o2.getClass()) {
+            return Double.compare(((Number) o1).doubleValue(), ((Number) o2).doubleValue());
+        }
+
+        if (o1 instanceof Comparable) {
+            if (!o1.getClass().isInstance(o2)) {
+                Optional<?> converted = Convert.to(o2, o1.getClass());
+                if (!converted.isPresent()) {
+                    return o1.toString().compareTo(o2.toString());
+                }
+                o2 = converted.get();
+            }
+            return ((Comparable<Object>) o1).compareTo(o2);
+        }
+
+        return o1.toString().compareTo(o2.toString());
+    }
+
     /**
      * Compares two feature objects for equality.
      * <p>
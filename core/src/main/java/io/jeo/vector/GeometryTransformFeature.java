@@ -21,11 +21,19 @@ import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Feature wrapper that transforms a feature geometry.
- * 
+ * <p>
+ * The result of transforming a geometry is remembered so that repeated access to the same geometry
+ * doesn't transform it again. The source geometry and its result are published together so a feature
+ * may be read from multiple threads, but the transformed geometry is shared between calls and must be
+ * copied before being modified in place.
+ * </p>
  * @author Justin Deoliveira, OpenGeo
  */
 public class GeometryTransformFeature extends FeatureWrapper {
 
+    /* last geometry transformed and its result */
+    volatile Transformed last;
+
     public GeometryTransformFeature(Feature delegate) {
         super(delegate);
     }
@@ -33,13 +41,13 @@ public class GeometryTransformFeature extends FeatureWrapper {
     @Override
     public Geometry geometry() {
         Geometry g = super.geometry();
-        return g != null ? wrap(g) : g;
+        return g != null ? transform(g) : g;
     }
 
     @Override
     public Object get(String key) {
         Object obj = super.get(key);
-        return obj instanceof Geometry ? wrap((Geometry)obj) : obj;
+        return obj instanceof Geometry ? transform((Geometry)obj) : obj;
     }
 
     @Override
@@ -48,13 +56,30 @@ public class GeometryTransformFeature extends FeatureWrapper {
         for (Map.Entry<String, Object> e : map.entrySet()) {
             Object obj = e.getValue();
             if (obj instanceof Geometry) {
-                e.setValue(wrap((Geometry)obj));
+                e.setValue(transform((Geometry)obj));
             }
         }
         return map;
     }
 
+    Geometry transform(Geometry g) {
+        Transformed t = last;
+        if (t == null || t.source != g) {
+            last = t = new Transformed(g, wrap(g));
+        }
+        return t.result;
+    }
+
     protected Geometry wrap(Geometry g) {
         return g;
     }
+
+    static class Transformed {
+        final Geometry source, result;
+
+        Transformed(Geometry source, Geometry result) {
+            this.source = source;
+            this.result = result;
+        }
+    }
 }
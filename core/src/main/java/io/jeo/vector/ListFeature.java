@@ -85,6 +85,22 @@ public class ListFeature implements Feature {
         return id;
     }
 
+    /**
+     * The schema of the feature.
+     */
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * Returns the value at the specified position of the feature schema.
+     *
+     * @param index The field index, see {@link Schema#indexOf(String)}.
+     */
+    public Object get(int index) {
+        return list.get(index);
+    }
+
     @Override
     public boolean has(String key) {
         return schema.field(key) != null;
@@ -0,0 +1,543 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.vector;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import io.jeo.data.Cursor;
+import io.jeo.util.Util;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Cursor that sorts the features of a delegate cursor with a bounded amount of memory.
+ * <p>
+ * Features are read from the delegate into an in memory buffer. If the delegate is exhausted before the buffer
+ * fills up the features are simply sorted in memory. Otherwise each full buffer is sorted and spilled to a
+ * temporary file (a "run") and the runs are merged back together as the cursor is read. When the number of runs
+ * exceeds {@link #MAX_MERGE} they are merged in multiple passes to bound the number of open files.
+ * </p>
+ * <p>
+ * Features read from spilled runs are returned as {@link MapFeature} instances. Values that are not one of the
+ * primitive wrapper types, strings, dates or geometries must be {@link Serializable}.
+ * </p>
+ */
+class SortCursor extends FeatureCursor {
+
+    static Logger LOG = LoggerFactory.getLogger(SortCursor.class);
+
+    /**
+     * Default number of features held in memory before spilling to disk.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 10000;
+
+    /**
+     * Maximum number of runs merged at once.
+     */
+    static final int MAX_MERGE = 64;
+
+    Cursor<Feature> delegate;
+    Comparator<Feature> comparator;
+    int bufferSize;
+
+    /* in memory result, when everything fit in the buffer */
+    Iterator<Feature> buffered;
+
+    /* spilled runs and merge queue, when it didn't */
+    List<File> runs;
+    List<RunReader> readers;
+    PriorityQueue<RunReader> queue;
+
+    /* crs objects of spilled geometries, referenced by index from run files */
+    List<CoordinateReferenceSystem> crsList;
+
+    boolean sorted = false;
+    boolean delegateClosed = false;
+
+    SortCursor(Cursor<Feature> delegate, Comparator<Feature> comparator, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+        this.comparator = Objects.requireNonNull(comparator, "comparator must not be null");
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!sorted) {
+            sort();
+        }
+
+        if (buffered != null) {
+            return buffered.hasNext();
+        }
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+
+        if (buffered != null) {
+            return buffered.next();
+        }
+
+        RunReader r = queue.poll();
+        Feature next = r.head;
+        if (r.advance()) {
+            queue.add(r);
+        }
+        return next;
+    }
+
+    void sort() throws IOException {
+        sorted = true;
+
+        List<Feature> buffer = new ArrayList<>(Math.min(bufferSize, 1024));
+        try {
+            while (delegate.hasNext()) {
+                buffer.add(delegate.next());
+                if (buffer.size() == bufferSize) {
+                    spill(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        finally {
+            closeDelegate();
+        }
+
+        if (runs == null) {
+            // everything fit in memory
+            Collections.sort(buffer, comparator);
+            buffered = buffer.iterator();
+            return;
+        }
+
+        if (!buffer.isEmpty()) {
+            spill(buffer);
+            buffer.clear();
+        }
+
+        // reduce the number of runs until they can all be merged at once
+        while (runs.size() > MAX_MERGE) {
+            List<File> merge = new ArrayList<>(runs.subList(0, MAX_MERGE));
+            runs.subList(0, MAX_MERGE).clear();
+            merge(merge);
+        }
+
+        readers = new ArrayList<>(runs.size());
+        queue = new PriorityQueue<>(runs.size(), new RunComparator(comparator));
+        for (File run : runs) {
+            RunReader r = new RunReader(run, readers.size());
+            readers.add(r);
+            if (r.advance()) {
+                queue.add(r);
+            }
+        }
+    }
+
+    void spill(List<Feature> buffer) throws IOException {
+        Collections.sort(buffer, comparator);
+
+        if (runs == null) {
+            runs = new ArrayList<>();
+            crsList = new ArrayList<>();
+        }
+
+        File run = newRun();
+        runs.add(run);
+        try (RunWriter w = new RunWriter(run)) {
+            for (Feature f : buffer) {
+                w.write(f);
+            }
+        }
+        LOG.debug("Spilled {} features to {}", buffer.size(), run.getPath());
+    }
+
+    void merge(List<File> merge) throws IOException {
+        List<RunReader> rs = new ArrayList<>(merge.size());
+        PriorityQueue<RunReader> q = new PriorityQueue<>(merge.size(), new RunComparator(comparator));
+
+        // the merged runs came first, keep the result in their place so the final merge stays stable
+        File run = newRun();
+        runs.add(0, run);
+        try (RunWriter w = new RunWriter(run)) {
+            for (File f : merge) {
+                RunReader r = new RunReader(f, rs.size());
+                rs.add(r);
+                if (r.advance()) {
+                    q.add(r);
+                }
+            }
+
+            while (!q.isEmpty()) {
+                RunReader r = q.poll();
+                w.write(r.head);
+                if (r.advance()) {
+                    q.add(r);
+                }
+            }
+        }
+        finally {
+            for (RunReader r : rs) {
+                r.close();
+            }
+            for (File f : merge) {
+                delete(f);
+            }
+        }
+    }
+
+    File newRun() throws IOException {
+        File f = File.createTempFile("jeo-sort", ".run");
+        f.deleteOnExit();
+        return f;
+    }
+
+    void closeDelegate() throws IOException {
+        if (!delegateClosed) {
+            delegateClosed = true;
+            delegate.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeDelegate();
+        }
+        finally {
+            if (readers != null) {
+                for (RunReader r : readers) {
+                    r.close();
+                }
+                readers = null;
+            }
+            if (runs != null) {
+                for (File f : runs) {
+                    delete(f);
+                }
+                runs.clear();
+            }
+            if (queue != null) {
+                queue.clear();
+            }
+            buffered = null;
+        }
+    }
+
+    void delete(File f) {
+        if (f.exists() && !f.delete()) {
+            LOG.debug("Unable to delete sort run: " + f.getPath());
+        }
+    }
+
+    /**
+     * Orders run readers by their head feature, falling back to run order to keep the merge stable.
+     */
+    static class RunComparator implements Comparator<RunReader> {
+
+        Comparator<Feature> comparator;
+
+        RunComparator(Comparator<Feature> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(RunReader r1, RunReader r2) {
+            int c = comparator.compare(r1.head, r2.head);
+            return c != 0 ? c : Integer.compare(r1.index, r2.index);
+        }
+    }
+
+    /* value type markers */
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+    static final byte SHORT = 6;
+    static final byte BYTE = 7;
+    static final byte BOOLEAN = 8;
+    static final byte DATE = 9;
+    static final byte GEOMETRY = 10;
+    static final byte DECIMAL = 11;
+    static final byte OBJECT = 12;
+
+    /**
+     * Writes features to a run file.
+     */
+    class RunWriter implements Closeable {
+
+        DataOutputStream out;
+        WKBWriter wkb2 = new WKBWriter(2);
+        WKBWriter wkb3 = new WKBWriter(3);
+
+        RunWriter(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+        }
+
+        void write(Feature f) throws IOException {
+            Map<String,Object> map = f.map();
+            String id = f.id();
+            out.writeBoolean(true);
+            out.writeBoolean(id != null);
+            if (id != null) {
+                writeString(id);
+            }
+            out.writeInt(map.size());
+            for (Map.Entry<String,Object> e : map.entrySet()) {
+                writeString(e.getKey());
+                writeValue(e.getValue());
+            }
+        }
+
+        void writeString(String s) throws IOException {
+            byte[] b = s.getBytes(Util.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        void writeBytes(byte[] b) throws IOException {
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        void writeValue(Object v) throws IOException {
+            if (v == null) {
+                out.writeByte(NULL);
+            }
+            else if (v instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) v);
+            }
+            else if (v instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) v);
+            }
+            else if (v instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) v);
+            }
+            else if (v instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) v);
+            }
+            else if (v instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) v);
+            }
+            else if (v instanceof Short) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) v);
+            }
+            else if (v instanceof Byte) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) v);
+            }
+            else if (v instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) v);
+            }
+            else if (v.getClass() == Date.class) {
+                out.writeByte(DATE);
+                out.writeLong(((Date) v).getTime());
+            }
+            else if (v.getClass() == BigDecimal.class) {
+                out.writeByte(DECIMAL);
+                writeString(v.toString());
+            }
+            else if (v instanceof Geometry) {
+                Geometry g = (Geometry) v;
+                out.writeByte(GEOMETRY);
+                out.writeInt(g.getSRID());
+                out.writeInt(crsIndex(g));
+
+                Coordinate c = g.getCoordinate();
+                writeBytes((c != null && !Double.isNaN(c.z) ? wkb3 : wkb2).write(g));
+            }
+            else if (v instanceof Serializable) {
+                out.writeByte(OBJECT);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oout = new ObjectOutputStream(bytes)) {
+                    oout.writeObject(v);
+                }
+                writeBytes(bytes.toByteArray());
+            }
+            else {
+                throw new IOException("Unable to sort value of type: " + v.getClass().getName());
+            }
+        }
+
+        int crsIndex(Geometry g) {
+            Object userData = g.getUserData();
+            if (!(userData instanceof CoordinateReferenceSystem)) {
+                return -1;
+            }
+
+            // typically only one or two crs objects are ever used by a result set
+            for (int i = 0; i < crsList.size(); i++) {
+                if (crsList.get(i) == userData) {
+                    return i;
+                }
+            }
+            crsList.add((CoordinateReferenceSystem) userData);
+            return crsList.size() - 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeBoolean(false);
+            out.close();
+        }
+    }
+
+    /**
+     * Reads features back from a run file.
+     */
+    class RunReader implements Closeable {
+
+        DataInputStream in;
+        WKBReader wkb = new WKBReader();
+
+        /* index of the run, for stable merging */
+        int index;
+
+        /* current feature */
+        Feature head;
+
+        RunReader(File file, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+            this.index = index;
+        }
+
+        boolean advance() throws IOException {
+            head = in.readBoolean() ? read() : null;
+            return head != null;
+        }
+
+        Feature read() throws IOException {
+            String id = in.readBoolean() ? readString() : null;
+            int n = in.readInt();
+
+            Map<String,Object> map = new LinkedHashMap<>((int) (n / 0.75f) + 1);
+            for (int i = 0; i < n; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+            return new MapFeature(id, map);
+        }
+
+        String readString() throws IOException {
+            return new String(readBytes(), Util.UTF_8);
+        }
+
+        byte[] readBytes() throws IOException {
+            byte[] b = new byte[in.readInt()];
+            in.readFully(b);
+            return b;
+        }
+
+        Object readValue() throws IOException {
+            byte type = in.readByte();
+            switch(type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case SHORT:
+                    return in.readShort();
+                case BYTE:
+                    return in.readByte();
+                case BOOLEAN:
+                    return in.readBoolean();
+                case DATE:
+                    return new Date(in.readLong());
+                case DECIMAL:
+                    return new BigDecimal(readString());
+                case GEOMETRY:
+                    int srid = in.readInt();
+                    int crs = in.readInt();
+                    try {
+                        Geometry g = wkb.read(readBytes());
+                        g.setSRID(srid);
+                        if (crs > -1) {
+                            g.setUserData(crsList.get(crs));
+                        }
+                        return g;
+                    } catch (ParseException e) {
+                        throw new IOException(e);
+                    }
+                case OBJECT:
+                    try (ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+                        return oin.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException(e);
+                    }
+                default:
+                    throw new EOFException("Corrupt sort run, unknown value type: " + type);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -71,10 +71,10 @@ public interface VectorDriver<T> extends Driver<T> {
      * Ability to handle offset of a result set.
      */
     Capability OFFSET = new Capability("offset");
-//    /**
-//     * Ability to sort a result set.
-//     */
-//    Capability SORT = new Capability("sort");
+    /**
+     * Ability to sort a result set.
+     */
+    Capability SORT = new Capability("sort");
 
     /**
      * Determines if this driver can create a connection to the data described by the specified
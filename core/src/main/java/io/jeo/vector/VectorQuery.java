@@ -28,6 +28,7 @@ import io.jeo.filter.Filters;
 import io.jeo.filter.cql.CQL;
 import io.jeo.filter.cql.ParseException;
 import io.jeo.geom.Bounds;
+import io.jeo.geom.Simplifier;
 import io.jeo.proj.Proj;
 import io.jeo.util.Pair;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
@@ -74,10 +75,10 @@ public class VectorQuery {
      */
     Integer limit, offset;
 
-//    /**
-//     * sorting
-//     */
-//    List<Sort> sort;
+    /**
+     * sorting
+     */
+    List<Sort> sort;
 
     /**
      * reprojection
@@ -89,11 +90,21 @@ public class VectorQuery {
      */
     Double simplify;
 
+    /**
+     * simplification algorithm
+     */
+    Simplifier simplifier = Simplifier.DOUGLAS_PEUCKER;
+
     /**
      * Transaction associated with the query
      */
     Transaction transaction = Transaction.NULL;
 
+    /**
+     * Whether to collect execution metrics.
+     */
+    boolean explain;
+
     /**
      * New query instance.
      */
@@ -200,23 +211,35 @@ public class VectorQuery {
      * simplification.
      * <p>
      * The simplification tolerance applies to {@link VectorDataset#read(VectorQuery)} and
-     * {@link VectorDataset#update(VectorQuery)} operations.
+     * {@link VectorDataset#update(VectorQuery)} operations. The tolerance is expressed in the units 
+     * of the geometries returned by the query, that is after any {@link #reproject()}.
      * </p>
      */
     public Double simplify() {
         return simplify;
     }
 
-//    /**
-//     * Sort criteria for the query, <code>null</code> meaning no sorting.
-//     * <p>
-//     * The sorting criteria applies to {@link VectorDataset#read(VectorQuery)} and
-//     * {@link VectorDataset#update(VectorQuery)} operations.
-//     * </p>
-//     */
-//    public List<Sort> sort() {
-//        return sort;
-//    }
+    /**
+     * The algorithm used to simplify feature geometries, defaults to 
+     * {@link Simplifier#DOUGLAS_PEUCKER}.
+     * <p>
+     * Only relevant when {@link #simplify()} is set.
+     * </p>
+     */
+    public Simplifier simplifier() {
+        return simplifier;
+    }
+
+    /**
+     * Sort criteria for the query, <code>null</code> meaning no sorting.
+     * <p>
+     * The sorting criteria applies to {@link VectorDataset#read(VectorQuery)} and
+     * {@link VectorDataset#update(VectorQuery)} operations.
+     * </p>
+     */
+    public List<Sort> sort() {
+        return sort;
+    }
 
     /**
      * Transaction of the query, may be <code>null</code>.
@@ -229,6 +252,13 @@ public class VectorQuery {
         return transaction;
     }
 
+    /**
+     * Whether per stage execution metrics are collected for the query, see {@link VectorQueryPlan#stages()}.
+     */
+    public boolean explain() {
+        return explain;
+    }
+
     /**
      * Sets the field list of the query.
      * 
@@ -323,19 +353,31 @@ public class VectorQuery {
         return this;
     }
 
-//    /**
-//     * Sets the properties to sort results by.
-//     *
-//     * @return This object.
-//     */
-//    public VectorQuery sort(String... sort) {
-//        List<Sort> list = new ArrayList<Sort>();
-//        for (String s : sort) {
-//            list.add(new Sort(s));
-//        }
-//        this.sort = list;
-//        return this;
-//    }
+    /**
+     * Sets the properties to sort results by.
+     * <p>
+     * Each property may be prefixed with "-" to sort in descending order. See {@link Sort} for details.
+     * </p>
+     *
+     * @return This object.
+     */
+    public VectorQuery sort(String... sort) {
+        List<Sort> list = new ArrayList<Sort>();
+        for (String s : sort) {
+            list.add(new Sort(s));
+        }
+        return sort(list);
+    }
+
+    /**
+     * Sets the sort criteria of the query, <code>null</code> or an empty list meaning no sorting.
+     *
+     * @return This object.
+     */
+    public VectorQuery sort(List<Sort> sort) {
+        this.sort = sort != null && !sort.isEmpty() ? new ArrayList<Sort>(sort) : null;
+        return this;
+    }
 
     /**
      * Sets the srs to re-project query results to. 
@@ -393,6 +435,16 @@ public class VectorQuery {
         return this;
     }
 
+    /**
+     * Sets the tolerance and algorithm with which to simplify geometry of query results.
+     * 
+     * @return This object.
+     */
+    public VectorQuery simplify(Double tolerance, Simplifier simplifier) {
+        this.simplifier = simplifier != null ? simplifier : Simplifier.DOUGLAS_PEUCKER;
+        return simplify(tolerance);
+    }
+
     /**
      * Sets the transaction of the query.
      * 
@@ -403,6 +455,20 @@ public class VectorQuery {
         return this;
     }
 
+    /**
+     * Sets whether per stage execution metrics are collected for the query.
+     * <p>
+     * The plan of a query is available from {@link FeatureCursor#plan()} of the cursor returned by
+     * {@link VectorDataset#read(VectorQuery)}. This flag does not affect query results and is not
+     * considered by {@link #equals(Object)}.
+     * </p>
+     * @return This object.
+     */
+    public VectorQuery explain(boolean explain) {
+        this.explain = explain;
+        return this;
+    }
+
     /**
      * Determines if the query constrains results with a bounds constraint or filter.
      * 
@@ -419,6 +485,13 @@ public class VectorQuery {
         return !Filters.isTrueOrNull(filter);
     }
 
+    /**
+     * Determines if the query specifies sort criteria.
+     */
+    public boolean isSorted() {
+        return sort != null && !sort.isEmpty();
+    }
+
     /**
      * Adjusts a raw count based on limit and offset of the query.
      * <p>
@@ -459,6 +532,25 @@ public class VectorQuery {
         return queryProperties;
     }
 
+    /**
+     * Returns a copy of this query that is not affected by subsequent changes to this query.
+     */
+    VectorQuery copy() {
+        VectorQuery q = new VectorQuery();
+        q.fields = new HashSet<>(fields);
+        q.bounds = bounds != null ? new Bounds(bounds) : null;
+        q.filter = filter;
+        q.limit = limit;
+        q.offset = offset;
+        q.sort = sort != null ? new ArrayList<>(sort) : null;
+        q.reproject = reproject;
+        q.simplify = simplify;
+        q.simplifier = simplifier;
+        q.transaction = transaction;
+        q.explain = explain;
+        return q;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -472,7 +564,9 @@ public class VectorQuery {
                 + ((reproject == null) ? 0 : reproject.hashCode());
         result = prime * result
                 + ((simplify == null) ? 0 : simplify.hashCode());
-        //result = prime * result + ((sort == null) ? 0 : sort.hashCode());
+        result = prime * result
+                + ((simplifier == null) ? 0 : simplifier.hashCode());
+        result = prime * result + ((sort == null) ? 0 : sort.hashCode());
         result = prime * result
                 + ((transaction == null) ? 0 : transaction.hashCode());
         return result;
@@ -522,11 +616,13 @@ public class VectorQuery {
                 return false;
         } else if (!simplify.equals(other.simplify))
             return false;
-//        if (sort == null) {
-//            if (other.sort != null)
-//                return false;
-//        } else if (!sort.equals(other.sort))
-//            return false;
+        if (simplifier != other.simplifier)
+            return false;
+        if (sort == null) {
+            if (other.sort != null)
+                return false;
+        } else if (!sort.equals(other.sort))
+            return false;
         if (transaction == null) {
             if (other.transaction != null)
                 return false;
@@ -14,14 +14,23 @@
  */
 package io.jeo.vector;
 
+import io.jeo.data.Sort;
 import io.jeo.filter.Filters;
 import io.jeo.geom.Bounds;
 import io.jeo.util.Pair;
 import io.jeo.filter.Filter;
 import io.jeo.util.Predicate;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.vividsolutions.jts.geom.Envelope;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -32,10 +41,19 @@ import java.util.Set;
  * are handled natively. Finally {@link #apply(FeatureCursor)} should be called to augment a cursor with
  * wrappers that handle the parts of the query that could not be handled natively.
  * </p>
+ * <p>
+ * The plan is available to applications through {@link FeatureCursor#plan()} of the cursor returned from
+ * {@link #apply(FeatureCursor)}. Drivers record the query sent to the underlying data source with
+ * {@link #nativeQuery(String)} and report parts of the query they unexpectedly could not handle with
+ * {@link #warn(String)}. When {@link VectorQuery#explain()} is set the wrappers added by this class collect
+ * row counts and timings, see {@link #stages()}.
+ * </p>
  * @author Justin Deoliveira, OpenGeo
  */
 public class VectorQueryPlan {
 
+    static Logger LOG = LoggerFactory.getLogger(VectorQueryPlan.class);
+
     VectorQuery q;
 
     boolean bounded;
@@ -47,6 +65,10 @@ public class VectorQueryPlan {
     boolean sorted;
     boolean fieldsSelected;
 
+    String nativeQuery;
+    List<String> warnings = new ArrayList<>();
+    List<Stage> stages = new ArrayList<>();
+
     public VectorQueryPlan(VectorQuery q) {
         this.q = q;
         filter = q.filter();
@@ -88,6 +110,14 @@ public class VectorQueryPlan {
         filter = left;
     }
 
+    /**
+     * The part of {@link VectorQuery#filter()} that was not handled natively, <code>null</code> or
+     * {@link Filters#all()} if the entire filter was handled natively.
+     */
+    public Filter<Feature> filter() {
+        return filter;
+    }
+
     /**
      * Whether {@link VectorQuery#sort()} was handled natively.
      */
@@ -102,6 +132,17 @@ public class VectorQueryPlan {
         sorted = true;
     }
 
+    /**
+     * Whether {@link VectorQuery#offset()} and {@link VectorQuery#limit()} can be handled natively.
+     * <p>
+     * Paging can only be handled natively if the query is not sorted, or if sorting was also handled
+     * natively. Otherwise the sort must be applied by {@link #apply(FeatureCursor)} before paging.
+     * </p>
+     */
+    public boolean canPage() {
+        return !q.isSorted() || isSorted();
+    }
+
     /**
      * Whether {@link VectorQuery#offset()} was handled natively.
      */
@@ -172,6 +213,52 @@ public class VectorQueryPlan {
         this.fieldsSelected = true;
     }
 
+    /**
+     * The query sent to the underlying data source, for example an sql statement, or <code>null</code>
+     * if the driver did not record it.
+     */
+    public String nativeQuery() {
+        return nativeQuery;
+    }
+
+    /**
+     * Records the query sent to the underlying data source.
+     */
+    public void nativeQuery(String nativeQuery) {
+        this.nativeQuery = nativeQuery;
+    }
+
+    /**
+     * Messages about parts of the query that could not be handled as expected.
+     */
+    public List<String> warnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    /**
+     * Reports a part of the query that could not be handled as expected, for instance a filter that could not be
+     * encoded natively resulting in a full scan.
+     * <p>
+     * Since the same message is reported for every execution of a query it is only logged at debug level,
+     * {@link #warnings()} and {@link VectorQuery#explain()} expose it to callers.
+     * </p>
+     */
+    public void warn(String message) {
+        warnings.add(message);
+        LOG.debug(message);
+    }
+
+    /**
+     * The stages of the cursor returned by {@link #apply(FeatureCursor)}, starting with the native cursor and
+     * followed by one stage for each wrapper.
+     * <p>
+     * Stages are only recorded when {@link VectorQuery#explain()} is set.
+     * </p>
+     */
+    public List<Stage> stages() {
+        return Collections.unmodifiableList(stages);
+    }
+
     /**
      * Augments the specified cursor with wrappers that handle the parts of the query that could
      * not be processed natively.
@@ -180,43 +267,260 @@ public class VectorQueryPlan {
      * then {@link #isFiltered()} should return <tt>false</tt> and this method should transform the
      * cursor with {@link FeatureCursor#filter(Predicate)}.
      * </p>
+     * <p>
+     * Sorting is applied after filtering and before offset and limit. Drivers that can't sort natively must
+     * therefore not handle offset and limit natively for a sorted query, see {@link #canPage()}.
+     * </p>
+     * <p>
+     * Simplification is applied after reprojection since the tolerance is expressed in units of the
+     * query result.
+     * </p>
      * @param cursor Cursor to augment.
      * 
      * @return The augmented cursor.
      */
     public FeatureCursor apply(FeatureCursor cursor) {
+        return apply(cursor, null);
+    }
+
+    /**
+     * Augments the specified cursor with wrappers that handle the parts of the query that could
+     * not be processed natively, for a cursor of features of the specified schema.
+     * <p>
+     * The schema is used to compile the filter, see {@link Filter#compile(Schema)}.
+     * </p>
+     * @param cursor Cursor to augment.
+     * @param schema Schema of features in the cursor, may be <code>null</code>.
+     *
+     * @return The augmented cursor.
+     */
+    public FeatureCursor apply(FeatureCursor cursor, Schema schema) {
+        cursor = stage("native", cursor);
 
         Envelope bounds = q.bounds();
         if (!isBounded() && !Bounds.isNull(bounds)) {
-            cursor = cursor.intersect(bounds, true);
+            cursor = stage("bounds", cursor.intersect(bounds, true));
         }
 
         if (!Filters.isTrueOrNull(filter)) {
-            cursor = cursor.filter(filter);
+            cursor = stage("filter", cursor.filter(schema != null ? filter.compile(schema) : filter));
+        }
+
+        List<Sort> sort = q.sort();
+        if (!isSorted() && q.isSorted()) {
+            cursor = stage("sort", cursor.sort(sort));
         }
 
         Integer offset = q.offset();
         if (!isOffsetted() && offset != null) {
-            cursor = cursor.skip(offset);
+            cursor = stage("offset", cursor.skip(offset));
         }
 
         Integer limit = q.limit();
         if (!isLimited() && limit != null) {
-            cursor = cursor.limit(limit);
+            cursor = stage("limit", cursor.limit(limit));
         }
 
         Pair<CoordinateReferenceSystem,CoordinateReferenceSystem> reproj = q.reproject();
         if (!isReprojected() && reproj != null) {
-            cursor = cursor.reproject(reproj.first, reproj.second);
+            cursor = stage("reproject", cursor.reproject(reproj.first, reproj.second));
+        }
+
+        Double simplify = q.simplify();
+        if (!isSimplified() && simplify != null) {
+            cursor = stage("simplify", cursor.simplify(simplify, q.simplifier()));
         }
 
         Set<String> fields = q.fields();
         if (!isFields() && !fields.isEmpty()) {
-            cursor = cursor.select(fields);
+            cursor = stage("fields", cursor.select(fields));
+        }
+
+        return new PlanCursor(cursor, this);
+    }
+
+    FeatureCursor stage(String name, FeatureCursor cursor) {
+        if (!q.explain()) {
+            return cursor;
+        }
+
+        Stage stage = new Stage(name, stages.isEmpty() ? null : stages.get(stages.size()-1));
+        stages.add(stage);
+        return new StageCursor(cursor, stage);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("VectorQueryPlan");
+        if (nativeQuery != null) {
+            sb.append("\n  native query: ").append(nativeQuery);
+        }
+
+        part(sb, "bounds", !Bounds.isNull(q.bounds()), isBounded());
+        if (q.isFiltered()) {
+            sb.append("\n  filter: ");
+            if (isFiltered()) {
+                sb.append("native");
+            }
+            else if (!filter.equals(q.filter())) {
+                sb.append("partial, remaining ").append(filter);
+            }
+            else {
+                sb.append("wrapped");
+            }
+        }
+        part(sb, "sort", q.isSorted(), isSorted());
+        part(sb, "offset", q.offset() != null, isOffsetted());
+        part(sb, "limit", q.limit() != null, isLimited());
+        part(sb, "reproject", q.reproject() != null, isReprojected());
+        part(sb, "simplify", q.simplify() != null, isSimplified());
+        part(sb, "fields", !q.fields().isEmpty(), isFields());
+
+        for (String w : warnings) {
+            sb.append("\n  warning: ").append(w);
+        }
+        for (Stage s : stages) {
+            sb.append("\n  stage ").append(s);
+        }
+        return sb.toString();
+    }
+
+    void part(StringBuilder sb, String name, boolean requested, boolean handled) {
+        if (requested) {
+            sb.append("\n  ").append(name).append(": ").append(handled ? "native" : "wrapped");
+        }
+    }
+
+    /**
+     * Execution metrics of a stage of a query cursor.
+     */
+    public static class Stage {
+
+        final String name;
+        final Stage prev;
+        long out;
+        long nanos;
+
+        Stage(String name, Stage prev) {
+            this.name = name;
+            this.prev = prev;
+        }
+
+        /**
+         * The name of the stage, "native" for the cursor of the driver and otherwise the part of the query
+         * handled by the stage.
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * The number of features read from the previous stage, or -1 for the native stage.
+         */
+        public long in() {
+            return prev != null ? prev.out : -1;
+        }
+
+        /**
+         * The number of features returned by the stage.
+         */
+        public long out() {
+            return out;
         }
 
-        //TODO: sorting
-        return cursor;
+        /**
+         * The wall time in nanoseconds spent in the stage, excluding time spent in previous stages.
+         */
+        public long time() {
+            return prev != null ? nanos - prev.nanos : nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d in, %d out, %.3f ms", name, in(), out, time() / 1e6);
+        }
     }
 
+    static class StageCursor extends FeatureCursor.FeatureCursorWrapper {
+
+        final FeatureCursor source;
+        final Stage stage;
+
+        StageCursor(FeatureCursor cursor, Stage stage) {
+            super(cursor);
+            this.source = cursor;
+            this.stage = stage;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            long t = System.nanoTime();
+            try {
+                return super.hasNext();
+            }
+            finally {
+                stage.nanos += System.nanoTime() - t;
+            }
+        }
+
+        @Override
+        public Feature next() throws IOException {
+            long t = System.nanoTime();
+            try {
+                Feature f = super.next();
+                if (f != null) {
+                    stage.out++;
+                }
+                return f;
+            }
+            finally {
+                stage.nanos += System.nanoTime() - t;
+            }
+        }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            long t = System.nanoTime();
+            try {
+                FeatureBatch batch = source.nextBatch(n);
+                if (batch != null) {
+                    stage.out += batch.size();
+                }
+                return batch;
+            }
+            finally {
+                stage.nanos += System.nanoTime() - t;
+            }
+        }
+    }
+
+    static class PlanCursor extends FeatureCursor.FeatureCursorWrapper {
+
+        final FeatureCursor source;
+        final VectorQueryPlan plan;
+
+        PlanCursor(FeatureCursor cursor, VectorQueryPlan plan) {
+            super(cursor);
+            this.source = cursor;
+            this.plan = plan;
+        }
+
+        @Override
+        public VectorQueryPlan plan() {
+            return plan;
+        }
+
+        @Override
+        public FeatureBatch nextBatch(int n) throws IOException {
+            return source.nextBatch(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (plan.q.explain() && LOG.isDebugEnabled()) {
+                LOG.debug(plan.toString());
+            }
+        }
+    }
 }
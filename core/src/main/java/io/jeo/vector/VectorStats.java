@@ -0,0 +1,386 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.vector;
+
+import com.vividsolutions.jts.geom.Geometry;
+import io.jeo.geom.Bounds;
+import io.jeo.json.JSONObject;
+import io.jeo.json.JSONValue;
+import io.jeo.json.parser.ParseException;
+import io.jeo.proj.Proj;
+import io.jeo.util.Util;
+import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary statistics of the features of a dataset gathered in a single pass.
+ * <p>
+ * The statistics include the schema, crs, bounds and number of features as well as the minimum, maximum
+ * and number of null values of each field. Minimum and maximum values are tracked for numeric fields, as
+ * doubles, and for string fields.
+ * </p>
+ * <p>
+ * File based datasets persist statistics in a sidecar file next to the data file, see
+ * {@link #load(VectorDataset, File, CoordinateReferenceSystem)}. The sidecar records the size and modification
+ * time of the data file and is recomputed when either changes.
+ * </p>
+ */
+public class VectorStats {
+
+    static Logger LOG = LoggerFactory.getLogger(VectorStats.class);
+
+    /**
+     * Extension appended to the name of a data file to name its statistics sidecar.
+     */
+    public static final String EXTENSION = "stats";
+
+    Schema schema;
+    CoordinateReferenceSystem crs;
+    Bounds bounds = new Bounds();
+    long count;
+    Map<String,FieldStats> fields = new LinkedHashMap<>();
+
+    long fileSize = -1;
+    long fileModified = -1;
+
+    VectorStats() {
+    }
+
+    /**
+     * The schema of the dataset, containing every field of any feature.
+     * <p>
+     * A field whose values are of differing types is given the type {@link Object}, or {@link Geometry}
+     * for geometry fields.
+     * </p>
+     */
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * The crs of the dataset, may be <code>null</code>.
+     */
+    public CoordinateReferenceSystem crs() {
+        return crs;
+    }
+
+    /**
+     * The bounds of the default geometries of the features.
+     */
+    public Bounds bounds() {
+        return new Bounds(bounds);
+    }
+
+    /**
+     * The number of features.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * The statistics of a field, or <code>null</code> if no feature has such a field.
+     */
+    public FieldStats field(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Whether these statistics were computed from the current contents of the file.
+     */
+    public boolean isCurrent(File file) {
+        return file.length() == fileSize && file.lastModified() == fileModified;
+    }
+
+    /**
+     * Statistics of the values of a field.
+     */
+    public static class FieldStats {
+
+        Class<?> type;
+        Object min, max;
+        long nulls;
+
+        /**
+         * The smallest value of the field, a double or a string, or <code>null</code> if not tracked.
+         */
+        public Object min() {
+            return min;
+        }
+
+        /**
+         * The largest value of the field, a double or a string, or <code>null</code> if not tracked.
+         */
+        public Object max() {
+            return max;
+        }
+
+        /**
+         * The number of features with no value or a <code>null</code> value for the field.
+         */
+        public long nulls() {
+            return nulls;
+        }
+
+        void add(Object val) {
+            if (val == null) {
+                nulls++;
+                return;
+            }
+
+            Class<?> clazz = val.getClass();
+            if (type == null) {
+                type = clazz;
+            }
+            else if (type != clazz && type != Object.class) {
+                type = val instanceof Geometry && Geometry.class.isAssignableFrom(type) ?
+                    Geometry.class : Object.class;
+            }
+
+            if (val instanceof Number) {
+                double d = ((Number) val).doubleValue();
+                if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                    if (min == null || (min instanceof Double && d < (Double) min)) {
+                        min = d;
+                    }
+                    if (max == null || (max instanceof Double && d > (Double) max)) {
+                        max = d;
+                    }
+                }
+            }
+            else if (val instanceof String) {
+                String s = (String) val;
+                if (min == null || (min instanceof String && s.compareTo((String) min) < 0)) {
+                    min = s;
+                }
+                if (max == null || (max instanceof String && s.compareTo((String) max) > 0)) {
+                    max = s;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes statistics from the features of a cursor, closing the cursor.
+     *
+     * @param name The name of the computed schema.
+     * @param cursor The features.
+     * @param crs Crs of the dataset if none can be determined from the feature geometries, may be
+     *            <code>null</code>.
+     */
+    public static VectorStats compute(String name, FeatureCursor cursor, CoordinateReferenceSystem crs)
+        throws IOException {
+
+        VectorStats stats = new VectorStats();
+        Map<String,Geometry> geoms = new LinkedHashMap<>();
+
+        try (FeatureCursor c = cursor) {
+            while (c.hasNext()) {
+                Feature f = c.next();
+                if (f == null) {
+                    break;
+                }
+                stats.count++;
+
+                Map<String,Object> values = f.map();
+                for (FieldStats fs : stats.fields.values()) {
+                    fs.nulls++;
+                }
+                for (Map.Entry<String,Object> kv : values.entrySet()) {
+                    FieldStats fs = stats.fields.get(kv.getKey());
+                    if (fs == null) {
+                        // missing from all previous features
+                        fs = new FieldStats();
+                        fs.nulls = stats.count;
+                        stats.fields.put(kv.getKey(), fs);
+                    }
+                    fs.nulls--;
+                    fs.add(kv.getValue());
+
+                    if (kv.getValue() instanceof Geometry && !geoms.containsKey(kv.getKey())) {
+                        geoms.put(kv.getKey(), (Geometry) kv.getValue());
+                    }
+                }
+
+                Geometry g = f.geometry();
+                if (g != null) {
+                    stats.bounds.expandToInclude(g.getEnvelopeInternal());
+                    if (stats.crs == null) {
+                        stats.crs = Proj.crs(g);
+                    }
+                }
+            }
+        }
+
+        if (stats.crs == null) {
+            stats.crs = crs;
+        }
+
+        SchemaBuilder sb = Schema.build(name);
+        for (Map.Entry<String,FieldStats> kv : stats.fields.entrySet()) {
+            Class<?> type = kv.getValue().type;
+            if (type == null) {
+                sb.field(kv.getKey(), Object.class);
+            }
+            else if (Geometry.class.isAssignableFrom(type)) {
+                @SuppressWarnings("unchecked")
+                Class<? extends Geometry> gtype = (Class<? extends Geometry>) type;
+                CoordinateReferenceSystem gcrs = Proj.crs(geoms.get(kv.getKey()));
+                sb.field(kv.getKey(), gtype, gcrs != null ? gcrs : stats.crs);
+            }
+            else {
+                sb.field(kv.getKey(), type);
+            }
+        }
+        stats.schema = sb.schema();
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of a file based dataset.
+     * <p>
+     * Statistics are read from the sidecar of the file if it exists and is current, otherwise they are
+     * computed by reading all features of the dataset and written to the sidecar. Failure to write the
+     * sidecar is not fatal.
+     * </p>
+     * @param data The dataset.
+     * @param file The file backing the dataset.
+     * @param crs The default crs of the dataset, see {@link #compute(String, FeatureCursor, CoordinateReferenceSystem)}.
+     */
+    public static VectorStats load(VectorDataset data, File file, CoordinateReferenceSystem crs) throws IOException {
+        File sidecar = sidecar(file);
+        if (sidecar.exists()) {
+            try {
+                VectorStats stats = read(sidecar, data.name());
+                if (stats.isCurrent(file)) {
+                    return stats;
+                }
+            }
+            catch(Exception e) {
+                LOG.debug("Unable to read statistics from " + sidecar.getPath(), e);
+            }
+        }
+
+        long size = file.length();
+        long modified = file.lastModified();
+
+        VectorStats stats = compute(data.name(), data.read(new VectorQuery()), crs);
+        stats.fileSize = size;
+        stats.fileModified = modified;
+
+        try {
+            stats.write(sidecar);
+        }
+        catch(IOException e) {
+            LOG.debug("Unable to write statistics to " + sidecar.getPath(), e);
+        }
+        return stats;
+    }
+
+    /**
+     * The sidecar file holding statistics for a data file.
+     */
+    public static File sidecar(File file) {
+        return new File(file.getParentFile(), file.getName() + "." + EXTENSION);
+    }
+
+    void write(File file) throws IOException {
+        Map<String,Object> obj = new LinkedHashMap<>();
+        obj.put("size", fileSize);
+        obj.put("modified", fileModified);
+        obj.put("count", count);
+        obj.put("crs", crs != null ? encode(crs) : null);
+
+        if (!bounds.isNull()) {
+            obj.put("bounds", Arrays.<Object>asList(
+                bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY()));
+        }
+
+        List<Object> flds = new ArrayList<>();
+        for (Field fld : schema) {
+            FieldStats fs = fields.get(fld.name());
+
+            Map<String,Object> f = new LinkedHashMap<>();
+            f.put("name", fld.name());
+            f.put("type", fld.type().getName());
+            if (fld.crs() != null) {
+                f.put("crs", encode(fld.crs()));
+            }
+            f.put("nulls", fs.nulls);
+            f.put("min", fs.min);
+            f.put("max", fs.max);
+            flds.add(f);
+        }
+        obj.put("fields", flds);
+
+        try (Writer w = Files.newBufferedWriter(file.toPath(), Util.UTF_8)) {
+            new JSONObject(obj).writeJSONString(w);
+        }
+    }
+
+    static VectorStats read(File file, String name) throws IOException, ParseException, ClassNotFoundException {
+        JSONObject obj;
+        try (Reader r = Files.newBufferedReader(file.toPath(), Util.UTF_8)) {
+            obj = (JSONObject) JSONValue.parseWithException(r);
+        }
+
+        VectorStats stats = new VectorStats();
+        stats.fileSize = ((Number) obj.get("size")).longValue();
+        stats.fileModified = ((Number) obj.get("modified")).longValue();
+        stats.count = ((Number) obj.get("count")).longValue();
+        stats.crs = Proj.crs((String) obj.get("crs"));
+
+        List<?> bbox = (List<?>) obj.get("bounds");
+        if (bbox != null) {
+            stats.bounds = new Bounds(num(bbox.get(0)), num(bbox.get(2)), num(bbox.get(1)), num(bbox.get(3)));
+        }
+
+        List<Field> schema = new ArrayList<>();
+        for (Object o : (List<?>) obj.get("fields")) {
+            JSONObject f = (JSONObject) o;
+            String fname = (String) f.get("name");
+            schema.add(new Field(fname, Class.forName((String) f.get("type")), Proj.crs((String) f.get("crs"))));
+
+            FieldStats fs = new FieldStats();
+            fs.nulls = ((Number) f.get("nulls")).longValue();
+            fs.min = f.get("min") instanceof Number ? num(f.get("min")) : f.get("min");
+            fs.max = f.get("max") instanceof Number ? num(f.get("max")) : f.get("max");
+            stats.fields.put(fname, fs);
+        }
+        stats.schema = new Schema(name, schema);
+        return stats;
+    }
+
+    static double num(Object o) {
+        return ((Number) o).doubleValue();
+    }
+
+    static String encode(CoordinateReferenceSystem crs) {
+        Integer epsg = Proj.epsgCode(crs);
+        return epsg != null ? "EPSG:" + epsg : Proj.toString(crs);
+    }
+}
@@ -14,9 +14,34 @@
  */
 package io.jeo.data.mem;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.vividsolutions.jts.geom.Point;
 import io.jeo.TestData;
+import io.jeo.geom.Bounds;
+import io.jeo.geom.Geom;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
+import io.jeo.vector.FeatureWriteCursor;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+import io.jeo.vector.SchemaBuilder;
 import io.jeo.vector.VectorApiTestBase;
 import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class MemVectorApiTest extends VectorApiTestBase {
 
@@ -25,4 +50,130 @@ public class MemVectorApiTest extends VectorApiTestBase {
         return TestData.states();
     }
 
+    @Test
+    public void testSnapshot() throws Exception {
+        MemVectorDataset mem = points(1000);
+
+        FeatureCursor c = mem.read(new VectorQuery());
+        MemVectorDataset.Snapshot s = mem.snapshot();
+
+        for (int i = 0; i < 1000; i += 2) {
+            mem.remove(new ListFeature(String.valueOf(i), mem.schema()));
+        }
+        try (FeatureWriteCursor w = mem.update(new VectorQuery().filter("id < 10"))) {
+            while (w.hasNext()) {
+                w.next().put("id", -1);
+                w.write();
+            }
+        }
+        mem.add(feature(mem.schema(), 1000, 5000, 5000));
+
+        // the cursor and snapshot taken before the writes are unaffected
+        assertEquals(1000, c.count());
+        assertEquals(1000, s.count());
+        assertEquals(1000, count(s));
+        assertEquals(new Bounds(0, 999, 0, 999), s.bounds());
+        assertEquals(10, s.query(new Bounds(0, 9.5, 0, 9.5)).size());
+        assertFalse(s.query(new Bounds(0, 9.5, 0, 9.5)).get(0).get("id").equals(-1));
+
+        assertEquals(501, mem.count(new VectorQuery()));
+        assertEquals(501, count(mem.snapshot()));
+        assertEquals(new Bounds(1, 5000, 1, 5000), mem.bounds());
+        assertEquals(5, mem.count(new VectorQuery().bounds(new Bounds(0, 9.5, 0, 9.5))));
+        assertEquals(5, mem.count(new VectorQuery().filter("id = -1")));
+        assertEquals(1, mem.count(new VectorQuery().bounds(new Bounds(4999, 5001, 4999, 5001))));
+    }
+
+    @Test
+    public void testConcurrentReadWrite() throws Exception {
+        final MemVectorDataset mem = points(100);
+        final AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(exec.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        while (!done.get()) {
+                            MemVectorDataset.Snapshot s = mem.snapshot();
+                            assertEquals(s.count(), count(s));
+                            for (Feature f : s.query(new Bounds(0, 50, 0, 50))) {
+                                assertTrue(((Point) f.geometry()).getX() <= 50);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 100; i < 5000; i++) {
+                mem.add(feature(mem.schema(), i, i % 100, i % 100));
+                if (i % 3 == 0) {
+                    mem.remove(new ListFeature(String.valueOf(i - 50), mem.schema()));
+                }
+            }
+            done.set(true);
+
+            for (Future<?> f : readers) {
+                f.get();
+            }
+        }
+        finally {
+            exec.shutdownNow();
+        }
+
+        assertEquals(count(mem.snapshot()), mem.count(new VectorQuery()));
+        int n = 0;
+        for (Feature f : mem.snapshot()) {
+            n += ((Point) f.geometry()).getX() <= 10.5 ? 1 : 0;
+        }
+        assertEquals(n, mem.count(new VectorQuery().bounds(new Bounds(0, 10.5, 0, 10.5))));
+    }
+
+    @Test
+    public void testBoundsAfterRemove() throws Exception {
+        MemVectorDataset mem = points(10);
+        assertNotNull(mem.snapshot().bounds);
+
+        // removing a feature on the edge invalidates the bounds
+        mem.remove(new ListFeature("0", mem.schema()));
+        assertNull(mem.snapshot().bounds);
+        mem.add(feature(mem.schema(), 10, 5, 5));
+        assertNull(mem.snapshot().bounds);
+
+        // until they are recomputed, after which writers maintain them again
+        assertEquals(new Bounds(1, 9, 1, 9), mem.bounds());
+        mem.add(feature(mem.schema(), 11, 20, 20));
+        assertNotNull(mem.snapshot().bounds);
+        assertEquals(new Bounds(1, 20, 1, 20), mem.bounds());
+
+        mem.remove(new ListFeature("5", mem.schema()));
+        assertNotNull(mem.snapshot().bounds);
+        assertEquals(new Bounds(1, 20, 1, 20), mem.bounds());
+    }
+
+    MemVectorDataset points(int n) {
+        Schema schema = new SchemaBuilder("points").field("geometry", Point.class).field("id", Integer.class)
+            .schema();
+
+        MemVectorDataset mem = new MemVectorDataset(schema);
+        for (int i = 0; i < n; i++) {
+            mem.add(feature(schema, i, i, i));
+        }
+        return mem;
+    }
+
+    Feature feature(Schema schema, int id, double x, double y) {
+        return new ListFeature(String.valueOf(id), schema, Geom.point(x, y), id);
+    }
+
+    static int count(MemVectorDataset.Snapshot s) {
+        int n = 0;
+        for (Feature f : s) {
+            n++;
+        }
+        return n;
+    }
 }
@@ -0,0 +1,148 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.data.mem;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Point;
+import io.jeo.TestData;
+import io.jeo.geom.Bounds;
+import io.jeo.geom.Geom;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
+import io.jeo.vector.FeatureWriteCursor;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+import io.jeo.vector.SchemaBuilder;
+import io.jeo.vector.VectorApiTestBase;
+import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PackedVectorApiTest extends VectorApiTestBase {
+
+    @Override
+    protected VectorDataset createVectorData() throws Exception {
+        return PackedVectorDataset.copy(TestData.states());
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        Schema schema = new SchemaBuilder("things").field("geometry", Point.class).field("name", String.class)
+            .field("count", Integer.class).field("ratio", Double.class).field("flag", Boolean.class)
+            .field("any", Object.class).schema();
+
+        PackedVectorDataset data = new PackedVectorDataset(schema);
+        data.add(new ListFeature("a", schema, Geom.point(1, 2), "one", 1, 0.5, true, 1L));
+        data.add(new ListFeature("b", schema, null, "one", null, 1.5, false, "x"));
+        // value not matching the field type
+        data.add(new ListFeature("c", schema, Geom.point(3, 4), 2, 3L, null, null, null));
+
+        try (FeatureCursor c = data.read(new VectorQuery())) {
+            Feature f = c.next();
+            assertEquals("a", f.id());
+            assertEquals(Geom.point(1, 2), f.geometry());
+            assertEquals("one", f.get("name"));
+            assertEquals(1, f.get("count"));
+            assertEquals(0.5, f.get("ratio"));
+            assertEquals(true, f.get("flag"));
+            assertEquals(1L, f.get("any"));
+
+            f = c.next();
+            assertNull(f.geometry());
+            assertNull(f.get("count"));
+            assertEquals("x", f.get("any"));
+
+            f = c.next();
+            assertEquals(2, f.get("name"));
+            assertEquals(3L, f.get("count"));
+            assertNull(f.get("ratio"));
+        }
+
+        assertEquals(new Bounds(1, 3, 2, 4), data.bounds());
+        assertTrue(data.allocated() > 0);
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        Schema schema = new SchemaBuilder("points").field("geometry", Point.class).field("id", Integer.class)
+            .schema();
+        PackedVectorDataset data = new PackedVectorDataset(schema);
+
+        Random r = new Random(1);
+        Envelope[] envs = new Envelope[10000];
+        for (int i = 0; i < envs.length; i++) {
+            double x = r.nextDouble() * 360 - 180, y = r.nextDouble() * 180 - 90;
+            envs[i] = new Envelope(x, x, y, y);
+            data.add(new ListFeature(String.valueOf(i), schema, Geom.point(x, y), i));
+        }
+
+        // remove some, update others
+        try (FeatureWriteCursor c = data.update(new VectorQuery().filter("id < 1000"))) {
+            while (c.hasNext()) {
+                Feature f = c.next();
+                int id = (Integer) f.get("id");
+                if (id % 2 == 0) {
+                    c.remove();
+                }
+                else {
+                    f.put("id", -id);
+                    c.write();
+                }
+            }
+        }
+        assertEquals(9500, data.count(new VectorQuery()));
+        assertEquals(500, data.count(new VectorQuery().filter("id < 0")));
+
+        assertQuery(data, envs, r);
+
+        // compaction drops the rows of modified and removed features
+        long allocated = data.allocated();
+        data.compact();
+        assertTrue(data.allocated() <= allocated);
+        assertEquals(9500, data.rows);
+        assertEquals(9500, data.count(new VectorQuery()));
+        assertEquals(500, data.count(new VectorQuery().filter("id < 0")));
+        assertQuery(data, envs, r);
+    }
+
+    void assertQuery(PackedVectorDataset data, Envelope[] envs, Random r) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            double x = r.nextDouble() * 300 - 150, y = r.nextDouble() * 150 - 75;
+            Envelope q = new Envelope(x, x + r.nextDouble() * 30, y, y + r.nextDouble() * 15);
+
+            BitSet expected = new BitSet();
+            for (int j = 0; j < envs.length; j++) {
+                if ((j >= 1000 || j % 2 == 1) && q.intersects(envs[j])) {
+                    expected.set(j);
+                }
+            }
+
+            BitSet actual = new BitSet();
+            try (FeatureCursor c = data.read(new VectorQuery().bounds(q))) {
+                for (Feature f : c) {
+                    actual.set(Math.abs((Integer) f.get("id")));
+                }
+            }
+            assertEquals(expected, actual);
+        }
+    }
+}
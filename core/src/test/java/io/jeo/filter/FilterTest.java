@@ -22,9 +22,14 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import io.jeo.geom.Geom;
 import io.jeo.vector.Feature;
 import io.jeo.filter.cql.CQL;
+import io.jeo.vector.ListFeature;
 import io.jeo.vector.MapFeature;
+import io.jeo.vector.Schema;
 import org.junit.Test;
 
 public class FilterTest {
@@ -180,4 +185,65 @@ public class FilterTest {
         assertTrue(CQL.parse("y > 5 or x = 5").test(f));
         assertTrue(CQL.parse("x = 5 or y > 5").test(f));
     }
+
+    @Test
+    public void testCompile() throws Exception {
+        Schema schema = Schema.build("test").field("geom", Point.class).field("name", String.class)
+            .field("pop", Integer.class).field("area", Double.class).schema();
+
+        Feature f = new ListFeature(schema, Geom.point(1, 1), "foo", 5, 1.5);
+        Feature other = new ListFeature(Schema.build("other").field("pop", Integer.class)
+            .field("name", String.class).schema(), 5, "foo");
+
+        for (String cql : Arrays.asList("pop = 5", "pop < 10", "10 > pop", "pop = '5'", "area >= 1",
+            "name = 'foo' and pop > 1", "name = 'bar' or not pop = 4", "name like 'f%'", "name in ('foo', 'bar')",
+            "pop in (4, 5)", "pop not in (4, 5)", "pop in ('5')", "pop not in ('5', 6)", "name is null", "name is not null", "pop + 1 = 6",
+            "intersects(geom, POINT(1 1))", "y = 5", "y in (5)", "y is null")) {
+            Filter<Feature> filter = CQL.parse(cql);
+            Filter<Feature> compiled = filter.compile(schema);
+
+            assertEquals(cql, filter.test(f), compiled.test(f));
+            assertEquals(cql, filter.test(other), compiled.test(other));
+        }
+
+        // literals are converted to the type of the value, compiled or not
+        Feature g = new ListFeature(schema, null, "foo", 5, 5d);
+        Filter<Feature> filter = new In<>(new Property("area"), Arrays.asList(new Literal(5)), false);
+        assertTrue(filter.test(g));
+        assertTrue(filter.compile(schema).test(g));
+        assertTrue(filter.compile(schema) instanceof HashedIn);
+
+        // including values not of the declared field type
+        Feature h = new ListFeature(schema, null, "foo", "5", 5d);
+        filter = new In<>(new Property("pop"), Arrays.asList(new Literal(5)), false);
+        assertTrue(filter.test(h));
+        assertTrue(filter.compile(schema).test(h));
+        filter = new In<>(new Property("pop"), Arrays.asList(new Literal(6)), false);
+        assertFalse(filter.test(h));
+        assertFalse(filter.compile(schema).test(h));
+    }
+
+    @Test
+    public void testSpatialConstant() throws Exception {
+        Geometry poly = Geom.parse("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))");
+        Schema schema = Schema.build("test").field("geom", Geometry.class).schema();
+
+        for (String wkt : Arrays.asList("POINT(5 5)", "POINT(0 5)", "POINT(20 20)", "POINT(11 5)",
+            "LINESTRING(-5 5, 15 5)", "LINESTRING(1 1, 2 2)", "POLYGON((5 5, 15 5, 15 15, 5 15, 5 5))",
+            "POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))", "POLYGON((-5 -5, 20 -5, 20 20, -5 20, -5 -5))")) {
+
+            Geometry g = Geom.parse(wkt);
+            Feature f = new ListFeature(schema, g);
+
+            for (Spatial.Type type : Spatial.Type.values()) {
+                Literal d = new Literal(2);
+                Spatial<Feature> right = new Spatial<>(type, new Property("geom"), new Literal(poly), d);
+                Spatial<Feature> left = new Spatial<>(type, new Literal(poly), new Property("geom"), d);
+
+                assertTrue(right.constant != null && left.constant != null);
+                assertEquals(type + " " + wkt, right.compare(g, poly, 2), right.test(f));
+                assertEquals(type + " " + wkt, left.compare(poly, g, 2), left.test(f));
+            }
+        }
+    }
 }
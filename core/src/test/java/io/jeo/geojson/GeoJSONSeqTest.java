@@ -0,0 +1,118 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geojson;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import io.jeo.Tests;
+import io.jeo.data.Drivers;
+import io.jeo.util.Util;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureAppendCursor;
+import io.jeo.vector.FeatureCursor;
+import io.jeo.vector.VectorApiTestBase;
+import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeoJSONSeqTest extends VectorApiTestBase {
+
+    @Override
+    protected VectorDataset createVectorData() throws Exception {
+        Path dir = Tests.unzip(getClass().getResourceAsStream("states.zip"), Tests.newTmpDir());
+        GeoJSONDataset json = new GeoJSONDataset(dir.resolve("states.json").toFile());
+
+        File file = dir.resolve("states.geojsonl").toFile();
+        try (Writer w = Files.newBufferedWriter(file.toPath(), Util.UTF_8)) {
+            new GeoJSONWriter(w).featureSequence(json.read(new VectorQuery()));
+        }
+        return new GeoJSONSeqDataset(file);
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        GeoJSONSeqDataset seq = (GeoJSONSeqDataset) createVectorData();
+        assertEquals(49, seq.count(new VectorQuery()));
+
+        Feature tx;
+        try (FeatureCursor c = seq.read(new VectorQuery().filter("STATE_ABBR = 'TX'"))) {
+            assertTrue(c.hasNext());
+            tx = c.next();
+        }
+
+        FeatureAppendCursor c = seq.append(new VectorQuery());
+        c.next().put(tx.geometry()).put("STATE_ABBR", "TX2");
+        c.write();
+        c.close();
+
+        assertEquals(50, seq.count(new VectorQuery()));
+        assertEquals(50, seq.stats().count());
+        assertEquals(2, seq.count(new VectorQuery().filter("STATE_ABBR LIKE 'TX%'")));
+    }
+
+    @Test
+    public void testRecordSeparator() throws Exception {
+        File file = new File(Tests.newTmpDir().toFile(), "points.geojsons");
+        Files.write(file.toPath(), ("\u001e{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]},"
+            + "\"properties\":{\"name\":\"one\"}}\n\n"
+            + "\u001e{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[3,4]},"
+            + "\"properties\":{\"name\":\"two\"}}").getBytes(Util.UTF_8));
+
+        GeoJSONSeqDataset seq = new GeoJSONSeqDataset(file);
+        assertEquals(2, seq.read(new VectorQuery()).count());
+
+        // last line is not terminated
+        FeatureAppendCursor c = seq.append(new VectorQuery());
+        c.next().put("name", "three");
+        c.write();
+        c.close();
+
+        List<String> names = new ArrayList<>();
+        try (FeatureCursor r = seq.read(new VectorQuery())) {
+            for (Feature f : r) {
+                names.add((String) f.get("name"));
+            }
+        }
+        assertEquals(Arrays.asList("one", "two", "three"), names);
+    }
+
+    @Test
+    public void testParallelRead() throws Exception {
+        GeoJSONSeqDataset seq = (GeoJSONSeqDataset) createVectorData();
+
+        List<String> expected = new ArrayList<>(GeoJSONTest.ids(seq.read(new VectorQuery())));
+        assertEquals(49, expected.size());
+        assertEquals(expected, new ArrayList<>(GeoJSONTest.ids(seq.read(new VectorQuery(), 4, true))));
+
+        ParallelGeoJSONCursor c = new ParallelGeoJSONCursor(seq.file(), 3, false, true);
+        c.chunkFeatures = 5;
+        assertEquals(new HashSet<>(expected), GeoJSONTest.ids(c));
+    }
+
+    @Test
+    public void testDriver() throws Exception {
+        assertTrue(Drivers.find("ndjson") instanceof GeoJSONSeq);
+    }
+}
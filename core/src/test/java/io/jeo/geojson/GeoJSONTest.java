@@ -14,11 +14,34 @@
  */
 package io.jeo.geojson;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import io.jeo.Tests;
+import io.jeo.filter.Id;
+import io.jeo.filter.Literal;
+import io.jeo.geom.Bounds;
+import io.jeo.proj.Proj;
+import io.jeo.util.Util;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.VectorApiTestBase;
 import io.jeo.vector.VectorDataset;
+import io.jeo.vector.VectorQuery;
+import io.jeo.vector.VectorStats;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class GeoJSONTest extends VectorApiTestBase {
 
@@ -28,4 +51,148 @@ public class GeoJSONTest extends VectorApiTestBase {
         return new GeoJSONDataset(dir.resolve("states.json").toFile());
     }
 
+    @Test
+    public void testStats() throws Exception {
+        GeoJSONDataset json = (GeoJSONDataset) createVectorData();
+        File sidecar = VectorStats.sidecar(json.file());
+        assertFalse(sidecar.exists());
+
+        VectorStats stats = json.stats();
+        assertTrue(sidecar.exists());
+        assertEquals(49, stats.count());
+        assertEquals(json.read(new VectorQuery()).bounds(), stats.bounds());
+        assertEquals(0, stats.field("SAMP_POP").nulls());
+        assertEquals(72696.0, stats.field("SAMP_POP").min());
+        assertEquals("AL", stats.field("STATE_ABBR").min());
+
+        // reopened dataset uses the sidecar
+        VectorStats loaded = new GeoJSONDataset(json.file()).stats();
+        assertTrue(loaded.isCurrent(json.file()));
+        assertEquals(stats.count(), loaded.count());
+        assertEquals(stats.bounds(), loaded.bounds());
+        assertEquals(stats.schema().fields(), loaded.schema().fields());
+        assertEquals(stats.field("SAMP_POP").max(), loaded.field("SAMP_POP").max());
+
+        // changing the file invalidates the sidecar
+        assertTrue(json.file().setLastModified(json.file().lastModified() - 10000));
+        assertFalse(loaded.isCurrent(json.file()));
+        assertTrue(json.stats() != stats);
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        GeoJSONDataset json = (GeoJSONDataset) createVectorData();
+        File sidecar = GeoJSONIndex.sidecar(json.file());
+        assertFalse(sidecar.exists());
+
+        Bounds bbox = new Bounds(-100, -90, 35, 45);
+        Set<String> expected = ids(json.read(new VectorQuery().bounds(bbox)));
+        assertFalse(expected.isEmpty());
+
+        GeoJSONIndex index = json.index();
+        assertTrue(sidecar.exists());
+        assertEquals(49, index.count());
+        assertNotNull(index.crs());
+
+        VectorQuery q = new VectorQuery().bounds(bbox).explain(true);
+        try (FeatureCursor c = json.read(q)) {
+            assertEquals(expected, ids(c));
+            assertTrue(c.plan().isBounded());
+        }
+        assertEquals(expected.size(), json.count(new VectorQuery().bounds(bbox)));
+
+        Feature f = json.feature("states.25");
+        assertNotNull(f);
+        assertEquals("states.25", f.id());
+        assertNotNull(Proj.crs(f.geometry()));
+        assertNull(json.feature("states.1000"));
+        assertEquals(1, json.read(new VectorQuery().filter(new Id<Feature>(new Literal("states.25")))).count());
+
+        // reopened dataset uses the sidecar, changing the file invalidates it
+        assertNotNull(GeoJSONIndex.load(json.file()));
+        assertTrue(json.file().setLastModified(json.file().lastModified() - 10000));
+        assertNull(GeoJSONIndex.load(json.file()));
+        assertEquals(expected, ids(new GeoJSONDataset(json.file(), true).read(new VectorQuery().bounds(bbox))));
+    }
+
+    @Test
+    public void testIndexSingleFeature() throws Exception {
+        File file = new File(Tests.newTmpDir().toFile(), "point.json");
+        Files.write(file.toPath(), ("{\"type\": \"Feature\", \"id\": \"one\", "
+            + "\"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}, "
+            + "\"properties\": {\"name\": \"one\"}}").getBytes(Util.UTF_8));
+
+        GeoJSONDataset json = new GeoJSONDataset(file, true);
+        assertEquals(1, json.index().count());
+        assertEquals(1, json.count(new VectorQuery()));
+        assertEquals(1, json.count(new VectorQuery().bounds(new Bounds(0, 2, 1, 3))));
+        assertEquals(1, json.read(new VectorQuery().bounds(new Bounds(0, 2, 1, 3))).count());
+        assertEquals(0, json.read(new VectorQuery().bounds(new Bounds(5, 6, 5, 6))).count());
+        assertEquals("one", json.feature("one").get("name"));
+        assertEquals(1, json.read(new VectorQuery(), 2, true).count());
+    }
+
+    @Test
+    public void testIndexDuplicateIds() throws Exception {
+        File file = new File(Tests.newTmpDir().toFile(), "dupes.json");
+        Files.write(file.toPath(), ("{\"type\": \"FeatureCollection\", \"features\": ["
+            + point("a", 1) + ", " + point("b", 2) + ", " + point("a", 3) + "]}").getBytes(Util.UTF_8));
+
+        GeoJSONDataset json = new GeoJSONDataset(file, true);
+        assertEquals(3, json.index().count());
+        assertEquals(2, json.read(new VectorQuery().filter(new Id<Feature>(new Literal("a")))).count());
+        assertEquals(3, json.read(new VectorQuery().filter(
+            new Id<Feature>(new Literal("a"), new Literal("b")))).count());
+        assertEquals(1l, json.feature("a").get("seq"));
+    }
+
+    String point(String id, int seq) {
+        return "{\"type\": \"Feature\", \"id\": \"" + id + "\", "
+            + "\"geometry\": {\"type\": \"Point\", \"coordinates\": [" + seq + ", " + seq + "]}, "
+            + "\"properties\": {\"seq\": " + seq + "}}";
+    }
+
+    @Test
+    public void testParallelRead() throws Exception {
+        GeoJSONDataset json = (GeoJSONDataset) createVectorData();
+
+        List<String> expected = new ArrayList<>(ids(json.read(new VectorQuery())));
+        assertEquals(49, expected.size());
+
+        assertEquals(expected, new ArrayList<>(ids(json.read(new VectorQuery(), 4, true))));
+
+        ParallelGeoJSONCursor c = new ParallelGeoJSONCursor(json.file(), 3, true);
+        c.chunkFeatures = 5;
+        assertEquals(expected, new ArrayList<>(ids(c)));
+
+        c = new ParallelGeoJSONCursor(json.file(), 3, false);
+        c.chunkFeatures = 5;
+        assertEquals(new HashSet<>(expected), ids(c));
+
+        c = new ParallelGeoJSONCursor(json.file(), 2, true);
+        c.chunkFeatures = 1;
+        assertTrue(c.hasNext());
+        assertEquals(expected.get(0), c.next().id());
+        c.close();
+        assertFalse(c.hasNext());
+
+        VectorQuery q = new VectorQuery().filter("STATE_ABBR = 'TX'");
+        try (FeatureCursor p = json.read(q, 2, false)) {
+            assertTrue(p.hasNext());
+            Feature f = p.next();
+            assertEquals("TX", f.get("STATE_ABBR"));
+            assertNotNull(Proj.crs(f.geometry()));
+            assertFalse(p.hasNext());
+        }
+    }
+
+    static Set<String> ids(FeatureCursor cursor) throws Exception {
+        Set<String> ids = new LinkedHashSet<>();
+        try (FeatureCursor c = cursor) {
+            for (Feature f : c) {
+                ids.add(f.id());
+            }
+        }
+        return ids;
+    }
 }
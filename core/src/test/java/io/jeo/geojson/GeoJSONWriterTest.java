@@ -138,6 +138,40 @@ public class GeoJSONWriterTest {
         assertNotNull(obj.get("properties"));
     }
 
+    @Test
+    public void testNumbers() throws Exception {
+        double[] vals = {0, 1, -1, 0.1, 0.3, 1.0/3, -122.4194155, 37.7749295, 1e-3, 123456789.123,
+            5e-324, 1e300, Math.PI, 2.0/3*1e7, -0.0, 1e15, 0.007};
+        w.array();
+        for (double v : vals) {
+            w.value(v);
+        }
+        w.value(Double.NaN).value(Long.MIN_VALUE).value(-42L).value(Integer.valueOf(7));
+        w.endArray();
+
+        JSONArray arr = (JSONArray) JSONValue.parse(string());
+        for (int i = 0; i < vals.length; i++) {
+            assertEquals(vals[i], ((Number) arr.get(i)).doubleValue(), 0);
+            assertTrue(arr.get(i) instanceof Double);
+        }
+        assertNull(arr.get(vals.length));
+        assertEquals(Long.MIN_VALUE, arr.get(vals.length + 1));
+        assertEquals(-42L, arr.get(vals.length + 2));
+        assertEquals(7L, arr.get(vals.length + 3));
+
+        assertTrue(string().startsWith("[0.0,1.0,-1.0,0.1,0.3,0.3333333333333333,-122.4194155,37.7749295,0.001,"));
+    }
+
+    @Test
+    public void testPrecision() throws Exception {
+        w.precision(3).point(Geom.point(-122.4194155, 37.7749295));
+        assertEquals("{\"type\":\"Point\",\"coordinates\":[-122.419,37.775]}", string());
+
+        w = new GeoJSONWriter(new StringWriter()).precision(2);
+        w.lineString(Geom.build().points(1, 2.004, -0.001, 3.999).toLineString());
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[0.0,4.0]]}", string());
+    }
+
     String string() {
         return w.getWriter().toString();
     }
@@ -0,0 +1,156 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.json.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.jeo.util.Util;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ByteLexerTest {
+
+    static final String JSON = "{\"type\": \"Feature\", \"id\":\"f\\u00e9\\\"1\", \"geometry\": {\"type\": \"Point\", "
+        + "\"coordinates\": [-122.4194155, 37.7749295, 0.1, -0.0, 1e3, 2.5E-3, "
+        + "0.12345678901234567890123, 1.7976931348623157e308, 4.9e-324, 3]}, \"properties\": {\"name\": "
+        + "\"São Paulo \\ud83d\\ude00\", \"flag\": true, \"none\": null, \"big\": 9223372036854775807, "
+        + "\"type\": \"Feature\"}}";
+
+    @Test
+    public void testTokensMatchYylex() throws Exception {
+        List<String> expected = tokens(new Yylex(new StringReader(JSON)));
+
+        byte[] bytes = JSON.getBytes(Util.UTF_8);
+        assertEquals(expected, tokens(new ByteLexer(bytes)));
+        assertEquals(expected, tokens(new ByteLexer(new ByteArrayInputStream(bytes))));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected, tokens(new ByteLexer(direct)));
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        String[] nums = {"0", "-1", "0.1", "0.3", "-122.4194155", "1e22", "1e23", "123456.789e-5",
+            "9007199254740993.0", "0.000000000000000000000000001", "2.2250738585072014E-308"};
+        for (String num : nums) {
+            Object val = new ByteLexer(num.getBytes(Util.UTF_8)).yylex().value;
+            Object exp = new Yylex(new StringReader(num)).yylex().value;
+            assertEquals(num, exp, val);
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        List<Object> expected = new ArrayList<>();
+        new JSONParser().parse(new StringReader(JSON), new Collector(expected));
+
+        List<Object> values = new ArrayList<>();
+        new JSONParser().parse(ByteBuffer.wrap(JSON.getBytes(Util.UTF_8)), new Collector(values));
+        assertEquals(expected, values);
+        assertEquals(37.7749295, values.get(values.indexOf("coordinates") + 3));
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        for (String json : new String[]{"[tru]", "[-]", "[1.]", "[\"abc", "[1e]", "[@]"}) {
+            try {
+                tokens(new ByteLexer(json.getBytes(Util.UTF_8)));
+                fail(json);
+            }
+            catch(ParseException e) {
+            }
+        }
+    }
+
+    static class Collector implements ContentHandler {
+        List<Object> values;
+
+        Collector(List<Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void startJSON() {
+        }
+
+        @Override
+        public void endJSON() {
+        }
+
+        @Override
+        public boolean startObject() {
+            values.add("{");
+            return true;
+        }
+
+        @Override
+        public boolean endObject() {
+            values.add("}");
+            return true;
+        }
+
+        @Override
+        public boolean startObjectEntry(String key) {
+            values.add(key);
+            return true;
+        }
+
+        @Override
+        public boolean endObjectEntry() {
+            return true;
+        }
+
+        @Override
+        public boolean startArray() {
+            values.add("[");
+            return true;
+        }
+
+        @Override
+        public boolean endArray() {
+            values.add("]");
+            return true;
+        }
+
+        @Override
+        public boolean primitive(Object value) {
+            values.add(value);
+            return true;
+        }
+    }
+
+    List<String> tokens(Yylex lexer) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (Yytoken t = lexer.yylex(); t != null; t = lexer.yylex()) {
+            tokens.add(t + (t.value != null ? t.value.getClass().getSimpleName() : ""));
+        }
+        return tokens;
+    }
+
+    List<String> tokens(ByteLexer lexer) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (Yytoken t = lexer.yylex(); t != null; t = lexer.yylex()) {
+            tokens.add(t + (t.value != null ? t.value.getClass().getSimpleName() : ""));
+        }
+        return tokens;
+    }
+}
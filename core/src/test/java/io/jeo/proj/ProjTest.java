@@ -16,14 +16,28 @@ package io.jeo.proj;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.jeo.geom.Bounds;
 import io.jeo.geom.GeomBuilder;
 import org.junit.Test;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
+import org.osgeo.proj4j.CoordinateTransform;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
 
 public class ProjTest {
 
@@ -82,6 +96,51 @@ public class ProjTest {
         assertEquals(-123.11, e.getMaxX(), 0.01);
         assertEquals(49.27, e.getMinY(), 0.01);
         assertEquals(49.28, e.getMaxY(), 0.01);
+
+        Envelope f = new Envelope(490967.4065, 491909.5552, 5457747.3926, 5458839.7600);
+        assertEquals(e, Proj.reproject(f, "epsg:3157", "epsg:4326"));
+    }
+
+    @Test
+    public void testReprojectEnvelopeDensified() throws Exception {
+        // parallels are curved in utm, the bottom edge of a wide lon/lat box sags below its corners
+        Envelope e = new Envelope(-130, -110, 40, 60);
+        CoordinateReferenceSystem utm = Proj.crs("epsg:3157");
+
+        Envelope corners = Proj.reproject(e, Proj.EPSG_4326, utm, 0);
+        Envelope dense = Proj.reproject(e, Proj.EPSG_4326, utm);
+        assertTrue(dense.contains(corners));
+        assertTrue(dense.getMinY() < corners.getMinY());
+
+        GeomBuilder gb = new GeomBuilder();
+        Point bottom = Proj.reproject(gb.point(-123, 40).toPoint(), Proj.EPSG_4326, utm);
+        assertTrue(!corners.contains(bottom.getCoordinate()));
+    }
+
+    @Test
+    public void testReprojectEnvelopePole() throws Exception {
+        CoordinateReferenceSystem polar = Proj.crs("epsg:3413");
+        Envelope e = new Envelope(-1000000, 1000000, -1000000, 1000000);
+
+        List<Bounds> all = Proj.reprojectAll(e, polar, Proj.EPSG_4326, Proj.DENSITY);
+        assertEquals(1, all.size());
+        assertEquals(90, all.get(0).getMaxY(), 0);
+        assertEquals(-180, all.get(0).getMinX(), 0);
+        assertEquals(180, all.get(0).getMaxX(), 0);
+    }
+
+    @Test
+    public void testReprojectEnvelopeAntimeridian() throws Exception {
+        // utm zone 1 straddles the antimeridian at its western edge
+        CoordinateReferenceSystem utm = Proj.crs("epsg:32601");
+        Envelope e = new Envelope(100000, 600000, 5000000, 6000000);
+
+        List<Bounds> all = Proj.reprojectAll(e, utm, Proj.EPSG_4326, Proj.DENSITY);
+        assertEquals(2, all.size());
+        assertEquals(180, all.get(0).getMaxX(), 0);
+        assertTrue(all.get(0).getMinX() > 170);
+        assertEquals(-180, all.get(1).getMinX(), 0);
+        assertTrue(all.get(1).getMaxX() < -170);
     }
 
     @Test
@@ -154,5 +213,95 @@ public class ProjTest {
     String dq(String str) {
         return str.replaceAll("'", "\"");
     }
-    
+
+    @Test
+    public void testCache() {
+        ProjCache<String,CoordinateReferenceSystem> cache = Proj.crsCache();
+
+        CoordinateReferenceSystem crs = Proj.crs("EPSG:3005");
+        long hits = cache.hits();
+        assertSame(crs, Proj.crs("epsg:3005"));
+        assertSame(crs, Proj.crs(3005));
+        assertEquals(hits + 2, cache.hits());
+
+        Proj.preload("EPSG:26910", "EPSG:0");
+        hits = cache.hits();
+        assertNotNull(Proj.crs("EPSG:26910"));
+        assertEquals(hits + 1, cache.hits());
+
+        CoordinateTransform tx = Proj.transform(Proj.EPSG_4326, crs);
+        hits = Proj.transformCache().hits();
+        assertSame(tx, Proj.transform(Proj.EPSG_4326, crs));
+        assertEquals(hits + 1, Proj.transformCache().hits());
+    }
+
+    @Test
+    public void testCacheConcurrent() throws Exception {
+        final GeomBuilder gb = new GeomBuilder();
+        final Point expected = Proj.reproject(gb.point(-117, 63.15).toPoint(), "epsg:4326", "epsg:3157");
+
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(exec.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 500; j++) {
+                            Point p = Proj.reproject(gb.point(-117, 63.15).toPoint(), "epsg:4326", "epsg:3157");
+                            if (!p.equalsExact(expected)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get());
+            }
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTransformSequences() {
+        CoordinateTransform tx = Proj.transform(Proj.EPSG_4326, Proj.crs("epsg:3157"));
+        Coordinate[] coords = new Coordinate[100];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = new Coordinate(-120 + i * 0.05, 60 + i * 0.01);
+        }
+
+        GeometryFactory array = new GeometryFactory();
+        GeometryFactory packed = new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+        LineString a = Proj.transform(array.createLineString(coords), tx);
+        CoordinateTransformer txr = new CoordinateTransformer(tx);
+        for (int i = 0; i < coords.length; i++) {
+            Coordinate c = new Coordinate(coords[i]);
+            txr.filter(c);
+            assertTrue(c.equals2D(a.getCoordinateN(i)));
+        }
+        LineString b = Proj.transform(packed.createLineString(coords), tx);
+        assertTrue(a.equalsExact(b, 1e-6));
+        assertTrue(a.getEnvelopeInternal().equals(b.getEnvelopeInternal()));
+    }
+
+    @Test
+    public void testTransformParallel() {
+        CoordinateTransform tx = Proj.transform(Proj.EPSG_4326, Proj.crs("epsg:3157"));
+        Coordinate[] coords = new Coordinate[5000];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = new Coordinate(-120 + i * 0.001, 60 + i * 0.0005);
+        }
+
+        GeometryFactory packed = new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+        LineString serial = new CoordinateTransformer(tx).transform(packed.createLineString(coords));
+        LineString parallel = new CoordinateTransformer(tx).parallelThreshold(100)
+            .transform(packed.createLineString(coords));
+
+        assertTrue(serial.equalsExact(parallel));
+    }
 }
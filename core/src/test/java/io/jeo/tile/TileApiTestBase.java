@@ -77,4 +77,29 @@ public abstract class TileApiTestBase {
         assertNotNull(data.read(0, 0, 0));
         assertNull(data.read(0, 0, 1));
     }
+
+    @Test
+    public void testWrite() throws Exception {
+        byte[] png = new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3};
+
+        TileWriteCursor c = data.update();
+        for (int x = 0; x < 4; x++) {
+            c.next().z(1).x(x).y(1).data(png).mimeType("image/png");
+            c.write();
+        }
+        c.close();
+
+        for (int x = 0; x < 4; x++) {
+            Tile t = data.read(1, x, 1);
+            assertNotNull(t);
+            assertArrayEquals(png, t.data());
+        }
+        assertNotNull(data.read(0, 0, 0));
+
+        c = data.update();
+        c.next().z(0).x(0).y(0);
+        c.remove().close();
+        assertNull(data.read(0, 0, 0));
+        assertNotNull(data.read(0, 1, 0));
+    }
 }
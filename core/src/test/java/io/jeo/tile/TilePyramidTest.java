@@ -83,6 +83,28 @@ public class TilePyramidTest {
         assertEquals(1, cov.y1());
     }
 
+    @Test
+    public void testOrigin() {
+        tp.origin(TilePyramid.Origin.TOP_LEFT);
+        assertEnvelope(tp.bounds(new Tile(1, 0, 0, null, null)), -180.0, 0.0, -90.0, 90.0);
+        assertEnvelope(tp.bounds(new Tile(1, 3, 1, null, null)),  90.0, -90.0, 180.0, 0.0);
+
+        TileCover cov = tp.cover(new Bounds(-170, -100, 10, 80), 1);
+        assertEquals(0, cov.x0());
+        assertEquals(0, cov.y0());
+        assertEquals(0, cov.x1());
+        assertEquals(0, cov.y1());
+
+        tp.origin(TilePyramid.Origin.BOTTOM_RIGHT);
+        assertEnvelope(tp.bounds(new Tile(1, 0, 0, null, null)), 90.0, -90.0, 180.0, 0.0);
+
+        cov = tp.cover(new Bounds(-170, -100, 10, 80), 1);
+        assertEquals(3, cov.x0());
+        assertEquals(1, cov.y0());
+        assertEquals(3, cov.x1());
+        assertEquals(1, cov.y1());
+    }
+
     void assertEnvelope(Bounds e, double x1, double y1, double x2, double y2) {
         assertEquals(x1, e.getMinX(), 0.1);
         assertEquals(x2, e.getMaxX(), 0.1);
@@ -0,0 +1,171 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.vector;
+
+import io.jeo.TestData;
+import io.jeo.geom.Bounds;
+import io.jeo.geom.Geom;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachedVectorDatasetTest extends VectorApiTestBase {
+
+    @Override
+    protected VectorDataset createVectorData() throws Exception {
+        return new CachedVectorDataset(TestData.states(), 64 * 1024 * 1024);
+    }
+
+    @Test
+    public void testHitMiss() throws Exception {
+        CachedVectorDataset cache = (CachedVectorDataset) data;
+
+        // a partially read cursor is not cached
+        FeatureCursor c = cache.read(new VectorQuery().filter("SAMP_POP > 2000000"));
+        c.next();
+        c.close();
+        assertEquals(0, cache.hits());
+
+        long count = cache.delegate().count(new VectorQuery().filter("SAMP_POP > 2000000"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(count, cache.read(new VectorQuery().filter("SAMP_POP > 2000000")).count());
+            assertEquals(count, cache.count(new VectorQuery().filter("SAMP_POP > 2000000")));
+        }
+        assertEquals(4, cache.hits());
+        assertEquals(3, cache.misses());
+        assertTrue(cache.memory() > 0);
+
+        cache.bounds();
+        assertEquals(cache.delegate().bounds(), cache.bounds());
+        assertEquals(5, cache.hits());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        VectorDataset states = TestData.states();
+
+        long total = 0;
+        for (Feature f : states.read(new VectorQuery())) {
+            total += CachedVectorDataset.sizeOf(f);
+        }
+
+        CachedVectorDataset cache = new CachedVectorDataset(states, total / 2);
+
+        // whole dataset exceeds the budget
+        cache.read(new VectorQuery()).count();
+        cache.read(new VectorQuery()).count();
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.memory());
+
+        cache.read(new VectorQuery().limit(20)).count();
+        cache.read(new VectorQuery().limit(21)).count();
+        assertEquals(1, cache.evictions());
+        assertTrue(cache.memory() <= total / 2);
+
+        // most recent entry retained
+        cache.read(new VectorQuery().limit(21)).count();
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void testTTL() throws Exception {
+        CachedVectorDataset cache = (CachedVectorDataset) data;
+        cache.ttl(1, TimeUnit.MILLISECONDS);
+
+        cache.count(new VectorQuery());
+        Thread.sleep(10);
+        cache.count(new VectorQuery());
+
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testCopies() throws Exception {
+        CachedVectorDataset cache = (CachedVectorDataset) data;
+        VectorQuery q = new VectorQuery().filter("STATE_ABBR = 'TX'");
+        assertEquals(1, cache.read(q).count());
+
+        Feature first = cache.read(q).first().get();
+        assertEquals("Texas", first.get("STATE_NAME"));
+        first.put("STATE_NAME", "Jeo");
+
+        Feature second = cache.read(q).first().get();
+        assertEquals("Texas", second.get("STATE_NAME"));
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        final CachedVectorDataset cache = (CachedVectorDataset) data;
+        final VectorQuery q = new VectorQuery().bounds(new Bounds(-100, -80, 30, 45)).simplify(0.1);
+        final long count = cache.delegate().count(q);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        long n = 0;
+                        for (Feature f : cache.read(q)) {
+                            assertNotNull(f.geometry());
+                            assertTrue(f.geometry().isValid());
+                            n++;
+                        }
+                        return n;
+                    }
+                }));
+            }
+            for (Future<Long> f : results) {
+                assertEquals(count, f.get().longValue());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.hits() > 0);
+    }
+
+    @Test
+    public void testInvalidateOnWrite() throws Exception {
+        CachedVectorDataset cache = (CachedVectorDataset) data;
+        assertEquals(49, cache.count(new VectorQuery()));
+        assertEquals(49, cache.read(new VectorQuery()).count());
+
+        FeatureAppendCursor c = cache.append(new VectorQuery());
+        Feature f = c.next();
+        f.put("STATE_NAME", "Jeo");
+        f.put(Geom.point(0, 0));
+        c.write();
+        c.close();
+
+        assertEquals(0, cache.memory());
+        assertEquals(50, cache.count(new VectorQuery()));
+        assertEquals(50, cache.read(new VectorQuery()).count());
+        assertEquals(0, cache.hits());
+    }
+}
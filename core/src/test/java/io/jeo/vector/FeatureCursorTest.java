@@ -14,14 +14,35 @@
  */
 package io.jeo.vector;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import io.jeo.data.Cursor;
+import io.jeo.data.Sort;
 import io.jeo.geom.Geom;
+import io.jeo.geom.GeomBuilder;
+import io.jeo.geom.Simplifier;
 import io.jeo.data.Cursors;
 import io.jeo.proj.Proj;
+import io.jeo.util.Predicate;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FeatureCursorTest {
 
@@ -37,4 +58,351 @@ public class FeatureCursorTest {
         assertEquals(Proj.EPSG_900913, Features.crs(f));
         assertEquals(Proj.EPSG_900913, Features.schema("feature", f).crs());
     }
+
+    @Test
+    public void testSort() throws Exception {
+        List<Feature> features = randomFeatures(100);
+
+        // in memory, spilled, and spilled with a multi pass merge
+        for (int bufferSize : new int[]{1000, 7, 1}) {
+            FeatureCursor c = FeatureCursor.wrap(Cursors.create(features))
+                .sort(Arrays.asList(new Sort("-cat"), new Sort("num")), bufferSize);
+
+            Feature prev = null;
+            int count = 0;
+            while (c.hasNext()) {
+                Feature f = c.next();
+                if (prev != null) {
+                    int cmp = ((String)prev.get("cat")).compareTo((String) f.get("cat"));
+                    assertTrue(cmp >= 0);
+                    if (cmp == 0 && prev.get("num") != null) {
+                        assertTrue(f.get("num") != null);
+                        assertTrue((Integer) prev.get("num") <= (Integer) f.get("num"));
+                    }
+                }
+
+                Geometry g = f.geometry();
+                assertEquals(Proj.EPSG_4326, Proj.crs(g));
+                assertTrue(f.get("date") instanceof Date);
+
+                prev = f;
+                count++;
+            }
+            c.close();
+            assertEquals(100, count);
+        }
+    }
+
+    @Test
+    public void testSortNullId() throws Exception {
+        List<Feature> features = new ArrayList<>();
+        for (Feature f : randomFeatures(10)) {
+            features.add(new FeatureWrapper<Feature>(f) {
+                @Override
+                public String id() {
+                    return null;
+                }
+            });
+        }
+
+        FeatureCursor c = FeatureCursor.wrap(Cursors.create(features)).sort(Arrays.asList(new Sort("num")), 1);
+        assertEquals(10, Iterables.size(c));
+        c.close();
+    }
+
+    @Test
+    public void testSortStable() throws Exception {
+        Schema schema = Schema.build("test").field("key", Integer.class).field("seq", Integer.class).schema();
+        List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < 3 * SortCursor.MAX_MERGE + 10; i++) {
+            features.add(new ListFeature(schema, i % 3, i));
+        }
+
+        // one run per feature, more than can be merged at once
+        FeatureCursor c = FeatureCursor.wrap(Cursors.create(features)).sort(Arrays.asList(new Sort("key")), 1);
+        Feature prev = null;
+        int count = 0;
+        while (c.hasNext()) {
+            Feature f = c.next();
+            if (prev != null) {
+                int cmp = ((Integer) prev.get("key")).compareTo((Integer) f.get("key"));
+                assertTrue(cmp <= 0);
+                if (cmp == 0) {
+                    assertTrue((Integer) prev.get("seq") < (Integer) f.get("seq"));
+                }
+            }
+            prev = f;
+            count++;
+        }
+        c.close();
+        assertEquals(features.size(), count);
+    }
+
+    @Test
+    public void testSortEmpty() throws Exception {
+        FeatureCursor c = FeatureCursor.empty().sort(Arrays.asList(new Sort("num")));
+        assertFalse(c.hasNext());
+        c.close();
+    }
+
+    @Test
+    public void testSimplify() throws Exception {
+        // a circle with many vertices
+        GeomBuilder gb = Geom.build();
+        for (int i = 0; i < 1000; i++) {
+            double a = 2 * Math.PI * i / 1000d;
+            gb.point(Math.cos(a) * 10, Math.sin(a) * 10);
+        }
+        Polygon poly = gb.ring().toPolygon();
+        Proj.crs(poly, Proj.EPSG_4326);
+
+        Schema schema = Schema.build("test").field("geo", Polygon.class).schema();
+        Feature f = new ListFeature(schema, poly);
+
+        for (Simplifier s : Simplifier.values()) {
+            Feature simple = FeatureCursor.wrap(Cursors.single(f)).simplify(2, s).first().get();
+
+            Geometry g = simple.geometry();
+            assertTrue(g instanceof Polygon);
+            assertTrue(g.isValid());
+            assertTrue(s.name(), g.getNumPoints() < poly.getNumPoints() / 10);
+            assertTrue(s.name(), g.getNumPoints() >= 4);
+            assertEquals(Proj.EPSG_4326, Proj.crs(g));
+
+            // simplified once per feature
+            assertTrue(g == simple.geometry());
+        }
+
+        // tiny rings are left intact rather than collapsed
+        Polygon tiny = Geom.build().points(0,0, 0.1,0, 0.1,0.1, 0,0.1, 0,0).toPolygon();
+        assertTrue(tiny.equalsExact(Simplifier.GRID.simplify(tiny, 10)));
+    }
+
+    @Test
+    public void testSimplifyQueryPlan() throws Exception {
+        Feature f = new ListFeature(Schema.build("test").field("geo", Geometry.class).schema(),
+            Geom.lineString(0,0, 0.1,0.1, 0.2,0.2, 5,0, 10,0));
+
+        VectorQuery q = new VectorQuery().simplify(1d, Simplifier.GRID);
+        Feature simple = new VectorQueryPlan(q).apply(FeatureCursor.wrap(Cursors.single(f))).first().get();
+        assertEquals(3, simple.geometry().getNumPoints());
+
+        VectorQueryPlan qp = new VectorQueryPlan(q);
+        qp.simplified();
+        simple = qp.apply(FeatureCursor.wrap(Cursors.single(f))).first().get();
+        assertEquals(5, simple.geometry().getNumPoints());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        List<Feature> features = randomFeatures(100);
+
+        for (int[] opts : new int[][]{{1, 1}, {10, 1}, {10, 3}, {1000, 64}}) {
+            FeatureCursor c = FeatureCursor.wrap(Cursors.create(features)).prefetch(opts[0], opts[1], null);
+
+            List<Feature> read = new ArrayList<>();
+            while (c.hasNext()) {
+                read.add(c.next());
+            }
+            assertFalse(c.hasNext());
+            assertNull(c.next());
+            c.close();
+
+            assertEquals(features, read);
+        }
+    }
+
+    @Test
+    public void testPrefetchError() throws Exception {
+        FeatureCursor c = new ErrorCursor(FeatureCursor.wrap(Cursors.create(randomFeatures(10))), 5)
+            .prefetch(2);
+
+        int count = 0;
+        try {
+            while (c.hasNext()) {
+                c.next();
+                count++;
+            }
+            fail();
+        }
+        catch(IOException e) {
+            assertEquals("error", e.getMessage());
+        }
+        finally {
+            c.close();
+        }
+        assertEquals(5, count);
+    }
+
+    @Test
+    public void testPrefetchClose() throws Exception {
+        ErrorCursor delegate = new ErrorCursor(FeatureCursor.wrap(Cursors.create(randomFeatures(100))), -1);
+        FeatureCursor c = delegate.prefetch(2);
+
+        assertTrue(c.hasNext());
+        c.next();
+        c.close();
+
+        assertTrue(delegate.closed);
+        assertFalse(c.hasNext());
+    }
+
+    @Test
+    public void testPrefetchCloseInterrupted() throws Exception {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+
+        // blocks reading the second feature
+        ErrorCursor delegate = new ErrorCursor(FeatureCursor.wrap(Cursors.create(randomFeatures(10))), -1) {
+            @Override
+            public boolean hasNext() throws IOException {
+                if (count == 1) {
+                    reading.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return super.hasNext();
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                released.countDown();
+            }
+        };
+        FeatureCursor c = delegate.prefetch(2, 1, null);
+
+        assertTrue(c.hasNext());
+        c.next();
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+        Thread.currentThread().interrupt();
+        c.close();
+        assertTrue(Thread.interrupted());
+
+        // the producer is still reading, it closes the delegate once done
+        assertFalse(delegate.closed);
+        resume.countDown();
+        assertTrue(released.await(10, TimeUnit.SECONDS));
+        assertFalse(c.hasNext());
+    }
+
+    @Test
+    public void testNextBatch() throws Exception {
+        List<Feature> features = randomFeatures(100);
+        Predicate<Feature> filter = new Predicate<Feature>() {
+            @Override
+            public boolean test(Feature f) {
+                Integer num = (Integer) f.get("num");
+                return num != null && num > 500;
+            }
+        };
+
+        List<Feature> expected = Lists.newArrayList(FeatureCursor.wrap(Cursors.create(features))
+            .filter(filter).skip(3).limit(20).select(Arrays.asList("cat", "num")));
+
+        FeatureCursor c = FeatureCursor.wrap(Cursors.create(features))
+            .filter(filter).skip(3).limit(20).select(Arrays.asList("cat", "num"));
+
+        List<Feature> actual = new ArrayList<>();
+        FeatureBatch batch;
+        while ((batch = c.nextBatch(7)) != null) {
+            assertEquals(2, batch.schema().size());
+            assertTrue(batch.size() > 0 && batch.size() <= 7);
+
+            int num = batch.schema().indexOf("num");
+            assertTrue(batch.ints(num) != null);
+            for (int i = 0; i < batch.size(); i++) {
+                assertTrue(batch.getInt(batch.row(i), num) > 500);
+            }
+            Iterables.addAll(actual, batch.cursor());
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).id(), actual.get(i).id());
+            assertEquals(expected.get(i).map(), actual.get(i).map());
+        }
+    }
+
+    @Test
+    public void testFeatureBatchColumns() throws Exception {
+        Schema schema = Schema.build("test").field("name", String.class).field("num", Integer.class).schema();
+        FeatureBatch batch = new FeatureBatch(schema, 2);
+
+        batch.set(batch.add("1"), 1, 5);
+        batch.set(batch.add("2"), 0, "two");
+        assertTrue(batch.isFull());
+
+        assertTrue(batch.ints(1) != null);
+        assertEquals(5, batch.getInt(0, 1));
+        assertTrue(batch.isNull(1, 1));
+        assertNull(batch.get(1, 1));
+
+        // a value not of the declared type turns the column into an object column
+        batch.set(1, 1, 7L);
+        assertNull(batch.ints(1));
+        assertEquals(5, batch.get(0, 1));
+        assertEquals(7L, batch.get(1, 1));
+
+        try {
+            batch.add("3");
+            fail();
+        }
+        catch(IllegalStateException expected) {}
+    }
+
+    static class ErrorCursor extends FeatureCursor {
+
+        Cursor<Feature> delegate;
+        int failAt;
+        int count;
+        boolean closed;
+
+        ErrorCursor(Cursor<Feature> delegate, int failAt) {
+            this.delegate = delegate;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            if (count == failAt) {
+                throw new IOException("error");
+            }
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Feature next() throws IOException {
+            count++;
+            return delegate.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            delegate.close();
+        }
+    }
+
+    List<Feature> randomFeatures(int n) {
+        Schema schema = Schema.build("test").field("geo", Point.class).field("cat", String.class)
+            .field("num", Integer.class).field("date", Date.class).schema();
+
+        Random r = new Random(0);
+        List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Point p = Geom.point(r.nextDouble(), r.nextDouble());
+            Proj.crs(p, Proj.EPSG_4326);
+
+            // leave some nulls in to ensure they are ordered first
+            Integer num = i % 10 == 0 ? null : r.nextInt(1000);
+            features.add(new ListFeature(schema, p, "cat" + r.nextInt(5), num, new Date(r.nextInt())));
+        }
+        return features;
+    }
 }
@@ -246,6 +246,109 @@ public abstract class VectorApiTestBase {
         assertEquals(3792553, ((Number)next.get("SAMP_POP")).intValue());
     }
 
+    @Test
+    public void testSort() throws Exception {
+        String prev = null;
+        int count = 0;
+        for (Feature f : data.read(new VectorQuery().sort("STATE_NAME"))) {
+            String name = (String) f.get("STATE_NAME");
+            if (prev != null) {
+                assertTrue(prev + " > " + name, prev.compareTo(name) <= 0);
+            }
+            prev = name;
+            count++;
+        }
+        assertEquals(49, count);
+        assertEquals("Wyoming", prev);
+
+        // paging must apply to the sorted result
+        assertEquals("Wyoming",
+            data.read(new VectorQuery().sort("-STATE_NAME").limit(1)).first().get().get("STATE_NAME"));
+        assertEquals("Wisconsin",
+            data.read(new VectorQuery().sort("-STATE_NAME").offset(1).limit(1)).first().get().get("STATE_NAME"));
+
+        // sort combined with a filter and field selection
+        Cursor<Feature> c = data.read(new VectorQuery().fields("STATE_NAME")
+            .filter("STATE_ABBR IN ('TX','CA','NY')").sort("SAMP_POP"));
+        try {
+            for (String name : new String[]{"Texas", "New York", "California"}) {
+                assertTrue(c.hasNext());
+                assertEquals(name, c.next().get("STATE_NAME"));
+            }
+            assertFalse(c.hasNext());
+        }
+        finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testReadBatch() throws Exception {
+        assertEquals(49, countBatches(data.read(new VectorQuery()), 10));
+        assertEquals(39, countBatches(data.read(new VectorQuery().offset(10)), 8));
+        VectorQuery q = new VectorQuery().offset(10).limit(15);
+        assertEquals(data.read(q).count(), countBatches(data.read(q), 4));
+        assertEquals(2, countBatches(data.read(new VectorQuery().filter("P_MALE > P_FEMALE")), 5));
+
+        FeatureCursor c = data.read(new VectorQuery().fields("STATE_NAME", "SAMP_POP").filter("STATE_ABBR = 'CA'"));
+        try {
+            FeatureBatch batch = c.nextBatch(10);
+            assertNotNull(batch);
+            assertEquals(1, batch.size());
+
+            int i = batch.schema().indexOf("SAMP_POP");
+            assertTrue(i > -1);
+            assertEquals(3792553, batch.getInt(batch.row(0), i));
+
+            Feature f = batch.cursor().next();
+            assertEquals(2, f.map().size());
+            assertEquals("California", f.get("STATE_NAME"));
+
+            assertNull(c.nextBatch(10));
+        }
+        finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        VectorQuery q = new VectorQuery().filter("STATE_ABBR IN ('TX','CA','NY')").sort("STATE_NAME").limit(2);
+
+        // metrics are only collected on demand
+        FeatureCursor c = data.read(q);
+        assertNotNull(c.plan());
+        assertTrue(c.plan().stages().isEmpty());
+        c.close();
+
+        c = data.read(q.explain(true));
+        VectorQueryPlan plan = c.plan();
+        assertNotNull(plan);
+        assertEquals(2, c.count());
+
+        assertFalse(plan.stages().isEmpty());
+        assertEquals("native", plan.stages().get(0).name());
+
+        VectorQueryPlan.Stage last = plan.stages().get(plan.stages().size()-1);
+        assertEquals(2, last.out());
+        assertTrue(plan.toString().contains("limit"));
+    }
+
+    int countBatches(FeatureCursor cursor, int n) throws IOException {
+        int count = 0;
+        try {
+            FeatureBatch batch;
+            while ((batch = cursor.nextBatch(n)) != null) {
+                assertTrue(batch.size() <= n);
+                count += batch.size();
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return count;
+    }
+
     void assertNotCovered(Cursor<Feature> cursor, String... abbrs) throws IOException {
         final Set<String> set = Sets.newHashSet(abbrs);
         try {
@@ -20,6 +20,7 @@ import java.io.IOException;
 import io.jeo.vector.Feature;
 
 import com.csvreader.CsvReader;
+import io.jeo.vector.FeatureBatch;
 import io.jeo.vector.FeatureCursor;
 
 public class CSVCursor extends FeatureCursor {
@@ -55,6 +56,24 @@ public class CSVCursor extends FeatureCursor {
         }
     }
 
+    @Override
+    public FeatureBatch nextBatch(int n) throws IOException {
+        FeatureBatch batch = null;
+        if (next != null) {
+            batch = new FeatureBatch(csv.schema, n);
+            batch.add(next);
+            next = null;
+        }
+
+        while ((batch == null || !batch.isFull()) && reader.readRecord()) {
+            if (batch == null) {
+                batch = new FeatureBatch(csv.schema, n);
+            }
+            csv.fill(batch, i++, reader);
+        }
+        return batch;
+    }
+
     @Override
     public void close() {
         if (reader != null) {
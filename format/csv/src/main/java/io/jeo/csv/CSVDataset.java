@@ -27,6 +27,7 @@ import io.jeo.util.Key;
 import io.jeo.util.Util;
 import io.jeo.vector.Feature;
 import io.jeo.vector.FeatureAppendCursor;
+import io.jeo.vector.FeatureBatch;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.FeatureWriteCursor;
 import io.jeo.vector.ListFeature;
@@ -35,6 +36,7 @@ import io.jeo.vector.SchemaBuilder;
 import io.jeo.vector.VectorDataset;
 import io.jeo.vector.VectorQuery;
 import io.jeo.vector.VectorQueryPlan;
+import io.jeo.vector.VectorStats;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
 
 import com.csvreader.CsvReader;
@@ -51,6 +53,9 @@ public class CSVDataset implements VectorDataset, FileData {
     /** the feature schema */
     Schema schema;
 
+    /** statistics of the features */
+    VectorStats stats;
+
     /** handler for specific csv flavor */
     CSVHandler handler;
 
@@ -122,14 +127,29 @@ public class CSVDataset implements VectorDataset, FileData {
 
     @Override
     public Bounds bounds() throws IOException {
-        return read(new VectorQuery()).bounds();
+        return stats().bounds();
     }
 
     @Override
     public long count(VectorQuery q) throws IOException {
+        if (q.isAll()) {
+            return q.adjustCount(stats().count());
+        }
         return read(q).count();
     }
 
+    /**
+     * Statistics of the dataset, computed with a single scan of the file and persisted in a sidecar file.
+     *
+     * @see VectorStats#load(VectorDataset, File, CoordinateReferenceSystem)
+     */
+    public synchronized VectorStats stats() throws IOException {
+        if (stats == null || !stats.isCurrent(file)) {
+            stats = VectorStats.load(this, file, crs());
+        }
+        return stats;
+    }
+
     @Override
     public FeatureCursor read(VectorQuery q) throws IOException {
         CsvReader reader = reader();
@@ -137,7 +157,7 @@ public class CSVDataset implements VectorDataset, FileData {
             reader.readHeaders();
         }
 
-        return new VectorQueryPlan(q).apply(new CSVCursor(reader, this));
+        return new VectorQueryPlan(q).apply(new CSVCursor(reader, this), schema);
     }
 
     @Override
@@ -162,21 +182,33 @@ public class CSVDataset implements VectorDataset, FileData {
         values.add(handler.geom(r));
 
         for (String val : r.getValues()) {
-            Object parsed = null;
+            values.add(parse(val));
+        }
+
+        return new ListFeature(String.valueOf(i), schema, values);
+    }
+
+    void fill(FeatureBatch batch, int i, CsvReader r) throws IOException {
+        int row = batch.add(String.valueOf(i));
+        batch.set(row, 0, handler.geom(r));
+
+        String[] vals = r.getValues();
+        for (int j = 0; j < vals.length && j + 1 < schema.size(); j++) {
+            batch.set(row, j + 1, parse(vals[j]));
+        }
+    }
+
+    Object parse(String val) {
+        try {
+            return Integer.parseInt(val);
+        }
+        catch(NumberFormatException e1) {
             try {
-                parsed = Integer.parseInt(val);
+                return Double.parseDouble(val);
             }
-            catch(NumberFormatException e1) {
-                try {
-                    parsed = Double.parseDouble(val);
-                }
-                catch(NumberFormatException e2) {
-                    parsed = val;
-                }
+            catch(NumberFormatException e2) {
+                return val;
             }
-            values.add(parsed);
         }
-
-        return new ListFeature(String.valueOf(i), schema, values);
     }
 }
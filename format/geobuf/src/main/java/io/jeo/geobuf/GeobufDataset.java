@@ -28,10 +28,10 @@ import io.jeo.util.Util;
 import io.jeo.vector.FeatureAppendCursor;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.FeatureWriteCursor;
-import io.jeo.vector.Features;
 import io.jeo.vector.VectorQuery;
 import io.jeo.vector.VectorDataset;
 import io.jeo.vector.Schema;
+import io.jeo.vector.VectorStats;
 import io.jeo.util.Key;
 import io.jeo.vector.VectorQueryPlan;
 import org.osgeo.proj4j.CoordinateReferenceSystem;
@@ -40,6 +40,7 @@ public class GeobufDataset implements VectorDataset, FileData {
 
     File file;
     GeobufReader reader;
+    VectorStats stats;
 
     public GeobufDataset(File file) throws IOException {
         this.file = file;
@@ -47,7 +48,8 @@ public class GeobufDataset implements VectorDataset, FileData {
 
     @Override
     public Schema schema() throws IOException {
-        return Features.schema(this).orElse(null);
+        VectorStats stats = stats();
+        return stats.count() > 0 ? stats.schema() : null;
     }
 
     @Override
@@ -77,12 +79,27 @@ public class GeobufDataset implements VectorDataset, FileData {
 
     @Override
     public Bounds bounds() throws IOException {
-        return read(new VectorQuery()).bounds();
+        return stats().bounds();
     }
 
     @Override
     public long count(VectorQuery q) throws IOException {
-      return read(q).count();
+        if (q.isAll()) {
+            return q.adjustCount(stats().count());
+        }
+        return read(q).count();
+    }
+
+    /**
+     * Statistics of the dataset, computed with a single scan of the file and persisted in a sidecar file.
+     *
+     * @see VectorStats#load(VectorDataset, File, CoordinateReferenceSystem)
+     */
+    public synchronized VectorStats stats() throws IOException {
+        if (stats == null || !stats.isCurrent(file)) {
+            stats = VectorStats.load(this, file, fileIsEmpty() ? null : crs());
+        }
+        return stats;
     }
 
     @Override
@@ -33,6 +33,7 @@ public class FeatureEntry extends Entry {
     
     Schema schema;
     PrimaryKey primaryKey;
+    Boolean spatialIndex;
 
     public FeatureEntry() {
         setDataType(DataType.Feature);
@@ -86,12 +87,21 @@ public class FeatureEntry extends Entry {
         this.primaryKey = primaryKey;
     }
 
+    Boolean hasSpatialIndex() {
+        return spatialIndex;
+    }
+
+    void setSpatialIndex(Boolean spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
     void init(FeatureEntry e) {
         super.init(e);
         setGeometryColumn(e.getGeometryColumn());
         setGeometryType(e.getGeometryType());
         setZ(e.hasZ());
         setM(e.hasM());
+        setSpatialIndex(e.hasSpatialIndex());
     }
 
     @Override
@@ -86,7 +86,7 @@ public abstract class GeoPkgBaseDriver extends FileVectorDriver<GeoPkgWorkspace>
         return ws;
     }
 
-    static final Set<Capability> CAPABILITIES = set(CREATE, DESTROY, UPDATE, APPEND, FILTER, LIMIT, OFFSET, FIELD);
+    static final Set<Capability> CAPABILITIES = set(CREATE, DESTROY, UPDATE, APPEND, FILTER, LIMIT, OFFSET, FIELD, SORT);
 
     @Override
     public Set<Capability> capabilities() {
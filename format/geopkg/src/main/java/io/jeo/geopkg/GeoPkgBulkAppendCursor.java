@@ -0,0 +1,364 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geopkg;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.jeo.geopkg.JDBCBackend.JDBCSession;
+import io.jeo.geopkg.geom.GeoPkgGeomWriter;
+import io.jeo.sql.SQL;
+import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureAppendCursor;
+import io.jeo.vector.Features;
+import io.jeo.vector.Field;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Append cursor that loads features into a geopackage in bulk.
+ * <p>
+ * Features are inserted with a single prepared statement in batches and committed periodically, with the
+ * pragmas of {@link GeoPkgBulkLoad} applied to the connection for the duration of the load. When the spatial
+ * index is deferred its insert trigger is dropped during the load and the index is updated with the loaded
+ * features on {@link #close()}, which also extends the bounds of the entry in the contents table. The cursor
+ * uses its own connection and transaction.
+ * </p>
+ * <p>
+ * The dropped trigger is committed along with the first batch of features, should the process die before the
+ * cursor is closed or aborted the trigger is recreated and the index repopulated the next time the geopackage
+ * is opened.
+ * </p>
+ */
+public class GeoPkgBulkAppendCursor extends FeatureAppendCursor {
+
+    static Logger LOG = LoggerFactory.getLogger(GeoPkgBulkAppendCursor.class);
+
+    final FeatureEntry entry;
+    final Schema schema;
+    final GeoPkgBulkLoad opts;
+    final GeoPkgWorkspace ws;
+
+    final GeoPkgGeomWriter geomWriter = new GeoPkgGeomWriter();
+    final List<Field> columns;
+
+    JDBCSession session;
+    Connection cx;
+    PreparedStatement insert;
+
+    /* pragma values to restore after the load, the connection goes back to the pool */
+    final Map<String,String> restore = new LinkedHashMap<String,String>();
+
+    /* deferred spatial index insert trigger, and the last primary key value before the load */
+    String pk;
+    String indexTrigger;
+    Long lastId;
+
+    /* extent of loaded geometries */
+    final Envelope extent = new Envelope();
+
+    long count;
+    int pending;
+
+    /* whether any of the load has been committed, along with the dropped trigger */
+    boolean committed;
+    final long start = System.nanoTime();
+
+    Feature next;
+
+    GeoPkgBulkAppendCursor(JDBCSession session, FeatureEntry entry, Schema schema, GeoPkgBulkLoad opts,
+        GeoPkgWorkspace ws) throws IOException {
+        this.session = session;
+        this.cx = session.connection;
+        this.entry = entry;
+        this.schema = schema;
+        this.opts = opts;
+        this.ws = ws;
+        this.columns = schema.fields();
+
+        boolean ok = false;
+        try {
+            pragmas();
+            session.beginTransaction();
+
+            String index = opts.isDeferIndex() ? ws.spatialIndex(entry, session) : null;
+            if (index != null) {
+                pk = ws.primaryKeyCol(entry, session).getName();
+                lastId = lastId();
+
+                indexTrigger = index + "_insert";
+                session.execute(new SQL("DROP TRIGGER IF EXISTS ").name(indexTrigger).toString());
+            }
+
+            SQL sql = new SQL("INSERT INTO ").name(entry.getTableName()).add(" (");
+            for (Field fld : columns) {
+                sql.name(fld.name()).add(", ");
+            }
+            sql.trim(2).add(") VALUES (");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.add("?,");
+            }
+            sql.trim(1).add(")");
+            insert = cx.prepareStatement(sql.toString());
+            ok = true;
+        }
+        catch(SQLException e) {
+            throw new IOException(e);
+        }
+        finally {
+            if (!ok) {
+                abort();
+            }
+        }
+    }
+
+    void pragmas() throws IOException {
+        String journalMode = pragma("journal_mode");
+
+        // leaving write-ahead logging needs exclusive access to the database, which the other pooled
+        // connections prevent, appends are cheap in that mode anyway
+        boolean wal = "wal".equalsIgnoreCase(journalMode);
+        if (opts.getJournalMode() != null && !wal && !opts.getJournalMode().equalsIgnoreCase(journalMode)) {
+            set("journal_mode", opts.getJournalMode());
+        }
+        if (opts.getSynchronous() != null) {
+            set("synchronous", opts.getSynchronous());
+        }
+        if (opts.getCacheSize() != null) {
+            set("cache_size", opts.getCacheSize());
+        }
+        if (opts.getPageSize() != null && !wal) {
+            if (!String.valueOf(opts.getPageSize()).equals(pragma("page_size"))) {
+                pragma("page_size", opts.getPageSize());
+                session.execute("VACUUM");
+            }
+        }
+    }
+
+    void set(String name, Object value) throws IOException {
+        restore.put(name, pragma(name));
+        pragma(name, value);
+    }
+
+    void pragma(String name, Object value) throws IOException {
+        value(String.format(Locale.ROOT, "PRAGMA %s = %s", name, value));
+    }
+
+    String pragma(String name) throws IOException {
+        return value("PRAGMA " + name);
+    }
+
+    Long lastId() throws IOException {
+        String max = value(new SQL("SELECT max(").name(pk).add(") FROM ").name(entry.getTableName()).toString());
+        return max != null ? Long.valueOf(max) : null;
+    }
+
+    /**
+     * Runs a statement returning its first value if any, closing the statement straight away since sqlite
+     * refuses to change the journal mode or commit while statements are pending.
+     */
+    String value(String sql) throws IOException {
+        Statement st = null;
+        try {
+            st = cx.createStatement();
+            if (!st.execute(sql)) {
+                return null;
+            }
+            ResultSet rs = st.getResultSet();
+            return rs.next() ? rs.getString(1) : null;
+        }
+        catch(SQLException e) {
+            throw new IOException(e);
+        }
+        finally {
+            if (st != null) {
+                try {
+                    st.close();
+                }
+                catch(SQLException e) {
+                    LOG.debug("Error closing statement", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of features written so far.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * The time since the load started, in milliseconds.
+     */
+    public long elapsed() {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * The average number of features written per second since the load started.
+     */
+    public double rate() {
+        long nanos = System.nanoTime() - start;
+        return nanos > 0 ? count * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public Feature next() throws IOException {
+        return next = new ListFeature(schema);
+    }
+
+    @Override
+    public GeoPkgBulkAppendCursor write() throws IOException {
+        Feature f = Features.retype(next, schema);
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                Object val = f.get(columns.get(i).name());
+                if (val instanceof Geometry) {
+                    Geometry g = (Geometry) val;
+                    if (!g.isEmpty()) {
+                        extent.expandToInclude(g.getEnvelopeInternal());
+                    }
+                    val = geomWriter.write(g);
+                }
+                insert.setObject(i + 1, val);
+            }
+            insert.addBatch();
+            count++;
+
+            if (++pending == opts.getBatchSize()) {
+                flush();
+            }
+            if (count % opts.getCommitInterval() == 0) {
+                flush();
+                cx.commit();
+                committed = true;
+                LOG.debug(String.format(Locale.ROOT, "Loaded %d features into %s, %.0f features/s", count,
+                    entry.getTableName(), rate()));
+            }
+        }
+        catch(SQLException e) {
+            throw new IOException(e);
+        }
+        return this;
+    }
+
+    void flush() throws SQLException {
+        if (pending > 0) {
+            insert.executeBatch();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (session == null) {
+            return;
+        }
+
+        boolean complete = false;
+        try {
+            flush();
+            if (indexTrigger != null) {
+                restoreIndex();
+            }
+            if (!extent.isNull()) {
+                ws.extendBounds(entry, extent, session);
+            }
+            session.endTransaction(true);
+            complete = true;
+
+            LOG.debug(String.format(Locale.ROOT, "Loaded %d features into %s in %d ms", count,
+                entry.getTableName(), elapsed()));
+        }
+        catch(SQLException e) {
+            throw new IOException(e);
+        }
+        finally {
+            if (!complete) {
+                abort();
+            }
+            else {
+                release();
+            }
+        }
+    }
+
+    void restoreIndex() throws IOException {
+        session.execute(ws.spatialIndexTriggers(entry, pk).get(indexTrigger));
+        ws.populateSpatialIndex(entry, pk, lastId, session);
+        indexTrigger = null;
+    }
+
+    /*
+     * Rolls back uncommitted inserts, committed inserts of a deferred index still need to be indexed. Without
+     * a commit the rollback restores the dropped trigger as well.
+     */
+    void abort() {
+        try {
+            session.endTransaction(false);
+            if (!committed) {
+                indexTrigger = null;
+            }
+            if (indexTrigger != null) {
+                restoreIndex();
+                session.endTransaction(true);
+            }
+        }
+        catch(Exception e) {
+            LOG.warn("Error restoring spatial index of " + entry.getTableName() + " after failed load", e);
+        }
+        release();
+    }
+
+    void release() {
+        try {
+            if (!restore.isEmpty()) {
+                cx.setAutoCommit(true);
+            }
+            for (Map.Entry<String,String> e : restore.entrySet()) {
+                pragma(e.getKey(), e.getValue());
+            }
+        }
+        catch(Exception e) {
+            LOG.debug("Error restoring pragmas", e);
+        }
+        finally {
+            if (insert != null) {
+                try {
+                    insert.close();
+                } catch (SQLException e) {
+                    LOG.debug("Error closing statement", e);
+                }
+            }
+            session.close();
+            session = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geopkg;
+
+/**
+ * Options for loading large numbers of features into a geopackage, see
+ * {@link GeoPkgWorkspace#bulkLoad(FeatureEntry, GeoPkgBulkLoad)}.
+ * <p>
+ * The defaults trade durability for speed while the load runs: the rollback journal is kept in memory and
+ * writes aren't synced to disk, so a crash during a load can corrupt the database.
+ * </p>
+ */
+public class GeoPkgBulkLoad {
+
+    int batchSize = 1000;
+    int commitInterval = 100000;
+    String journalMode = "MEMORY";
+    String synchronous = "OFF";
+    Integer cacheSize = -65536;
+    Integer pageSize;
+    boolean deferIndex = true;
+
+    /**
+     * Number of inserts sent to the database at once, defaults to 1000.
+     */
+    public GeoPkgBulkLoad batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Number of inserts between commits, defaults to 100000.
+     */
+    public GeoPkgBulkLoad commitInterval(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("commit interval must be positive");
+        }
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * Value of the <tt>journal_mode</tt> pragma during the load, defaults to <tt>MEMORY</tt>. The journal
+     * mode of the database is restored after the load. <code>null</code> leaves it unchanged, as does a
+     * database in WAL journal mode.
+     */
+    public GeoPkgBulkLoad journalMode(String journalMode) {
+        this.journalMode = pragma(journalMode);
+        return this;
+    }
+
+    /**
+     * Value of the <tt>synchronous</tt> pragma during the load, defaults to <tt>OFF</tt>. <code>null</code>
+     * leaves it unchanged.
+     */
+    public GeoPkgBulkLoad synchronous(String synchronous) {
+        this.synchronous = pragma(synchronous);
+        return this;
+    }
+
+    /**
+     * Value of the <tt>cache_size</tt> pragma during the load, in pages or when negative in kibibytes,
+     * defaults to 64 MiB. <code>null</code> leaves it unchanged.
+     */
+    public GeoPkgBulkLoad cacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    /**
+     * Page size of the database in bytes, defaults to <code>null</code> which leaves it unchanged.
+     * <p>
+     * Changing the page size of an existing database requires rebuilding it so this is best set when
+     * loading into a new geopackage. The page size can't be changed in WAL journal mode.
+     * </p>
+     */
+    public GeoPkgBulkLoad pageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Whether to update the spatial index once at the end of the load rather than with each insert,
+     * defaults to <code>true</code>.
+     * <p>
+     * The index insert trigger is dropped for the duration of the load and the drop is committed with the first
+     * batch of features. If the load is interrupted without the cursor being closed the geopackage is left
+     * without the trigger until it is next opened, when the trigger is recreated and the index repopulated.
+     * </p>
+     */
+    public GeoPkgBulkLoad deferIndex(boolean deferIndex) {
+        this.deferIndex = deferIndex;
+        return this;
+    }
+
+    static String pragma(String value) {
+        if (value != null && !value.matches("\\w+")) {
+            throw new IllegalArgumentException("Invalid pragma value: " + value);
+        }
+        return value;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isDeferIndex() {
+        return deferIndex;
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geopkg;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import io.jeo.geopkg.geom.GeoPkgGeomReader;
+import io.jeo.vector.Feature;
+import io.jeo.vector.ListFeature;
+import io.jeo.vector.Schema;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Feature read from a geopackage that decodes its geometry the first time it is accessed.
+ */
+class GeoPkgFeature extends ListFeature {
+
+    final GeoPkgGeomReader reader;
+    final int geom;
+    final String geomName;
+
+    /* encoded geometry, null once decoded or replaced */
+    volatile byte[] encoded;
+
+    GeoPkgFeature(String id, Schema schema, List<Object> values, int geom, byte[] encoded,
+        GeoPkgGeomReader reader) {
+        super(id, schema, values);
+        this.geom = geom;
+        this.geomName = schema.fields().get(geom).name();
+        this.encoded = encoded;
+        this.reader = reader;
+    }
+
+    void decode() {
+        byte[] bytes = encoded;
+        if (bytes != null) {
+            // store the geometry before clearing the encoded form, a concurrent reader either decodes the
+            // geometry as well or sees the stored one
+            try {
+                super.put(geomName, reader.read(bytes));
+            } catch (IOException e) {
+                throw new RuntimeException("Error decoding geometry of feature " + id(), e);
+            }
+            encoded = null;
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        if (index == geom) {
+            decode();
+        }
+        return super.get(index);
+    }
+
+    @Override
+    public Object get(String key) {
+        if (geomName.equals(key)) {
+            decode();
+        }
+        return super.get(key);
+    }
+
+    @Override
+    public Geometry geometry() {
+        decode();
+        return super.geometry();
+    }
+
+    @Override
+    public Feature put(String key, Object val) {
+        if (geomName.equals(key)) {
+            encoded = null;
+        }
+        return super.put(key, val);
+    }
+
+    @Override
+    public Feature put(Geometry g) {
+        encoded = null;
+        return super.put(g);
+    }
+
+    @Override
+    public Map<String, Object> map() {
+        decode();
+        return super.map();
+    }
+}
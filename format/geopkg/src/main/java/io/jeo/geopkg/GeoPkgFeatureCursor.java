@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureBatch;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.Field;
 import io.jeo.vector.ListFeature;
@@ -27,6 +28,7 @@ import io.jeo.geopkg.geom.GeoPkgGeomReader;
 import io.jeo.sql.PrimaryKey;
 import io.jeo.sql.PrimaryKeyColumn;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import io.jeo.sql.Backend.Session;
 import io.jeo.sql.Backend.Results;
@@ -48,6 +50,12 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
     // reusable buffer for generating fid
     final StringBuilder buf = new StringBuilder();
 
+    // query bounds checked against the envelope of encoded geometries, and column of the geometry
+    Envelope bounds;
+    int boundsColumn = -1;
+    // encoded geometry of the next row if already read to check bounds
+    byte[] encoded;
+
     Session session;
     boolean closeSession = true;
     Results results;
@@ -94,11 +102,32 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         return this;
     }
 
+    /**
+     * Skips rows whose geometry envelope doesn't intersect the specified bounds.
+     * <p>
+     * The envelope is read from the geometry header, or for points from their coordinate, so rows that
+     * miss are never decoded. Rows with a null or empty geometry are skipped.
+     * </p>
+     * @param bounds The query bounds.
+     * @param column The column of the geometry in the results.
+     */
+    public GeoPkgFeatureCursor bounds(Envelope bounds, int column) {
+        this.bounds = bounds;
+        this.boundsColumn = column;
+        return this;
+    }
+
     @Override
     public boolean hasNext() throws IOException {
         if (next == null) {
             try {
+                encoded = null;
                 next = results.next();
+                while (next && bounds != null && !intersects()) {
+                    next = results.next();
+                }
+            } catch (IOException e) {
+                throw e;
             } catch (Exception e) {
                 throw new IOException(e);
             }
@@ -107,6 +136,21 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         return next;
     }
 
+    boolean intersects() throws IOException {
+        byte[] bytes = results.getBytes(boundsColumn);
+        if (bytes == null) {
+            return false;
+        }
+
+        Envelope e = geomReader.envelope(bytes);
+        if (e == null || !e.intersects(bounds)) {
+            return false;
+        }
+
+        encoded = bytes;
+        return true;
+    }
+
     @Override
     public Feature next() throws IOException {
         try {
@@ -114,36 +158,23 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
                 try {
                     values.clear();
 
+                    // geometry is decoded lazily by the feature
+                    int geom = -1;
+                    byte[] bytes = null;
                     for (int i = 0; i < fields.size(); i++) {
-                        Class type = fields.get(i).type();
-                        if (Geometry.class.isAssignableFrom(type)) {
-                            byte[] bytes = results.getBytes(i);
-                            values.add(bytes != null ? geomReader.read(bytes) : null);
+                        if (geom == -1 && isGeometry(i)) {
+                            geom = i;
+                            bytes = i == boundsColumn && encoded != null ? encoded : results.getBytes(i);
+                            values.add(null);
                         }
                         else {
-                            values.add(results.getObject(i,type));
+                            values.add(value(i));
                         }
                     }
 
-                    String fid = null;
-
-                    if (!pkColumns.isEmpty()) {
-                        buf.delete(0, buf.length());
-                        for (int i = 0; i < pkColumns.size(); i++) {
-                            Object obj = results.getString(pkColumns.get(i));
-                            if (obj != null) {
-                                buf.append(obj);
-                            }
-                            buf.append(".");
-                        }
-
-                        if (buf.length() > 0) {
-                            buf.setLength(buf.length() - 1);
-                        }
-                        fid = buf.toString();
-                    }
-
-                    return feature = new ListFeature(fid, schema, values);
+                    return feature = bytes != null ?
+                        new GeoPkgFeature(fid(), schema, values, geom, bytes, geomReader) :
+                        new ListFeature(fid(), schema, values);
                 } finally {
                     next = null;
                 }
@@ -154,6 +185,61 @@ public class GeoPkgFeatureCursor extends FeatureCursor {
         }
     }
 
+    @Override
+    public FeatureBatch nextBatch(int n) throws IOException {
+        FeatureBatch batch = null;
+        while ((batch == null || !batch.isFull()) && hasNext()) {
+            if (batch == null) {
+                batch = new FeatureBatch(schema, n);
+            }
+
+            try {
+                int row = batch.add(fid());
+                for (int i = 0; i < fields.size(); i++) {
+                    batch.set(row, i, value(i));
+                }
+            } catch (Exception e) {
+                throw new IOException(e);
+            } finally {
+                next = null;
+            }
+        }
+        return batch;
+    }
+
+    boolean isGeometry(int i) {
+        return Geometry.class.isAssignableFrom(fields.get(i).type());
+    }
+
+    Object value(int i) throws Exception {
+        Class type = fields.get(i).type();
+        if (Geometry.class.isAssignableFrom(type)) {
+            byte[] bytes = results.getBytes(i);
+            return bytes != null ? geomReader.read(bytes) : null;
+        }
+        return results.getObject(i,type);
+    }
+
+    String fid() throws Exception {
+        if (pkColumns.isEmpty()) {
+            return null;
+        }
+
+        buf.delete(0, buf.length());
+        for (int i = 0; i < pkColumns.size(); i++) {
+            Object obj = results.getString(pkColumns.get(i));
+            if (obj != null) {
+                buf.append(obj);
+            }
+            buf.append(".");
+        }
+
+        if (buf.length() > 0) {
+            buf.setLength(buf.length() - 1);
+        }
+        return buf.toString();
+    }
+
     @Override
     public void close() throws IOException {
         if (results != null) {
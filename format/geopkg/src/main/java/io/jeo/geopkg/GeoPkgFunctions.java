@@ -0,0 +1,98 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geopkg;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import io.jeo.geopkg.geom.GeoPkgGeomReader;
+import org.sqlite.Function;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * The geometry functions required by the triggers of the GeoPackage rtree spatial index extension.
+ * <p>
+ * Registers <tt>ST_MinX</tt>, <tt>ST_MaxX</tt>, <tt>ST_MinY</tt>, <tt>ST_MaxY</tt> and <tt>ST_IsEmpty</tt>
+ * with a connection. The bounds functions read the envelope from the geometry header when present and
+ * otherwise from the geometry itself, and return null for null or empty geometries.
+ * </p>
+ */
+class GeoPkgFunctions {
+
+    static final String[] BOUNDS = {"ST_MinX", "ST_MaxX", "ST_MinY", "ST_MaxY"};
+
+    static void register(Connection cx) throws SQLException {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            Function.create(cx, BOUNDS[i], new Bound(i));
+        }
+        Function.create(cx, "ST_IsEmpty", new IsEmpty());
+    }
+
+    static Envelope envelope(byte[] bytes) throws SQLException {
+        try {
+            return new GeoPkgGeomReader().envelope(bytes);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    static class Bound extends Function {
+
+        final int ordinate;
+
+        Bound(int ordinate) {
+            this.ordinate = ordinate;
+        }
+
+        @Override
+        protected void xFunc() throws SQLException {
+            byte[] bytes = value_blob(0);
+            Envelope e = bytes != null ? envelope(bytes) : null;
+            if (e == null) {
+                result();
+                return;
+            }
+
+            switch(ordinate) {
+                case 0:
+                    result(e.getMinX());
+                    break;
+                case 1:
+                    result(e.getMaxX());
+                    break;
+                case 2:
+                    result(e.getMinY());
+                    break;
+                default:
+                    result(e.getMaxY());
+            }
+        }
+    }
+
+    static class IsEmpty extends Function {
+        @Override
+        protected void xFunc() throws SQLException {
+            byte[] bytes = value_blob(0);
+            if (bytes == null) {
+                result();
+            }
+            else {
+                result(envelope(bytes) == null ? 1 : 0);
+            }
+        }
+    }
+}
@@ -24,9 +24,22 @@ import io.jeo.util.Password;
 
 public class GeoPkgOpts {
 
+    /**
+     * Default maximum number of connections, per pool, to the database.
+     */
+    public static final int MAX_CONNECTIONS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Default size in bytes of the memory mapped portion of the database.
+     */
+    public static final long MMAP_SIZE = 256 * 1024 * 1024;
+
     File file;
     String user;
     Password passwd;
+    int maxConnections = MAX_CONNECTIONS;
+    boolean wal = true;
+    long mmapSize = MMAP_SIZE;
 
     public static GeoPkgOpts fromMap(Map<?,Object> map) {
         return new GeoPkgOpts(FileDriver.FILE.get(map)).user(GeoPkgBaseDriver.USER.get(map)).passwd(GeoPkgBaseDriver.PASSWD.get(map));
@@ -46,6 +59,32 @@ public class GeoPkgOpts {
         return this;
     }
 
+    /**
+     * Sets the maximum number of connections handed out at once, separately for reading and writing.
+     */
+    public GeoPkgOpts maxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /**
+     * Sets whether the database is switched to write-ahead logging, allowing reads to proceed while a
+     * write is in progress.
+     */
+    public GeoPkgOpts wal(boolean wal) {
+        this.wal = wal;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of the database memory mapped by each connection, <tt>0</tt>
+     * disables memory mapping.
+     */
+    public GeoPkgOpts mmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+        return this;
+    }
+
     public File getFile() {
         return file;
     }
@@ -58,6 +97,18 @@ public class GeoPkgOpts {
         return passwd;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public boolean isWal() {
+        return wal;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
     public Map<Key<?>,Object> toMap() {
         Map<Key<?>,Object> map = new LinkedHashMap<Key<?>, Object>();
         map.put(FileDriver.FILE, file);
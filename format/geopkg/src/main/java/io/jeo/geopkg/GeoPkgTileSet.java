@@ -51,4 +51,9 @@ public class GeoPkgTileSet extends GeoPkgDataset<TileEntry> implements TileDatas
             throws IOException {
         return geopkg.read(entry, (int)z1, (int)z2, (int)x1, (int)x2, (int)y1, (int)y2);
     }
+
+    @Override
+    public GeoPkgTileWriteCursor update() throws IOException {
+        return geopkg.update(entry);
+    }
 }
@@ -0,0 +1,117 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.geopkg;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.jeo.sql.Backend.Session;
+import io.jeo.tile.Tile;
+import io.jeo.tile.TileGrid;
+import io.jeo.tile.TileWriteCursor;
+
+/**
+ * Writes tiles to a tile entry, committing every {@link #BATCH_SIZE} tiles.
+ * <p>
+ * A tile matrix is added for zoom levels the entry doesn't define yet, derived from the nearest defined
+ * level.
+ * </p>
+ */
+public class GeoPkgTileWriteCursor extends TileWriteCursor {
+
+    /**
+     * Number of tiles written per transaction.
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    Session session;
+    TileEntry entry;
+    GeoPkgWorkspace ws;
+
+    /* zoom levels with a tile matrix */
+    final Set<Integer> levels = new HashSet<Integer>();
+    boolean levelsAdded;
+
+    int pending;
+    Tile next;
+
+    GeoPkgTileWriteCursor(Session session, TileEntry entry, GeoPkgWorkspace ws) throws IOException {
+        this.session = session;
+        this.entry = entry;
+        this.ws = ws;
+
+        if (entry.getTilePyramid() != null) {
+            for (TileGrid grid : entry.getTilePyramid().grids()) {
+                levels.add(grid.z());
+            }
+        }
+        session.beginTransaction();
+    }
+
+    @Override
+    public Tile next() throws IOException {
+        return next = new Tile();
+    }
+
+    @Override
+    public GeoPkgTileWriteCursor write() throws IOException {
+        Tile t = check(next);
+        if (levels.add(t.z())) {
+            ws.addTileMatrix(entry, t.z(), session);
+            levelsAdded = true;
+        }
+        ws.delete(entry, t, session);
+        ws.insert(entry, t, session);
+        return flush();
+    }
+
+    @Override
+    public GeoPkgTileWriteCursor remove() throws IOException {
+        ws.delete(entry, check(next), session);
+        return flush();
+    }
+
+    GeoPkgTileWriteCursor flush() throws IOException {
+        if (++pending == BATCH_SIZE) {
+            session.endTransaction(true);
+            pending = 0;
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (session != null) {
+            boolean complete = false;
+            try {
+                ws.touch(entry, session);
+                complete = true;
+            }
+            finally {
+                session.endTransaction(complete);
+                session.close();
+                session = null;
+            }
+
+            if (levelsAdded) {
+                TileEntry e = ws.tile(entry.getTableName());
+                if (e != null) {
+                    entry.setTilePyramid(e.getTilePyramid());
+                }
+            }
+        }
+    }
+}
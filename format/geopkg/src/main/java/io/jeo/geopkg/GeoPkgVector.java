@@ -58,6 +58,15 @@ public class GeoPkgVector extends GeoPkgDataset<FeatureEntry> implements VectorD
         return geopkg.append(entry, q);
     }
 
+    /**
+     * Returns a cursor that loads features into the dataset in bulk.
+     *
+     * @see GeoPkgWorkspace#bulkLoad(FeatureEntry, GeoPkgBulkLoad)
+     */
+    public GeoPkgBulkAppendCursor bulkLoad(GeoPkgBulkLoad opts) throws IOException {
+        return geopkg.bulkLoad(entry, opts);
+    }
+
     @Override
     public Transaction transaction(Map<String, Object> options) throws IOException {
         return new GeoPkgTransaction(geopkg.backend.session());
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -30,6 +31,7 @@ import io.jeo.data.Cursor;
 import io.jeo.data.Dataset;
 import io.jeo.data.FileData;
 import io.jeo.data.Handle;
+import io.jeo.data.Sort;
 import io.jeo.geom.Bounds;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.VectorQuery;
@@ -88,6 +90,12 @@ public class GeoPkgWorkspace implements Workspace, FileData {
     /** name of tile matrix set table */
     static final String TILE_MATRIX_SET = "gpkg_tile_matrix_set";
 
+    /** name of extensions table */
+    static final String EXTENSIONS = "gpkg_extensions";
+
+    /** name of the rtree spatial index extension */
+    static final String RTREE_INDEX = "gpkg_rtree_index";
+
     /** value of application_id pragma for geopackage */
     static final Integer APP_ID = 1196437808;
 
@@ -119,9 +127,64 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                 GEOMETRY_COLUMNS + ".sql",
                 GEOPACKAGE_CONTENTS + ".sql",
                 TILE_MATRIX +".sql",
-                TILE_MATRIX_SET + ".sql"
+                TILE_MATRIX_SET + ".sql",
+                EXTENSIONS + ".sql"
             );
         }
+        repairSpatialIndexes();
+    }
+
+    /**
+     * Recreates spatial index insert triggers left dropped by a bulk load that did not complete, see
+     * {@link GeoPkgBulkLoad#deferIndex(boolean)}, indexing the features inserted while the trigger was missing.
+     */
+    void repairSpatialIndexes() throws IOException {
+        List<String> tables = new ArrayList<String>();
+        try {
+            Results rs = backend.queryPrepared(format(Locale.ROOT,
+                "SELECT e.table_name FROM %s e" +
+                " WHERE e.extension_name = ?" +
+                  " AND EXISTS (SELECT 1 FROM sqlite_master WHERE type = 'table'" +
+                    " AND name = 'rtree_' || e.table_name || '_' || e.column_name)" +
+                  " AND NOT EXISTS (SELECT 1 FROM sqlite_master WHERE type = 'trigger'" +
+                    " AND name = 'rtree_' || e.table_name || '_' || e.column_name || '_insert')",
+                EXTENSIONS), RTREE_INDEX);
+            try {
+                while (rs.next()) {
+                    tables.add(rs.getString(0));
+                }
+            } finally {
+                rs.close();
+            }
+        }
+        catch(IOException e) {
+            // no extensions table
+            LOG.debug("Unable to check spatial index triggers", e);
+            return;
+        }
+
+        for (String table : tables) {
+            FeatureEntry entry = feature(table);
+            if (entry == null) {
+                continue;
+            }
+
+            LOG.warn("Restoring spatial index insert trigger of {}, missing after an incomplete bulk load", table);
+            Session session = backend.transaction();
+            try {
+                boolean complete = false;
+                try {
+                    String pk = primaryKeyCol(entry, session).getName();
+                    session.execute(spatialIndexTriggers(entry, pk).get(spatialIndexName(entry) + "_insert"));
+                    populateSpatialIndex(entry, pk, null, session);
+                    complete = true;
+                } finally {
+                    session.endTransaction(complete);
+                }
+            } finally {
+                session.close();
+            }
+        }
     }
 
     @Override
@@ -223,27 +286,35 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         }
 
         final SQL sql = new SQL("SELECT count(*) FROM ").name(entry.getTableName());
-        Session session = backend.session();
-        // if filter refers to properties not in the schema, defer to CQL filter
-        final List<Object> args = missingProperties(entry, q, session) ?
-                Collections.EMPTY_LIST : encodeQuery(sql, q, qp, primaryKey(entry, session));
+        Session session = backend.readOnlySession();
+        try {
+            // if filter refers to properties not in the schema, defer to CQL filter
+            boolean missingProperties = missingProperties(entry, q, session);
+            final List<Object> args = missingProperties ?
+                    Collections.EMPTY_LIST : encodeQuery(sql, q, qp, primaryKey(entry, session), schema(entry), null);
+            if (missingProperties) {
+                qp.warn(String.format(Locale.ROOT, "Filter %s references properties not in %s, counting all features",
+                    q.filter(), entry.getTableName()));
+            }
 
-        if (q.isFiltered() && !qp.isFiltered()) {
-            return read(entry, q).count();
-        }
+            if (q.isFiltered() && !qp.isFiltered()) {
+                backend.closeSafe(session);
+                session = null;
+                return read(entry, q).count();
+            }
 
-        Results rs = session.queryPrepared(sql.toString(), args.toArray());
-        long count;
-        if (!rs.next()) {
-            throw new IOException("expected to find a result");
-        }
-        try {
-            count = rs.getLong(0);
+            Results rs = session.queryPrepared(sql.toString(), args.toArray());
+            try {
+                if (!rs.next()) {
+                    throw new IOException("expected to find a result");
+                }
+                return rs.getLong(0);
+            } finally {
+                backend.closeSafe(rs);
+            }
         } finally {
-            backend.closeSafe(rs);
             backend.closeSafe(session);
         }
-        return count;
     }
 
     public FeatureCursor read(FeatureEntry entry, VectorQuery q) throws IOException {
@@ -253,7 +324,7 @@ public class GeoPkgWorkspace implements Workspace, FileData {
     FeatureCursor read(Session session, FeatureEntry entry, VectorQuery q) throws IOException {
         boolean closeSession = session == null;
         if (session == null) {
-            session = backend.session();
+            session = backend.readOnlySession();
         }
 
         Schema schema = schema(entry);
@@ -262,10 +333,15 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         PrimaryKey pk = primaryKey(entry, session);
         SQL sqlb = new SQL("SELECT ");
 
+        boolean bounded = !Bounds.isNull(q.bounds()) && entry.getGeometryColumn() != null;
+        // column of the geometry in the result, to check against the query bounds
+        int geomColumn = -1;
+
         List<String> queryFields = q.fieldsIn(schema);
         // working set of fields in query
         if (queryFields.isEmpty()) {
             sqlb.add(" * ");
+            geomColumn = schema.indexOf(entry.getGeometryColumn());
         } else {
             ArrayList<String> fields = new ArrayList<String>(queryFields);
             // add any primary key columns if not already there
@@ -276,6 +352,11 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                     fields.add(pkc.getName());
                 }
             }
+            // the geometry is needed to check bounds, after the primary key if not requested
+            if (bounded && !fields.contains(entry.getGeometryColumn())) {
+                fields.add(entry.getGeometryColumn());
+            }
+            geomColumn = fields.indexOf(entry.getGeometryColumn());
             for (String f : fields) {
                 sqlb.name(f).add(", ");
             }
@@ -286,24 +367,33 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         // @todo if the generated SQL would reference any missing properties then
         // we cannot do a native query (until we filter them out)
         boolean missingProperties = missingProperties(entry, q, session);
+        String index = Bounds.isNull(q.bounds()) ? null : spatialIndex(entry, session);
         List<Object> args =  missingProperties ?
-            Collections.EMPTY_LIST : encodeQuery(sqlb, q, qp, pk);
+            Collections.EMPTY_LIST : encodeQuery(sqlb, q, qp, pk, schema, index);
         // if no missing properties, tell the query plan we can do the fields
         if (!missingProperties) {
             qp.fields();
         }
+        else {
+            qp.warn(String.format(Locale.ROOT, "Filter %s references properties not in %s, reading all features",
+                q.filter(), entry.getTableName()));
+        }
 
+        qp.nativeQuery(sqlb.toString());
         Results rs = session.queryPrepared(sqlb.toString(), args.toArray());
 
         // if session != transaction, tell the cursor not to close the session
-        FeatureCursor c = new GeoPkgFeatureCursor(session, rs, entry, this, schema, pk, queryFields)
+        GeoPkgFeatureCursor c = new GeoPkgFeatureCursor(session, rs, entry, this, schema, pk, queryFields)
             .closeSession(closeSession);
 
-        if (!Bounds.isNull(q.bounds())) {
-            c = c.intersect(q.bounds(), true);
+        if (bounded) {
+            // the index only narrows down candidates, its envelopes are rounded outward, so check the
+            // envelope of each geometry before decoding it
+            c.bounds(q.bounds(), geomColumn);
+            qp.bounded();
         }
 
-        return qp.apply(c);
+        return qp.apply(c, schema);
     }
 
     public GeoPkgFeatureUpdateCursor update(FeatureEntry entry, VectorQuery q) throws IOException {
@@ -330,15 +420,64 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         return new GeoPkgFeatureAppendCursor(session, q.transaction(), entry, schema(entry), this);
     }
 
-    List<Object> encodeQuery(SQL sql, VectorQuery q, VectorQueryPlan qp, PrimaryKey pk) {
+    /**
+     * Returns a cursor that loads features into an entry in bulk, see {@link GeoPkgBulkAppendCursor}.
+     * <p>
+     * The cursor must be closed to complete the load.
+     * </p>
+     */
+    public GeoPkgBulkAppendCursor bulkLoad(FeatureEntry entry, GeoPkgBulkLoad opts) throws IOException {
+        Session session = backend.session();
+        if (!(session instanceof JDBCBackend.JDBCSession)) {
+            session.close();
+            throw new UnsupportedOperationException("Bulk loading requires a JDBC backend");
+        }
+        return new GeoPkgBulkAppendCursor((JDBCBackend.JDBCSession) session, entry, schema(entry), opts, this);
+    }
+
+    /**
+     * Extends the bounds of an entry in the contents table to include an envelope, marking the entry as
+     * changed.
+     */
+    void extendBounds(FeatureEntry entry, Envelope extent, Session session) throws IOException {
+        Bounds b = new Bounds(extent);
+        if (entry.getBounds() != null && !entry.getBounds().isNull()) {
+            b.expandToInclude(entry.getBounds());
+        }
+        entry.setBounds(b);
+        entry.lastChange(new Date());
+
+        SQL sql = new SQL("UPDATE %s", GEOPACKAGE_CONTENTS)
+            .add(" SET min_x = ?, min_y = ?, max_x = ?, max_y = ?, last_change = ? WHERE table_name = ?");
+        session.executePrepared(sql.toString(), b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY(),
+            entry.getLastChange(), entry.getTableName());
+    }
+
+    /**
+     * Encodes the query as the where, order by and limit clauses of a select.
+     *
+     * @param index The spatial index table to look up features intersecting the query bounds in, may be
+     *              <code>null</code>.
+     */
+    List<Object> encodeQuery(SQL sql, VectorQuery q, VectorQueryPlan qp, PrimaryKey pk, Schema schema,
+        String index) {
         GeoPkgFilterSQLEncoder sqlfe = new GeoPkgFilterSQLEncoder();
         sqlfe.setPrimaryKey(pk);
         sqlfe.setDbTypes(backend.dbTypes);
 
+        boolean where = false;
+        if (index != null && pk != null) {
+            Envelope b = q.bounds();
+            sql.add(" WHERE ").name(pk.getColumns().get(0).getName()).add(" IN (SELECT id FROM ").name(index)
+               .add(" WHERE minx <= %s AND maxx >= %s AND miny <= %s AND maxy >= %s)",
+                   b.getMaxX(), b.getMinX(), b.getMaxY(), b.getMinY());
+            where = true;
+        }
+
         if (!Filters.isTrueOrNull(q.filter())) {
             try {
-                String where = sqlfe.encode(q.filter(), null);
-                sql.add(" WHERE ").add(where);
+                String filter = sqlfe.encode(q.filter(), null);
+                sql.add(where ? " AND (" : " WHERE (").add(filter).add(")");
                 qp.filtered();
             }
             catch(Exception e) {
@@ -346,6 +485,20 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             }
         }
 
+        if (q.isSorted() && canSort(q.sort(), schema)) {
+            sql.add(" ORDER BY ");
+            for (Sort s : q.sort()) {
+                sql.name(s.getProperty()).add(s.isAscending() ? " ASC" : " DESC").add(", ");
+            }
+            sql.trim(2);
+            qp.sorted();
+        }
+
+        // paging before an in memory sort or bounds check would page the wrong result
+        if (!qp.canPage() || !Bounds.isNull(q.bounds())) {
+            return args(sqlfe);
+        }
+
         if (q.limit() != null) {
             sql.add(" LIMIT ").add(q.limit());
             qp.limited();
@@ -359,6 +512,10 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             qp.offsetted();
         }
 
+        return args(sqlfe);
+    }
+
+    List<Object> args(GeoPkgFilterSQLEncoder sqlfe) {
         List<Object> args = new ArrayList<Object>(sqlfe.getArgs().size());
         for (Pair<Object, Integer> p : sqlfe.getArgs()) {
             args.add(p.first);
@@ -366,6 +523,16 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         return args;
     }
 
+    boolean canSort(List<Sort> sort, Schema schema) {
+        for (Sort s : sort) {
+            Field f = schema.field(s.getProperty());
+            if (f == null || f.geometry()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     Session insert(final FeatureEntry entry, final Feature feature, Session session) throws IOException {
         if (session == null) {
             session = backend.session();
@@ -456,6 +623,7 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                 removeGeopackageContentsEntry(e, session);
                 if (e instanceof FeatureEntry) {
                     removeGeometryColumnsEntry((FeatureEntry)e, session);
+                    dropSpatialIndex((FeatureEntry)e, session);
                 }
                 removeGeopackageContentsEntry(e, session);
                 complete = true;
@@ -522,6 +690,9 @@ public class GeoPkgWorkspace implements Workspace, FileData {
                 addSpatialRefSysEntry(schema, e, session);
                 addGeometryColumnsEntry(schema, e, session);
                 addGeopackageContentsEntry(e, session);
+                if (e.getGeometryColumn() != null) {
+                    createSpatialIndex(e, findPrimaryKeyColumnName(schema), session);
+                }
                 complete = true;
             } finally {
                 session.endTransaction(complete);
@@ -554,6 +725,153 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         session.execute(sql.toString());
     }
 
+    /**
+     * Creates an rtree spatial index for a feature entry that doesn't have one, indexing any existing
+     * features.
+     * <p>
+     * The index is kept up to date by triggers on the feature table, as defined by the GeoPackage rtree
+     * spatial index extension.
+     * </p>
+     */
+    public void createSpatialIndex(FeatureEntry entry) throws IOException {
+        if (entry.getGeometryColumn() == null) {
+            throw new IllegalArgumentException("Entry " + entry.getTableName() + " has no geometry column");
+        }
+
+        Session session = backend.transaction();
+        try {
+            boolean complete = false;
+            try {
+                if (spatialIndex(entry, session) == null) {
+                    createSpatialIndex(entry, primaryKeyCol(entry, session).getName(), session);
+                }
+                complete = true;
+            } finally {
+                session.endTransaction(complete);
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * The name of the rtree spatial index table of a feature entry, or <code>null</code> if the entry has
+     * no spatial index.
+     */
+    String spatialIndex(FeatureEntry entry, Session session) throws IOException {
+        if (entry.getGeometryColumn() == null) {
+            return null;
+        }
+
+        String index = spatialIndexName(entry);
+        if (entry.hasSpatialIndex() == null) {
+            Results rs = session.queryPrepared(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", index);
+            try {
+                entry.setSpatialIndex(rs.next());
+            }
+            finally {
+                rs.close();
+            }
+        }
+        return entry.hasSpatialIndex() ? index : null;
+    }
+
+    String spatialIndexName(FeatureEntry entry) {
+        return "rtree_" + entry.getTableName() + "_" + entry.getGeometryColumn();
+    }
+
+    void createSpatialIndex(FeatureEntry entry, String pk, Session session) throws IOException {
+        String index = spatialIndexName(entry);
+
+        session.execute(new SQL("CREATE VIRTUAL TABLE ").name(index)
+            .add(" USING rtree(id, minx, maxx, miny, maxy)").toString());
+        for (String trigger : spatialIndexTriggers(entry, pk).values()) {
+            session.execute(trigger);
+        }
+
+        // index existing features
+        populateSpatialIndex(entry, pk, null, session);
+
+        session.executePrepared(new SQL("INSERT INTO %s", EXTENSIONS)
+            .add(" (table_name, column_name, extension_name, definition, scope) VALUES (?,?,?,?,?)").toString(),
+            entry.getTableName(), entry.getGeometryColumn(), RTREE_INDEX, "GeoPackage 1.0 Specification Annex L",
+            "write-only");
+
+        entry.setSpatialIndex(true);
+    }
+
+    /**
+     * Indexes the features of an entry, optionally only those with a primary key greater than
+     * <tt>after</tt>.
+     */
+    void populateSpatialIndex(FeatureEntry entry, String pk, Long after, Session session) throws IOException {
+        String c = entry.getGeometryColumn();
+        SQL sql = new SQL("INSERT OR REPLACE INTO ").name(spatialIndexName(entry)).add(" SELECT ").name(pk)
+            .add(", ST_MinX(").name(c).add("), ST_MaxX(").name(c).add("), ST_MinY(").name(c)
+            .add("), ST_MaxY(").name(c).add(") FROM ").name(entry.getTableName())
+            .add(" WHERE ").name(c).add(" NOTNULL AND NOT ST_IsEmpty(").name(c).add(")");
+        if (after != null) {
+            sql.add(" AND ").name(pk).add(" > ").add(after);
+        }
+        session.execute(sql.toString());
+    }
+
+    /**
+     * The statements creating the triggers of the rtree spatial index extension that maintain the index of
+     * an entry, by trigger name.
+     */
+    Map<String,String> spatialIndexTriggers(FeatureEntry entry, String pk) {
+        String t = entry.getTableName(), c = entry.getGeometryColumn(), index = spatialIndexName(entry);
+
+        String insert = new SQL("INSERT OR REPLACE INTO ").name(index).add(" VALUES (")
+            .add("NEW.").name(pk).add(", ")
+            .add("ST_MinX(NEW.").name(c).add("), ST_MaxX(NEW.").name(c).add("), ")
+            .add("ST_MinY(NEW.").name(c).add("), ST_MaxY(NEW.").name(c).add("));").toString();
+        String delete = new SQL("DELETE FROM ").name(index).add(" WHERE id = OLD.").name(pk).add(";").toString();
+
+        String notEmpty = new SQL("NEW.").name(c).add(" NOTNULL AND NOT ST_IsEmpty(NEW.").name(c).add(")").toString();
+        String empty = new SQL("NEW.").name(c).add(" ISNULL OR ST_IsEmpty(NEW.").name(c).add(")").toString();
+        String same = new SQL("OLD.").name(pk).add(" = NEW.").name(pk).toString();
+        String changed = new SQL("OLD.").name(pk).add(" != NEW.").name(pk).toString();
+        String updateOf = new SQL("AFTER UPDATE OF ").name(c).add(" ON ").name(t).toString();
+
+        Map<String,String> triggers = new LinkedHashMap<String,String>();
+        trigger(triggers, index, "insert", new SQL("AFTER INSERT ON ").name(t).toString(), notEmpty, insert);
+        trigger(triggers, index, "update1", updateOf, same + " AND (" + notEmpty + ")", insert);
+        trigger(triggers, index, "update2", updateOf, same + " AND (" + empty + ")", delete);
+        trigger(triggers, index, "update3", updateOf, changed + " AND (" + notEmpty + ")", delete + " " + insert);
+        trigger(triggers, index, "update4", new SQL("AFTER UPDATE ON ").name(t).toString(),
+            changed + " AND (" + empty + ")", new SQL("DELETE FROM ").name(index).add(" WHERE id IN (OLD.")
+                .name(pk).add(", NEW.").name(pk).add(");").toString());
+        trigger(triggers, index, "delete", new SQL("AFTER DELETE ON ").name(t).toString(),
+            new SQL("OLD.").name(c).add(" NOT NULL").toString(), delete);
+        return triggers;
+    }
+
+    void trigger(Map<String,String> triggers, String index, String name, String event, String when, String body) {
+        String trigger = index + "_" + name;
+        triggers.put(trigger, new SQL("CREATE TRIGGER ").name(trigger).add(" ").add(event)
+            .add(" WHEN (").add(when).add(") BEGIN ").add(body).add(" END").toString());
+    }
+
+    void dropSpatialIndex(FeatureEntry entry, Session session) throws IOException {
+        if (spatialIndex(entry, session) == null) {
+            return;
+        }
+
+        String index = spatialIndexName(entry);
+        for (String t : new String[]{"insert", "update1", "update2", "update3", "update4", "delete"}) {
+            session.execute(new SQL("DROP TRIGGER IF EXISTS ").name(index + "_" + t).toString());
+        }
+        session.execute(new SQL("DROP TABLE IF EXISTS ").name(index).toString());
+        session.executePrepared(new SQL("DELETE FROM %s", EXTENSIONS)
+            .add(" WHERE table_name = ? AND column_name = ? AND extension_name = ?").toString(),
+            entry.getTableName(), entry.getGeometryColumn(), RTREE_INDEX);
+
+        entry.setSpatialIndex(false);
+    }
+
     void dropTable(Entry entry, Session session) throws IOException {
         SQL sql = new SQL("DROP TABLE ").name(entry.getTableName());
         session.execute(sql.toString());
@@ -808,7 +1126,7 @@ public class GeoPkgWorkspace implements Workspace, FileData {
             q.add("zoom_level >= " + lowZoom);
         }
         if (highZoom != null && highZoom > -1) {
-            q.add("zoom_level <= " + lowZoom);
+            q.add("zoom_level <= " + highZoom);
         }
         if (lowCol != null && lowCol > -1) {
             q.add("tile_column >= " + lowCol);
@@ -843,6 +1161,66 @@ public class GeoPkgWorkspace implements Workspace, FileData {
         
     }
 
+    /**
+     * Returns a cursor for writing tiles of an entry, see {@link GeoPkgTileWriteCursor}.
+     */
+    public GeoPkgTileWriteCursor update(TileEntry entry) throws IOException {
+        return new GeoPkgTileWriteCursor(backend.session(), entry, this);
+    }
+
+    void insert(TileEntry entry, Tile t, Session session) throws IOException {
+        SQL sql = new SQL("INSERT INTO ").name(entry.getTableName())
+            .add(" (zoom_level, tile_column, tile_row, tile_data) VALUES (?,?,?,?)");
+        session.executePrepared(sql.toString(), t.z(), t.x(), t.y(), t.data());
+    }
+
+    void delete(TileEntry entry, Tile t, Session session) throws IOException {
+        SQL sql = new SQL("DELETE FROM ").name(entry.getTableName())
+            .add(" WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?");
+        session.executePrepared(sql.toString(), t.z(), t.x(), t.y());
+    }
+
+    /**
+     * Adds the tile matrix for a zoom level to an entry, derived from the matrix of the nearest zoom level
+     * assuming each level doubles the resolution of the one above.
+     */
+    void addTileMatrix(TileEntry entry, int z, Session session) throws IOException {
+        SQL sql = new SQL("SELECT zoom_level, matrix_width, matrix_height, tile_width, tile_height,")
+            .add(" pixel_x_size, pixel_y_size FROM %s", TILE_MATRIX)
+            .add(" WHERE table_name = ? ORDER BY abs(zoom_level - ?) LIMIT 1");
+
+        Object[] matrix;
+        Results rs = session.queryPrepared(sql.toString(), entry.getTableName(), z);
+        try {
+            if (!rs.next()) {
+                throw new IllegalArgumentException(
+                    format(Locale.ROOT, "No tile matrix for %s to derive zoom level %d from", entry.getTableName(), z));
+            }
+
+            double f = Math.pow(2, z - rs.getInt(0));
+            matrix = new Object[]{entry.getTableName(), z,
+                Math.max(1, (int) Math.round(rs.getInt(1) * f)), Math.max(1, (int) Math.round(rs.getInt(2) * f)),
+                rs.getInt(3), rs.getInt(4), rs.getDouble(5) / f, rs.getDouble(6) / f};
+        }
+        finally {
+            rs.close();
+        }
+
+        session.executePrepared(new SQL("INSERT OR IGNORE INTO %s", TILE_MATRIX)
+            .add(" (table_name, zoom_level, matrix_width, matrix_height, tile_width, tile_height,")
+            .add(" pixel_x_size, pixel_y_size) VALUES (?,?,?,?,?,?,?,?)").toString(), matrix);
+    }
+
+    /**
+     * Marks an entry as changed in the contents table.
+     */
+    void touch(Entry entry, Session session) throws IOException {
+        entry.lastChange(new Date());
+        session.executePrepared(new SQL("UPDATE %s", GEOPACKAGE_CONTENTS)
+            .add(" SET last_change = ? WHERE table_name = ?").toString(),
+            entry.getLastChange(), entry.getTableName());
+    }
+
     TileEntry createTileEntry(Results rs) throws IOException {
         final TileEntry e = new TileEntry();
         backend.initEntry(e, rs);
@@ -30,9 +30,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-import javax.sql.DataSource;
-
 import io.jeo.util.Pair;
+import io.jeo.sql.ConnectionPool;
+import io.jeo.sql.PooledConnection;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
 import org.sqlite.SQLiteDataSource;
 
 /**
@@ -41,21 +43,48 @@ import org.sqlite.SQLiteDataSource;
  */
 class JDBCBackend extends Backend {
 
-    final DataSource db;
+    final ConnectionPool writers;
+    final ConnectionPool readers;
 
     JDBCBackend(GeoPkgOpts opts) {
-        db = createDataSource(opts);
+        writers = createPool(opts, false);
+        readers = createPool(opts, true);
     }
 
-    DataSource createDataSource(GeoPkgOpts opts) {
-        SQLiteDataSource dataSource = new SQLiteDataSource();
+    ConnectionPool createPool(final GeoPkgOpts opts, boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        if (opts.isWal() && !readOnly) {
+            // readers pick up the journal mode from the database file
+            config.setJournalMode(JournalMode.WAL);
+        }
+
+        SQLiteDataSource dataSource = new SQLiteDataSource(config);
         dataSource.setUrl("jdbc:sqlite:" + opts.getFile().getPath());
-        return dataSource;
+        return new ConnectionPool(dataSource, opts.getMaxConnections()) {
+            @Override
+            protected void init(Connection cx) throws SQLException {
+                Statement st = cx.createStatement();
+                try {
+                    st.execute(String.format(Locale.ROOT, "PRAGMA mmap_size = %d", opts.getMmapSize()));
+                }
+                finally {
+                    st.close();
+                }
+                // required by the spatial index triggers
+                GeoPkgFunctions.register(cx);
+            }
+        };
     }
 
     @Override
     public JDBCSession session() throws IOException {
-        return new JDBCSession();
+        return new JDBCSession(writers);
+    }
+
+    @Override
+    public JDBCSession readOnlySession() throws IOException {
+        return new JDBCSession(readers);
     }
 
     @Override
@@ -98,20 +127,19 @@ class JDBCBackend extends Backend {
     }
 
     public void close() throws IOException {
-        // nothing to do
+        writers.close();
+        readers.close();
     }
 
     class JDBCSession extends Backend.Session {
 
+        final PooledConnection pooled;
         final Connection connection;
         Statement statement;
 
-        JDBCSession() throws IOException {
-            try {
-                connection = open(db.getConnection());
-            } catch (SQLException ex) {
-                throw new IOException(ex);
-            }
+        JDBCSession(ConnectionPool pool) throws IOException {
+            pooled = open(pool.acquire());
+            connection = pooled.connection();
         }
 
         @Override
@@ -131,8 +159,9 @@ class JDBCBackend extends Backend {
         @Override
         public void execute(String sql) throws IOException {
             log(sql);
+            Statement statement = null;
             try {
-                Statement statement = connection.createStatement();
+                statement = connection.createStatement();
                 statement.execute(sql);
             } catch (SQLException ex) {
                 throw new IOException(ex);
@@ -143,9 +172,10 @@ class JDBCBackend extends Backend {
 
         PreparedStatement prepare(String sql, Object[] args) throws IOException {
             log(sql, args);
+            PreparedStatement ps = null;
             try {
                 GeoPkgGeomWriter writer = new GeoPkgGeomWriter();
-                PreparedStatement ps = open(connection.prepareStatement(sql));
+                ps = pooled.prepare(sql);
                 for (int i = 0; i < args.length; i++) {
                     Object arg = args[i];
                     if (arg instanceof Geometry) {
@@ -155,26 +185,30 @@ class JDBCBackend extends Backend {
                 }
                 return ps;
             } catch (SQLException ex) {
+                closeSafe(ps);
                 throw new IOException(ex);
             }
         }
 
         @Override
         public void executePrepared(String sql, Object[] args) throws IOException {
+            PreparedStatement ps = prepare(sql, args);
             try {
-                prepare(sql, args).execute();
+                ps.execute();
             } catch (SQLException ex) {
                 throw new IOException(ex);
             } finally {
-                closeSafe(statement);
+                pooled.recycle(sql, ps);
             }
         }
 
         @Override
         public Results queryPrepared(String sql, Object... args) throws IOException {
+            PreparedStatement ps = prepare(sql, args);
             try {
-                return new JDBCResults(prepare(sql, args).executeQuery());
+                return new JDBCResults(ps.executeQuery(), pooled, sql, ps);
             } catch (SQLException ex) {
+                pooled.recycle(sql, ps);
                 throw new IOException(ex);
             }
         }
@@ -246,9 +280,22 @@ class JDBCBackend extends Backend {
     // note column indices are zero-based
     class JDBCResults extends Backend.Results {
         final ResultSet results;
+        final PooledConnection pooled;
+        final String sql;
+        final PreparedStatement statement;
 
         JDBCResults(ResultSet results) {
+            this(results, null, null, null);
+        }
+
+        /**
+         * Results of a cached prepared statement, handed back to the connection on close.
+         */
+        JDBCResults(ResultSet results, PooledConnection pooled, String sql, PreparedStatement statement) {
             this.results = results;
+            this.pooled = pooled;
+            this.sql = sql;
+            this.statement = statement;
         }
 
         @Override
@@ -327,6 +374,11 @@ class JDBCBackend extends Backend {
 
         @Override
         protected void closeInternal() throws Exception {
+            if (pooled != null) {
+                closeSafe(results);
+                pooled.recycle(sql, statement);
+                return;
+            }
             closeSafe(results.getStatement());
             closeSafe(results);
         }
@@ -49,11 +49,13 @@ class Flags {
     }
 
     boolean empty() {
-        return (b | EMPTY_MASK) == 1;
+        return (b & EMPTY_MASK) != 0;
     }
 
     Flags empty(boolean empty) {
-        b |= ((byte) (empty ? 1 : 0) & EMPTY_MASK);
+        if (empty) {
+            b |= EMPTY_MASK;
+        }
         return this;
     }
 
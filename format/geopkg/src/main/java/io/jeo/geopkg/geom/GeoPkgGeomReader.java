@@ -16,6 +16,8 @@ package io.jeo.geopkg.geom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
@@ -36,6 +38,44 @@ public class GeoPkgGeomReader {
         return read(new InputStreamInStream(in));
     }
     
+    /**
+     * Reads the envelope of an encoded geometry without decoding it when possible, from the header of the
+     * geometry or for points from their coordinate. Other geometries without an envelope in the header
+     * are decoded.
+     *
+     * @return The envelope, or <code>null</code> if the geometry is empty.
+     */
+    public Envelope envelope(byte[] bytes) throws IOException {
+        ByteArrayInStream input = new ByteArrayInStream(bytes);
+        Header h = readHeader(input);
+        if (h.flags.empty()) {
+            return null;
+        }
+        if (h.envelope != null) {
+            return h.envelope;
+        }
+
+        // points are written without an envelope, read the coordinate straight from the wkb
+        int off = 8 + h.flags.envelopeIndicator().length;
+        if (bytes.length >= off + 21) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            buf.order(bytes[off] == 1 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+            int type = buf.getInt(off + 1);
+            if ((type & 0xffff) % 1000 == 1) {
+                double x = buf.getDouble(off + 5), y = buf.getDouble(off + 13);
+                return Double.isNaN(x) || Double.isNaN(y) ? null : new Envelope(x, x, y, y);
+            }
+        }
+
+        try {
+            Geometry g = new WKBReader().read(input);
+            return g.isEmpty() ? null : g.getEnvelopeInternal();
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+    }
+
     Geometry read(InStream input) throws IOException {
         // read the header
         Header h = readHeader(input);
@@ -115,7 +155,10 @@ public class GeoPkgGeomReader {
                 din.readDouble();
             }
     
-            h.envelope = new Envelope(x1, x2, y1, y2);
+            // empty geometries may be written with a null or NaN envelope
+            if (x1 <= x2 && y1 <= y2) {
+                h.envelope = new Envelope(x1, x2, y1, y2);
+            }
         }
         return h;
     }
@@ -20,6 +20,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -37,11 +38,16 @@ import io.jeo.vector.Schema;
 import io.jeo.vector.SchemaBuilder;
 import io.jeo.geom.Geom;
 import io.jeo.geopkg.Entry.DataType;
+import io.jeo.geopkg.geom.GeoPkgGeomReader;
+import io.jeo.geopkg.geom.GeoPkgGeomWriter;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Point;
 import java.io.IOException;
@@ -220,6 +226,221 @@ public class GeoPkgFeatureTest extends GeoPkgTestSupport {
         }
     }
     
+    @Test
+    public void testSpatialIndex() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Bounds(-180, 180, -90, 90));
+        geopkg.create(entry, schema);
+        assertTrue(entry.hasSpatialIndex());
+
+        for (int i = 0; i < 10; i++) {
+            geopkg.insert(entry, new ListFeature(schema, Geom.point(i, i), "widget" + i), null);
+        }
+        assertEquals(10, count("SELECT count(*) FROM rtree_widgets_geometry"));
+        assertEquals(3, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5))));
+
+        // move a widget
+        FeatureWriteCursor c = geopkg.update(entry, new VectorQuery().filter("name = 'widget0'"));
+        assertTrue(c.hasNext());
+        c.next().put("geometry", Geom.point(3.3, 3.3));
+        c.write().close();
+        assertEquals(4, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5))));
+        assertEquals(0, geopkg.count(entry, new VectorQuery().bounds(new Bounds(-0.5, 0.5, -0.5, 0.5))));
+
+        // remove one
+        c = geopkg.update(entry, new VectorQuery().filter("name = 'widget3'"));
+        assertTrue(c.hasNext());
+        c.next();
+        c.remove().close();
+        assertEquals(9, count("SELECT count(*) FROM rtree_widgets_geometry"));
+        assertEquals(3, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5))));
+
+        // bounds combined with a filter and paging
+        assertEquals(1, geopkg.count(entry,
+            new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5)).filter("name = 'widget0'")));
+        assertEquals(2, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5)).limit(2)));
+    }
+
+    @Test
+    public void testReadLazyGeometry() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        Cursor<Feature> c = geopkg.read(entry, new VectorQuery().filter("STATE_NAME = 'Texas'"));
+        try {
+            assertTrue(c.hasNext());
+            GeoPkgFeature f = (GeoPkgFeature) c.next();
+            assertNotNull(f.encoded);
+            assertEquals("Texas", f.get("STATE_NAME"));
+            assertNotNull(f.encoded);
+
+            assertTrue(f.geometry() instanceof MultiPolygon);
+            assertNull(f.encoded);
+        }
+        finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testReadBoundsWithoutGeometry() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        Bounds bbox = new Bounds(-106, -94, 26, 36);
+
+        long expected = geopkg.count(entry, new VectorQuery().bounds(bbox));
+        assertTrue(expected > 0 && expected < 49);
+        assertEquals(expected, geopkg.read(entry, new VectorQuery().bounds(bbox).fields("STATE_NAME")).count());
+    }
+
+    @Test
+    public void testPointEnvelope() throws Exception {
+        GeoPkgGeomReader reader = new GeoPkgGeomReader();
+        GeoPkgGeomWriter writer = new GeoPkgGeomWriter();
+
+        assertEquals(new Envelope(1, 1, 2, 2), reader.envelope(writer.write(Geom.point(1, 2))));
+        assertEquals(new Envelope(0, 2, 0, 1),
+            reader.envelope(writer.write(Geom.build().points(0, 0, 2, 1).toLineString())));
+        assertNull(reader.envelope(writer.write(new GeometryFactory().createLineString(new Coordinate[0]))));
+    }
+
+    @Test
+    public void testCreateSpatialIndex() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        Bounds bbox = new Bounds(-106, -94, 26, 36);
+
+        long expected = geopkg.count(entry, new VectorQuery().bounds(bbox));
+        assertTrue(expected > 0);
+
+        geopkg.createSpatialIndex(entry);
+        assertEquals(49, count("SELECT count(*) FROM rtree_states_geom"));
+
+        // a fresh entry picks up the existing index
+        entry = geopkg.feature("states");
+        assertEquals(expected, geopkg.count(entry, new VectorQuery().bounds(bbox)));
+        assertTrue(entry.hasSpatialIndex());
+    }
+
+    @Test
+    public void testBulkLoad() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Bounds(0, 1, 0, 1));
+        geopkg.create(entry, schema);
+
+        GeoPkgBulkAppendCursor c = geopkg.bulkLoad(entry, new GeoPkgBulkLoad().batchSize(7).commitInterval(20));
+        for (int i = 0; i < 100; i++) {
+            c.next().put("geometry", Geom.point(i, i)).put("name", "widget" + i);
+            c.write();
+        }
+        c.close();
+        assertEquals(100, c.count());
+
+        assertEquals(100, geopkg.count(entry, new VectorQuery()));
+        assertEquals(100, count("SELECT count(*) FROM rtree_widgets_geometry"));
+        assertEquals(3, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5))));
+        assertEquals(new Bounds(0, 99, 0, 99), geopkg.feature("widgets").getBounds());
+
+        // index maintenance is back in place for regular inserts
+        geopkg.insert(entry, new ListFeature(schema, Geom.point(2.2, 2.2), "widget"), null);
+        assertEquals(4, geopkg.count(entry, new VectorQuery().bounds(new Bounds(1.5, 4.5, 1.5, 4.5))));
+    }
+
+    @Test
+    public void testBulkLoadAbort() throws Exception {
+        Schema schema = new SchemaBuilder("widgets").field("geometry", Point.class)
+            .field("name", String.class).schema();
+
+        FeatureEntry entry = new FeatureEntry();
+        entry.setSrid(4326);
+        entry.setBounds(new Bounds(0, 1, 0, 1));
+        geopkg.create(entry, schema);
+
+        // nothing committed, the rollback restores the trigger
+        GeoPkgBulkAppendCursor c = geopkg.bulkLoad(entry, new GeoPkgBulkLoad().commitInterval(5));
+        for (int i = 0; i < 3; i++) {
+            c.next().put("geometry", Geom.point(i, i)).put("name", "widget" + i);
+            c.write();
+        }
+        c.abort();
+        assertEquals(0, geopkg.count(entry, new VectorQuery()));
+        assertEquals(1, count("SELECT count(*) FROM sqlite_master WHERE name = 'rtree_widgets_geometry_insert'"));
+
+        // committed features are indexed
+        c = geopkg.bulkLoad(entry, new GeoPkgBulkLoad().commitInterval(5));
+        for (int i = 0; i < 7; i++) {
+            c.next().put("geometry", Geom.point(i, i)).put("name", "widget" + i);
+            c.write();
+        }
+        c.abort();
+        assertEquals(5, geopkg.count(entry, new VectorQuery()));
+        assertEquals(5, count("SELECT count(*) FROM rtree_widgets_geometry"));
+        assertEquals(1, count("SELECT count(*) FROM sqlite_master WHERE name = 'rtree_widgets_geometry_insert'"));
+    }
+
+    @Test
+    public void testRepairSpatialIndex() throws Exception {
+        FeatureEntry entry = geopkg.feature("states");
+        geopkg.createSpatialIndex(entry);
+
+        // a load that died with the insert trigger dropped
+        geopkg.backend.exec("DROP TRIGGER rtree_states_geom_insert");
+        geopkg.backend.exec("INSERT INTO states (geom, STATE_ABBR) SELECT geom, 'XX' FROM states WHERE STATE_ABBR = 'TX'");
+        assertEquals(49, count("SELECT count(*) FROM rtree_states_geom"));
+        geopkg.close();
+
+        geopkg = GeoPackage.open(geopkg.file().toPath());
+        assertEquals(1, count("SELECT count(*) FROM sqlite_master WHERE name = 'rtree_states_geom_insert'"));
+        assertEquals(50, count("SELECT count(*) FROM rtree_states_geom"));
+    }
+
+    @Test
+    public void testConnections() throws Exception {
+        Backend.Results rs = geopkg.rawQuery("PRAGMA journal_mode");
+        try {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(0));
+        } finally {
+            rs.close();
+        }
+
+        // reads don't wait for an open write transaction
+        Transaction tx = ((Transactional) geopkg.get("states")).transaction(null);
+        FeatureWriteCursor c = geopkg.update(geopkg.feature("states"),
+            new VectorQuery().filter("STATE_ABBR = 'TX'").transaction(tx));
+        assertTrue(c.hasNext());
+        c.next().put("STATE_NAME", "Tejas");
+        c.write();
+        assertEquals(0, geopkg.count(geopkg.feature("states"), new VectorQuery().filter("STATE_NAME = 'Tejas'")));
+        tx.commit();
+        assertEquals(1, geopkg.count(geopkg.feature("states"), new VectorQuery().filter("STATE_NAME = 'Tejas'")));
+
+        Backend.Session session = geopkg.backend.readOnlySession();
+        try {
+            session.execute("DELETE FROM states");
+            fail("read only session allowed a write");
+        }
+        catch(IOException expected) {
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    long count(String sql) throws IOException {
+        Backend.Results rs = geopkg.rawQuery(sql);
+        try {
+            assertTrue(rs.next());
+            return rs.getLong(0);
+        } finally {
+            rs.close();
+        }
+    }
+
     private void assertCleanState(VectorDataset states) throws IOException {
         assertEquals(1, states.count(new VectorQuery().filter("STATE_ABBR = 'TX'")));
         assertEquals(49, states.count(new VectorQuery()));
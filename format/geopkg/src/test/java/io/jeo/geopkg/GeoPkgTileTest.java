@@ -27,6 +27,8 @@ import java.util.List;
 import org.apache.commons.io.FileUtils;
 import io.jeo.data.Cursor;
 import io.jeo.tile.Tile;
+import io.jeo.tile.TileGrid;
+import io.jeo.tile.TileWriteCursor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -70,4 +72,28 @@ public class GeoPkgTileTest extends GeoPkgTestSupport {
         assertNull(r.next());
     }
 
+    @Test
+    public void testWriteNewLevel() throws Exception {
+        TileEntry entry = geopkg.tile("tiles");
+        assertNull(entry.getTilePyramid().grid(2));
+
+        TileWriteCursor c = geopkg.update(entry);
+        c.next().z(2).x(7).y(3).data(new byte[]{1, 2, 3});
+        c.write().close();
+
+        TileGrid grid = entry.getTilePyramid().grid(2);
+        assertNotNull(grid);
+        assertEquals(Integer.valueOf(8), grid.width());
+        assertEquals(Integer.valueOf(4), grid.height());
+
+        Cursor<Tile> r = geopkg.read(entry, 2, 2, -1, -1, -1, -1);
+        try {
+            assertTrue(r.hasNext());
+            assertEquals(Integer.valueOf(7), r.next().x());
+            assertFalse(r.hasNext());
+        }
+        finally {
+            r.close();
+        }
+    }
 }
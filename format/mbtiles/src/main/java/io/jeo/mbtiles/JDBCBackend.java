@@ -25,10 +25,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-import javax.sql.DataSource;
-
 import io.jeo.util.Pair;
 import io.jeo.sql.Backend;
+import io.jeo.sql.ConnectionPool;
+import io.jeo.sql.PooledConnection;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
 import org.sqlite.SQLiteDataSource;
 
 /**
@@ -37,21 +39,46 @@ import org.sqlite.SQLiteDataSource;
  */
 class JDBCBackend extends Backend {
 
-    final DataSource db;
+    final ConnectionPool writers;
+    final ConnectionPool readers;
 
     JDBCBackend(MBTilesOpts opts) {
-        db = createDataSource(opts);
+        writers = createPool(opts, false);
+        readers = createPool(opts, true);
     }
 
-    DataSource createDataSource(MBTilesOpts opts) {
-        SQLiteDataSource dataSource = new SQLiteDataSource();
+    ConnectionPool createPool(final MBTilesOpts opts, boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        if (opts.wal() && !readOnly) {
+            // readers pick up the journal mode from the database file
+            config.setJournalMode(JournalMode.WAL);
+        }
+
+        SQLiteDataSource dataSource = new SQLiteDataSource(config);
         dataSource.setUrl("jdbc:sqlite:" + opts.file().getPath());
-        return dataSource;
+        return new ConnectionPool(dataSource, opts.maxConnections()) {
+            @Override
+            protected void init(Connection cx) throws SQLException {
+                Statement st = cx.createStatement();
+                try {
+                    st.execute(String.format(Locale.ROOT, "PRAGMA mmap_size = %d", opts.mmapSize()));
+                }
+                finally {
+                    st.close();
+                }
+            }
+        };
     }
 
     @Override
     public JDBCSession session() throws IOException {
-        return new JDBCSession();
+        return new JDBCSession(writers);
+    }
+
+    @Override
+    public JDBCSession readOnlySession() throws IOException {
+        return new JDBCSession(readers);
     }
 
     @Override
@@ -94,20 +121,19 @@ class JDBCBackend extends Backend {
     }
 
     public void close() throws IOException {
-        // nothing to do
+        writers.close();
+        readers.close();
     }
 
     class JDBCSession extends Backend.Session {
 
+        final PooledConnection pooled;
         final Connection connection;
         Statement statement;
 
-        JDBCSession() throws IOException {
-            try {
-                connection = open(db.getConnection());
-            } catch (SQLException ex) {
-                throw new IOException(ex);
-            }
+        JDBCSession(ConnectionPool pool) throws IOException {
+            pooled = open(pool.acquire());
+            connection = pooled.connection();
         }
 
         @Override
@@ -127,8 +153,9 @@ class JDBCBackend extends Backend {
         @Override
         public void execute(String sql) throws IOException {
             log(sql);
+            Statement statement = null;
             try {
-                Statement statement = connection.createStatement();
+                statement = connection.createStatement();
                 statement.execute(sql);
             } catch (SQLException ex) {
                 throw new IOException(ex);
@@ -139,34 +166,39 @@ class JDBCBackend extends Backend {
 
         PreparedStatement prepare(String sql, Object[] args) throws IOException {
             log(sql, args);
+            PreparedStatement ps = null;
             try {
-                PreparedStatement ps = open(connection.prepareStatement(sql));
+                ps = pooled.prepare(sql);
                 for (int i = 0; i < args.length; i++) {
                     Object arg = args[i];
                     ps.setObject(i + 1, arg);
                 }
                 return ps;
             } catch (SQLException ex) {
+                closeSafe(ps);
                 throw new IOException(ex);
             }
         }
 
         @Override
         public void executePrepared(String sql, Object[] args) throws IOException {
+            PreparedStatement ps = prepare(sql, args);
             try {
-                prepare(sql, args).execute();
+                ps.execute();
             } catch (SQLException ex) {
                 throw new IOException(ex);
             } finally {
-                closeSafe(statement);
+                pooled.recycle(sql, ps);
             }
         }
 
         @Override
         public Results queryPrepared(String sql, Object... args) throws IOException {
+            PreparedStatement ps = prepare(sql, args);
             try {
-                return new JDBCResults(prepare(sql, args).executeQuery());
+                return new JDBCResults(ps.executeQuery(), pooled, sql, ps);
             } catch (SQLException ex) {
+                pooled.recycle(sql, ps);
                 throw new IOException(ex);
             }
         }
@@ -238,9 +270,22 @@ class JDBCBackend extends Backend {
     // note column indices are zero-based
     class JDBCResults extends Backend.Results {
         final ResultSet results;
+        final PooledConnection pooled;
+        final String sql;
+        final PreparedStatement statement;
 
         JDBCResults(ResultSet results) {
+            this(results, null, null, null);
+        }
+
+        /**
+         * Results of a cached prepared statement, handed back to the connection on close.
+         */
+        JDBCResults(ResultSet results, PooledConnection pooled, String sql, PreparedStatement statement) {
             this.results = results;
+            this.pooled = pooled;
+            this.sql = sql;
+            this.statement = statement;
         }
 
         @Override
@@ -319,6 +364,11 @@ class JDBCBackend extends Backend {
 
         @Override
         protected void closeInternal() throws Exception {
+            if (pooled != null) {
+                closeSafe(results);
+                pooled.recycle(sql, statement);
+                return;
+            }
             closeSafe(results.getStatement());
             closeSafe(results);
         }
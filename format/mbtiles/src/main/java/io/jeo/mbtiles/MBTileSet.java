@@ -57,7 +57,7 @@ public class MBTileSet implements TileDataset, FileData {
     public MBTileSet(Backend backend, MBTilesOpts opts) {
         this.backend = backend;
         this.opts = opts;
-        tileFormat = queryForTileFormat();
+        tileFormat = opts.file().exists() ? queryForTileFormat() : PNG;
     }
 
     public MBTileSet(File file) {
@@ -252,6 +252,15 @@ public class MBTileSet implements TileDataset, FileData {
         return new TileCursor(results);
     }
 
+    /**
+     * Returns a cursor for writing tiles, creating the tile tables if the file doesn't have them yet. See
+     * {@link MBTileWriteCursor}.
+     */
+    @Override
+    public MBTileWriteCursor update() throws IOException {
+        return new MBTileWriteCursor(this, backend.session());
+    }
+
     @Override
     public void close() {
         try {
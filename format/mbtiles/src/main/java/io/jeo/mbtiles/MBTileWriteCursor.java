@@ -0,0 +1,171 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.mbtiles;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import io.jeo.sql.Backend.Results;
+import io.jeo.sql.Backend.Session;
+import io.jeo.tile.Tile;
+import io.jeo.tile.TileWriteCursor;
+
+import static io.jeo.mbtiles.MBTileSet.METADATA;
+import static io.jeo.mbtiles.MBTileSet.TILES;
+
+/**
+ * Writes tiles to an MBTiles file, committing every {@link #BATCH_SIZE} tiles.
+ * <p>
+ * The tile and metadata tables are created if the file doesn't have them yet. On close the
+ * <tt>minzoom</tt> and <tt>maxzoom</tt> metadata are updated, and <tt>name</tt> and <tt>format</tt> are
+ * filled in when missing.
+ * </p>
+ */
+public class MBTileWriteCursor extends TileWriteCursor {
+
+    /**
+     * Number of tiles written per transaction.
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    static final String INSERT = String.format(Locale.ROOT,
+        "INSERT INTO %s (zoom_level, tile_column, tile_row, tile_data) VALUES (?,?,?,?)", TILES);
+    static final String DELETE = String.format(Locale.ROOT,
+        "DELETE FROM %s WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?", TILES);
+
+    MBTileSet tileset;
+    Session session;
+
+    /* mime type of the first tile written */
+    String mimeType;
+
+    int pending;
+    Tile next;
+
+    MBTileWriteCursor(MBTileSet tileset, Session session) throws IOException {
+        this.tileset = tileset;
+        this.session = session;
+
+        boolean ok = false;
+        try {
+            createTables();
+            session.beginTransaction();
+            ok = true;
+        }
+        finally {
+            if (!ok) {
+                session.close();
+            }
+        }
+    }
+
+    void createTables() throws IOException {
+        Results rs = session.queryPrepared("SELECT count(*) FROM sqlite_master WHERE name = ?", TILES);
+        boolean exists;
+        try {
+            exists = rs.next() && rs.getLong(0) > 0;
+        }
+        finally {
+            rs.close();
+        }
+
+        if (!exists) {
+            session.execute(String.format(Locale.ROOT,
+                "CREATE TABLE %s (zoom_level integer, tile_column integer, tile_row integer, tile_data blob)", TILES));
+            session.execute(String.format(Locale.ROOT,
+                "CREATE UNIQUE INDEX tile_index ON %s (zoom_level, tile_column, tile_row)", TILES));
+        }
+        session.execute(String.format(Locale.ROOT, "CREATE TABLE IF NOT EXISTS %s (name text, value text)", METADATA));
+    }
+
+    @Override
+    public Tile next() throws IOException {
+        return next = new Tile();
+    }
+
+    @Override
+    public MBTileWriteCursor write() throws IOException {
+        Tile t = check(next);
+        if (mimeType == null) {
+            mimeType = t.mimeType();
+        }
+        session.executePrepared(DELETE, t.z(), t.x(), t.y());
+        session.executePrepared(INSERT, t.z(), t.x(), t.y(), t.data());
+        return flush();
+    }
+
+    @Override
+    public MBTileWriteCursor remove() throws IOException {
+        Tile t = check(next);
+        session.executePrepared(DELETE, t.z(), t.x(), t.y());
+        return flush();
+    }
+
+    MBTileWriteCursor flush() throws IOException {
+        if (++pending == BATCH_SIZE) {
+            session.endTransaction(true);
+            pending = 0;
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (session == null) {
+            return;
+        }
+
+        boolean complete = false;
+        try {
+            updateMetadata();
+            complete = true;
+        }
+        finally {
+            session.endTransaction(complete);
+            session.close();
+            session = null;
+        }
+        tileset.tileFormat = tileset.queryForTileFormat();
+    }
+
+    void updateMetadata() throws IOException {
+        Results rs = session.query(String.format(Locale.ROOT,
+            "SELECT min(zoom_level), max(zoom_level) FROM %s", TILES));
+        try {
+            if (rs.next() && rs.getObject(0, Integer.class) != null) {
+                metadata("minzoom", rs.getString(0), true);
+                metadata("maxzoom", rs.getString(1), true);
+            }
+        }
+        finally {
+            rs.close();
+        }
+
+        metadata("name", tileset.name(), false);
+        if (mimeType != null) {
+            metadata("format", MBTileSet.JPEG.equals(mimeType) || "image/jpg".equals(mimeType) ? "jpg" : "png",
+                false);
+        }
+    }
+
+    void metadata(String name, String value, boolean replace) throws IOException {
+        if (replace) {
+            session.executePrepared(String.format(Locale.ROOT, "DELETE FROM %s WHERE name = ?", METADATA), name);
+        }
+        session.executePrepared(String.format(Locale.ROOT,
+            "INSERT INTO %s (name, value) SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM %s WHERE name = ?)",
+            METADATA, METADATA), name, value, name);
+    }
+}
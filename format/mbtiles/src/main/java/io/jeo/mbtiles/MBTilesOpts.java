@@ -22,7 +22,20 @@ import static io.jeo.data.FileDriver.FILE;
 
 public class MBTilesOpts {
 
+    /**
+     * Default maximum number of connections, per pool, to the database.
+     */
+    public static final int MAX_CONNECTIONS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Default size in bytes of the memory mapped portion of the database.
+     */
+    public static final long MMAP_SIZE = 256 * 1024 * 1024;
+
     File file;
+    int maxConnections = MAX_CONNECTIONS;
+    boolean wal = true;
+    long mmapSize = MMAP_SIZE;
 
     public static MBTilesOpts fromMap(Map<?,Object> map) {
         return new MBTilesOpts(FILE.get(map));
@@ -36,6 +49,44 @@ public class MBTilesOpts {
         return file;
     }
 
+    /**
+     * Sets the maximum number of connections handed out at once, separately for reading and writing.
+     */
+    public MBTilesOpts maxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets whether the database is switched to write-ahead logging, allowing reads to proceed while a
+     * write is in progress.
+     */
+    public MBTilesOpts wal(boolean wal) {
+        this.wal = wal;
+        return this;
+    }
+
+    public boolean wal() {
+        return wal;
+    }
+
+    /**
+     * Sets the maximum number of bytes of the database memory mapped by each connection, <tt>0</tt>
+     * disables memory mapping.
+     */
+    public MBTilesOpts mmapSize(long mmapSize) {
+        this.mmapSize = mmapSize;
+        return this;
+    }
+
+    public long mmapSize() {
+        return mmapSize;
+    }
+
     public Map<Key<?>,Object> toMap() {
         Map<Key<?>,Object> map = new LinkedHashMap<Key<?>, Object>();
         map.put(FILE, file);
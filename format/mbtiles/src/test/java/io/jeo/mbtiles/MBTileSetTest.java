@@ -20,17 +20,29 @@ import io.jeo.proj.Proj;
 import io.jeo.tile.Tile;
 import io.jeo.tile.TileGrid;
 import io.jeo.tile.TilePyramid;
+import io.jeo.tile.TileWriteCursor;
+import io.jeo.sql.Backend;
 import io.jeo.util.Key;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MBTileSetTest {
 
@@ -132,4 +144,87 @@ public class MBTileSetTest {
         assertEquals(5, tiles.count());
         tiles.close();
     }
+
+    @Test
+    public void readTilesConcurrently() throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> reads = new ArrayList<Future<Long>>();
+            for (int i = 0; i < 100; i++) {
+                reads.add(exec.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        Cursor<Tile> tiles = tileset.read(0,1,0,1,0,1);
+                        try {
+                            return tileset.read(1, 1, 0).data().length > 0 ? tiles.count() : -1L;
+                        }
+                        finally {
+                            tiles.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<Long> read : reads) {
+                assertEquals(5L, read.get().longValue());
+            }
+        }
+        finally {
+            exec.shutdown();
+        }
+
+        // connections are reused rather than opened per read
+        JDBCBackend backend = (JDBCBackend) tileset.backend;
+        assertTrue(backend.readers.idle() <= backend.readers.max());
+        assertTrue(backend.readers.idle() > 0);
+    }
+
+    @Test
+    public void writeTiles() throws Exception {
+        Path dir = Files.createTempDirectory("mbtiles");
+        MBTileSet mbtiles = MBTiles.open(dir.resolve("new.mbtiles"));
+        try {
+            byte[] jpg = new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1, 2, 3};
+
+            TileWriteCursor c = mbtiles.update();
+            for (int z = 0; z < 6; z++) {
+                int d = 1 << z;
+                for (int x = 0; x < d; x++) {
+                    for (int y = 0; y < d; y++) {
+                        c.next().z(z).x(x).y(y).data(jpg);
+                        c.write();
+                    }
+                }
+            }
+            c.close();
+
+            assertEquals(6, mbtiles.pyramid().grids().size());
+            assertEquals("image/jpeg", mbtiles.getTileFormat());
+            assertEquals(1024, mbtiles.read(5, 5, -1, -1, -1, -1).count());
+
+            Backend.Results rs = mbtiles.backend.query("SELECT value FROM metadata WHERE name = 'maxzoom'");
+            try {
+                assertTrue(rs.next());
+                assertEquals("5", rs.getString(0));
+            }
+            finally {
+                rs.close();
+            }
+
+            // replace and remove
+            byte[] png = new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 1};
+            c = mbtiles.update();
+            c.next().z(1).x(1).y(1).data(png);
+            c.write();
+            c.next().z(1).x(0).y(0);
+            c.remove().close();
+
+            assertEquals(3, mbtiles.read(1, 1, -1, -1, -1, -1).count());
+            assertArrayEquals(png, mbtiles.read(1, 1, 1).data());
+            assertNull(mbtiles.read(1, 0, 0));
+        }
+        finally {
+            mbtiles.close();
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
 }
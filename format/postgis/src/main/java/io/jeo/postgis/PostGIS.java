@@ -122,7 +122,7 @@ public class PostGIS implements VectorDriver<PostGISWorkspace>{
     }
 
     static final Set<Capability> CAPABILITIES =
-        set(CREATE, DESTROY, APPEND, UPDATE, BOUND, LIMIT, OFFSET, FILTER, FIELD);
+        set(CREATE, DESTROY, APPEND, UPDATE, BOUND, LIMIT, OFFSET, FILTER, FIELD, SORT);
 
     @Override
     public Set<Capability> capabilities() {
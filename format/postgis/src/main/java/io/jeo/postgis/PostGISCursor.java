@@ -18,9 +18,11 @@ import com.vividsolutions.jts.io.WKBReader;
 import io.jeo.sql.PrimaryKey;
 import io.jeo.sql.PrimaryKeyColumn;
 import io.jeo.vector.Feature;
+import io.jeo.vector.FeatureBatch;
 import io.jeo.vector.FeatureCursor;
 import io.jeo.vector.ListFeature;
 import io.jeo.vector.MapFeature;
+import io.jeo.vector.SchemaBuilder;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -67,27 +69,50 @@ public class PostGISCursor extends FeatureCursor {
                 Map<String,Object> map = new LinkedHashMap<>();
 
                 for (int i = 0; i < md.getColumnCount(); i++) {
-                    Object obj = rs.getObject(i+1);
-                    String col = md.getColumnName(i+1);
+                    map.put(md.getColumnName(i+1), value(md, i));
+                }
+
+                next = new MapFeature(fid(), map);
+                return next;
+            }
+            catch(Exception e) {
+                handle(e);
+            }
+            finally {
+                hasNext = null;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public FeatureBatch nextBatch(int n) throws IOException {
+        FeatureBatch batch = null;
+        int[] index = null;
 
-                    if (dataset.schema().field(col).geometry()) {
-                        obj = new WKBReader().read(rs.getBytes(i+1));
+        while ((batch == null || !batch.isFull()) && hasNext()) {
+            try {
+                ResultSetMetaData md = rs.getMetaData();
+                if (batch == null) {
+                    List<String> cols = new ArrayList<>();
+                    for (int i = 0; i < md.getColumnCount(); i++) {
+                        cols.add(md.getColumnName(i+1));
                     }
 
-                    map.put(col, obj);
+                    batch = new FeatureBatch(SchemaBuilder.select(dataset.schema(), cols), n);
+                    index = new int[cols.size()];
+                    for (int i = 0; i < index.length; i++) {
+                        index[i] = batch.schema().indexOf(cols.get(i));
+                    }
                 }
 
-                PrimaryKey key = dataset.getTable().primaryKey();
-                StringBuilder sb = new StringBuilder();
-                for (PrimaryKeyColumn pkcol : key.getColumns()) {
-                    sb.append(rs.getObject(pkcol.getName())).append(".");
-                }
-                if (!key.getColumns().isEmpty()) {
-                    sb.setLength(sb.length()-1);
+                int row = batch.add(fid());
+                for (int i = 0; i < index.length; i++) {
+                    if (index[i] > -1) {
+                        batch.set(row, index[i], value(md, i));
+                    }
                 }
-
-                next = new MapFeature(sb.toString(), map);
-                return next;
             }
             catch(Exception e) {
                 handle(e);
@@ -96,8 +121,29 @@ public class PostGISCursor extends FeatureCursor {
                 hasNext = null;
             }
         }
+        return batch;
+    }
 
-        return null;
+    Object value(ResultSetMetaData md, int i) throws Exception {
+        Object obj = rs.getObject(i+1);
+        String col = md.getColumnName(i+1);
+
+        if (dataset.schema().field(col).geometry()) {
+            obj = new WKBReader().read(rs.getBytes(i+1));
+        }
+        return obj;
+    }
+
+    String fid() throws Exception {
+        PrimaryKey key = dataset.getTable().primaryKey();
+        StringBuilder sb = new StringBuilder();
+        for (PrimaryKeyColumn pkcol : key.getColumns()) {
+            sb.append(rs.getObject(pkcol.getName())).append(".");
+        }
+        if (!key.getColumns().isEmpty()) {
+            sb.setLength(sb.length()-1);
+        }
+        return sb.toString();
     }
 
     @Override
@@ -31,6 +31,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import io.jeo.data.Driver;
+import io.jeo.data.Sort;
 import io.jeo.geom.Bounds;
 import io.jeo.vector.FeatureAppendCursor;
 import io.jeo.vector.FeatureCursor;
@@ -136,6 +137,7 @@ public class PostGISDataset implements VectorDataset {
         // if filter refers to properties not in the schema, defer to CQL filter
         if (!missingProperties(q)) {
             encodeQuery(sql, q, qp, args);
+            encodePaging(sql, q, qp);
         }
         if (!Filters.isTrueOrNull(q.filter()) && qp.isFiltered()) {
             return pg.run(new DbOP<Long>() {
@@ -214,13 +216,20 @@ public class PostGISDataset implements VectorDataset {
             // if filter refers to properties not in the schema, defer to CQL filter
             if (!missingProperties(q)) {
                 encodeQuery(sql, q, qp, args);
+                encodeSort(sql, q, qp);
+                encodePaging(sql, q, qp);
+            }
+            else {
+                qp.warn(String.format(Locale.ROOT, "Filter %s references properties not in %s, reading all features",
+                    q.filter(), name()));
             }
 
             pg.logQuery(sql, args);
+            qp.nativeQuery(sql.toString());
 
             try {
                 PreparedStatement st = pg.prepareStatement(sql, args, cx);
-                return qp.apply(new PostGISCursor(st.executeQuery(), cx, this));
+                return qp.apply(new PostGISCursor(st.executeQuery(), cx, this), schema);
             }
             catch(SQLException e) {
                 cx.close();
@@ -295,6 +304,36 @@ public class PostGISDataset implements VectorDataset {
                 LOG.debug("Unable to natively encode filter", e);
             }
         }
+    }
+
+    void encodeSort(SQL sql, VectorQuery q, VectorQueryPlan qp) {
+        if (!q.isSorted()) {
+            return;
+        }
+
+        Schema schema = schema();
+        for (Sort s : q.sort()) {
+            Field f = schema.field(s.getProperty());
+            if (f == null || f.geometry()) {
+                // fall back to sorting in memory
+                return;
+            }
+        }
+
+        // nulls sort first, as they do in memory, postgres puts them last by default
+        sql.add(" ORDER BY ");
+        for (Sort s : q.sort()) {
+            sql.name(s.getProperty()).add(s.isAscending() ? " ASC NULLS FIRST" : " DESC NULLS LAST").add(", ");
+        }
+        sql.trim(2);
+        qp.sorted();
+    }
+
+    void encodePaging(SQL sql, VectorQuery q, VectorQueryPlan qp) {
+        if (!qp.canPage()) {
+            // paging must be applied after the in memory sort
+            return;
+        }
 
         Integer offset = q.offset();
         if (offset != null) {
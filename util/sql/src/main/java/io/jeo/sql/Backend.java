@@ -109,6 +109,16 @@ public abstract class Backend implements Closeable {
      */
     public abstract Session session() throws IOException;
 
+    /**
+     * Open a new Session that is only used for reading. Backends able to serve reads from dedicated
+     * connections override this, the default returns {@link #session()}.
+     * @return non-null Session ready for use
+     * @throws java.io.IOException if an error occurs
+     */
+    public Session readOnlySession() throws IOException {
+        return session();
+    }
+
     /**
      * Execute a SQL statement calling {@link String.format} with the provided query and
      * optional args.
@@ -177,7 +187,7 @@ public abstract class Backend implements Closeable {
      */
     public Results query(String query, Object... args) throws IOException {
         String sql = String.format(Locale.ROOT, query, args);
-        Session s = session();
+        Session s = readOnlySession();
         // chain the session to the query so it's closed, too
         return s.query(sql).closeSession(s);
     }
@@ -189,7 +199,7 @@ public abstract class Backend implements Closeable {
      * @throws java.io.IOException
      */
     public Results queryPrepared(String query, Object... args) throws IOException {
-        Session s = session();
+        Session s = readOnlySession();
         // chain the session to the query so it's closed, too
         return s.queryPrepared(query, args).closeSession(s);
     }
@@ -328,6 +338,7 @@ public abstract class Backend implements Closeable {
     public abstract class Results implements Closeable {
 
         private Session session;
+        private boolean closed;
 
         /**
          * Returns the current exception, throwing an exception if none set.
@@ -351,6 +362,11 @@ public abstract class Backend implements Closeable {
 
         @Override
         public final void close() {
+            // the session connection may be handed out again once closed
+            if (closed) {
+                return;
+            }
+            closed = true;
             try {
                 closeInternal();
             } catch (Exception ex) {
@@ -0,0 +1,221 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of JDBC connections.
+ * <p>
+ * At most <tt>max</tt> threads hold connections at a time, callers block for up to
+ * {@link #timeout(long)} milliseconds waiting for one to be released. The bound is soft: a thread that
+ * already holds a connection from the pool is never blocked so that nested sessions can not dead lock the
+ * pool, and is handed as many further connections as it asks for, opening new ones beyond <tt>max</tt> when
+ * none are idle. Released connections are kept open along with a cache of their prepared statements, see
+ * {@link PooledConnection}, at most <tt>max</tt> of them are kept idle.
+ * </p>
+ * <p>
+ * Subclasses may override {@link #init(Connection)} to configure newly opened connections.
+ * </p>
+ */
+public class ConnectionPool implements Closeable {
+
+    static Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Default time in milliseconds to wait for a connection.
+     */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    /**
+     * Default number of prepared statements cached per connection.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE = 32;
+
+    final DataSource db;
+    final int max;
+    final Semaphore permits;
+    final Deque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+
+    final ThreadLocal<AtomicInteger> held = new ThreadLocal<AtomicInteger>() {
+        @Override
+        protected AtomicInteger initialValue() {
+            return new AtomicInteger();
+        }
+    };
+
+    long timeout = DEFAULT_TIMEOUT;
+    int statementCache = DEFAULT_STATEMENT_CACHE;
+
+    volatile boolean closed;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param db The data source to obtain connections from.
+     * @param max The maximum number of threads holding connections at once.
+     */
+    public ConnectionPool(DataSource db, int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        this.db = db;
+        this.max = max;
+        this.permits = new Semaphore(max, true);
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for a connection before failing.
+     */
+    public ConnectionPool timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the number of prepared statements cached per connection, <tt>0</tt> disables caching.
+     */
+    public ConnectionPool statementCache(int statementCache) {
+        this.statementCache = statementCache;
+        return this;
+    }
+
+    /**
+     * The maximum number of threads holding connections at once, and of idle connections kept open.
+     */
+    public int max() {
+        return max;
+    }
+
+    /**
+     * The number of open connections waiting in the pool.
+     */
+    public synchronized int idle() {
+        return idle.size();
+    }
+
+    /**
+     * Obtains a connection from the pool, opening a new one if none are idle.
+     * <p>
+     * The connection must be returned with {@link PooledConnection#close()}. Only the first connection
+     * held by the calling thread counts against the bound of the pool.
+     * </p>
+     */
+    public PooledConnection acquire() throws IOException {
+        if (closed) {
+            throw new IOException("Connection pool is closed");
+        }
+
+        AtomicInteger count = held.get();
+        boolean permit = false;
+        if (count.get() == 0) {
+            try {
+                if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new IOException(String.format(
+                        "Timed out after %d ms waiting for one of %d connections", timeout, max));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for a connection", e);
+            }
+            permit = true;
+        }
+
+        try {
+            PooledConnection cx = poll();
+            if (cx == null) {
+                Connection c = db.getConnection();
+                try {
+                    init(c);
+                }
+                catch(SQLException e) {
+                    c.close();
+                    throw e;
+                }
+                cx = new PooledConnection(this, c, statementCache);
+            }
+            cx.permit = permit;
+            cx.owner = count;
+            count.incrementAndGet();
+            return cx;
+        }
+        catch(SQLException e) {
+            if (permit) {
+                permits.release();
+            }
+            throw new IOException(e);
+        }
+    }
+
+    synchronized PooledConnection poll() {
+        return idle.pollFirst();
+    }
+
+    /**
+     * Configures a newly opened connection before it is first used.
+     */
+    protected void init(Connection cx) throws SQLException {
+    }
+
+    void release(PooledConnection cx) {
+        cx.owner.decrementAndGet();
+        try {
+            if (!cx.reset() || !offer(cx)) {
+                cx.dispose();
+            }
+        }
+        finally {
+            if (cx.permit) {
+                permits.release();
+            }
+        }
+    }
+
+    synchronized boolean offer(PooledConnection cx) {
+        if (closed || idle.size() >= max) {
+            return false;
+        }
+        idle.addFirst(cx);
+        return true;
+    }
+
+    /**
+     * Closes all idle connections, connections in use are closed as they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        while (true) {
+            PooledConnection cx = poll();
+            if (cx == null) {
+                break;
+            }
+            cx.dispose();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.sql;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A connection handed out by a {@link ConnectionPool}.
+ * <p>
+ * Prepared statements obtained through {@link #prepare(String)} are checked out of a per connection
+ * cache and handed back with {@link #recycle(String, PreparedStatement)} once their results have been
+ * consumed, the least recently used statements are closed when the cache is full. Closing the connection
+ * returns it to the pool.
+ * </p>
+ */
+public class PooledConnection implements Closeable {
+
+    final ConnectionPool pool;
+    final Connection connection;
+    final Map<String,PreparedStatement> statements;
+
+    boolean permit;
+    AtomicInteger owner;
+
+    PooledConnection(ConnectionPool pool, Connection connection, final int cacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String,PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,PreparedStatement> eldest) {
+                if (size() > cacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The underlying connection.
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement for the sql, reusing a cached one if available.
+     * <p>
+     * The statement is checked out of the cache until passed to {@link #recycle(String, PreparedStatement)},
+     * so the same sql may be prepared more than once at a time.
+     * </p>
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.remove(sql);
+        return ps != null ? ps : connection.prepareStatement(sql);
+    }
+
+    /**
+     * Hands a statement obtained from {@link #prepare(String)} back to the cache, closing it if the cache
+     * already holds a statement for the sql.
+     */
+    public synchronized void recycle(String sql, PreparedStatement ps) {
+        try {
+            if (ps.isClosed() || statements.get(sql) == ps) {
+                return;
+            }
+            ps.clearParameters();
+            if (!statements.containsKey(sql)) {
+                statements.put(sql, ps);
+                return;
+            }
+        }
+        catch(SQLException e) {
+            ConnectionPool.LOG.debug("Error recycling statement", e);
+        }
+        closeQuietly(ps);
+    }
+
+    /**
+     * Returns the connection to the pool.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    /**
+     * Rolls back any open transaction, returning false if the connection is no longer usable.
+     */
+    synchronized boolean reset() {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        }
+        catch(SQLException e) {
+            ConnectionPool.LOG.debug("Error resetting connection", e);
+            return false;
+        }
+    }
+
+    synchronized void dispose() {
+        for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext();) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+        try {
+            connection.close();
+        }
+        catch(SQLException e) {
+            ConnectionPool.LOG.debug("Error closing connection", e);
+        }
+    }
+
+    static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        }
+        catch(SQLException e) {
+            ConnectionPool.LOG.debug("Error closing statement", e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/* Copyright 2015 The jeo project. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jeo.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sqlite.SQLiteDataSource;
+
+public class ConnectionPoolTest {
+
+    ConnectionPool pool;
+    ExecutorService exec;
+
+    @Before
+    public void setUp() {
+        SQLiteDataSource db = new SQLiteDataSource();
+        db.setUrl("jdbc:sqlite::memory:");
+
+        pool = new ConnectionPool(db, 1).timeout(100);
+        exec = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        exec.shutdownNow();
+        pool.close();
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        PooledConnection cx = pool.acquire();
+        try {
+            acquireOnOtherThread();
+            fail("acquired a connection from a full pool");
+        }
+        catch(ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage().startsWith("Timed out"));
+        }
+
+        cx.close();
+        acquireOnOtherThread();
+    }
+
+    @Test
+    public void testNestedAcquire() throws Exception {
+        PooledConnection cx1 = pool.acquire();
+        PooledConnection cx2 = pool.acquire();
+        assertNotSame(cx1.connection(), cx2.connection());
+
+        // other threads still wait for the first connection
+        try {
+            acquireOnOtherThread();
+            fail("acquired a connection from a full pool");
+        }
+        catch(ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        // only max connections are kept idle
+        cx2.close();
+        cx1.close();
+        assertEquals(1, pool.idle());
+        assertFalse(cx2.connection().isClosed());
+        assertTrue(cx1.connection().isClosed());
+
+        PooledConnection cx3 = pool.acquire();
+        assertSame(cx2.connection(), cx3.connection());
+        cx3.close();
+    }
+
+    @Test
+    public void testRollbackOnRelease() throws Exception {
+        PooledConnection cx = pool.acquire();
+        Connection c = cx.connection();
+        try (Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE widgets (id INTEGER)");
+        }
+
+        c.setAutoCommit(false);
+        try (Statement st = c.createStatement()) {
+            st.execute("INSERT INTO widgets VALUES (1)");
+        }
+        cx.close();
+
+        cx = pool.acquire();
+        assertSame(c, cx.connection());
+        assertTrue(c.getAutoCommit());
+        try (Statement st = c.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT count(*) FROM widgets");
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        cx.close();
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        pool.statementCache(1);
+        PooledConnection cx = pool.acquire();
+
+        // checked out statements are not handed out twice
+        PreparedStatement ps1 = cx.prepare("SELECT 1");
+        PreparedStatement ps2 = cx.prepare("SELECT 1");
+        assertNotSame(ps1, ps2);
+
+        // the cache holds one statement per sql
+        cx.recycle("SELECT 1", ps1);
+        cx.recycle("SELECT 1", ps2);
+        assertFalse(closed(ps1));
+        assertTrue(closed(ps2));
+        assertSame(ps1, cx.prepare("SELECT 1"));
+
+        // least recently used statements are closed when the cache is full
+        cx.recycle("SELECT 1", ps1);
+        PreparedStatement ps3 = cx.prepare("SELECT 2");
+        cx.recycle("SELECT 2", ps3);
+        assertTrue(closed(ps1));
+        assertSame(ps3, cx.prepare("SELECT 2"));
+        cx.close();
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        PooledConnection cx = pool.acquire();
+        pool.close();
+
+        // connections in use are closed when released
+        assertFalse(cx.connection().isClosed());
+        cx.close();
+        assertTrue(cx.connection().isClosed());
+
+        try {
+            pool.acquire();
+            fail("acquired a connection from a closed pool");
+        }
+        catch(IOException expected) {
+        }
+    }
+
+    /**
+     * The sqlite driver does not report closed statements from isClosed(), so try to run it instead.
+     */
+    boolean closed(PreparedStatement ps) {
+        try {
+            ps.executeQuery().close();
+            return false;
+        }
+        catch(SQLException e) {
+            return true;
+        }
+    }
+
+    void acquireOnOtherThread() throws Exception {
+        exec.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                pool.acquire().close();
+                return null;
+            }
+        }).get();
+    }
+}